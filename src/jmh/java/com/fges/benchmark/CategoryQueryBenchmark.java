@@ -0,0 +1,78 @@
+package com.fges.benchmark;
+
+import com.fges.core.CategorySummary;
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
+import com.fges.dao.CategoryIndexedGroceryListDAO;
+import com.fges.dao.GroceryListDAOFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Category queries answered through the sidecar index of a 1M-item file: the summary of every
+ * category, and the items of one category. "grouped" lists keep the items of a category together,
+ * so a category is read as one range; "shuffled" lists spread each category over the whole file.
+ * Every invocation opens a fresh DAO, as the CLI does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryQueryBenchmark {
+
+    @Param({"json", "csv"})
+    String format;
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"grouped", "shuffled"})
+    String layout;
+
+    private Path directory;
+    private String file;
+    private final GroceryItemFilter dairy = new GroceryItemFilter("dairy", null, 0, Long.MAX_VALUE);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        directory = Files.createTempDirectory("grocery-category-benchmark");
+        file = directory.resolve("groceries." + format).toString();
+        List<GroceryItem> items = GroceryDataset.items(size, 42);
+        if (layout.equals("grouped")) {
+            items.sort(Comparator.comparing(GroceryItem::getCategory));
+        }
+        GroceryListDAOFactory.create(format, file).save(items);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /** Counts and totals every category from the index alone. */
+    @Benchmark
+    public List<CategorySummary> summarize() throws IOException {
+        return ((CategoryIndexedGroceryListDAO) GroceryListDAOFactory.create(format, file)).summarize();
+    }
+
+    /** Reads the items of one category, about 5% of the list. */
+    @Benchmark
+    public long scanCategory(Blackhole blackhole) throws IOException {
+        return ((CategoryIndexedGroceryListDAO) GroceryListDAOFactory.create(format, file)).scan(dairy, blackhole::consume);
+    }
+}
@@ -0,0 +1,137 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import com.fges.dao.IncrementalGroceryListDAO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of one category by three threads while a fourth keeps adding items, through the
+ * copy-on-write category views of {@link GroceryListManager} against a monitor-based baseline,
+ * where reads and writes share one lock and every read copies its category under it.
+ * The manager writes to a DAO whose appends do nothing, so both sides only pay for memory and locking.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryReadBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private GroceryListManager manager;
+    private MonitorList monitor;
+    private List<GroceryItem> items;
+    private String category;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        items = GroceryDataset.items(size, 42);
+        manager = new GroceryListManager(new DiscardingDAO(items));
+        monitor = new MonitorList(items);
+        category = GroceryDataset.CATEGORIES[0];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.close();
+    }
+
+    private GroceryItem nextItem() {
+        GroceryItem item = items.get(next);
+        next = next + 1 == size ? 0 : next + 1;
+        return item;
+    }
+
+    @Benchmark
+    @Group("views")
+    @GroupThreads(3)
+    public List<GroceryItem> viewsRead() {
+        return manager.listItems(category);
+    }
+
+    @Benchmark
+    @Group("views")
+    @GroupThreads(1)
+    public void viewsWrite() throws IOException {
+        GroceryItem item = nextItem();
+        manager.addItem(item.getName(), 1, item.getCategory());
+    }
+
+    @Benchmark
+    @Group("monitor")
+    @GroupThreads(3)
+    public List<GroceryItem> monitorRead() {
+        return monitor.listItems(category);
+    }
+
+    @Benchmark
+    @Group("monitor")
+    @GroupThreads(1)
+    public void monitorWrite() {
+        GroceryItem item = nextItem();
+        monitor.addItem(item.getName(), 1, item.getCategory());
+    }
+
+    /**
+     * Baseline: items grouped by category behind a single monitor.
+     */
+    private static final class MonitorList {
+
+        private final Map<String, Map<String, GroceryItem>> itemsByCategory = new TreeMap<>();
+
+        MonitorList(List<GroceryItem> items) {
+            items.forEach(item -> addItem(item.getName(), item.getQuantity(), item.getCategory()));
+        }
+
+        synchronized void addItem(String name, int quantity, String category) {
+            itemsByCategory.computeIfAbsent(category, c -> new LinkedHashMap<>()).merge(name.toLowerCase(),
+                    new GroceryItem(name, quantity, category),
+                    (existing, added) -> new GroceryItem(existing.getName(), existing.getQuantity() + quantity, category));
+        }
+
+        synchronized List<GroceryItem> listItems(String category) {
+            Map<String, GroceryItem> categoryItems = itemsByCategory.get(category);
+            return categoryItems == null ? List.of() : List.copyOf(categoryItems.values());
+        }
+    }
+
+    /**
+     * Loads the given items and drops every change written afterwards.
+     */
+    private static final class DiscardingDAO implements IncrementalGroceryListDAO {
+
+        private final List<GroceryItem> items;
+
+        DiscardingDAO(List<GroceryItem> items) {
+            this.items = items;
+        }
+
+        @Override
+        public List<GroceryItem> load() {
+            return new ArrayList<>(items);
+        }
+
+        @Override
+        public void save(List<GroceryItem> saved) {
+        }
+
+        @Override
+        public void apply(List<GroceryChange> changes) {
+        }
+    }
+}
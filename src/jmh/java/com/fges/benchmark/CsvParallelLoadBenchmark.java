@@ -0,0 +1,51 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryItem;
+import com.fges.dao.CsvGroceryListDAO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the parallel CSV load with the number of threads.
+ * The default file has 1M rows; run with {@code -p rows=10000000} for the 10M-row case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class CsvParallelLoadBenchmark {
+
+    @Param({"1000000"})
+    int rows;
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    private Path file;
+    private CsvGroceryListDAO dao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        file = Files.createTempFile("grocery-parallel-benchmark", ".csv");
+        new CsvGroceryListDAO(file.toString()).save(GroceryDataset.items(rows, 42));
+        dao = new CsvGroceryListDAO(file.toString(), threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<GroceryItem> load() throws IOException {
+        return dao.load();
+    }
+}
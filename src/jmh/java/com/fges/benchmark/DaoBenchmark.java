@@ -0,0 +1,64 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryItem;
+import com.fges.dao.GroceryListDAO;
+import com.fges.dao.GroceryListDAOFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full load and save of the file formats registered in {@link GroceryListDAOFactory}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class DaoBenchmark {
+
+    @Param({"json", "csv", "bin"})
+    String format;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private Path directory;
+    private GroceryListDAO dao;
+    private List<GroceryItem> items;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        directory = Files.createTempDirectory("grocery-dao-benchmark");
+        dao = GroceryListDAOFactory.create(format, directory.resolve("groceries." + format).toString());
+        items = GroceryDataset.items(size, 42);
+        dao.save(items);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<GroceryItem> load() throws IOException {
+        return dao.load();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        dao.save(items);
+    }
+}
@@ -0,0 +1,117 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import com.fges.dao.Durability;
+import com.fges.dao.DurableGroceryListDAO;
+import com.fges.dao.GroceryListDAO;
+import com.fges.dao.GroceryListDAOFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Acknowledged writes on a JSON-backed list at each {@link Durability} level, with 1 and 8 writers.
+ * The score is acknowledged mutations per millisecond; the {@code fsyncs} and {@code durableSaves}
+ * counters give the rate of forced writes and of saves they made durable, so their ratio is the
+ * group commit factor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DurabilityBenchmark {
+
+    @Param({"none", "async", "sync"})
+    String durability;
+
+    @Param({"1000"})
+    int size;
+
+    private Path directory;
+    private GroceryListDAO dao;
+    private GroceryListManager manager;
+    private List<GroceryItem> items;
+
+    /** Claimed by the one thread reporting the disk counters of an iteration */
+    private final AtomicBoolean reporter = new AtomicBoolean();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        directory = Files.createTempDirectory("grocery-durability-benchmark");
+        String file = directory.resolve("groceries.json").toString();
+        items = GroceryDataset.items(size, 42);
+        GroceryListDAOFactory.create("json", file).save(items);
+        dao = GroceryListDAOFactory.create("json", file, 1, Durability.parse(durability));
+        manager = new GroceryListManager(dao);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.close();
+        Files.deleteIfExists(directory.resolve("groceries.json"));
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Forced writes and durable saves of an iteration, reported by a single thread.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class DiskCounters {
+        public long fsyncs;
+        public long durableSaves;
+
+        private boolean reporting;
+        private long startSyncs;
+        private long startSaves;
+
+        @Setup(Level.Iteration)
+        public void start(DurabilityBenchmark benchmark) {
+            fsyncs = 0;
+            durableSaves = 0;
+            reporting = benchmark.dao instanceof DurableGroceryListDAO && benchmark.reporter.compareAndSet(false, true);
+            if (reporting) {
+                DurableGroceryListDAO durable = (DurableGroceryListDAO) benchmark.dao;
+                startSyncs = durable.getSyncCount();
+                startSaves = durable.getAcknowledgedCount();
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop(DurabilityBenchmark benchmark) {
+            if (reporting) {
+                DurableGroceryListDAO durable = (DurableGroceryListDAO) benchmark.dao;
+                fsyncs = durable.getSyncCount() - startSyncs;
+                durableSaves = durable.getAcknowledgedCount() - startSaves;
+                benchmark.reporter.set(false);
+            }
+        }
+    }
+
+    private void write() throws IOException {
+        GroceryItem item = items.get(ThreadLocalRandom.current().nextInt(size));
+        manager.addItem(item.getName(), 1, item.getCategory());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void writers1(DiskCounters counters) throws IOException {
+        write();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void writers8(DiskCounters counters) throws IOException {
+        write();
+    }
+}
@@ -0,0 +1,76 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryItem;
+import com.fges.dao.GroceryListDAO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.logging.LogManager;
+
+/**
+ * Synthetic, reproducible grocery lists for the benchmarks.
+ * Names are unique, categories are drawn from a small fixed set (as in real lists),
+ * and a few names need quoting in CSV.
+ */
+final class GroceryDataset {
+
+    static final String[] CATEGORIES = {
+            "fruits", "vegetables", "dairy", "bakery", "meat", "fish", "frozen", "drinks", "snacks", "spices",
+            "cereals", "pasta", "canned", "sauces", "cleaning", "hygiene", "baby", "pets", "wine", "sweets"
+    };
+
+    private static final String[] WORDS = {
+            "Apple", "Organic", "Milk", "Bread", "Chicken", "Salmon", "Peas", "Juice", "Crisps", "Pepper",
+            "Oats", "Penne", "Tomatoes", "Pesto", "Soap", "Shampoo", "Crème", "Kibble", "Rosé", "Chocolate"
+    };
+
+    private GroceryDataset() {
+    }
+
+    /**
+     * @param size number of items
+     * @param seed random seed, so that every fork works on the same data
+     * @return a mutable list of unique items
+     */
+    static List<GroceryItem> items(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<GroceryItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new GroceryItem(name(random, i), 1 + random.nextInt(50), CATEGORIES[random.nextInt(CATEGORIES.length)]));
+        }
+        return items;
+    }
+
+    /**
+     * @return the name of the i-th generated item
+     */
+    static String name(SplittableRandom random, int i) {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        // One name in 16 contains a comma, which forces CSV quoting
+        return random.nextInt(16) == 0 ? word + ", large #" + i : word + " #" + i;
+    }
+
+    /**
+     * @return a DAO keeping the given items in memory, whose saves do nothing
+     */
+    static GroceryListDAO inMemory(List<GroceryItem> items) {
+        return new GroceryListDAO() {
+            @Override
+            public List<GroceryItem> load() {
+                return new ArrayList<>(items);
+            }
+
+            @Override
+            public void save(List<GroceryItem> saved) {
+            }
+        };
+    }
+
+    /**
+     * Silences the per-operation INFO logging of the DAOs and the manager.
+     */
+    static void quietLogging() {
+        LogManager.getLogManager().reset();
+    }
+}
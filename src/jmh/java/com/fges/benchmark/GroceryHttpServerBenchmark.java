@@ -0,0 +1,143 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryListManager;
+import com.fges.web.GroceryHttpServer;
+import com.fges.web.GroceryShopAdapter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback load on {@link GroceryHttpServer}: each benchmark thread keeps one HTTP/1.1
+ * keep-alive connection and issues GET /api/groceries back to back, either as a full
+ * download or as a revalidation answered with 304.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Threads(16)
+public class GroceryHttpServerBenchmark {
+
+    @Param({"100", "1000"})
+    int size;
+
+    private GroceryListManager manager;
+    private GroceryHttpServer server;
+    private String etag;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        manager = new GroceryListManager(GroceryDataset.inMemory(GroceryDataset.items(size, 42)));
+        server = new GroceryHttpServer(new GroceryShopAdapter(manager), 0, GroceryHttpServer.DEFAULT_BACKLOG);
+        server.start();
+        try (Connection connection = new Connection(server.getPort())) {
+            etag = connection.get(null).etag();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.close();
+        manager.close();
+    }
+
+    /**
+     * One keep-alive connection per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Connection implements AutoCloseable {
+
+        private Socket socket;
+        private OutputStream out;
+        private InputStream in;
+
+        public Connection() {
+        }
+
+        Connection(int port) throws IOException {
+            open(port);
+        }
+
+        @Setup(Level.Trial)
+        public void setUp(GroceryHttpServerBenchmark benchmark) throws IOException {
+            open(benchmark.server.getPort());
+        }
+
+        private void open(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            socket.setTcpNoDelay(true);
+            out = socket.getOutputStream();
+            in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+        }
+
+        @TearDown(Level.Trial)
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        Response get(String ifNoneMatch) throws IOException {
+            String request = "GET /api/groceries HTTP/1.1\r\nHost: localhost\r\n"
+                    + (ifNoneMatch == null ? "" : "If-None-Match: " + ifNoneMatch + "\r\n") + "\r\n";
+            out.write(request.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return readResponse();
+        }
+
+        private Response readResponse() throws IOException {
+            int status = 0;
+            long length = 0;
+            String etag = null;
+            String line;
+            while (!(line = readLine()).isEmpty()) {
+                if (status == 0) {
+                    status = Integer.parseInt(line.substring(9, 12));
+                } else if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    length = Long.parseLong(line.substring(15).trim());
+                } else if (line.regionMatches(true, 0, "ETag:", 0, 5)) {
+                    etag = line.substring(5).trim();
+                }
+            }
+            in.skipNBytes(length);
+            return new Response(status, etag);
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    throw new EOFException("Connection closed by the server");
+                }
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+            return line.toString();
+        }
+    }
+
+    record Response(int status, String etag) {
+    }
+
+    @Benchmark
+    public int getGroceries(Connection connection) throws IOException {
+        return connection.get(null).status();
+    }
+
+    @Benchmark
+    public int getGroceriesNotModified(Connection connection) throws IOException {
+        return connection.get(etag).status();
+    }
+}
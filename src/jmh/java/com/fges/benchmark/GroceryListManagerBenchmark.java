@@ -0,0 +1,78 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of {@link GroceryListManager} over an in-memory DAO, so that only the
+ * in-memory indexes, the snapshot and the locking are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroceryListManagerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private GroceryListManager manager;
+    private List<GroceryItem> items;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        items = GroceryDataset.items(size, 42);
+        manager = new GroceryListManager(GroceryDataset.inMemory(items));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.close();
+    }
+
+    private GroceryItem nextItem() {
+        GroceryItem item = items.get(next);
+        next = next + 1 == size ? 0 : next + 1;
+        return item;
+    }
+
+    /** Merges a quantity into an existing item. */
+    @Benchmark
+    public void addItem() throws IOException {
+        GroceryItem item = nextItem();
+        manager.addItem(item.getName(), 1, item.getCategory());
+    }
+
+    /** Removes an item by name, then adds it back so that the list size stays constant. */
+    @Benchmark
+    public void removeItem() throws IOException {
+        GroceryItem item = nextItem();
+        manager.removeItem(item.getName());
+        manager.addItem(item.getName(), item.getQuantity(), item.getCategory());
+    }
+
+    /** Reads the grouped list between writes, served from the published snapshot. */
+    @Benchmark
+    public Map<String, List<GroceryItem>> listItems() {
+        return manager.listItems();
+    }
+
+    /** Reads the grouped list right after a write, which rebuilds the snapshot. */
+    @Benchmark
+    public void listItemsAfterWrite(Blackhole blackhole) throws IOException {
+        GroceryItem item = nextItem();
+        manager.addItem(item.getName(), 1, item.getCategory());
+        blackhole.consume(manager.listItems());
+    }
+}
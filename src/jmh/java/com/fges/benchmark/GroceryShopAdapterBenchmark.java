@@ -0,0 +1,52 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryListManager;
+import com.fges.web.GroceryShopAdapter;
+import fr.anthonyquere.MyGroceryShop;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GroceryShopAdapter#getGroceries()} between writes (cached projection)
+ * and right after a write (projection rebuilt).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroceryShopAdapterBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private GroceryListManager manager;
+    private GroceryShopAdapter adapter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        manager = new GroceryListManager(GroceryDataset.inMemory(GroceryDataset.items(size, 42)));
+        adapter = new GroceryShopAdapter(manager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.close();
+    }
+
+    @Benchmark
+    public List<MyGroceryShop.WebGroceryItem> getGroceries() {
+        return adapter.getGroceries();
+    }
+
+    @Benchmark
+    public List<MyGroceryShop.WebGroceryItem> getGroceriesAfterWrite() throws IOException {
+        manager.addItem("Benchmark", 1, "default");
+        return adapter.getGroceries();
+    }
+}
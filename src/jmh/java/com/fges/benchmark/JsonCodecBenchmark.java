@@ -0,0 +1,82 @@
+package com.fges.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fges.core.GroceryItem;
+import com.fges.dao.JsonGroceryListDAO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Streaming {@link JsonGroceryListDAO} against the databind codec it replaced, on the same file.
+ * The databind baseline is reproduced here: an {@link ObjectMapper} binding the whole array to
+ * {@code List<GroceryItem>} and writing it back in place. The streaming save also writes through
+ * a temporary file and updates the category index, so it does strictly more work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class JsonCodecBenchmark {
+
+    private static final TypeReference<List<GroceryItem>> ITEM_LIST = new TypeReference<>() {};
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private Path directory;
+    private File file;
+    private JsonGroceryListDAO dao;
+    private ObjectMapper mapper;
+    private List<GroceryItem> items;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        directory = Files.createTempDirectory("grocery-json-benchmark");
+        file = directory.resolve("groceries.json").toFile();
+        dao = new JsonGroceryListDAO(file.getPath());
+        mapper = new ObjectMapper();
+        items = GroceryDataset.items(size, 42);
+        dao.save(items);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<GroceryItem> streamingLoad() throws IOException {
+        return dao.load();
+    }
+
+    @Benchmark
+    public List<GroceryItem> databindLoad() throws IOException {
+        return mapper.readValue(file, ITEM_LIST);
+    }
+
+    @Benchmark
+    public void streamingSave() throws IOException {
+        dao.save(items);
+    }
+
+    @Benchmark
+    public void databindSave() throws IOException {
+        mapper.writeValue(file, items);
+    }
+}
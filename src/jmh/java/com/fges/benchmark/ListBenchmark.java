@@ -0,0 +1,80 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryItemFilter;
+import com.fges.core.GroceryListManager;
+import com.fges.dao.GroceryListDAOFactory;
+import com.fges.dao.StreamingGroceryListDAO;
+import com.fges.executor.commands.ListCommand;
+import com.fges.executor.commands.StreamingListCommand;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * What a CLI "list" costs by format: loading the file into a manager and printing it, against
+ * printing it straight from the file, for the whole list and for one category.
+ * Output goes to a discarding stream, so only parsing and formatting are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListBenchmark {
+
+    @Param({"json", "csv", "bin"})
+    String format;
+
+    @Param({"100000"})
+    int size;
+
+    @Param({"", "dairy"})
+    String category;
+
+    private Path directory;
+    private String file;
+    private GroceryItemFilter filter;
+    private final PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        directory = Files.createTempDirectory("grocery-list-benchmark");
+        file = directory.resolve("groceries." + format).toString();
+        GroceryListDAOFactory.create(format, file).save(GroceryDataset.items(size, 42));
+        filter = new GroceryItemFilter(category, null, 0, Long.MAX_VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /** Loads the list into a manager, then prints the matching items. */
+    @Benchmark
+    public int managed() throws IOException {
+        try (GroceryListManager manager = new GroceryListManager(GroceryListDAOFactory.create(format, file))) {
+            return new ListCommand(manager, out, filter).execute(List.of());
+        }
+    }
+
+    /** Prints the matching items as the file is parsed. */
+    @Benchmark
+    public int streaming() throws IOException {
+        var dao = (StreamingGroceryListDAO) GroceryListDAOFactory.create(format, file);
+        return new StreamingListCommand(dao, filter, out).execute(List.of());
+    }
+}
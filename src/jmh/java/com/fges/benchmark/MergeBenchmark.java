@@ -0,0 +1,67 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import com.fges.dao.GroceryListDAOFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of persisting a quantity merge into an existing item, by format: a whole-file rewrite
+ * (json, bin), a log append (wal), an in-place slot write (mmap), a memtable delta (lsm)
+ * or a copy of the pages on the path to the item (btree).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MergeBenchmark {
+
+    @Param({"json", "bin", "wal", "mmap", "lsm", "btree"})
+    String format;
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private Path directory;
+    private GroceryListManager manager;
+    private List<GroceryItem> items;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        directory = Files.createTempDirectory("grocery-merge-benchmark");
+        String file = directory.resolve("groceries." + format).toString();
+        items = GroceryDataset.items(size, 42);
+        GroceryListDAOFactory.create(format, file).save(items);
+        manager = new GroceryListManager(GroceryListDAOFactory.create(format, file));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /** Adds one unit to an existing item and persists it. */
+    @Benchmark
+    public void merge() throws IOException {
+        GroceryItem item = items.get(next);
+        next = next + 1 == size ? 0 : next + 1;
+        manager.addItem(item.getName(), 1, item.getCategory());
+    }
+}
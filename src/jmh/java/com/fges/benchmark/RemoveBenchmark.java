@@ -0,0 +1,67 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import com.fges.dao.GroceryListDAOFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * What a CLI "remove" costs by format: a fresh manager is opened on the file, one item is
+ * removed (then added back, so that every invocation finds something to remove) and the manager closed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RemoveBenchmark {
+
+    @Param({"json", "bin", "btree"})
+    String format;
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private Path directory;
+    private String file;
+    private List<GroceryItem> items;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        directory = Files.createTempDirectory("grocery-remove-benchmark");
+        file = directory.resolve("groceries." + format).toString();
+        items = GroceryDataset.items(size, 42);
+        GroceryListDAOFactory.create(format, file).save(items);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /** Opens the list, removes an item and adds it back, then closes the list. */
+    @Benchmark
+    public void removeCold() throws IOException {
+        GroceryItem item = items.get(next);
+        next = next + 1 == size ? 0 : next + 1;
+        try (GroceryListManager manager = new GroceryListManager(GroceryListDAOFactory.create(format, file))) {
+            manager.removeItem(item.getName());
+            manager.addItem(item.getName(), item.getQuantity(), item.getCategory());
+        }
+    }
+}
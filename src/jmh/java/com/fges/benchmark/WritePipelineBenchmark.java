@@ -0,0 +1,90 @@
+package com.fges.benchmark;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import com.fges.core.GroceryMutation;
+import com.fges.core.GroceryWritePipeline;
+import com.fges.dao.GroceryListDAOFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acknowledged writes on a JSON-backed list, through the synchronized {@link GroceryListManager}
+ * path (one save per mutation) or through a {@link GroceryWritePipeline} (one save per batch),
+ * at 1, 8 and 64 concurrent writers. A write counts once it is persisted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WritePipelineBenchmark {
+
+    @Param({"synchronized", "pipeline"})
+    String mode;
+
+    @Param({"1000"})
+    int size;
+
+    private Path directory;
+    private GroceryListManager manager;
+    private GroceryWritePipeline pipeline;
+    private List<GroceryItem> items;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        GroceryDataset.quietLogging();
+        directory = Files.createTempDirectory("grocery-pipeline-benchmark");
+        Path file = directory.resolve("groceries.json");
+        items = GroceryDataset.items(size, 42);
+        GroceryListDAOFactory.create("json", file.toString()).save(items);
+        manager = new GroceryListManager(GroceryListDAOFactory.create("json", file.toString()));
+        if (mode.equals("pipeline")) {
+            pipeline = new GroceryWritePipeline(manager);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+        manager.close();
+        Files.deleteIfExists(directory.resolve("groceries.json"));
+        Files.deleteIfExists(directory);
+    }
+
+    private long write() throws IOException {
+        GroceryItem item = items.get(ThreadLocalRandom.current().nextInt(size));
+        if (pipeline == null) {
+            manager.addItem(item.getName(), 1, item.getCategory());
+            return manager.getVersion();
+        }
+        return pipeline.submit(GroceryMutation.add(item.getName(), 1, item.getCategory())).join();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long writers1() throws IOException {
+        return write();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long writers8() throws IOException {
+        return write();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long writers64() throws IOException {
+        return write();
+    }
+}
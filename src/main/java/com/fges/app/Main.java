@@ -2,9 +2,14 @@ package com.fges.app;
 
 import com.fges.cli.CommandLineArgs;
 import com.fges.cli.CommandLineProcessor;
+import com.fges.core.GroceryListRegistry;
+import com.fges.daemon.DaemonClient;
+import com.fges.daemon.GroceryDaemon;
 import com.fges.executor.CommandExecutor;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.OptionalInt;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,6 +28,8 @@ public class Main {
     /**
      * Executes the CLI logic and returns a result code (0 = OK, 1 = Error).
      * This is separated from main() to support testability.
+     * File commands are forwarded to the grocery daemon when one is running,
+     * and executed in-process otherwise.
      *
      * @param args the raw CLI arguments
      * @return 0 if success, 1 if failure
@@ -30,6 +37,17 @@ public class Main {
     public static int exec(String[] args) {
         try {
             CommandLineArgs parsedArgs = new CommandLineProcessor().parseArgs(args);
+            Path socket = GroceryDaemon.socketPath(parsedArgs);
+
+            if (parsedArgs.getCommand().equalsIgnoreCase("daemon")) {
+                return runDaemon(socket, parsedArgs);
+            }
+            if (DaemonClient.isForwardable(parsedArgs)) {
+                OptionalInt forwarded = new DaemonClient(socket).tryExecute(parsedArgs, System.out);
+                if (forwarded.isPresent()) {
+                    return forwarded.getAsInt();
+                }
+            }
             return new CommandExecutor(parsedArgs).execute();
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "I/O failure during execution", e);
@@ -39,4 +57,17 @@ public class Main {
             return 1;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs the grocery daemon until the JVM is asked to stop.
+     */
+    private static int runDaemon(Path socket, CommandLineArgs args) throws IOException, InterruptedException {
+        int maxLists = (int) Math.min(args.getLongOption("max-lists", GroceryListRegistry.DEFAULT_MAX_LISTS), Integer.MAX_VALUE);
+        GroceryDaemon daemon = new GroceryDaemon(socket, maxLists);
+        daemon.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::close, "grocery-daemon-shutdown"));
+        System.out.println("✅ Grocery daemon listening on " + socket);
+        daemon.awaitTermination();
+        return 0;
+    }
+}
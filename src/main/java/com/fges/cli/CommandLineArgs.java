@@ -1,12 +1,17 @@
 package com.fges.cli;
 
+import com.fges.core.GroceryItemFilter;
+import com.fges.core.WriteBehindPolicy;
+import com.fges.dao.Durability;
+
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Immutable data class that encapsulates parsed command-line arguments.
  * This class provides access to the input file name, format (json/csv),
- * optional category, and command with its associated parameters.
+ * optional category, tuning options (write-behind, load threads...), and command with its associated parameters.
  */
 public class CommandLineArgs {
 
@@ -22,19 +27,37 @@ public class CommandLineArgs {
     /** The raw list of positional arguments (e.g., ["add", "Milk", "2"]) */
     private final List<String> arguments;
 
+    /** Tuning options given on the command line, keyed by long option name (e.g., "write-behind" -> "500") */
+    private final Map<String, String> options;
+
     /**
      * Constructs a {@link CommandLineArgs} object with all parsed components.
      *
      * @param fileName  the name of the grocery list file
-     * @param format    the format of the file (json or csv)
+     * @param format    the format of the file (json, csv, wal, bin, mmap, lsm or btree)
      * @param category  the category to associate with items
      * @param arguments the full list of positional arguments
      */
     public CommandLineArgs(String fileName, String format, String category, List<String> arguments) {
+        this(fileName, format, category, arguments, Map.of());
+    }
+
+    /**
+     * Constructs a {@link CommandLineArgs} object including tuning options.
+     *
+     * @param fileName  the name of the grocery list file
+     * @param format    the format of the file (json, csv, wal, bin, mmap, lsm or btree)
+     * @param category  the category to associate with items
+     * @param arguments the full list of positional arguments
+     * @param options   tuning options keyed by long option name, values already validated
+     */
+    public CommandLineArgs(String fileName, String format, String category, List<String> arguments,
+                           Map<String, String> options) {
         this.fileName = fileName;
         this.format = format;
         this.category = category;
         this.arguments = arguments;
+        this.options = Map.copyOf(options);
     }
 
     /** @return the source file name */
@@ -62,6 +85,74 @@ public class CommandLineArgs {
         return arguments.size() <= 1 ? Collections.emptyList() : arguments.subList(1, arguments.size());
     }
 
+    /** @return all positional arguments, the command included */
+    public List<String> getArguments() {
+        return Collections.unmodifiableList(arguments);
+    }
+
+    /** @return the tuning options, keyed by long option name */
+    public Map<String, String> getOptions() {
+        return options;
+    }
+
+    /**
+     * @param name the long option name (e.g., "write-behind")
+     * @return the raw option value, or null if the option was not given
+     */
+    public String getOption(String name) {
+        return options.get(name);
+    }
+
+    /**
+     * @param name         the long option name
+     * @param defaultValue the value to use when the option was not given
+     * @return the option value as a number
+     */
+    public long getLongOption(String name, long defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    /** @return true if mutations should be persisted by a background flusher (--write-behind) */
+    public boolean isWriteBehind() {
+        return getLongOption("write-behind", 0) > 0;
+    }
+
+    /** @return the write-behind policy described by the options, or null for synchronous writes */
+    public WriteBehindPolicy getWriteBehindPolicy() {
+        if (!isWriteBehind()) {
+            return null;
+        }
+        long maxChanges = getLongOption("write-behind-max", WriteBehindPolicy.DEFAULT_MAX_PENDING_CHANGES);
+        return new WriteBehindPolicy(getLongOption("write-behind", 0), (int) Math.min(maxChanges, Integer.MAX_VALUE));
+    }
+
+    /** @return the number of threads to use when loading the source file (--load-threads, default 1) */
+    public int getLoadThreads() {
+        return (int) Math.max(1, Math.min(getLongOption("load-threads", 1), Integer.MAX_VALUE));
+    }
+
+    /** @return how far saves must reach before returning (--durability, default none) */
+    public Durability getDurability() {
+        String value = options.get("durability");
+        return value == null ? Durability.NONE : Durability.parse(value);
+    }
+
+    /**
+     * @return the items "list" prints: the category given with -c, --name-prefix, --min-quantity
+     *         and --limit, each keeping every item when absent
+     */
+    public GroceryItemFilter getItemFilter() {
+        return new GroceryItemFilter(options.get("category"), options.get("name-prefix"),
+                (int) Math.min(getLongOption("min-quantity", 0), Integer.MAX_VALUE),
+                getLongOption("limit", Long.MAX_VALUE));
+    }
+
+    /** @return true if "list" should print straight from the file, in file order (--stream) */
+    public boolean isStreamingList() {
+        return options.containsKey("stream");
+    }
+
     /** @return the full positional argument list, including the command */
     public List<String> getRawArgs() {
         return arguments;
@@ -1,19 +1,42 @@
 package com.fges.cli;
 
+import com.fges.dao.Durability;
 import org.apache.commons.cli.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Responsible for parsing command-line arguments using Apache Commons CLI.
  * This class extracts and validates the required input arguments for the grocery list application.
  * Supported arguments:
  *     -s or --source (required except for "info" and "web")
- *     -f or --format (optional): file format (json or csv)
+ *     -f or --format (optional): file format (json, csv, wal, bin, mmap, lsm or btree)
  *     -c or --category (optional): item category (defaults to "default")
+ *     --write-behind (optional): flush interval in milliseconds, enables write-behind persistence
+ *     --write-behind-max (optional): pending mutations forcing a write-behind flush
+ *     --load-threads (optional): threads used to parse large CSV files
+ *     --flush-every (optional): in batch mode, persist after every N commands
+ *     --backlog (optional): accept backlog of the "serve" REST server
+ *     --max-lists (optional): lists kept in memory by "serve" (directory source) and "daemon"
+ *     --max-items (optional): items kept in memory by "serve" with a directory source
+ *     --idle-timeout (optional): milliseconds after which "serve" unloads an unused list
+ *     --pipeline (optional): capacity of the single-writer pipeline of "serve", 0 to write directly
+ *     --durability (optional): none, async or sync, how far saves must reach before returning
+ *     --socket (optional): Unix domain socket of the grocery daemon
+ *     --name-prefix (optional): "list" only prints names starting with this prefix
+ *     --min-quantity (optional): "list" only prints items with at least this quantity
+ *     --limit (optional): "list" prints at most this many items
+ *     --stream (optional): "list" prints straight from the file, in file order
  */
 public class CommandLineProcessor {
 
+    /** Numeric tuning options, passed through to {@link CommandLineArgs#getOption(String)} */
+    private static final List<String> NUMERIC_OPTIONS = List.of(
+            "write-behind", "write-behind-max", "load-threads", "flush-every", "backlog",
+            "max-lists", "max-items", "idle-timeout", "pipeline", "min-quantity", "limit");
+
     /**
      * Parses command-line arguments including required options: source (-s),
      * optional format (-f), and category (-c). It also handles 'info' and 'web'
@@ -24,10 +47,38 @@ public class CommandLineProcessor {
      * @throws IllegalArgumentException if required options are missing or malformed
      */
     public CommandLineArgs parseArgs(String[] args) {
+        return parseArgs(args, "default");
+    }
+
+    /**
+     * Parses command-line arguments, using the given category when -c is absent.
+     * Used by the batch mode, where each line inherits the category of the batch invocation.
+     *
+     * @param args            the raw command-line arguments
+     * @param defaultCategory the category to use when none is given
+     * @return a {@link CommandLineArgs} object containing the parsed values
+     * @throws IllegalArgumentException if required options are missing or malformed
+     */
+    public CommandLineArgs parseArgs(String[] args, String defaultCategory) {
         Options options = new Options();
         options.addOption("s", "source", true, "Source file (required for most commands)");
-        options.addOption("f", "format", true, "Data format: json/csv");
+        options.addOption("f", "format", true, "Data format: json/csv/wal/bin/mmap/lsm/btree");
         options.addOption("c", "category", true, "Optional category");
+        options.addOption(null, "write-behind", true, "Write-behind flush interval in milliseconds");
+        options.addOption(null, "write-behind-max", true, "Pending mutations forcing a write-behind flush");
+        options.addOption(null, "load-threads", true, "Threads used to parse large CSV files");
+        options.addOption(null, "flush-every", true, "Batch mode: persist after every N commands");
+        options.addOption(null, "backlog", true, "Serve mode: queued connection limit");
+        options.addOption(null, "max-lists", true, "Lists kept in memory by serve and daemon");
+        options.addOption(null, "max-items", true, "Serve mode: items kept in memory over all lists");
+        options.addOption(null, "idle-timeout", true, "Serve mode: milliseconds before an unused list is unloaded");
+        options.addOption(null, "pipeline", true, "Serve mode: capacity of the single-writer pipeline");
+        options.addOption(null, "durability", true, "Saves forced to disk: none/async/sync");
+        options.addOption(null, "socket", true, "Unix domain socket of the grocery daemon");
+        options.addOption(null, "name-prefix", true, "List mode: only names starting with this prefix");
+        options.addOption(null, "min-quantity", true, "List mode: only items with at least this quantity");
+        options.addOption(null, "limit", true, "List mode: maximum number of items printed");
+        options.addOption(null, "stream", false, "List mode: print straight from the file, in file order");
 
         CommandLineParser parser = new DefaultParser();
         try {
@@ -35,16 +86,58 @@ public class CommandLineProcessor {
             List<String> remainingArgs = cmd.getArgList();
 
             if (remainingArgs.isEmpty()) {
-                throw new IllegalArgumentException("Missing command (add/list/remove/info/web)");
+                throw new IllegalArgumentException("Missing command (add/list/summary/remove/batch/daemon/info/web/serve)");
             }
 
             String source = cmd.getOptionValue("s");
             String format = cmd.getOptionValue("f", "json");
-            String category = cmd.getOptionValue("c", "default");
+            String category = cmd.getOptionValue("c", defaultCategory);
+            Map<String, String> tuning = new HashMap<>();
+            for (String option : NUMERIC_OPTIONS) {
+                if (cmd.hasOption(option)) {
+                    tuning.put(option, String.valueOf(parseNonNegative(cmd.getOptionValue(option), option)));
+                }
+            }
+            if (cmd.hasOption("durability")) {
+                tuning.put("durability", Durability.parse(cmd.getOptionValue("durability")).name().toLowerCase());
+            }
+            if (cmd.hasOption("socket")) {
+                tuning.put("socket", cmd.getOptionValue("socket"));
+            }
+            if (cmd.hasOption("name-prefix")) {
+                tuning.put("name-prefix", cmd.getOptionValue("name-prefix"));
+            }
+            if (cmd.hasOption("stream")) {
+                tuning.put("stream", "true");
+            }
+            if (cmd.hasOption("c")) {
+                // Lets "list" tell an explicit category filter from the default category
+                tuning.put("category", category);
+            }
 
-            return new CommandLineArgs(source, format, category, remainingArgs);
+            return new CommandLineArgs(source, format, category, remainingArgs, tuning);
         } catch (ParseException e) {
             throw new IllegalArgumentException("Failed to parse CLI arguments", e);
         }
     }
+
+    /**
+     * Parses a numeric option value that must not be negative.
+     *
+     * @param value  the raw option value
+     * @param option the option name, used in error messages
+     * @return the parsed value
+     * @throws IllegalArgumentException if the value is not a non-negative number
+     */
+    private long parseNonNegative(String value, String option) {
+        try {
+            long parsed = Long.parseLong(value.trim());
+            if (parsed < 0) {
+                throw new IllegalArgumentException("Option --" + option + " must not be negative");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option --" + option + " must be a number", e);
+        }
+    }
 }
\ No newline at end of file
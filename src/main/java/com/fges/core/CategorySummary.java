@@ -0,0 +1,11 @@
+package com.fges.core;
+
+/**
+ * What a category holds, without its items.
+ *
+ * @param category the category name, lowercase
+ * @param items    the number of items in the category
+ * @param quantity the sum of their quantities
+ */
+public record CategorySummary(String category, long items, long quantity) {
+}
@@ -0,0 +1,57 @@
+package com.fges.core;
+
+/**
+ * Describes a single mutation applied to a grocery list.
+ * ADD and MERGE carry the resulting state of the item, REMOVE only carries the matched name.
+ *
+ * @param type     the kind of mutation
+ * @param name     the item name (matched case-insensitively for REMOVE)
+ * @param category the item category, or null for REMOVE
+ * @param quantity the quantity of the item after the change (0 for REMOVE)
+ * @param delta    the quantity added by this change (0 for REMOVE)
+ */
+public record GroceryChange(Type type, String name, String category, int quantity, int delta) {
+
+    /**
+     * The kinds of mutation a grocery list supports.
+     */
+    public enum Type {
+        /** A new item was inserted */
+        ADD,
+        /** The quantity of an existing item was increased */
+        MERGE,
+        /** All items with a given name were removed */
+        REMOVE
+    }
+
+    /**
+     * Creates an ADD change for a freshly inserted item.
+     *
+     * @param item the inserted item
+     * @return the change describing the insertion
+     */
+    public static GroceryChange added(GroceryItem item) {
+        return new GroceryChange(Type.ADD, item.getName(), item.getCategory(), item.getQuantity(), item.getQuantity());
+    }
+
+    /**
+     * Creates a MERGE change for an item whose quantity was increased.
+     *
+     * @param item  the item after the merge
+     * @param delta the quantity that was added
+     * @return the change describing the merge
+     */
+    public static GroceryChange merged(GroceryItem item, int delta) {
+        return new GroceryChange(Type.MERGE, item.getName(), item.getCategory(), item.getQuantity(), delta);
+    }
+
+    /**
+     * Creates a REMOVE change for every item matching the given name.
+     *
+     * @param name the removed item name
+     * @return the change describing the removal
+     */
+    public static GroceryChange removed(String name) {
+        return new GroceryChange(Type.REMOVE, name, null, 0, 0);
+    }
+}
@@ -0,0 +1,254 @@
+package com.fges.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sequenced stream of the changes made to a {@link GroceryListManager}.
+ * The last {@code capacity} events are kept in a ring buffer, so a subscriber can resume from
+ * a sequence number it saw before, as long as that event is still retained.
+ * <p>
+ * Publishing only stores the events and wakes the subscribers up: each subscription is served
+ * by its own virtual thread, so listeners never run on, nor slow down, the writing thread.
+ * A subscriber that falls more than {@code capacity} events behind is told about the gap
+ * ({@link GroceryChangeListener#onGap}) and resumes with the oldest retained event.
+ */
+public class GroceryChangeFeed implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(GroceryChangeFeed.class.getName());
+
+    /** Default number of events retained for late subscribers */
+    public static final int DEFAULT_CAPACITY = 4_096;
+
+    private final GroceryEvent[] ring;
+
+    /** Guards the ring and the last sequence; subscribers wait on {@link #published} */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+
+    /** Sequence of the last published event, 0 before the first one (guarded by lock) */
+    private long lastSequence;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a feed retaining {@link #DEFAULT_CAPACITY} events.
+     */
+    public GroceryChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of events retained for late subscribers
+     */
+    public GroceryChangeFeed(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Change feed capacity must be positive.");
+        }
+        this.ring = new GroceryEvent[capacity];
+    }
+
+    /**
+     * Appends the changes of one mutation or batch. Callers must publish in mutation order.
+     *
+     * @param version the list version once the changes were applied
+     * @param changes the changes, in order
+     */
+    public void publish(long version, List<GroceryChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (GroceryChange change : changes) {
+                long sequence = ++lastSequence;
+                ring[(int) (sequence % ring.length)] = new GroceryEvent(sequence, version, change);
+            }
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the sequence of the last published event, 0 if none
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Subscribes to the events published from now on.
+     *
+     * @param listener the listener
+     * @return the subscription, to close when no longer needed
+     */
+    public Subscription subscribe(GroceryChangeListener listener) {
+        return subscribe(Long.MAX_VALUE, listener);
+    }
+
+    /**
+     * Subscribes starting with the event at {@code fromSequence}. Events older than the retained
+     * ones are reported as a gap; a sequence beyond the last event means "from now on".
+     *
+     * @param fromSequence the sequence of the first event to deliver
+     * @param listener     the listener
+     * @return the subscription, to close when no longer needed
+     */
+    public Subscription subscribe(long fromSequence, GroceryChangeListener listener) {
+        if (closed) {
+            throw new IllegalStateException("Change feed is closed.");
+        }
+        Subscription subscription;
+        lock.lock();
+        try {
+            subscription = new Subscription(listener, Math.max(1, Math.min(fromSequence, lastSequence + 1)));
+        } finally {
+            lock.unlock();
+        }
+        subscriptions.add(subscription);
+        subscription.thread = Thread.ofVirtual().name("grocery-feed-subscriber").start(subscription::deliver);
+        if (closed) {
+            // Raced with close()
+            subscription.close();
+        }
+        return subscription;
+    }
+
+    /**
+     * @return the number of open subscriptions
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Closes every subscription; their listeners are notified once delivery stops.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        subscriptions.forEach(Subscription::close);
+    }
+
+    /**
+     * A listener attached to the feed, with its own delivery cursor.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final GroceryChangeListener listener;
+
+        /** Sequence of the next event to deliver (guarded by the feed lock) */
+        private long next;
+
+        private volatile boolean cancelled;
+        private volatile Thread thread;
+
+        private Subscription(GroceryChangeListener listener, long next) {
+            this.listener = listener;
+            this.next = next;
+        }
+
+        /**
+         * Stops delivery; the listener is notified once the event being delivered, if any, is done.
+         */
+        @Override
+        public void close() {
+            cancelled = true;
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return true once the subscription or the feed was closed
+         */
+        public boolean isClosed() {
+            return cancelled || closed;
+        }
+
+        /**
+         * Waits until the delivery thread has stopped, e.g. after {@link #close()}.
+         *
+         * @throws InterruptedException if the calling thread is interrupted
+         */
+        public void awaitTermination() throws InterruptedException {
+            thread.join();
+        }
+
+        private void deliver() {
+            try {
+                List<GroceryEvent> batch = new ArrayList<>();
+                while (true) {
+                    long missedFrom = 0;
+                    long resumedAt = 0;
+                    lock.lock();
+                    try {
+                        while (next > lastSequence && !isClosed()) {
+                            published.awaitUninterruptibly();
+                        }
+                        if (isClosed()) {
+                            return;
+                        }
+                        long oldest = Math.max(1, lastSequence - ring.length + 1);
+                        if (next < oldest) {
+                            missedFrom = next;
+                            resumedAt = oldest;
+                            next = oldest;
+                        }
+                        for (; next <= lastSequence; next++) {
+                            batch.add(ring[(int) (next % ring.length)]);
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+
+                    if (missedFrom != 0) {
+                        notifyGap(missedFrom, resumedAt);
+                    }
+                    for (GroceryEvent event : batch) {
+                        if (cancelled) {
+                            return;
+                        }
+                        try {
+                            listener.onEvent(event);
+                        } catch (RuntimeException e) {
+                            LOGGER.log(Level.WARNING, "Grocery change listener failed on event " + event.sequence(), e);
+                        }
+                    }
+                    batch.clear();
+                }
+            } finally {
+                subscriptions.remove(this);
+                try {
+                    listener.onClose();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Grocery change listener failed on close", e);
+                }
+            }
+        }
+
+        private void notifyGap(long missedFrom, long resumedAt) {
+            try {
+                listener.onGap(missedFrom, resumedAt);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Grocery change listener failed on gap", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.fges.core;
+
+/**
+ * Receives the events of a {@link GroceryChangeFeed} subscription.
+ * Every subscription has its own delivery thread: calls for one subscription are sequential and
+ * in sequence order, and a slow listener only delays its own subscription.
+ */
+public interface GroceryChangeListener {
+
+    /**
+     * Called for every event, in sequence order.
+     *
+     * @param event the event
+     */
+    void onEvent(GroceryEvent event);
+
+    /**
+     * Called when events were dropped from the feed before they could be delivered, because the
+     * subscription started too far back or fell too far behind. The listener should re-read the
+     * whole list; delivery resumes with the event at {@code resumedAt}.
+     *
+     * @param missedFrom the first sequence that was not delivered
+     * @param resumedAt  the sequence of the next event delivered
+     */
+    default void onGap(long missedFrom, long resumedAt) {
+    }
+
+    /**
+     * Called once, from the delivery thread, when the subscription or the feed is closed.
+     */
+    default void onClose() {
+    }
+}
@@ -0,0 +1,13 @@
+package com.fges.core;
+
+/**
+ * A change published on the feed of a {@link GroceryListManager}.
+ * ADD and MERGE changes carry the resulting quantity, so applying an event whose effect is
+ * already reflected in a copy of the list (e.g. one read just before subscribing) is harmless.
+ *
+ * @param sequence the position of the event in the feed, starting at 1 after loading
+ * @param version  the version of the list once the batch holding the change was applied
+ * @param change   the change itself
+ */
+public record GroceryEvent(long sequence, long version, GroceryChange change) {
+}
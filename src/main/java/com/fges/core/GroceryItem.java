@@ -55,7 +55,7 @@ public class GroceryItem {
      *
      * @param name the name to assign
      */
-    public void setName(String name) {
+    public final void setName(String name) {
         if (name == null || name.isBlank()) {
             throw new IllegalArgumentException("Item name must not be null or empty");
         }
@@ -67,7 +67,7 @@ public class GroceryItem {
      *
      * @param quantity the quantity to assign
      */
-    public void setQuantity(int quantity) {
+    public final void setQuantity(int quantity) {
         if (quantity < 0) {
             throw new IllegalArgumentException("Quantity must be non-negative");
         }
@@ -79,7 +79,7 @@ public class GroceryItem {
      *
      * @param category the category to assign
      */
-    public void setCategory(String category) {
+    public final void setCategory(String category) {
         this.category = (category != null && !category.isBlank()) ? category.trim().toLowerCase() : null;
     }      
 
@@ -0,0 +1,74 @@
+package com.fges.core;
+
+/**
+ * Selects the items to list: by category, name prefix and minimum quantity, up to a number of items.
+ * Each criterion can be tested on its own, so that a reader can test a field as soon as it is
+ * parsed and skip the rest of an item that does not match.
+ *
+ * @param category    the category to keep, matched case-insensitively, or null for every category
+ * @param namePrefix  the prefix names must start with, matched case-insensitively, or null for every name
+ * @param minQuantity the smallest quantity to keep
+ * @param limit       the maximum number of items to keep
+ */
+public record GroceryItemFilter(String category, String namePrefix, int minQuantity, long limit) {
+
+    /** Keeps every item */
+    public static final GroceryItemFilter ALL = new GroceryItemFilter(null, null, 0, Long.MAX_VALUE);
+
+    /**
+     * Normalizes blank criteria to null.
+     *
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public GroceryItemFilter {
+        category = category == null || category.isBlank() ? null : category.trim();
+        namePrefix = namePrefix == null || namePrefix.isEmpty() ? null : namePrefix;
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative.");
+        }
+    }
+
+    /**
+     * @return true if every item is kept, i.e. no criterion and no limit is set
+     */
+    public boolean keepsAll() {
+        return equals(ALL);
+    }
+
+    /**
+     * @param itemCategory a category, null or blank standing for {@value GroceryListManager#DEFAULT_CATEGORY}
+     * @return true if items of this category are kept
+     */
+    public boolean matchesCategory(String itemCategory) {
+        if (category == null) {
+            return true;
+        }
+        return itemCategory == null || itemCategory.isBlank()
+                ? category.equalsIgnoreCase(GroceryListManager.DEFAULT_CATEGORY)
+                : category.equalsIgnoreCase(itemCategory.trim());
+    }
+
+    /**
+     * @param name an item name
+     * @return true if items with this name are kept
+     */
+    public boolean matchesName(String name) {
+        return namePrefix == null || name.regionMatches(true, 0, namePrefix, 0, namePrefix.length());
+    }
+
+    /**
+     * @param quantity an item quantity
+     * @return true if items with this quantity are kept
+     */
+    public boolean matchesQuantity(int quantity) {
+        return quantity >= minQuantity;
+    }
+
+    /**
+     * @param item an item
+     * @return true if the item is kept, the limit aside
+     */
+    public boolean matches(GroceryItem item) {
+        return matchesCategory(item.getCategory()) && matchesQuantity(item.getQuantity()) && matchesName(item.getName());
+    }
+}
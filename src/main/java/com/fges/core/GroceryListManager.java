@@ -1,39 +1,150 @@
 package com.fges.core;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.function.Predicate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
+import com.fges.dao.DurableGroceryListDAO;
 import com.fges.dao.GroceryListDAO;
+import com.fges.dao.IncrementalGroceryListDAO;
+import com.fges.dao.IndexedGroceryListDAO;
 
 /**
  * Manages grocery list operations such as adding, removing, and listing items.
- * Uses a DAO implementation to persist and retrieve data.
- * Thread-safe to support concurrent access (e.g., web usage).
+ * Uses a DAO implementation to persist and retrieve data; DAOs implementing
+ * {@link IncrementalGroceryListDAO} only receive the changes made by each mutation.
+ * Items are indexed by their normalized (name, category) key and by name, so
+ * add, merge and remove run in constant time on average. A sorted category index
+ * is maintained alongside, so listing costs time proportional to the output.
+ * Thread-safe to support concurrent access (e.g., web usage): writers are serialized
+ * by a mutation lock held across persistence, while readers are served from immutable
+ * views and never wait on file I/O. Views are copy-on-write per category: a mutation only
+ * invalidates the categories it touches, so reading a category, or the grouped list,
+ * after a write only copies the categories that changed.
+ * With a {@link WriteBehindPolicy}, mutations are coalesced in memory and written by a
+ * background flusher; {@link #close()} flushes whatever is still pending.
+ * Several mutations can be applied at once with {@link #applyBatch}, which takes the locks
+ * and persists once for the whole batch.
+ * Every change is also published, with a sequence number, on a {@link GroceryChangeFeed}
+ * that listeners can subscribe to instead of re-reading the list.
+ * With a {@link DurableGroceryListDAO} in sync mode, only the submission of the snapshot happens
+ * under the mutation lock: writers wait for the fsync after releasing it, so that concurrent
+ * writers share one fsync.
+ * With an {@link IndexedGroceryListDAO}, nothing is loaded upfront: each mutation reads the items
+ * of the names it touches, and the rest of the list is only loaded by the first read needing it.
  */
-public class GroceryListManager {
+public final class GroceryListManager implements AutoCloseable {
+
+    /** Category listing the items stored without one */
+    public static final String DEFAULT_CATEGORY = "default";
 
     private static final Logger LOGGER = Logger.getLogger(GroceryListManager.class.getName());
-    private static final String DEFAULT_CATEGORY = "default";
 
     private final GroceryListDAO dao;
 
-    // Wrapped in synchronizedList for safety, but still guarded by synchronized methods.
-    private final List<GroceryItem> groceryList;
+    /** All items in insertion order, indexed by normalized (name, category) key */
+    private final Map<ItemKey, GroceryItem> items = new LinkedHashMap<>();
+
+    /** Keys of the items sharing the same lowercase name, used for removal by name */
+    private final Map<String, List<ItemKey>> keysByName = new HashMap<>();
+
+    /** Items grouped by category, categories sorted, items in insertion order */
+    private final NavigableMap<String, Map<ItemKey, GroceryItem>> itemsByCategory = new TreeMap<>();
+
+    /** Serializes writers, including the time they spend persisting */
+    private final ReentrantLock mutationLock = new ReentrantLock();
+
+    /** Guards the indexes above; only held in write mode while they are being modified */
+    private final StampedLock stateLock = new StampedLock();
+
+    /** Read-only items of each category, dropped by the mutations touching the category */
+    private final ConcurrentHashMap<String, List<GroceryItem>> categoryViews = new ConcurrentHashMap<>();
+
+    /** Last published grouped view, built from the category views, or null once a mutation made it stale */
+    private volatile NavigableMap<String, List<GroceryItem>> groupedView;
+
+    /** Last published list of all items, or null once a mutation made it stale */
+    private volatile List<GroceryItem> itemsView;
+
+    /** Incremented by every mutation or batch that changes the list (guarded by the state write lock) */
+    private volatile long version;
+
+    /** Changes published to subscribers, in mutation order */
+    private final GroceryChangeFeed feed = new GroceryChangeFeed();
+
+    /** Write-behind configuration, or null when every mutation is persisted synchronously */
+    private final WriteBehindPolicy writeBehind;
+
+    /** Background flusher, only present in write-behind mode */
+    private final ScheduledExecutorService flusher;
+
+    /** Changes recorded but not yet written (guarded by the mutation lock) */
+    private final List<GroceryChange> pendingChanges = new ArrayList<>();
+
+    /** Mutations recorded but not yet written (guarded by the mutation lock) */
+    private int pendingMutations;
+
+    /** Mutations written so far and actual DAO writes, for coalescing statistics */
+    private volatile long persistedMutations;
+    private volatile long writes;
+
+    private volatile boolean closed;
+
+    /** True until the whole list is loaded, with an indexed DAO only */
+    private volatile boolean partial;
+
+    /** Lowercase names whose items were read from an indexed DAO (guarded by the mutation lock) */
+    private final Set<String> residentNames = new HashSet<>();
 
     /**
      * Constructs a GroceryListManager using the given DAO.
+     * Duplicate items returned by the DAO are merged while loading.
      *
      * @param dao the data access object for persisting grocery items
      * @throws IOException if loading from the DAO fails
      */
     public GroceryListManager(GroceryListDAO dao) throws IOException {
+        this(dao, null);
+    }
+
+    /**
+     * Constructs a GroceryListManager using the given DAO and persistence policy.
+     *
+     * @param dao         the data access object for persisting grocery items
+     * @param writeBehind the write-behind policy, or null to persist every mutation synchronously
+     * @throws IOException if loading from the DAO fails
+     */
+    public GroceryListManager(GroceryListDAO dao, WriteBehindPolicy writeBehind) throws IOException {
         this.dao = Objects.requireNonNull(dao);
-        this.groceryList = Collections.synchronizedList(new ArrayList<>(dao.load()));
-        LOGGER.info("Grocery list loaded successfully.");
+        this.writeBehind = writeBehind;
+        if (dao instanceof IndexedGroceryListDAO) {
+            partial = true;
+            LOGGER.info("Grocery list opened, items are loaded on demand.");
+        } else {
+            dao.load().forEach(this::indexLoaded);
+            LOGGER.info("Grocery list loaded successfully.");
+        }
+
+        if (writeBehind != null && writeBehind.isTimed()) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "grocery-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = writeBehind.flushIntervalMillis();
+            flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
     }
 
     /**
@@ -45,44 +156,119 @@ public class GroceryListManager {
      * @param category optional category
      * @throws IOException if persistence fails
      */
-    public synchronized void addItem(String name, int quantity, String category) throws IOException {
-        String normalizedCategory = normalizeCategory(category).toLowerCase();
-        GroceryItem newItem = new GroceryItem(name, quantity, normalizedCategory);
+    public void addItem(String name, int quantity, String category) throws IOException {
+        applyBatch(List.of(GroceryMutation.add(name, quantity, category)));
+    }
+
+    /**
+     * Adds item using default category.
+     */
+    public void addItem(String name, int quantity) throws IOException {
+        addItem(name, quantity, null);
+    }
 
-        Optional<GroceryItem> existing = groceryList.stream()
-                .filter(i -> i.equals(newItem))
-                .findFirst();
+    /**
+     * Lists all items grouped by normalized category.
+     *
+     * @return a read-only sorted map of category to item list
+     */
+    public Map<String, List<GroceryItem>> listItems() {
+        return groupedView();
+    }
 
-        if (existing.isPresent()) {
-            existing.get().mergeWith(newItem);
-            LOGGER.info("Updated existing item: " + name + " (+" + quantity + ") in [" + normalizedCategory + "]");
-        } else {
-            groceryList.add(newItem);
-            LOGGER.info("Added new item: " + name + " (" + quantity + ") in [" + normalizedCategory + "]");
+    /**
+     * Lists the items of a single category without touching the other categories.
+     *
+     * @param category the category to read (blank or null means "default")
+     * @return the read-only category items in insertion order, empty if the category is unknown
+     */
+    public List<GroceryItem> listItems(String category) {
+        if (partial) {
+            loadRemaining();
+        }
+        String key = normalizeCategory(category).toLowerCase();
+        List<GroceryItem> view = categoryViews.get(key);
+        if (view != null) {
+            return view;
         }
+        long stamp = stateLock.readLock();
+        try {
+            return itemsByCategory.containsKey(key) ? categoryView(key) : List.of();
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
 
-        persist();
+    /**
+     * Returns the categories currently holding at least one item.
+     *
+     * @return a read-only sorted set of the category names
+     */
+    public SortedSet<String> getCategories() {
+        return groupedView().navigableKeySet();
     }
 
     /**
-     * Adds item using default category.
+     * Returns the number of items held in memory without building a view, e.g. to account for memory use.
+     * While an indexed list is loaded on demand, only the items fetched so far are counted.
+     *
+     * @return the current number of resident items
      */
-    public synchronized void addItem(String name, int quantity) throws IOException {
-        addItem(name, quantity, null);
+    public int size() {
+        long stamp = stateLock.tryOptimisticRead();
+        int size = items.size();
+        if (!stateLock.validate(stamp)) {
+            stamp = stateLock.readLock();
+            try {
+                size = items.size();
+            } finally {
+                stateLock.unlockRead(stamp);
+            }
+        }
+        return size;
     }
 
     /**
-     * Lists all items grouped by normalized category.
+     * Returns a counter incremented by every mutation (or batch) that changes the list, starting at 0 after loading.
+     * Readers can cache anything derived from the list for as long as the version stays the same;
+     * read it before reading the list, so that a cached value is never tagged newer than it is.
+     *
+     * @return the current version of the list
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Subscribes to the changes made from now on. Events are delivered on a thread of their own.
+     *
+     * @param listener the listener
+     * @return the subscription, to close when no longer needed
+     */
+    public GroceryChangeFeed.Subscription subscribe(GroceryChangeListener listener) {
+        return feed.subscribe(listener);
+    }
+
+    /**
+     * Subscribes to the changes starting at a sequence number, e.g. the one following the last
+     * event a consumer processed before reconnecting.
+     *
+     * @param fromSequence the sequence of the first event to deliver
+     * @param listener     the listener
+     * @return the subscription, to close when no longer needed
+     */
+    public GroceryChangeFeed.Subscription subscribe(long fromSequence, GroceryChangeListener listener) {
+        return feed.subscribe(fromSequence, listener);
+    }
+
+    /**
+     * Returns the sequence of the last change published. A consumer reading the list after this
+     * call and subscribing from the next sequence misses no change.
      *
-     * @return a sorted map of category to item list
+     * @return the last sequence, 0 if nothing changed since loading
      */
-    public synchronized Map<String, List<GroceryItem>> listItems() {
-        return groceryList.stream()
-                .collect(Collectors.groupingBy(
-                        item -> normalizeCategory(item.getCategory()),
-                        TreeMap::new,
-                        Collectors.toList()
-                ));
+    public long getLastSequence() {
+        return feed.getLastSequence();
     }
 
     /**
@@ -91,24 +277,352 @@ public class GroceryListManager {
      * @param itemName name to match
      * @throws IOException if persistence fails
      */
-    public synchronized void removeItem(String itemName) throws IOException {
-        boolean removed = groceryList.removeIf(matchesName(itemName));
+    public void removeItem(String itemName) throws IOException {
+        applyBatch(List.of(GroceryMutation.remove(itemName)));
+    }
+
+    /**
+     * Adds several items at once, persisting them with a single write.
+     * Items without category go to "default".
+     *
+     * @param newItems the items to add
+     * @return the changes made, duplicates within the batch merged
+     * @throws IOException if persistence fails
+     */
+    public List<GroceryChange> addItems(Collection<GroceryItem> newItems) throws IOException {
+        List<GroceryMutation> mutations = new ArrayList<>(newItems.size());
+        for (GroceryItem item : newItems) {
+            mutations.add(GroceryMutation.add(item.getName(), item.getQuantity(), item.getCategory()));
+        }
+        return applyBatch(mutations);
+    }
 
-        if (removed) {
-            LOGGER.info("Removed item(s): " + itemName);
+    /**
+     * Removes every item matching one of the given names, persisting the removals with a single write.
+     *
+     * @param names the names to match (case-insensitive)
+     * @return the changes made, one per name that matched
+     * @throws IOException if persistence fails
+     */
+    public List<GroceryChange> removeItems(Collection<String> names) throws IOException {
+        List<GroceryMutation> mutations = new ArrayList<>(names.size());
+        for (String name : names) {
+            mutations.add(GroceryMutation.remove(name));
+        }
+        return applyBatch(mutations);
+    }
+
+    /**
+     * Applies a sequence of mutations in order under a single acquisition of the locks and
+     * persists the result once. Readers see either none or all of the batch.
+     * Several additions to the same item are merged into one change, unless a removal of
+     * that item comes in between. The batch is validated when it is built, so a failure can only
+     * come from persistence, after the in-memory list has been updated (as for single mutations).
+     *
+     * @param mutations the mutations to apply
+     * @return the changes made, in order
+     * @throws IOException if persistence fails
+     */
+    public List<GroceryChange> applyBatch(List<? extends GroceryMutation> mutations) throws IOException {
+        Objects.requireNonNull(mutations, "Mutations cannot be null");
+        if (mutations.isEmpty()) {
+            return List.of();
+        }
+
+        List<GroceryChange> changes = new ArrayList<>();
+        long ticket;
+        mutationLock.lock();
+        try {
+            Map<String, List<GroceryItem>> fetched = partial ? fetch(mutations) : Map.of();
+            long stamp = stateLock.writeLock();
+            try {
+                fetched.values().forEach(found -> found.forEach(this::indexLoaded));
+                residentNames.addAll(fetched.keySet());
+                // Position in changes of the last change of each item added by this batch
+                Map<ItemKey, Integer> openChanges = new HashMap<>();
+                for (GroceryMutation mutation : mutations) {
+                    switch (mutation) {
+                        case GroceryMutation.Add add -> applyAdd(add, changes, openChanges);
+                        case GroceryMutation.Remove remove -> applyRemove(remove, changes, openChanges);
+                    }
+                }
+                if (!changes.isEmpty()) {
+                    invalidateViews();
+                    version++;
+                }
+            } finally {
+                stateLock.unlockWrite(stamp);
+            }
+
+            feed.publish(version, changes);
+            ticket = persist(changes, mutations.size());
+        } finally {
+            mutationLock.unlock();
+        }
+        awaitDurable(ticket);
+        return List.copyOf(changes);
+    }
+
+    /**
+     * Reads from the indexed DAO the items of the names touched by mutations that are not resident yet.
+     * Must be called with the mutation lock held; the caller makes the names resident once their items are indexed.
+     *
+     * @return the items found, by lower-cased name
+     */
+    private Map<String, List<GroceryItem>> fetch(List<? extends GroceryMutation> mutations) throws IOException {
+        IndexedGroceryListDAO indexed = (IndexedGroceryListDAO) dao;
+        Map<String, List<GroceryItem>> fetched = new LinkedHashMap<>();
+        for (GroceryMutation mutation : mutations) {
+            String name = switch (mutation) {
+                case GroceryMutation.Add add -> add.name();
+                case GroceryMutation.Remove remove -> remove.name();
+            };
+            String lowerCaseName = name.toLowerCase();
+            if (!residentNames.contains(lowerCaseName) && !fetched.containsKey(lowerCaseName)) {
+                fetched.put(lowerCaseName, indexed.find(name));
+            }
+        }
+        return fetched;
+    }
+
+    /**
+     * Loads the items of the names not resident yet, once, then leaves on-demand mode.
+     * Resident names are skipped: their items in memory may be newer than the stored ones.
+     *
+     * @throws UncheckedIOException if loading from the DAO fails
+     */
+    private void loadRemaining() {
+        mutationLock.lock();
+        try {
+            if (!partial) {
+                return;
+            }
+            List<GroceryItem> loaded = dao.load();
+            long stamp = stateLock.writeLock();
+            try {
+                for (GroceryItem item : loaded) {
+                    if (!residentNames.contains(item.getName().toLowerCase())) {
+                        indexLoaded(item);
+                    }
+                }
+                residentNames.clear();
+                invalidateViews();
+                partial = false;
+            } finally {
+                stateLock.unlockWrite(stamp);
+            }
+            LOGGER.info("Grocery list loaded successfully.");
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to load grocery list.", e);
+            throw new UncheckedIOException(e);
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    /**
+     * Indexes an item read from the DAO, merging it with a duplicate already indexed.
+     */
+    private void indexLoaded(GroceryItem item) {
+        item.setCategory(normalizeCategory(item.getCategory()));
+        ItemKey key = ItemKey.of(item.getName(), item.getCategory());
+        GroceryItem existing = items.get(key);
+        if (existing != null) {
+            existing.mergeWith(item);
+        } else {
+            index(key, item);
+        }
+    }
+
+    /**
+     * Applies an addition to the indexes. Must be called with the state write lock held.
+     */
+    private void applyAdd(GroceryMutation.Add add, List<GroceryChange> changes, Map<ItemKey, Integer> openChanges) {
+        String name = add.name();
+        int quantity = add.quantity();
+        String normalizedCategory = normalizeCategory(add.category()).toLowerCase();
+        ItemKey key = ItemKey.of(name, normalizedCategory);
+
+        GroceryItem existing = items.get(key);
+        GroceryChange change;
+        if (existing != null) {
+            // Items are replaced rather than mutated so published views stay immutable
+            GroceryItem merged = new GroceryItem(existing.getName(), existing.getQuantity() + quantity, existing.getCategory());
+            replace(key, merged);
+            change = GroceryChange.merged(merged, quantity);
+            LOGGER.fine(() -> "Updated existing item: " + name + " (+" + quantity + ") in [" + normalizedCategory + "]");
+        } else {
+            GroceryItem newItem = new GroceryItem(name, quantity, normalizedCategory);
+            index(key, newItem);
+            change = GroceryChange.added(newItem);
+            LOGGER.fine(() -> "Added new item: " + name + " (" + quantity + ") in [" + normalizedCategory + "]");
+        }
+
+        Integer open = openChanges.get(key);
+        if (open == null) {
+            openChanges.put(key, changes.size());
+            changes.add(change);
         } else {
-            LOGGER.warning("Item not found for removal: " + itemName);
+            GroceryChange previous = changes.get(open);
+            changes.set(open, new GroceryChange(previous.type(), previous.name(), previous.category(),
+                    change.quantity(), previous.delta() + quantity));
         }
+    }
+
+    /**
+     * Applies a removal to the indexes. Must be called with the state write lock held.
+     */
+    private void applyRemove(GroceryMutation.Remove remove, List<GroceryChange> changes, Map<ItemKey, Integer> openChanges) {
+        List<ItemKey> keys = keysByName.remove(remove.name().toLowerCase());
+        if (keys == null) {
+            LOGGER.warning("Item not found for removal: " + remove.name());
+            return;
+        }
+        for (ItemKey key : keys) {
+            unindex(key);
+            openChanges.remove(key);
+        }
+        changes.add(GroceryChange.removed(remove.name()));
+        LOGGER.fine(() -> "Removed item(s): " + remove.name());
+    }
 
-        persist();
+    /**
+     * Writes any pending mutations to storage. Does nothing in synchronous mode.
+     *
+     * @throws IOException if persistence fails; the mutations stay pending in that case
+     */
+    public void flush() throws IOException {
+        mutationLock.lock();
+        try {
+            flushPending();
+        } finally {
+            mutationLock.unlock();
+        }
     }
 
     /**
-     * Persists current list state via DAO.
+     * Stops the background flusher, writes any pending mutations and closes the change subscriptions.
+     * With a DAO holding resources, such as a {@link DurableGroceryListDAO}, also closes the DAO.
+     * Mutations made after closing are persisted synchronously, after any change still pending.
+     *
+     * @throws IOException if the final flush fails
      */
-    private synchronized void persist() throws IOException {
+    @Override
+    public void close() throws IOException {
+        mutationLock.lock();
         try {
-            dao.save(groceryList);
+            if (closed) {
+                return;
+            }
+            // Marked under the mutation lock so no mutation can queue changes behind the final flush
+            closed = true;
+            feed.close();
+            if (writeBehind != null) {
+                if (flusher != null) {
+                    flusher.shutdown();
+                }
+                flushPending();
+                LOGGER.info("Write-behind closed: " + persistedMutations + " mutation(s) persisted with "
+                        + writes + " write(s), " + getCoalescedWrites() + " coalesced.");
+            }
+            if (dao instanceof Closeable closeable) {
+                // Async saves may still be on their way to disk, memtables still in memory
+                closeable.close();
+            }
+        } finally {
+            mutationLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of DAO writes performed so far
+     */
+    public long getWriteCount() {
+        return writes;
+    }
+
+    /**
+     * @return the number of persisted mutations that did not need a write of their own
+     */
+    public long getCoalescedWrites() {
+        return persistedMutations - writes;
+    }
+
+    /**
+     * Records the changes of the current mutation or batch. Must be called with the mutation lock held.
+     * In synchronous mode they are written immediately, otherwise they wait for the next flush.
+     *
+     * @param changes       the changes made by the current mutation or batch
+     * @param mutationCount the number of mutations that produced them
+     * @return the ticket to wait for with {@link #awaitDurable(long)} once the lock is released, or 0
+     */
+    private long persist(List<GroceryChange> changes, int mutationCount) throws IOException {
+        if (writeBehind == null || closed) {
+            // Changes left pending by a failed final flush must not be overtaken
+            flushPending();
+            long ticket = write(changes);
+            persistedMutations += mutationCount;
+            writes++;
+            return ticket;
+        }
+
+        if (!changes.isEmpty()) {
+            pendingChanges.addAll(changes);
+            pendingMutations += mutationCount;
+            if (pendingMutations >= writeBehind.maxPendingChanges()) {
+                flushPending();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Writes all pending changes in a single DAO call. Must be called with the mutation lock held.
+     */
+    private void flushPending() throws IOException {
+        if (pendingMutations == 0) {
+            return;
+        }
+        awaitDurable(write(pendingChanges));
+        persistedMutations += pendingMutations;
+        writes++;
+        pendingChanges.clear();
+        pendingMutations = 0;
+    }
+
+    /**
+     * Flush task of the background flusher; failures are logged and retried on the next run.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Background flush of grocery list failed.", e);
+        }
+    }
+
+    /**
+     * Persists current list state via DAO. Must be called with the mutation lock held.
+     * Incremental DAOs only receive the given changes, plus a full snapshot when they ask for compaction.
+     *
+     * A {@link DurableGroceryListDAO} only gets the snapshot submitted; the caller waits for it.
+     *
+     * @param changes the changes to write
+     * @return the ticket of the submitted snapshot for a durable DAO, 0 once written otherwise
+     */
+    private long write(List<GroceryChange> changes) throws IOException {
+        try {
+            if (dao instanceof IncrementalGroceryListDAO incremental) {
+                incremental.apply(changes);
+                if (incremental.needsCompaction()) {
+                    incremental.save(getItems());
+                }
+            } else if (dao instanceof DurableGroceryListDAO durable) {
+                return durable.submit(getItems());
+            } else {
+                dao.save(getItems());
+            }
+            return 0;
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Failed to persist grocery list.", e);
             throw e;
@@ -116,12 +630,126 @@ public class GroceryListManager {
     }
 
     /**
-     * Returns a copy of the grocery list (read-only).
+     * Waits until a snapshot submitted by {@link #write} is on disk, as far as the durability of the DAO requires.
      *
-     * @return defensive copy
+     * @param ticket the ticket returned by write, 0 if nothing needs waiting for
+     */
+    private void awaitDurable(long ticket) throws IOException {
+        if (ticket == 0 || !(dao instanceof DurableGroceryListDAO durable)) {
+            return;
+        }
+        try {
+            durable.awaitDurable(ticket);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to persist grocery list.", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the grocery list as of the last published view.
+     *
+     * @return read-only list of items in insertion order
+     */
+    public List<GroceryItem> getItems() {
+        List<GroceryItem> current = itemsView;
+        if (current != null) {
+            return current;
+        }
+        if (partial) {
+            loadRemaining();
+        }
+
+        long stamp = stateLock.readLock();
+        try {
+            current = itemsView;
+            if (current == null) {
+                current = List.copyOf(items.values());
+                itemsView = current;
+            }
+            return current;
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the current grouped view, rebuilding it under a read lock if a mutation made it stale.
+     * Only the categories changed since the last view are copied again; the others are shared.
+     * Readers only ever contend with the in-memory part of a mutation, never with persistence.
      */
-    public synchronized List<GroceryItem> getItems() {
-        return new ArrayList<>(groceryList);
+    private NavigableMap<String, List<GroceryItem>> groupedView() {
+        NavigableMap<String, List<GroceryItem>> current = groupedView;
+        if (current != null) {
+            return current;
+        }
+        if (partial) {
+            loadRemaining();
+        }
+
+        long stamp = stateLock.readLock();
+        try {
+            current = groupedView;
+            if (current == null) {
+                NavigableMap<String, List<GroceryItem>> grouped = new TreeMap<>();
+                for (String category : itemsByCategory.keySet()) {
+                    grouped.put(category, categoryView(category));
+                }
+                current = Collections.unmodifiableNavigableMap(grouped);
+                groupedView = current;
+            }
+            return current;
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the view of an existing category, copying it if a mutation dropped it.
+     * Must be called with the state lock held, in read or write mode.
+     */
+    private List<GroceryItem> categoryView(String category) {
+        return categoryViews.computeIfAbsent(category, c -> List.copyOf(itemsByCategory.get(c).values()));
+    }
+
+    /**
+     * Drops the views spanning every category. Must be called with the state write lock held.
+     */
+    private void invalidateViews() {
+        groupedView = null;
+        itemsView = null;
+    }
+
+    /**
+     * Registers a new item in every index.
+     */
+    private void index(ItemKey key, GroceryItem item) {
+        items.put(key, item);
+        keysByName.computeIfAbsent(key.name(), k -> new ArrayList<>(1)).add(key);
+        itemsByCategory.computeIfAbsent(key.category(), c -> new LinkedHashMap<>()).put(key, item);
+        categoryViews.remove(key.category());
+    }
+
+    /**
+     * Swaps the item stored under an existing key in every index.
+     */
+    private void replace(ItemKey key, GroceryItem item) {
+        items.put(key, item);
+        itemsByCategory.get(key.category()).put(key, item);
+        categoryViews.remove(key.category());
+    }
+
+    /**
+     * Drops an item from the key and category indexes (the name index is handled by the caller).
+     */
+    private void unindex(ItemKey key) {
+        items.remove(key);
+        Map<ItemKey, GroceryItem> categoryItems = itemsByCategory.get(key.category());
+        categoryItems.remove(key);
+        if (categoryItems.isEmpty()) {
+            itemsByCategory.remove(key.category());
+        }
+        categoryViews.remove(key.category());
     }
 
     /**
@@ -132,9 +760,11 @@ public class GroceryListManager {
     }
 
     /**
-     * Case-insensitive match for removal.
+     * Identity of an item: lowercase name and normalized category, computed once per lookup.
      */
-    private Predicate<GroceryItem> matchesName(String name) {
-        return item -> item.getName().equalsIgnoreCase(name);
+    private record ItemKey(String name, String category) {
+        static ItemKey of(String name, String category) {
+            return new ItemKey(name.toLowerCase(), category);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,424 @@
+package com.fges.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import com.fges.dao.Durability;
+import com.fges.dao.GroceryListDAOFactory;
+
+/**
+ * Keeps many {@link GroceryListManager} instances resident, loading each list on first use.
+ * Lists are identified by an id (e.g. a household id or an absolute path) that the
+ * {@link Loader} turns into a manager.
+ * <p>
+ * The registry holds at most {@code maxLists} lists and, optionally, {@code maxItems} items in
+ * total (a proxy for memory use; a list loaded on demand only counts its resident items).
+ * When a budget is exceeded, the least recently used lists are evicted; lists unused for
+ * longer than the idle timeout are evicted in the background.
+ * An evicted list is closed, which flushes its pending mutations, before it can be loaded again.
+ * <p>
+ * Lists are used through {@link #withList}: a list is never evicted while an action runs on it,
+ * and concurrent requests for a list that is not resident wait for a single load.
+ */
+public final class GroceryListRegistry implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(GroceryListRegistry.class.getName());
+
+    /** Default maximum number of resident lists */
+    public static final int DEFAULT_MAX_LISTS = 1_024;
+
+    /** Ids accepted by {@link #directory}: no separators, no leading dot */
+    private static final Pattern LIST_ID = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,127}");
+
+    /**
+     * Creates the manager of a list that is not resident.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * @param id the list id
+         * @return the loaded manager
+         * @throws IOException if the list cannot be loaded
+         */
+        GroceryListManager load(String id) throws IOException;
+    }
+
+    /**
+     * Action run on a resident list.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface ListAction<T> {
+        /**
+         * @param manager the manager of the list, not evicted while the action runs
+         * @return the result of the action
+         * @throws IOException if the action fails to persist
+         */
+        T apply(GroceryListManager manager) throws IOException;
+    }
+
+    private final Loader loader;
+    private final int maxLists;
+    private final long maxItems;
+    private final long idleTimeoutNanos;
+
+    /** Resident and loading lists, least recently used first (guarded by itself) */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Evicted lists still being flushed, which must not be loaded again yet (guarded by entries) */
+    private final Map<String, CompletableFuture<Void>> closing = new HashMap<>();
+
+    /** Items of the resident lists as of their last use (guarded by entries) */
+    private long residentItems;
+
+    private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    /** Background idle evictor, only present with an idle timeout */
+    private final ScheduledExecutorService evictor;
+
+    private boolean closed;
+
+    /**
+     * State of one list in the registry.
+     */
+    private static final class Entry {
+        final String id;
+        final CompletableFuture<GroceryListManager> manager = new CompletableFuture<>();
+        final CompletableFuture<Void> closed = new CompletableFuture<>();
+        /** Actions running on the list (guarded by the registry entries) */
+        int leases;
+        /** Items of the list at the end of its last use (guarded by the registry entries) */
+        long items;
+        /** End of the last use, from System.nanoTime() (guarded by the registry entries) */
+        long lastUsed = System.nanoTime();
+
+        Entry(String id) {
+            this.id = id;
+        }
+
+        boolean isLoaded() {
+            return manager.isDone() && !manager.isCompletedExceptionally();
+        }
+    }
+
+    /**
+     * Creates a registry without item budget or idle timeout.
+     *
+     * @param loader   creates the manager of a list on first use
+     * @param maxLists maximum number of resident lists
+     */
+    public GroceryListRegistry(Loader loader, int maxLists) {
+        this(loader, maxLists, 0, 0);
+    }
+
+    /**
+     * Creates a registry.
+     *
+     * @param loader            creates the manager of a list on first use
+     * @param maxLists          maximum number of resident lists
+     * @param maxItems          maximum number of items in all resident lists, 0 for no limit
+     * @param idleTimeoutMillis time after which an unused list is evicted, 0 to keep lists until
+     *                          a budget is exceeded
+     */
+    public GroceryListRegistry(Loader loader, int maxLists, long maxItems, long idleTimeoutMillis) {
+        if (maxLists <= 0) {
+            throw new IllegalArgumentException("Registry list limit must be positive.");
+        }
+        if (maxItems < 0 || idleTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Registry item limit and idle timeout must not be negative.");
+        }
+        this.loader = Objects.requireNonNull(loader, "Loader cannot be null");
+        this.maxLists = maxLists;
+        this.maxItems = maxItems;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+
+        if (idleTimeoutMillis > 0) {
+            this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "grocery-registry-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(idleTimeoutMillis / 2, 1);
+            evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictor = null;
+        }
+    }
+
+    /**
+     * Creates a loader storing each list in its own file of a directory, named after the list id
+     * and the format (e.g. "smith.json"). Ids that could escape the directory are rejected.
+     *
+     * @param directory   the directory holding the lists
+     * @param format      the file format (json, csv, wal, bin, mmap, lsm or btree)
+     * @param writeBehind the write-behind policy of the managers, or null for synchronous writes
+     * @return the loader
+     */
+    public static Loader directory(Path directory, String format, WriteBehindPolicy writeBehind) {
+        return directory(directory, format, writeBehind, Durability.NONE);
+    }
+
+    /**
+     * Creates a loader storing each list in its own file of a directory, with the given durability.
+     *
+     * @param directory   the directory holding the lists
+     * @param format      the file format (json, csv, wal, bin, mmap, lsm or btree)
+     * @param writeBehind the write-behind policy of the managers, or null for synchronous writes
+     * @param durability  how far saves must reach before returning
+     * @return the loader
+     */
+    public static Loader directory(Path directory, String format, WriteBehindPolicy writeBehind, Durability durability) {
+        return id -> {
+            if (!LIST_ID.matcher(id).matches()) {
+                throw new IllegalArgumentException("Invalid list id: " + id);
+            }
+            String fileName = directory.resolve(id + "." + format.toLowerCase()).toString();
+            return new GroceryListManager(GroceryListDAOFactory.create(format, fileName, 1, durability), writeBehind);
+        };
+    }
+
+    /**
+     * Runs an action on a list, loading it with the registry loader if it is not resident.
+     *
+     * @param id     the list id
+     * @param action the action to run
+     * @param <T>    the result type
+     * @return the result of the action
+     * @throws IOException if the list cannot be loaded or the action fails
+     */
+    public <T> T withList(String id, ListAction<T> action) throws IOException {
+        return withList(id, loader, action);
+    }
+
+    /**
+     * Runs an action on a list, loading it with the given loader if it is not resident.
+     *
+     * @param id         the list id
+     * @param listLoader the loader to use if the list must be loaded
+     * @param action     the action to run
+     * @param <T>        the result type
+     * @return the result of the action
+     * @throws IOException if the list cannot be loaded or the action fails
+     */
+    public <T> T withList(String id, Loader listLoader, ListAction<T> action) throws IOException {
+        Objects.requireNonNull(id, "List id cannot be null");
+        Entry entry;
+        boolean owner = false;
+        CompletableFuture<Void> previousClose = null;
+        synchronized (entries) {
+            if (closed) {
+                throw new IllegalStateException("Grocery list registry is closed.");
+            }
+            entry = entries.get(id);
+            if (entry == null) {
+                entry = new Entry(id);
+                entries.put(id, entry);
+                previousClose = closing.get(id);
+                owner = true;
+            }
+            entry.leases++;
+        }
+
+        GroceryListManager manager = null;
+        try {
+            manager = owner ? load(entry, listLoader, previousClose) : await(entry.manager);
+            return action.apply(manager);
+        } finally {
+            release(entry, manager);
+        }
+    }
+
+    /**
+     * Registers a listener called with the id of every list evicted, after it was closed.
+     *
+     * @param listener the listener
+     */
+    public void addEvictionListener(Consumer<String> listener) {
+        evictionListeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * @return the number of resident (or loading) lists
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @param id a list id
+     * @return true if the list is resident or being loaded
+     */
+    public boolean isResident(String id) {
+        synchronized (entries) {
+            return entries.containsKey(id);
+        }
+    }
+
+    /**
+     * Evicts every list that has not been used for longer than the idle timeout.
+     * Called periodically when an idle timeout is configured.
+     */
+    public void evictIdle() {
+        if (idleTimeoutNanos == 0) {
+            return;
+        }
+        List<Entry> victims = new ArrayList<>();
+        synchronized (entries) {
+            long now = System.nanoTime();
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.leases == 0 && entry.isLoaded() && now - entry.lastUsed > idleTimeoutNanos) {
+                    iterator.remove();
+                    detach(entry);
+                    victims.add(entry);
+                }
+            }
+        }
+        victims.forEach(this::evict);
+    }
+
+    /**
+     * Stops the idle evictor, then flushes and closes every resident list.
+     */
+    @Override
+    public void close() {
+        List<Entry> victims;
+        synchronized (entries) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            victims = new ArrayList<>(entries.values());
+            entries.clear();
+            residentItems = 0;
+        }
+        if (evictor != null) {
+            evictor.shutdown();
+        }
+        for (Entry entry : victims) {
+            if (entry.manager.isDone()) {
+                if (entry.isLoaded()) {
+                    closeManager(entry);
+                }
+            } else {
+                // Still loading: closed as soon as the load completes
+                entry.manager.thenRun(() -> closeManager(entry));
+            }
+        }
+    }
+
+    /**
+     * Loads a list for the entry this thread created, once a previous instance finished closing.
+     */
+    private GroceryListManager load(Entry entry, Loader listLoader, CompletableFuture<Void> previousClose) throws IOException {
+        try {
+            if (previousClose != null) {
+                previousClose.join();
+            }
+            GroceryListManager manager = listLoader.load(entry.id);
+            entry.manager.complete(manager);
+            LOGGER.fine(() -> "Loaded grocery list " + entry.id);
+            return manager;
+        } catch (IOException | RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(entry.id, entry);
+            }
+            entry.manager.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the load of a list started by another thread, rethrowing its failure.
+     */
+    private static GroceryListManager await(CompletableFuture<GroceryListManager> manager) throws IOException {
+        try {
+            return manager.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Ends a use of a list, updates its size and evicts lists while a budget is exceeded.
+     */
+    private void release(Entry entry, GroceryListManager manager) {
+        int items = manager == null ? 0 : manager.size();
+        List<Entry> victims = new ArrayList<>();
+        synchronized (entries) {
+            entry.leases--;
+            entry.lastUsed = System.nanoTime();
+            if (entries.get(entry.id) != entry) {
+                // Load failed, or the registry was closed
+                return;
+            }
+            residentItems += items - entry.items;
+            entry.items = items;
+
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (isOverBudget() && iterator.hasNext()) {
+                Entry candidate = iterator.next();
+                if (candidate.leases == 0 && candidate.isLoaded()) {
+                    iterator.remove();
+                    detach(candidate);
+                    victims.add(candidate);
+                }
+            }
+        }
+        victims.forEach(this::evict);
+    }
+
+    private boolean isOverBudget() {
+        return entries.size() > maxLists || (maxItems > 0 && residentItems > maxItems);
+    }
+
+    /**
+     * Accounts for an entry removed from the resident lists. Must be called with the entries lock held.
+     */
+    private void detach(Entry entry) {
+        residentItems -= entry.items;
+        closing.put(entry.id, entry.closed);
+    }
+
+    /**
+     * Flushes and closes an evicted list, then lets it be loaded again.
+     */
+    private void evict(Entry entry) {
+        closeManager(entry);
+        evictionListeners.forEach(listener -> listener.accept(entry.id));
+        synchronized (entries) {
+            closing.remove(entry.id, entry.closed);
+        }
+        entry.closed.complete(null);
+        LOGGER.fine(() -> "Evicted grocery list " + entry.id);
+    }
+
+    private void closeManager(Entry entry) {
+        try {
+            entry.manager.join().close();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Failed to flush grocery list " + entry.id + " on eviction.", e);
+        }
+    }
+}
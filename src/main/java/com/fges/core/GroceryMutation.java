@@ -0,0 +1,62 @@
+package com.fges.core;
+
+/**
+ * A mutation requested on a grocery list, applied by {@link GroceryListManager#applyBatch}.
+ * Unlike {@link GroceryChange}, which describes what a mutation did, it describes what the
+ * caller asks for: quantities are deltas and categories are not normalized yet.
+ */
+public sealed interface GroceryMutation {
+
+    /**
+     * Adds a quantity of an item, merging with an existing item of the same name and category.
+     *
+     * @param name     the item name
+     * @param quantity the quantity to add, positive: the storage formats reject empty items
+     * @param category the category, or null/blank for "default"
+     */
+    record Add(String name, int quantity, String category) implements GroceryMutation {
+
+        /**
+         * Validates the item fields.
+         */
+        public Add {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Item name must not be null or empty");
+            }
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+        }
+    }
+
+    /**
+     * Removes every item with the given name (case-insensitive), whatever its category.
+     *
+     * @param name the item name
+     */
+    record Remove(String name) implements GroceryMutation {
+
+        /**
+         * Validates the item name.
+         */
+        public Remove {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Item name must not be null or empty");
+            }
+        }
+    }
+
+    /**
+     * @return a mutation adding the given quantity of an item
+     */
+    static GroceryMutation add(String name, int quantity, String category) {
+        return new Add(name, quantity, category);
+    }
+
+    /**
+     * @return a mutation removing every item with the given name
+     */
+    static GroceryMutation remove(String name) {
+        return new Remove(name);
+    }
+}
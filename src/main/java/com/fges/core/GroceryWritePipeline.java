@@ -0,0 +1,210 @@
+package com.fges.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Single-writer execution mode for a {@link GroceryListManager}.
+ * Callers submit mutations to a bounded lock-free {@link MpscRingBuffer} and get a future back;
+ * one writer thread drains whatever is queued, applies it as a single
+ * {@link GroceryListManager#applyBatch batch} and persists once for the whole batch (group commit).
+ * Producers never take a lock: under contention they wait on the ring, not on file I/O.
+ * <p>
+ * Futures complete with the list version once the batch holding the mutations is persisted,
+ * or exceptionally with the failure of that batch (every mutation of the batch fails together).
+ * When the ring is full, producers back off until the writer frees slots.
+ */
+public final class GroceryWritePipeline implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(GroceryWritePipeline.class.getName());
+
+    /** Default number of pending submissions */
+    public static final int DEFAULT_CAPACITY = 1_024;
+
+    private final GroceryListManager manager;
+    private final MpscRingBuffer<Request> ring;
+    private final Thread writer;
+
+    /** True while the writer is about to park, so producers know to unpark it */
+    private volatile boolean writerParked;
+
+    /** Producers between their closed check and the end of their offer */
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    /** Batches and mutations applied, for statistics */
+    private volatile long batches;
+    private volatile long mutations;
+
+    /**
+     * Mutations of one submission and the future completed once they are persisted.
+     */
+    private record Request(List<GroceryMutation> mutations, CompletableFuture<Long> result) {
+    }
+
+    /**
+     * Creates the pipeline with {@link #DEFAULT_CAPACITY} slots and starts its writer thread.
+     *
+     * @param manager the manager to write to
+     */
+    public GroceryWritePipeline(GroceryListManager manager) {
+        this(manager, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates the pipeline and starts its writer thread.
+     *
+     * @param manager  the manager to write to
+     * @param capacity the number of submissions that may be pending (rounded up to a power of two)
+     */
+    public GroceryWritePipeline(GroceryListManager manager, int capacity) {
+        this.manager = Objects.requireNonNull(manager, "GroceryListManager cannot be null");
+        this.ring = new MpscRingBuffer<>(capacity);
+        this.writer = new Thread(this::drain, "grocery-pipeline-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Submits one mutation.
+     *
+     * @param mutation the mutation
+     * @return a future completed with the list version once the mutation is persisted
+     * @throws IllegalStateException if the pipeline is closed
+     */
+    public CompletableFuture<Long> submit(GroceryMutation mutation) {
+        return submit(List.of(mutation));
+    }
+
+    /**
+     * Submits mutations that are applied together, in order, within one batch.
+     *
+     * @param batch the mutations
+     * @return a future completed with the list version once the mutations are persisted
+     * @throws IllegalStateException if the pipeline is closed
+     */
+    public CompletableFuture<Long> submit(List<GroceryMutation> batch) {
+        Request request = new Request(List.copyOf(batch), new CompletableFuture<>());
+        submitting.incrementAndGet();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Grocery write pipeline is closed.");
+            }
+            for (int attempt = 0; !ring.offer(request); attempt++) {
+                backOff(attempt);
+            }
+        } finally {
+            submitting.decrementAndGet();
+        }
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+        return request.result();
+    }
+
+    /**
+     * Waits while the ring is full: spin briefly, then yield, then sleep for short periods.
+     */
+    private static void backOff(int attempt) {
+        if (attempt < 64) {
+            Thread.onSpinWait();
+        } else if (attempt < 128) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    /**
+     * @return the number of batches written so far
+     */
+    public long getBatchCount() {
+        return batches;
+    }
+
+    /**
+     * @return the number of mutations written so far
+     */
+    public long getMutationCount() {
+        return mutations;
+    }
+
+    /**
+     * Stops accepting submissions, waits for the writer to persist everything already submitted.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("Write pipeline closed: " + mutations + " mutation(s) written in " + batches + " batch(es).");
+    }
+
+    /**
+     * Writer loop: takes everything queued, applies and persists it as one batch, then completes the futures.
+     */
+    private void drain() {
+        List<Request> requests = new ArrayList<>();
+        List<GroceryMutation> batch = new ArrayList<>();
+        while (true) {
+            Request request;
+            while ((request = ring.poll()) != null && requests.size() < ring.capacity()) {
+                requests.add(request);
+                batch.addAll(request.mutations());
+            }
+            if (request != null) {
+                // Batch limit reached: keep the request for the next batch
+                write(requests, batch);
+                requests.add(request);
+                batch.addAll(request.mutations());
+                continue;
+            }
+
+            if (!requests.isEmpty()) {
+                write(requests, batch);
+                continue;
+            }
+
+            if (closed && submitting.get() == 0 && ring.isEmpty()) {
+                return;
+            }
+            writerParked = true;
+            if (ring.isEmpty() && !closed) {
+                LockSupport.park(this);
+            } else if (!ring.isEmpty()) {
+                // An element is claimed but not published yet
+                Thread.onSpinWait();
+            }
+            writerParked = false;
+        }
+    }
+
+    private void write(List<Request> requests, List<GroceryMutation> batch) {
+        try {
+            manager.applyBatch(batch);
+            long version = manager.getVersion();
+            batches++;
+            mutations += batch.size();
+            requests.forEach(request -> request.result().complete(version));
+        } catch (IOException | RuntimeException e) {
+            requests.forEach(request -> request.result().completeExceptionally(e));
+        } finally {
+            requests.clear();
+            batch.clear();
+        }
+    }
+}
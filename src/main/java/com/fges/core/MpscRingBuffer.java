@@ -0,0 +1,100 @@
+package com.fges.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * Every slot carries a sequence number telling whether it is free for the producer claiming
+ * position {@code p} ({@code sequence == p}) or filled for the consumer reading it
+ * ({@code sequence == p + 1}). Producers claim positions with a CAS on the tail and publish
+ * with a release store; the consumer owns the head and needs no atomic update at all.
+ *
+ * @param <E> the element type
+ */
+final class MpscRingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    /** Next position to claim by a producer */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Next position to read, only accessed by the consumer */
+    private long head;
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Ring buffer capacity must be between 1 and 2^30.");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 1);
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return the number of slots
+     */
+    int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * Appends an element without blocking. Safe to call from any thread.
+     *
+     * @param element the element, not null
+     * @return false if the buffer is full
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long diff = sequences.getAcquire(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // The consumer has not freed this slot yet
+                return false;
+            }
+            // Otherwise another producer claimed the position first: retry with the new tail
+        }
+    }
+
+    /**
+     * Removes the oldest element. Must only be called by the consumer thread.
+     *
+     * @return the element, or null if the buffer is empty (or the oldest slot is still being filled)
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        int index = (int) head & mask;
+        if (sequences.getAcquire(index) != head + 1) {
+            return null;
+        }
+        E element = (E) elements[index];
+        elements[index] = null;
+        sequences.setRelease(index, head + elements.length);
+        head++;
+        return element;
+    }
+
+    /**
+     * @return true if nothing was published past the head; only exact from the consumer thread
+     */
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+}
@@ -0,0 +1,43 @@
+package com.fges.core;
+
+/**
+ * Configuration of the write-behind persistence mode of {@link GroceryListManager}.
+ * Mutations are only recorded in memory and written to storage by a background flusher,
+ * at most once per interval or as soon as the number of pending mutations reaches the limit.
+ * A {@link #manual() manual} policy has no flusher: mutations are written on explicit flushes only.
+ *
+ * @param flushIntervalMillis maximum time in milliseconds a mutation may stay unwritten
+ * @param maxPendingChanges   number of pending mutations that triggers an immediate flush
+ */
+public record WriteBehindPolicy(long flushIntervalMillis, int maxPendingChanges) {
+
+    /** Default number of pending mutations that triggers a flush */
+    public static final int DEFAULT_MAX_PENDING_CHANGES = 1_000;
+
+    /** Interval of a policy without background flusher */
+    public static final long NO_INTERVAL = Long.MAX_VALUE;
+
+    /**
+     * Validates the policy values.
+     */
+    public WriteBehindPolicy {
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Write-behind interval must be positive.");
+        }
+        if (maxPendingChanges <= 0) {
+            throw new IllegalArgumentException("Write-behind change limit must be positive.");
+        }
+    }
+
+    /**
+     * @return a policy keeping mutations pending until {@link GroceryListManager#flush()} or close
+     */
+    public static WriteBehindPolicy manual() {
+        return new WriteBehindPolicy(NO_INTERVAL, Integer.MAX_VALUE);
+    }
+
+    /** @return true if a background flusher writes pending mutations periodically */
+    public boolean isTimed() {
+        return flushIntervalMillis != NO_INTERVAL;
+    }
+}
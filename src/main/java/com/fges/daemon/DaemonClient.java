@@ -0,0 +1,113 @@
+package com.fges.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.logging.Logger;
+
+import com.fges.cli.CommandLineArgs;
+
+/**
+ * Thin client forwarding parsed command-line arguments to a running {@link GroceryDaemon}.
+ * When no daemon listens on the socket, nothing is sent and the caller runs the command itself.
+ */
+public class DaemonClient {
+
+    private static final Logger LOGGER = Logger.getLogger(DaemonClient.class.getName());
+
+    /** Commands the daemon runs against its warm managers */
+    private static final List<String> FORWARDED = List.of("add", "list", "remove");
+
+    private final Path socketPath;
+
+    /**
+     * @param socketPath the socket file the daemon listens on
+     */
+    public DaemonClient(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    /**
+     * @param args the parsed command-line arguments
+     * @return true if the command works on a source file and can be run by the daemon;
+     *         "list --stream" reads the file itself and is never forwarded
+     */
+    public static boolean isForwardable(CommandLineArgs args) {
+        return FORWARDED.contains(args.getCommand().toLowerCase())
+                && args.getFileName() != null && !args.getFileName().isBlank()
+                && !args.isStreamingList();
+    }
+
+    /**
+     * Runs the command on the daemon if one is listening, printing its output to {@code out}.
+     * A failure reported by the daemon is logged like a local failure. A socket whose location
+     * other users could have tampered with is not used (see {@link DaemonSocket}).
+     *
+     * @param args the parsed command-line arguments
+     * @param out  where to print the output of the command
+     * @return the exit code of the command, or empty if no daemon is running
+     * @throws IOException if the daemon accepted the command but the exchange failed
+     */
+    public OptionalInt tryExecute(CommandLineArgs args, PrintStream out) throws IOException {
+        if (!Files.exists(socketPath)) {
+            return OptionalInt.empty();
+        }
+        try {
+            DaemonSocket.checkPrivate(socketPath);
+        } catch (IOException e) {
+            LOGGER.warning("Not using the grocery daemon: " + e.getMessage());
+            return OptionalInt.empty();
+        }
+
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            // Stale socket file: no daemon behind it
+            return OptionalInt.empty();
+        }
+
+        // Relative paths are resolved here, since the daemon runs in another directory
+        CommandLineArgs forwarded = new CommandLineArgs(
+                Path.of(args.getFileName()).toAbsolutePath().toString(), args.getFormat(), args.getCategory(),
+                args.getArguments(), args.getOptions());
+
+        DaemonProtocol.Response response;
+        try (channel;
+             DataOutputStream request = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+             DataInputStream reply = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)))) {
+            DaemonProtocol.writeRequest(request, forwarded);
+            response = DaemonProtocol.readResponse(reply);
+        }
+
+        out.print(response.output());
+        out.flush();
+        if (response.error() != null) {
+            LOGGER.warning("Command failed: " + response.error());
+        }
+        return OptionalInt.of(response.exitCode());
+    }
+
+    /**
+     * @param socketPath a socket file
+     * @return true if something accepts connections on it
+     */
+    static boolean isListening(Path socketPath) {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            return channel.connect(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
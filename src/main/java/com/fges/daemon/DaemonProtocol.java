@@ -0,0 +1,126 @@
+package com.fges.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fges.cli.CommandLineArgs;
+
+/**
+ * Wire format between {@link DaemonClient} and {@link GroceryDaemon}: one request and one
+ * response per connection. A request is the parsed {@link CommandLineArgs}; a response is the
+ * exit code, the text the command printed, and the error message if it failed.
+ * Strings are length-prefixed UTF-8, with a length of -1 for null.
+ */
+final class DaemonProtocol {
+
+    /** Sent first in each direction, so that an incompatible peer is detected */
+    static final int VERSION = 0x47524F01;
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * Result of a command run by the daemon.
+     *
+     * @param exitCode the command exit code
+     * @param output   what the command printed
+     * @param error    the failure message, or null if the command did not throw
+     */
+    record Response(int exitCode, String output, String error) {
+    }
+
+    static void writeRequest(DataOutputStream out, CommandLineArgs args) throws IOException {
+        out.writeInt(VERSION);
+        writeString(out, args.getFileName());
+        writeString(out, args.getFormat());
+        writeString(out, args.getCategory());
+        out.writeInt(args.getArguments().size());
+        for (String argument : args.getArguments()) {
+            writeString(out, argument);
+        }
+        out.writeInt(args.getOptions().size());
+        for (Map.Entry<String, String> option : args.getOptions().entrySet()) {
+            writeString(out, option.getKey());
+            writeString(out, option.getValue());
+        }
+        out.flush();
+    }
+
+    static CommandLineArgs readRequest(DataInputStream in) throws IOException {
+        checkVersion(in);
+        String fileName = readString(in);
+        String format = readString(in);
+        String category = readString(in);
+        int argumentCount = readCount(in);
+        List<String> arguments = new ArrayList<>(argumentCount);
+        for (int i = 0; i < argumentCount; i++) {
+            arguments.add(readString(in));
+        }
+        int optionCount = readCount(in);
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < optionCount; i++) {
+            options.put(readString(in), readString(in));
+        }
+        return new CommandLineArgs(fileName, format, category, arguments, options);
+    }
+
+    static void writeResponse(DataOutputStream out, Response response) throws IOException {
+        out.writeInt(VERSION);
+        out.writeInt(response.exitCode());
+        writeString(out, response.output());
+        writeString(out, response.error());
+        out.flush();
+    }
+
+    static Response readResponse(DataInputStream in) throws IOException {
+        checkVersion(in);
+        return new Response(in.readInt(), readString(in), readString(in));
+    }
+
+    private static void checkVersion(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Incompatible grocery daemon protocol: " + Integer.toHexString(version));
+        }
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > 1_000_000) {
+            throw new IOException("Invalid count in grocery daemon message: " + count);
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Invalid string length in grocery daemon message: " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Truncated grocery daemon message");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
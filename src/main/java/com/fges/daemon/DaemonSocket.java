@@ -0,0 +1,112 @@
+package com.fges.daemon;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+
+/**
+ * Location and access checks of the daemon socket.
+ * By default the socket lives in a directory only its user can enter: $XDG_RUNTIME_DIR when set,
+ * otherwise a "grocery-list-&lt;user&gt;" directory created with mode 0700 in the temporary directory.
+ * Before the daemon binds the socket or a client connects to it, the directory holding the socket,
+ * and the socket itself if it exists, must belong to the current user and must not be writable by
+ * other users; otherwise another local user could stand in for the daemon or replace it.
+ * The checks are skipped on file systems without POSIX permissions.
+ */
+final class DaemonSocket {
+
+    static final String SOCKET_NAME = "grocery-list.sock";
+
+    private static final Set<PosixFilePermission> SHARED_WRITE =
+            Set.of(PosixFilePermission.GROUP_WRITE, PosixFilePermission.OTHERS_WRITE);
+
+    private DaemonSocket() {
+    }
+
+    /**
+     * @return the socket in the runtime directory of the user, or in a private directory under java.io.tmpdir
+     */
+    static Path defaultPath() {
+        String runtimeDirectory = System.getenv("XDG_RUNTIME_DIR");
+        if (runtimeDirectory != null && !runtimeDirectory.isBlank() && Files.isDirectory(Path.of(runtimeDirectory))) {
+            return Path.of(runtimeDirectory, SOCKET_NAME);
+        }
+        return Path.of(System.getProperty("java.io.tmpdir"), "grocery-list-" + System.getProperty("user.name"), SOCKET_NAME);
+    }
+
+    /**
+     * Creates the directory of the socket, readable by its user only, if it does not exist yet.
+     *
+     * @param socket the socket file
+     * @throws IOException if the directory cannot be created
+     */
+    static void createDirectory(Path socket) throws IOException {
+        Path directory = directoryOf(socket);
+        if (Files.exists(directory)) {
+            return;
+        }
+        if (isPosix(directory.getParent())) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+    }
+
+    /**
+     * Checks that the directory of the socket, and the socket if it exists, belong to the current
+     * user and cannot be written by other users.
+     *
+     * @param socket the socket file
+     * @throws IOException if a check fails or the attributes cannot be read
+     */
+    static void checkPrivate(Path socket) throws IOException {
+        Path directory = directoryOf(socket);
+        if (!isPosix(directory)) {
+            return;
+        }
+        UserPrincipal user = directory.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        check(directory.toRealPath(), user);
+        if (Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+            check(socket, user);
+        }
+    }
+
+    /**
+     * Makes a bound socket accessible to its user only.
+     *
+     * @param socket the socket file
+     * @throws IOException if the permissions cannot be changed
+     */
+    static void restrict(Path socket) throws IOException {
+        if (isPosix(socket)) {
+            Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+        }
+    }
+
+    private static void check(Path path, UserPrincipal user) throws IOException {
+        PosixFileAttributes attributes = Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!attributes.owner().equals(user)) {
+            throw new IOException("Daemon socket path " + path + " belongs to " + attributes.owner().getName()
+                    + ", not to " + user.getName());
+        }
+        if (attributes.permissions().stream().anyMatch(SHARED_WRITE::contains)) {
+            throw new IOException("Daemon socket path " + path + " is writable by other users");
+        }
+    }
+
+    private static Path directoryOf(Path socket) {
+        return socket.toAbsolutePath().getParent();
+    }
+
+    private static boolean isPosix(Path path) {
+        return path != null && Files.getFileAttributeView(path, PosixFileAttributeView.class) != null;
+    }
+}
@@ -0,0 +1,197 @@
+package com.fges.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fges.cli.CommandLineArgs;
+import com.fges.core.GroceryListManager;
+import com.fges.core.GroceryListRegistry;
+import com.fges.executor.CommandFactory;
+import com.fges.executor.commands.Command;
+import com.fges.executor.commands.ListCommand;
+
+/**
+ * Resident server keeping {@link GroceryListManager} instances loaded in memory and running
+ * the commands forwarded by {@link DaemonClient} over a Unix domain socket.
+ * One manager is kept per (source file, format) pair, created by the first request using it
+ * (including its write-behind options), in a {@link GroceryListRegistry} that evicts the least
+ * recently used lists beyond a limit. The daemon assumes it is the only writer of those
+ * files while it runs; closing it flushes and closes every manager.
+ */
+public class GroceryDaemon implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(GroceryDaemon.class.getName());
+
+    private final Path socketPath;
+    private final GroceryListRegistry managers;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private ServerSocketChannel server;
+    private Thread acceptor;
+
+    /**
+     * @param socketPath the socket file to listen on
+     */
+    public GroceryDaemon(Path socketPath) {
+        this(socketPath, GroceryListRegistry.DEFAULT_MAX_LISTS);
+    }
+
+    /**
+     * @param socketPath the socket file to listen on
+     * @param maxLists   the maximum number of lists kept in memory
+     */
+    public GroceryDaemon(Path socketPath, int maxLists) {
+        this.socketPath = socketPath;
+        // Lists are always loaded with the options of the request that first uses them
+        this.managers = new GroceryListRegistry(key -> {
+            throw new IllegalStateException("No loader for grocery list " + key);
+        }, maxLists);
+    }
+
+    /**
+     * Resolves the socket used by the daemon and its clients: --socket if given, otherwise
+     * a socket in $XDG_RUNTIME_DIR or in a private per-user directory of the temporary directory.
+     *
+     * @param args the parsed command-line arguments
+     * @return the socket file path
+     */
+    public static Path socketPath(CommandLineArgs args) {
+        String socket = args.getOption("socket");
+        if (socket != null && !socket.isBlank()) {
+            return Path.of(socket);
+        }
+        return DaemonSocket.defaultPath();
+    }
+
+    /**
+     * Binds the socket and starts accepting connections in the background.
+     * A socket file left behind by a daemon that is no longer running is replaced.
+     * The directory of the socket is created private to the user if missing; the daemon refuses to
+     * start if it, or an existing socket, belongs to another user or can be written by other users.
+     *
+     * @throws IOException           if the socket cannot be bound or its location is not private
+     * @throws IllegalStateException if another daemon already listens on the socket
+     */
+    public synchronized void start() throws IOException {
+        DaemonSocket.createDirectory(socketPath);
+        DaemonSocket.checkPrivate(socketPath);
+        if (Files.exists(socketPath)) {
+            if (DaemonClient.isListening(socketPath)) {
+                throw new IllegalStateException("A grocery daemon is already running on " + socketPath);
+            }
+            Files.delete(socketPath);
+        }
+
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        DaemonSocket.restrict(socketPath);
+        acceptor = new Thread(this::acceptLoop, "grocery-daemon-acceptor");
+        acceptor.start();
+        LOGGER.info("Grocery daemon listening on " + socketPath);
+    }
+
+    /**
+     * Blocks until the daemon is closed (e.g. by a shutdown hook).
+     *
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public void awaitTermination() throws InterruptedException {
+        acceptor.join();
+    }
+
+    /**
+     * Stops accepting connections, waits for running commands, then flushes and closes every manager.
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        try {
+            server.close();
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close grocery daemon socket " + socketPath, e);
+        }
+        workers.close();
+        managers.close();
+        server = null;
+        LOGGER.info("Grocery daemon stopped.");
+    }
+
+    private void acceptLoop() {
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                workers.submit(() -> handle(client));
+            }
+        } catch (ClosedChannelException e) {
+            // Daemon closed
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Grocery daemon stopped accepting connections.", e);
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try (client;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)))) {
+            CommandLineArgs args = DaemonProtocol.readRequest(in);
+            DaemonProtocol.writeResponse(out, execute(args));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to serve grocery daemon client.", e);
+        }
+    }
+
+    /**
+     * Runs one forwarded command against the warm manager of its file.
+     */
+    DaemonProtocol.Response execute(CommandLineArgs args) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (PrintStream output = new PrintStream(buffer, false, StandardCharsets.UTF_8)) {
+            int exitCode;
+            String error = null;
+            try {
+                String command = args.getCommand().toLowerCase();
+                if (!DaemonClient.isForwardable(args)) {
+                    throw new IllegalArgumentException("Command not supported by the daemon: " + command);
+                }
+                String key = Path.of(args.getFileName()).toAbsolutePath().normalize() + "|" + args.getFormat().toLowerCase();
+                exitCode = managers.withList(key, ignored -> CommandFactory.createManager(args), manager ->
+                        create(command, manager, args, output).execute(args.getCommandArgs()));
+            } catch (Exception e) {
+                exitCode = 1;
+                error = e.getMessage() == null ? e.toString() : e.getMessage();
+            }
+            output.flush();
+            return new DaemonProtocol.Response(exitCode, buffer.toString(StandardCharsets.UTF_8), error);
+        }
+    }
+
+    /**
+     * Creates the command on the warm manager; "list" applies the filter options of the request.
+     */
+    private static Command create(String command, GroceryListManager manager, CommandLineArgs args, PrintStream output) {
+        if (command.equals("list")) {
+            return new ListCommand(manager, output, args.getItemFilter());
+        }
+        return CommandFactory.create(command, manager, args.getCategory(), output);
+    }
+}
@@ -0,0 +1,80 @@
+package com.fges.dao;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File helpers shared by the DAOs that rewrite a whole file:
+ * content is written to a temporary sibling and then moved over the target.
+ */
+final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * @param target the file about to be replaced
+     * @return the temporary sibling to write the new content to
+     */
+    static Path tempSibling(Path target) {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+
+    /**
+     * Replaces the target with the freshly written file, atomically when the file system allows it.
+     *
+     * @param source the temporary file holding the new content
+     * @param target the file to replace
+     * @throws IOException if the move fails
+     */
+    static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Replaces the target with the freshly written file, forcing it to disk first when asked:
+     * the content is forced before the move, so the target is never replaced by a file whose
+     * data is not on disk yet, and the directory after it, so that the move itself is durable.
+     *
+     * @param source the temporary file holding the new content
+     * @param target the file to replace
+     * @param force  true to force the content and the move to disk
+     * @throws IOException if forcing or moving fails
+     */
+    static void moveIntoPlace(Path source, Path target, boolean force) throws IOException {
+        if (force) {
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+        moveIntoPlace(source, target);
+        if (force) {
+            forceDirectory(target.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Forces the entries of a directory to disk. Platforms that cannot open a directory
+     * (Windows) make renames durable on their own, so failing to open it is ignored.
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,924 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Page-based on-disk B+tree implementation of {@link IndexedGroceryListDAO}, keyed by lowercase
+ * name then category. Looking up, adding to or removing a name reads and writes the pages on the
+ * path from the root to the leaves holding it, O(log n) pages, through an LRU page cache.
+ * <p>
+ * The file is a sequence of {@value #PAGE_SIZE}-byte pages, each node ending with the CRC32C of
+ * its page. Page 0 holds two header slots (root page, page count, generation); a change writes
+ * copies of the nodes it modifies to free pages, never over a page of the committed tree, then
+ * the header of the next generation in the older slot. The nodes are forced to disk before the
+ * header, and the header before the pages it replaced are reused, so even after a power loss no
+ * header points to pages that are not on disk: a crash leaves the previous tree intact at worst,
+ * and opening picks the valid slot of the highest generation.
+ * <p>
+ * Pages replaced by a commit are reused from the next one on. Those still free when the list is
+ * closed become garbage; the file is rewritten once garbage outweighs the tree. Removals drop
+ * nodes that become empty but do not rebalance half-empty ones.
+ */
+public class BTreeGroceryListDAO implements IndexedGroceryListDAO, StreamingGroceryListDAO {
+
+    /** Default number of pages kept in the cache */
+    public static final int DEFAULT_CACHE_PAGES = 1_024;
+
+    static final byte[] MAGIC = {'G', 'R', 'C', 'T'};
+    static final byte VERSION = 1;
+    static final int PAGE_SIZE = 4_096;
+
+    /** Longest name plus category accepted, so that any node holding three items fits in a page */
+    static final int MAX_KEY_BYTES = 1_024;
+
+    private static final int HEADER_SLOT_OFFSET = PAGE_SIZE / 2;
+    private static final int HEADER_BYTES = 41;
+    private static final int CHECKSUM_BYTES = 4;
+    private static final int NODE_CAPACITY = PAGE_SIZE - CHECKSUM_BYTES;
+
+    /** Share of a page filled by full rewrites, leaving room for additions */
+    private static final int BULK_FILL = NODE_CAPACITY * 3 / 4;
+    private static final int MIN_GARBAGE_PAGES = 256;
+
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+
+    /** Separates the name from the category in keys */
+    private static final char SEPARATOR = '\u0001';
+
+    private final Path path;
+
+    /** Committed nodes by page, least recently used first */
+    private final Map<Integer, Node> cache;
+
+    /** Nodes written by the commit in progress, by page */
+    private final Map<Integer, Node> dirty = new HashMap<>();
+
+    /** Pages free for the commit in progress, and pages it replaced (free from the next one) */
+    private final List<Integer> freePages = new ArrayList<>();
+    private final List<Integer> replacedPages = new ArrayList<>();
+
+    /** Open during an operation only */
+    private FileChannel channel;
+
+    /** Generation the cache and free pages belong to, -1 when unknown */
+    private long cachedGeneration = -1;
+
+    // State of the tree, from the header and updated by the commit in progress
+    private long generation;
+    private int root;
+    private int pageCount;
+    private int livePages;
+    private long itemCount;
+
+    // Statistics
+    private long pageReads;
+    private long pageWrites;
+
+    /**
+     * One entry of a leaf.
+     */
+    private record Item(String key, String name, String category, int quantity) {
+
+        GroceryItem toGroceryItem() {
+            return new GroceryItem(name, quantity, category);
+        }
+
+        static Item of(String name, String category, int quantity) {
+            if (utf8Length(name) + utf8Length(category) > MAX_KEY_BYTES) {
+                throw new IllegalArgumentException("Item name and category must not exceed " + MAX_KEY_BYTES + " bytes.");
+            }
+            return new Item(BTreeGroceryListDAO.key(name, category), name, category, quantity);
+        }
+
+        int encodedSize() {
+            return 2 + utf8Length(name) + 2 + utf8Length(category) + 4;
+        }
+    }
+
+    /**
+     * A tree node. Leaves hold items; internal nodes hold one more child than keys, child i+1
+     * holding the keys from key i on. Committed nodes are never modified, only copied.
+     */
+    private static final class Node {
+        final boolean leaf;
+        final List<Item> items;
+        final List<String> keys;
+        final List<Integer> children;
+
+        private Node(boolean leaf, List<Item> items, List<String> keys, List<Integer> children) {
+            this.leaf = leaf;
+            this.items = items;
+            this.keys = keys;
+            this.children = children;
+        }
+
+        static Node leaf(List<Item> items) {
+            return new Node(true, items, null, null);
+        }
+
+        static Node internal(List<String> keys, List<Integer> children) {
+            return new Node(false, null, keys, children);
+        }
+
+        Node copy() {
+            return leaf ? leaf(new ArrayList<>(items)) : internal(new ArrayList<>(keys), new ArrayList<>(children));
+        }
+
+        int encodedSize() {
+            int size = 3;
+            if (leaf) {
+                for (Item item : items) {
+                    size += item.encodedSize();
+                }
+            } else {
+                size += 4;
+                for (String key : keys) {
+                    size += 2 + utf8Length(key) + 4;
+                }
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Result of an insertion into a subtree: its new page, and the right half if it was split.
+     */
+    private record Insertion(int page, String separator, int right) {
+    }
+
+    /**
+     * Constructs a new BTreeGroceryListDAO with a cache of {@link #DEFAULT_CACHE_PAGES} pages.
+     *
+     * @param fileName the B+tree file to load from and save to
+     */
+    public BTreeGroceryListDAO(String fileName) {
+        this(fileName, DEFAULT_CACHE_PAGES);
+    }
+
+    /**
+     * Constructs a new BTreeGroceryListDAO.
+     *
+     * @param fileName   the B+tree file to load from and save to
+     * @param cachePages the number of pages kept in the cache
+     */
+    public BTreeGroceryListDAO(String fileName, int cachePages) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("B+tree file name must not be null or empty.");
+        }
+        if (cachePages <= 0) {
+            throw new IllegalArgumentException("Page cache size must be positive.");
+        }
+        this.path = Path.of(fileName);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Node> eldest) {
+                return size() > cachePages;
+            }
+        };
+    }
+
+    /**
+     * Loads every item, walking the whole tree.
+     *
+     * @return the items sorted by lowercase name then category; an empty list if the file does not exist
+     * @throws IOException if the file cannot be read or is not a valid B+tree
+     */
+    @Override
+    public synchronized List<GroceryItem> load() throws IOException {
+        List<GroceryItem> items = new ArrayList<>();
+        read(() -> {
+            scan(root, "", null, item -> items.add(item.toGroceryItem()));
+        });
+        return items;
+    }
+
+    /**
+     * Reads the items of a name from the leaves holding it.
+     *
+     * @param name the item name, matched case-insensitively
+     * @return the matching items, sorted by category
+     * @throws IOException if the file cannot be read or is not a valid B+tree
+     */
+    @Override
+    public synchronized List<GroceryItem> find(String name) throws IOException {
+        String prefix = name.toLowerCase() + SEPARATOR;
+        List<GroceryItem> items = new ArrayList<>(1);
+        read(() -> {
+            scan(root, prefix, name.toLowerCase() + (char) (SEPARATOR + 1), item -> items.add(item.toGroceryItem()));
+        });
+        return items;
+    }
+
+    /**
+     * Streams the items in key order. A name prefix narrows the scan to the leaves holding the
+     * names it starts, so only the pages on their path are read.
+     *
+     * @param filter   the items to read
+     * @param consumer receives the matching items
+     * @return the number of items passed to the consumer
+     * @throws IOException if the file cannot be read or is not a valid B+tree, or the consumer failed
+     */
+    @Override
+    public synchronized long scan(GroceryItemFilter filter, ItemConsumer consumer) throws IOException {
+        if (filter.limit() == 0) {
+            return 0;
+        }
+        String prefix = filter.namePrefix() == null ? "" : filter.namePrefix().toLowerCase();
+        long[] count = {0};
+        read(() -> {
+            scan(root, prefix, null, item -> {
+                if (!item.key().startsWith(prefix)) {
+                    return false;
+                }
+                if (filter.matchesCategory(item.category()) && filter.matchesQuantity(item.quantity())
+                        && filter.matchesName(item.name())) {
+                    consumer.accept(item.toGroceryItem());
+                    return ++count[0] < filter.limit();
+                }
+                return true;
+            });
+        });
+        return count[0];
+    }
+
+    /**
+     * Writes the changes to the tree and commits them with a single header write.
+     *
+     * @param changes the changes to persist
+     * @throws IOException if the file cannot be read or written
+     */
+    @Override
+    public synchronized void apply(List<GroceryChange> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try (FileChannel opened = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel = opened;
+            readHeader();
+            for (GroceryChange change : changes) {
+                switch (change.type()) {
+                    case ADD, MERGE -> insert(Item.of(change.name(), change.category(), change.quantity()));
+                    case REMOVE -> remove(change.name());
+                }
+            }
+            commit();
+        } catch (IOException | RuntimeException e) {
+            // Forget the uncommitted pages; the next operation starts over from the header on disk
+            dirty.clear();
+            replacedPages.clear();
+            freePages.clear();
+            cachedGeneration = -1;
+            throw e;
+        } finally {
+            channel = null;
+        }
+
+        if (pageCount - 1 - livePages > Math.max(MIN_GARBAGE_PAGES, livePages)) {
+            save(load());
+        }
+    }
+
+    /**
+     * Rewrites the file with a tree holding exactly the given items, built bottom-up.
+     *
+     * @param items the complete list of grocery items
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public synchronized void save(List<GroceryItem> items) throws IOException {
+        TreeMap<String, Item> sorted = new TreeMap<>();
+        for (GroceryItem item : items) {
+            item.validate();
+            Item entry = Item.of(item.getName(), item.getCategory(), item.getQuantity());
+            sorted.merge(entry.key(), entry, (a, b) -> new Item(a.key(), a.name(), a.category(), a.quantity() + b.quantity()));
+        }
+
+        Path temp = AtomicFiles.tempSibling(path);
+        try {
+            try (FileChannel opened = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel = opened;
+                writeTree(new ArrayList<>(sorted.values()));
+            } finally {
+                channel = null;
+            }
+            AtomicFiles.moveIntoPlace(temp, path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            cache.clear();
+            freePages.clear();
+            cachedGeneration = -1;
+        }
+    }
+
+    /**
+     * @return the number of pages read from the file so far (cache misses)
+     */
+    synchronized long getPageReads() {
+        return pageReads;
+    }
+
+    /**
+     * @return the number of node pages written to the file so far
+     */
+    synchronized long getPageWrites() {
+        return pageWrites;
+    }
+
+    /**
+     * Opens the file for reading and runs the given action on its committed tree.
+     */
+    private void read(IOAction action) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel opened = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel = opened;
+            readHeader();
+            action.run();
+        } finally {
+            channel = null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ItemVisitor {
+        /** @return false to stop the scan */
+        boolean visit(Item item) throws IOException;
+    }
+
+    /**
+     * Visits the items from {@code from} (inclusive) to {@code to} (exclusive, null for no bound).
+     *
+     * @return false if the visitor stopped the scan
+     */
+    private boolean scan(int page, String from, String to, ItemVisitor visitor) throws IOException {
+        if (page == 0) {
+            return true;
+        }
+        Node node = readNode(page);
+        if (node.leaf) {
+            for (int i = lowerBound(node.items, from); i < node.items.size(); i++) {
+                Item item = node.items.get(i);
+                if (to != null && item.key().compareTo(to) >= 0 || !visitor.visit(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        int last = to == null ? node.children.size() - 1 : childIndex(node, to);
+        for (int i = childIndex(node, from); i <= last; i++) {
+            if (!scan(node.children.get(i), from, to, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts or replaces an item, growing the tree by one level when the root splits.
+     */
+    private void insert(Item item) throws IOException {
+        if (root == 0) {
+            root = allocate();
+            dirty.put(root, Node.leaf(new ArrayList<>(List.of(item))));
+            itemCount++;
+            return;
+        }
+        Insertion insertion = insert(root, item);
+        root = insertion.page();
+        if (insertion.separator() != null) {
+            int newRoot = allocate();
+            dirty.put(newRoot, Node.internal(new ArrayList<>(List.of(insertion.separator())),
+                    new ArrayList<>(List.of(root, insertion.right()))));
+            root = newRoot;
+        }
+    }
+
+    private Insertion insert(int page, Item item) throws IOException {
+        int id = own(page);
+        Node node = dirty.get(id);
+        if (node.leaf) {
+            int index = lowerBound(node.items, item.key());
+            if (index < node.items.size() && node.items.get(index).key().equals(item.key())) {
+                node.items.set(index, item);
+            } else {
+                node.items.add(index, item);
+                itemCount++;
+            }
+        } else {
+            int child = childIndex(node, item.key());
+            Insertion insertion = insert(node.children.get(child), item);
+            node.children.set(child, insertion.page());
+            if (insertion.separator() != null) {
+                node.keys.add(child, insertion.separator());
+                node.children.add(child + 1, insertion.right());
+            }
+        }
+        return split(id, node);
+    }
+
+    /**
+     * Splits a node that outgrew its page in two halves of about the same size.
+     */
+    private Insertion split(int id, Node node) {
+        if (node.encodedSize() <= NODE_CAPACITY) {
+            return new Insertion(id, null, 0);
+        }
+        int half = node.encodedSize() / 2;
+        int right = allocate();
+        if (node.leaf) {
+            int size = 3;
+            int middle = 0;
+            while (size < half) {
+                size += node.items.get(middle++).encodedSize();
+            }
+            List<Item> moved = node.items.subList(middle, node.items.size());
+            Node sibling = Node.leaf(new ArrayList<>(moved));
+            moved.clear();
+            dirty.put(right, sibling);
+            return new Insertion(id, sibling.items.get(0).key(), right);
+        }
+        int size = 7;
+        int middle = 0;
+        while (size < half) {
+            size += 2 + utf8Length(node.keys.get(middle++)) + 4;
+        }
+        // The middle key moves up: the right node starts with the child it separated
+        String separator = node.keys.get(middle);
+        Node sibling = Node.internal(new ArrayList<>(node.keys.subList(middle + 1, node.keys.size())),
+                new ArrayList<>(node.children.subList(middle + 1, node.children.size())));
+        node.keys.subList(middle, node.keys.size()).clear();
+        node.children.subList(middle + 1, node.children.size()).clear();
+        dirty.put(right, sibling);
+        return new Insertion(id, separator, right);
+    }
+
+    /**
+     * Removes every item of a name, then drops root levels left with a single child.
+     */
+    private void remove(String name) throws IOException {
+        if (root == 0) {
+            return;
+        }
+        root = remove(root, name.toLowerCase() + SEPARATOR, name.toLowerCase() + (char) (SEPARATOR + 1));
+        while (root != 0) {
+            Node node = readNode(root);
+            if (node.leaf || node.children.size() > 1) {
+                break;
+            }
+            release(root);
+            root = node.children.get(0);
+        }
+    }
+
+    /**
+     * Removes the items from {@code from} to {@code to} (exclusive) in a subtree.
+     *
+     * @return the new page of the subtree, the same one if nothing was removed, 0 if the subtree is now empty
+     */
+    private int remove(int page, String from, String to) throws IOException {
+        Node node = readNode(page);
+        if (node.leaf) {
+            int start = lowerBound(node.items, from);
+            int end = lowerBound(node.items, to);
+            if (start == end) {
+                return page;
+            }
+            if (end - start == node.items.size()) {
+                release(page);
+                itemCount -= end - start;
+                return 0;
+            }
+            int id = own(page);
+            dirty.get(id).items.subList(start, end).clear();
+            itemCount -= end - start;
+            return id;
+        }
+
+        int first = childIndex(node, from);
+        int last = childIndex(node, to);
+        int[] pages = new int[last - first + 1];
+        boolean changed = false;
+        for (int i = first; i <= last; i++) {
+            pages[i - first] = remove(node.children.get(i), from, to);
+            changed |= pages[i - first] != node.children.get(i);
+        }
+        if (!changed) {
+            return page;
+        }
+        int id = own(page);
+        Node copy = dirty.get(id);
+        // From the last child down, so that indexes stay valid
+        for (int i = last; i >= first; i--) {
+            int child = pages[i - first];
+            if (child != 0) {
+                copy.children.set(i, child);
+                continue;
+            }
+            copy.children.remove(i);
+            if (!copy.keys.isEmpty()) {
+                copy.keys.remove(Math.max(i - 1, 0));
+            }
+        }
+        if (copy.children.isEmpty()) {
+            release(id);
+            return 0;
+        }
+        return id;
+    }
+
+    /**
+     * Returns the page of a copy of the node that this commit may modify, copying it to a free page first
+     * if it belongs to the committed tree.
+     */
+    private int own(int page) throws IOException {
+        if (dirty.containsKey(page)) {
+            return page;
+        }
+        Node copy = readNode(page).copy();
+        release(page);
+        int id = allocate();
+        dirty.put(id, copy);
+        return id;
+    }
+
+    private int allocate() {
+        livePages++;
+        return freePages.isEmpty() ? pageCount++ : freePages.remove(freePages.size() - 1);
+    }
+
+    /**
+     * Frees a page: at once if this commit wrote it, from the next commit on if the committed tree uses it.
+     */
+    private void release(int page) {
+        livePages--;
+        if (dirty.remove(page) != null) {
+            freePages.add(page);
+        } else {
+            replacedPages.add(page);
+        }
+    }
+
+    /**
+     * Writes the nodes of this commit, then the header of the next generation in the older slot,
+     * forcing the nodes before the header and the header before the replaced pages become free.
+     */
+    private void commit() throws IOException {
+        if (dirty.isEmpty() && replacedPages.isEmpty()) {
+            return;
+        }
+        List<Integer> pages = new ArrayList<>(dirty.keySet());
+        Collections.sort(pages);
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        for (int page : pages) {
+            Node node = dirty.get(page);
+            encode(node, buffer);
+            writeFully(buffer, (long) page * PAGE_SIZE);
+            pageWrites++;
+            cache.put(page, node);
+        }
+        channel.force(false);
+        writeHeader(generation + 1);
+        channel.force(false);
+        generation++;
+        cachedGeneration = generation;
+        dirty.clear();
+        freePages.addAll(replacedPages);
+        replacedPages.clear();
+    }
+
+    /**
+     * Writes the items, sorted by key, as leaves filled to {@link #BULK_FILL}, then the levels above.
+     */
+    private void writeTree(List<Item> items) throws IOException {
+        dirty.clear();
+        freePages.clear();
+        replacedPages.clear();
+        pageCount = 1;
+        livePages = 0;
+        itemCount = items.size();
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+
+        // Page and smallest key of each node of the level being built
+        List<Integer> level = new ArrayList<>();
+        List<String> firstKeys = new ArrayList<>();
+        List<Item> leaf = new ArrayList<>();
+        int size = 3;
+        for (Item item : items) {
+            if (size + item.encodedSize() > BULK_FILL && !leaf.isEmpty()) {
+                level.add(writeBulkNode(Node.leaf(leaf), buffer));
+                firstKeys.add(leaf.get(0).key());
+                leaf = new ArrayList<>();
+                size = 3;
+            }
+            leaf.add(item);
+            size += item.encodedSize();
+        }
+        if (!leaf.isEmpty()) {
+            level.add(writeBulkNode(Node.leaf(leaf), buffer));
+            firstKeys.add(leaf.get(0).key());
+        }
+
+        while (level.size() > 1) {
+            List<Integer> parents = new ArrayList<>();
+            List<String> parentKeys = new ArrayList<>();
+            List<Integer> children = new ArrayList<>();
+            List<String> keys = new ArrayList<>();
+            size = 7;
+            for (int i = 0; i < level.size(); i++) {
+                int entrySize = 2 + utf8Length(firstKeys.get(i)) + 4;
+                if (size + entrySize > BULK_FILL && children.size() > 1) {
+                    parents.add(writeBulkNode(Node.internal(keys, children), buffer));
+                    parentKeys.add(firstKeys.get(i - children.size()));
+                    children = new ArrayList<>();
+                    keys = new ArrayList<>();
+                    size = 7;
+                }
+                if (!children.isEmpty()) {
+                    keys.add(firstKeys.get(i));
+                    size += entrySize;
+                }
+                children.add(level.get(i));
+            }
+            parents.add(writeBulkNode(Node.internal(keys, children), buffer));
+            parentKeys.add(firstKeys.get(level.size() - children.size()));
+            level = parents;
+            firstKeys = parentKeys;
+        }
+        root = level.isEmpty() ? 0 : level.get(0);
+        generation = 0;
+        writeHeader(1);
+    }
+
+    private int writeBulkNode(Node node, ByteBuffer buffer) throws IOException {
+        int page = allocate();
+        encode(node, buffer);
+        writeFully(buffer, (long) page * PAGE_SIZE);
+        pageWrites++;
+        return page;
+    }
+
+    /**
+     * Reads a node from the commit in progress, the cache or the file.
+     */
+    private Node readNode(int page) throws IOException {
+        Node node = dirty.get(page);
+        if (node == null) {
+            node = cache.get(page);
+        }
+        if (node != null) {
+            return node;
+        }
+        if (page <= 0 || page >= pageCount) {
+            throw new IOException("Grocery list B+tree refers to a missing page " + page + ": " + path);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        readFully(buffer, (long) page * PAGE_SIZE);
+        pageReads++;
+        node = decode(buffer, page);
+        cache.put(page, node);
+        return node;
+    }
+
+    /**
+     * Reads both header slots and adopts the valid one of the highest generation.
+     * The cache is dropped if the file was committed by someone else since it was filled.
+     */
+    private void readHeader() throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        long size = channel.size();
+        if (size == 0) {
+            generation = 0;
+            root = 0;
+            pageCount = 1;
+            livePages = 0;
+            itemCount = 0;
+            resetCache();
+            return;
+        }
+        int read = 0;
+        while (page.hasRemaining() && read >= 0) {
+            read = channel.read(page, page.position());
+        }
+        long best = -1;
+        for (int slot = 0; slot < 2; slot++) {
+            int offset = slot * HEADER_SLOT_OFFSET;
+            if (!validHeader(page, offset)) {
+                continue;
+            }
+            long slotGeneration = page.getLong(offset + 9);
+            if (slotGeneration > best) {
+                best = slotGeneration;
+                generation = slotGeneration;
+                root = page.getInt(offset + 17);
+                pageCount = page.getInt(offset + 21);
+                livePages = page.getInt(offset + 25);
+                itemCount = page.getLong(offset + 29);
+            }
+        }
+        if (best < 0) {
+            throw new IOException("Not a grocery list B+tree, or its header is corrupted: " + path);
+        }
+        if (generation != cachedGeneration) {
+            resetCache();
+        }
+    }
+
+    private void resetCache() {
+        cache.clear();
+        freePages.clear();
+        cachedGeneration = generation;
+    }
+
+    private static boolean validHeader(ByteBuffer page, int offset) {
+        if (page.position() < offset + HEADER_BYTES) {
+            return false;
+        }
+        byte[] magic = new byte[MAGIC.length];
+        page.get(offset, magic);
+        if (!Arrays.equals(magic, MAGIC) || page.get(offset + 4) != VERSION || page.getInt(offset + 5) != PAGE_SIZE) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(page.slice(offset, HEADER_BYTES - CHECKSUM_BYTES));
+        return (int) crc.getValue() == page.getInt(offset + HEADER_BYTES - CHECKSUM_BYTES);
+    }
+
+    /**
+     * Writes the header of a generation in its slot. Layout: magic, version, page size, generation,
+     * root page, page count, live pages, item count, CRC32C of the slot.
+     */
+    private void writeHeader(long headerGeneration) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.put(MAGIC).put(VERSION).putInt(PAGE_SIZE).putLong(headerGeneration)
+                .putInt(root).putInt(pageCount).putInt(livePages).putLong(itemCount);
+        CRC32C crc = new CRC32C();
+        crc.update(header.array(), 0, header.position());
+        header.putInt((int) crc.getValue()).flip();
+        writeFully(header, (headerGeneration % 2) * HEADER_SLOT_OFFSET);
+    }
+
+    private static void encode(Node node, ByteBuffer buffer) {
+        Arrays.fill(buffer.array(), (byte) 0);
+        buffer.clear();
+        buffer.put(node.leaf ? LEAF : INTERNAL);
+        if (node.leaf) {
+            buffer.putShort((short) node.items.size());
+            for (Item item : node.items) {
+                putString(buffer, item.name());
+                putString(buffer, item.category());
+                buffer.putInt(item.quantity());
+            }
+        } else {
+            buffer.putShort((short) node.keys.size());
+            buffer.putInt(node.children.get(0));
+            for (int i = 0; i < node.keys.size(); i++) {
+                putString(buffer, node.keys.get(i));
+                buffer.putInt(node.children.get(i + 1));
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, NODE_CAPACITY);
+        buffer.putInt(NODE_CAPACITY, (int) crc.getValue());
+        buffer.clear();
+    }
+
+    private Node decode(ByteBuffer buffer, int page) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, NODE_CAPACITY);
+        if ((int) crc.getValue() != buffer.getInt(NODE_CAPACITY)) {
+            throw new IOException("Grocery list B+tree page " + page + " fails its checksum: " + path);
+        }
+        buffer.clear();
+        byte type = buffer.get();
+        int count = Short.toUnsignedInt(buffer.getShort());
+        if (type == LEAF) {
+            List<Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = getString(buffer);
+                String category = getString(buffer);
+                items.add(new Item(key(name, category), name, category, buffer.getInt()));
+            }
+            return Node.leaf(items);
+        }
+        if (type != INTERNAL) {
+            throw new IOException("Invalid grocery list B+tree page " + page + ": " + path);
+        }
+        List<String> keys = new ArrayList<>(count);
+        List<Integer> children = new ArrayList<>(count + 1);
+        children.add(buffer.getInt());
+        for (int i = 0; i < count; i++) {
+            keys.add(getString(buffer));
+            children.add(buffer.getInt());
+        }
+        return Node.internal(keys, children);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Grocery list B+tree is truncated: " + path);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position() - start);
+        }
+    }
+
+    /**
+     * Index of the first item whose key is not below the given one.
+     */
+    private static int lowerBound(List<Item> items, String key) {
+        int low = 0;
+        int high = items.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (items.get(middle).key().compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index of the child of an internal node whose range holds the given key.
+     */
+    private static int childIndex(Node node, String key) {
+        int index = Collections.binarySearch(node.keys, key);
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+
+    private static String key(String name, String category) {
+        return name.toLowerCase() + SEPARATOR + category;
+    }
+
+    /**
+     * Number of bytes of the UTF-8 encoding of a string, without encoding it.
+     */
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,396 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact binary implementation of {@link GroceryListDAO}.
+ * Files are read and written through a {@link FileChannel} with a direct buffer. Layout:
+ * <pre>
+ * magic     4 bytes  "GRCB"
+ * version   1 byte
+ * varint    category count, then each category as varint length + UTF-8 bytes
+ * varint    item count, then each item as
+ *           varint category index, varint quantity, varint name length + UTF-8 bytes
+ * checksum  4 bytes  CRC32C of everything before it
+ * </pre>
+ * Varints are unsigned LEB128 (7 bits per byte, low bits first).
+ */
+public class BinaryGroceryListDAO implements SnapshotGroceryListDAO, StreamingGroceryListDAO {
+
+    static final byte[] MAGIC = {'G', 'R', 'C', 'B'};
+    static final byte VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHECKSUM_BYTES = 4;
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private final Path path;
+
+    /**
+     * Constructs a new BinaryGroceryListDAO for the specified file.
+     *
+     * @param fileName the binary file to load from and save to
+     */
+    public BinaryGroceryListDAO(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("Binary file name must not be null or empty.");
+        }
+        this.path = Path.of(fileName);
+    }
+
+    /**
+     * Loads grocery items from the binary file.
+     *
+     * @return the items in file order; an empty list if the file does not exist
+     * @throws IOException if the file cannot be read, is not a supported binary grocery list,
+     *                     is truncated or fails its checksum
+     */
+    @Override
+    public List<GroceryItem> load() throws IOException {
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Reader reader = open(channel);
+            String[] categories = readCategories(reader);
+
+            int count = reader.readCount();
+            List<GroceryItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int category = readCategoryIndex(reader, categories, i);
+                int quantity = reader.readVarint();
+                items.add(new GroceryItem(reader.readString(), quantity, categories[category]));
+            }
+
+            reader.verify();
+            return items;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid item in binary grocery list " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Streams the items of the file. The category of each item is resolved against the dictionary
+     * once, so that the name of an item whose category or quantity does not match is skipped
+     * without being decoded. The checksum is only verified when the scan reaches the end of the file.
+     *
+     * @param filter   the items to read
+     * @param consumer receives the matching items
+     * @return the number of items passed to the consumer
+     * @throws IOException if the file cannot be read, is not a supported binary grocery list,
+     *                     is truncated or fails its checksum, or the consumer failed
+     */
+    @Override
+    public long scan(GroceryItemFilter filter, ItemConsumer consumer) throws IOException {
+        if (!Files.exists(path) || filter.limit() == 0) {
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Reader reader = open(channel);
+            String[] categories = readCategories(reader);
+            boolean[] wanted = new boolean[categories.length];
+            for (int i = 0; i < categories.length; i++) {
+                wanted[i] = filter.matchesCategory(categories[i]);
+            }
+
+            int count = reader.readCount();
+            long matched = 0;
+            for (int i = 0; i < count; i++) {
+                int category = readCategoryIndex(reader, categories, i);
+                int quantity = reader.readVarint();
+                if (!wanted[category] || !filter.matchesQuantity(quantity)) {
+                    reader.readBytes(reader.readCount());
+                    continue;
+                }
+                String name = reader.readString();
+                if (filter.matchesName(name)) {
+                    consumer.accept(new GroceryItem(name, quantity, categories[category]));
+                    if (++matched == filter.limit()) {
+                        return matched;
+                    }
+                }
+            }
+
+            reader.verify();
+            return matched;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid item in binary grocery list " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks the size, magic and version of the file.
+     *
+     * @return a reader positioned after the version byte
+     */
+    private Reader open(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < MAGIC.length + 1 + CHECKSUM_BYTES) {
+            throw new IOException("Binary grocery list is truncated: " + path);
+        }
+
+        Reader reader = new Reader(channel, size - CHECKSUM_BYTES);
+        byte[] magic = reader.readBytes(MAGIC.length);
+        if (!Arrays.equals(Arrays.copyOf(magic, MAGIC.length), MAGIC)) {
+            throw new IOException("Not a binary grocery list: " + path);
+        }
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary grocery list version " + version + ": " + path);
+        }
+        return reader;
+    }
+
+    private static String[] readCategories(Reader reader) throws IOException {
+        String[] categories = new String[reader.readCount()];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = reader.readString();
+        }
+        return categories;
+    }
+
+    private int readCategoryIndex(Reader reader, String[] categories, int item) throws IOException {
+        int category = reader.readVarint();
+        if (category < 0 || category >= categories.length) {
+            throw new IOException("Invalid category index " + category + " for item " + item + ": " + path);
+        }
+        return category;
+    }
+
+    /**
+     * Saves grocery items to the binary file.
+     * Items are validated while they are written; the file is written to a temporary
+     * sibling first and moved into place, so a failure never leaves a half-written list.
+     *
+     * @param items the items to persist
+     * @param force true to force the new file to disk before it replaces the previous one
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void save(List<GroceryItem> items, boolean force) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (GroceryItem item : items) {
+            item.validate();
+            dictionary.putIfAbsent(item.getCategory(), dictionary.size());
+        }
+
+        Path temp = AtomicFiles.tempSibling(path);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Writer writer = new Writer(channel);
+                writer.writeBytes(MAGIC);
+                writer.writeByte(VERSION);
+
+                writer.writeVarint(dictionary.size());
+                for (String category : dictionary.keySet()) {
+                    writer.writeString(category);
+                }
+
+                writer.writeVarint(items.size());
+                for (GroceryItem item : items) {
+                    writer.writeVarint(dictionary.get(item.getCategory()));
+                    writer.writeVarint(item.getQuantity());
+                    writer.writeString(item.getName());
+                }
+
+                writer.finish();
+            }
+            AtomicFiles.moveIntoPlace(temp, path, force);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Buffered reader over the payload of the file, checksumming bytes as they are read.
+     */
+    private static final class Reader {
+
+        private final FileChannel channel;
+        private final long payloadEnd;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).limit(0);
+        private final CRC32C checksum = new CRC32C();
+        private byte[] scratch = new byte[256];
+        private long offset;
+
+        Reader(FileChannel channel, long payloadEnd) {
+            this.channel = channel;
+            this.payloadEnd = payloadEnd;
+        }
+
+        int readByte() throws IOException {
+            if (!buffer.hasRemaining()) {
+                fill();
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 7 * MAX_VARINT_BYTES; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b < 0x80) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint at byte " + (offset - buffer.remaining()));
+        }
+
+        /** Reads a varint used as a count or length, which must fit in the rest of the payload */
+        int readCount() throws IOException {
+            int count = readVarint();
+            if (count < 0 || count > payloadEnd) {
+                throw new IOException("Invalid length " + count + " at byte " + (offset - buffer.remaining()));
+            }
+            return count;
+        }
+
+        String readString() throws IOException {
+            int length = readCount();
+            byte[] bytes = readBytes(length);
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /** @return a shared scratch array holding the bytes at its start */
+        byte[] readBytes(int length) throws IOException {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            int read = 0;
+            while (read < length) {
+                if (!buffer.hasRemaining()) {
+                    fill();
+                }
+                int chunk = Math.min(length - read, buffer.remaining());
+                buffer.get(scratch, read, chunk);
+                read += chunk;
+            }
+            return scratch;
+        }
+
+        /**
+         * Checks that the whole payload was consumed and that it matches the trailing checksum.
+         */
+        void verify() throws IOException {
+            if (buffer.hasRemaining() || offset != payloadEnd) {
+                throw new IOException("Unexpected data after the last item");
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(CHECKSUM_BYTES);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, payloadEnd + trailer.position()) < 0) {
+                    throw new EOFException("Binary grocery list is truncated");
+                }
+            }
+            if (trailer.getInt(0) != (int) checksum.getValue()) {
+                throw new IOException("Binary grocery list checksum mismatch");
+            }
+        }
+
+        private void fill() throws IOException {
+            if (offset >= payloadEnd) {
+                throw new EOFException("Binary grocery list is truncated");
+            }
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE, payloadEnd - offset));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Binary grocery list is truncated");
+                }
+            }
+            buffer.flip();
+            checksum.update(buffer.duplicate());
+            offset += buffer.limit();
+        }
+    }
+
+    /**
+     * Buffered writer checksumming every byte it writes, the checksum itself excepted.
+     */
+    private static final class Writer {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32C checksum = new CRC32C();
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeByte(int value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeVarint(int value) throws IOException {
+            if (buffer.remaining() < MAX_VARINT_BYTES) {
+                flush();
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeBytes(byte[] bytes) throws IOException {
+            int written = 0;
+            while (written < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int chunk = Math.min(bytes.length - written, buffer.remaining());
+                buffer.put(bytes, written, chunk);
+                written += chunk;
+            }
+        }
+
+        /** Flushes the payload and appends the checksum */
+        void finish() throws IOException {
+            flush();
+            buffer.putInt((int) checksum.getValue()).flip();
+            drain();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            checksum.update(buffer.duplicate());
+            drain();
+        }
+
+        private void drain() throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
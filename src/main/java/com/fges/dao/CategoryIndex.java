@@ -0,0 +1,432 @@
+package com.fges.dao;
+
+import com.fges.core.CategorySummary;
+import com.fges.core.GroceryListManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * Sidecar index of a grocery list file, stored next to it with the {@value #SUFFIX} suffix.
+ * For each category it records the number of items, their total quantity and the byte ranges of
+ * the file holding them, so that a category can be summarized without reading the list, and
+ * listed by reading its ranges only. Layout:
+ * <pre>
+ * magic     4 bytes  "GRCI"
+ * version   1 byte
+ * size      8 bytes  size of the indexed file
+ * modified  8 bytes  last modification time of the indexed file, in milliseconds
+ * hash      4 bytes  CRC32C of the indexed file
+ * count     4 bytes  category count, then each category as
+ *           modified UTF-8 name, 8-byte item count, 8-byte quantity total,
+ *           4-byte range count, then each range as 8-byte start and end offsets
+ * checksum  4 bytes  CRC32C of everything before it
+ * </pre>
+ * Ranges of a category less than {@value #MERGE_GAP} bytes apart are merged, since reading the
+ * gap costs less than a seek and keeps the index small; a range may therefore hold items of other
+ * categories, which readers must filter out. A category spread over the whole file ends up as a
+ * single range, which still spares nothing but the summary; one kept together is read alone.
+ * An index whose size or modification time no longer match the file is stale: it is kept if the
+ * file still has the same hash, and rebuilt from the file otherwise.
+ */
+final class CategoryIndex {
+
+    static final String SUFFIX = ".idx";
+    static final byte[] MAGIC = {'G', 'R', 'C', 'I'};
+    static final byte VERSION = 1;
+
+    /** Largest gap between two ranges of a category that are still merged */
+    static final int MERGE_GAP = 64 * 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(CategoryIndex.class.getName());
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Indexed content of one category.
+     *
+     * @param ranges start (inclusive) and end (exclusive) offsets of each range, back to back
+     */
+    record Category(String name, long items, long quantity, long[] ranges) {
+    }
+
+    /**
+     * Parses a whole file into a builder, to rebuild a stale index.
+     */
+    @FunctionalInterface
+    interface Rebuilder {
+        void rebuild(Builder builder) throws IOException;
+    }
+
+    private final long size;
+    private final long modified;
+    private final int hash;
+    private final NavigableMap<String, Category> categories;
+
+    private CategoryIndex(long size, long modified, int hash, NavigableMap<String, Category> categories) {
+        this.size = size;
+        this.modified = modified;
+        this.hash = hash;
+        this.categories = categories;
+    }
+
+    /**
+     * @param file a list file
+     * @return the path of its index
+     */
+    static Path sidecar(Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    /**
+     * @param category a category as stored, possibly null or blank
+     * @return the name the category is indexed under
+     */
+    static String key(String category) {
+        return category == null || category.isBlank() ? GroceryListManager.DEFAULT_CATEGORY : category.trim().toLowerCase();
+    }
+
+    /**
+     * Returns the index of a file, rebuilding and rewriting it when it is missing or stale.
+     * Failing to write a rebuilt index is only logged, the rebuilt index being returned anyway.
+     *
+     * @param file      the indexed file
+     * @param rebuilder parses the file when the index must be rebuilt
+     * @return the index, or null if the file does not exist
+     * @throws IOException if the file cannot be read
+     */
+    static CategoryIndex of(Path file, Rebuilder rebuilder) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+
+        Path sidecar = sidecar(file);
+        CategoryIndex index = read(sidecar);
+        if (index != null && index.size == size && index.modified == modified) {
+            return index;
+        }
+        if (index != null && index.size == size && index.hash == hash(file)) {
+            index = new CategoryIndex(size, modified, index.hash, index.categories);
+        } else {
+            LOGGER.info("Rebuilding stale category index: " + sidecar);
+            Builder builder = new Builder();
+            rebuilder.rebuild(builder);
+            index = builder.build(size, modified, hash(file));
+        }
+        try {
+            index.write(sidecar);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write category index: " + sidecar, e);
+        }
+        return index;
+    }
+
+    /**
+     * Reads an index file.
+     *
+     * @return the index, or null if the file does not exist or is not a valid index
+     */
+    static CategoryIndex read(Path sidecar) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(sidecar);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        int payload = bytes.length - 4;
+        if (payload < MAGIC.length + 1) {
+            return null;
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(bytes, 0, payload);
+        if (ByteBuffer.wrap(bytes, payload, 4).getInt() != (int) checksum.getValue()
+                || !Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length) || bytes[MAGIC.length] != VERSION) {
+            LOGGER.warning("Ignoring invalid category index: " + sidecar);
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, MAGIC.length + 1, payload - MAGIC.length - 1));
+        long size = in.readLong();
+        long modified = in.readLong();
+        int hash = in.readInt();
+        NavigableMap<String, Category> categories = new TreeMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            String name = in.readUTF();
+            long items = in.readLong();
+            long quantity = in.readLong();
+            long[] ranges = new long[in.readInt() * 2];
+            for (int r = 0; r < ranges.length; r++) {
+                ranges[r] = in.readLong();
+            }
+            categories.put(name, new Category(name, items, quantity, ranges));
+        }
+        return new CategoryIndex(size, modified, hash, Collections.unmodifiableNavigableMap(categories));
+    }
+
+    /**
+     * Writes the index next to a file it was built for.
+     *
+     * @param sidecar the index path
+     * @throws IOException if the index cannot be written
+     */
+    void write(Path sidecar) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(size);
+        out.writeLong(modified);
+        out.writeInt(hash);
+        out.writeInt(categories.size());
+        for (Category category : categories.values()) {
+            out.writeUTF(category.name());
+            out.writeLong(category.items());
+            out.writeLong(category.quantity());
+            out.writeInt(category.ranges().length / 2);
+            for (long offset : category.ranges()) {
+                out.writeLong(offset);
+            }
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(bytes.toByteArray());
+        out.writeInt((int) checksum.getValue());
+
+        Path temp = AtomicFiles.tempSibling(sidecar);
+        try {
+            Files.write(temp, bytes.toByteArray());
+            AtomicFiles.moveIntoPlace(temp, sidecar);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * @return one summary per category, sorted by category
+     */
+    List<CategorySummary> summaries() {
+        List<CategorySummary> summaries = new ArrayList<>(categories.size());
+        for (Category category : categories.values()) {
+            summaries.add(new CategorySummary(category.name(), category.items(), category.quantity()));
+        }
+        return summaries;
+    }
+
+    /**
+     * @param category a category, matched case-insensitively
+     * @return its indexed content, or null if the file holds no item of this category
+     */
+    Category get(String category) {
+        return categories.get(key(category));
+    }
+
+    /**
+     * Computes the CRC32C of a whole file.
+     */
+    static int hash(Path file) throws IOException {
+        CRC32C checksum = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                checksum.update(buffer);
+                buffer.clear();
+            }
+        }
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Opens a stream over a range of a file, leaving the channel position untouched.
+     *
+     * @param channel the file
+     * @param start   the first byte of the range
+     * @param end     the byte after the range
+     * @return a stream reading the range; closing it does not close the channel
+     */
+    static InputStream open(FileChannel channel, long start, long end) {
+        return new InputStream() {
+            private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+            private long position = start;
+
+            @Override
+            public int read() throws IOException {
+                return fill() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] target, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                if (!fill()) {
+                    return -1;
+                }
+                int count = Math.min(length, buffer.remaining());
+                buffer.get(target, offset, count);
+                return count;
+            }
+
+            private boolean fill() throws IOException {
+                if (buffer.hasRemaining()) {
+                    return true;
+                }
+                if (position >= end) {
+                    return false;
+                }
+                buffer.clear().limit((int) Math.min(BUFFER_SIZE, end - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Category index points past the end of the file");
+                }
+                position += read;
+                buffer.flip();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Collects the categories, quantities and offsets of the items of a file as it is written or read.
+     */
+    static final class Builder {
+
+        private final Map<String, Entry> entries = new HashMap<>();
+
+        private static final class Entry {
+            long items;
+            long quantity;
+            long[] ranges = new long[4];
+            int length;
+        }
+
+        /**
+         * Records an item.
+         *
+         * @param category the item category as stored, possibly null or blank
+         * @param quantity the item quantity
+         * @param start    the offset of the first byte of the item
+         * @param end      the offset of the byte after the item
+         */
+        void add(String category, int quantity, long start, long end) {
+            // Categories are also mapped as stored, to normalize each distinct spelling once
+            Entry entry = entries.get(category);
+            if (entry == null) {
+                entry = entries.computeIfAbsent(key(category), name -> new Entry());
+                entries.put(category, entry);
+            }
+            entry.items++;
+            entry.quantity += quantity;
+            if (entry.length > 0 && start - entry.ranges[entry.length - 1] <= MERGE_GAP) {
+                entry.ranges[entry.length - 1] = end;
+                return;
+            }
+            if (entry.length == entry.ranges.length) {
+                entry.ranges = Arrays.copyOf(entry.ranges, entry.length * 2);
+            }
+            entry.ranges[entry.length++] = start;
+            entry.ranges[entry.length++] = end;
+        }
+
+        /**
+         * @param size     the size of the indexed file
+         * @param modified its last modification time, in milliseconds
+         * @param hash     its CRC32C
+         * @return the index of the recorded items
+         */
+        CategoryIndex build(long size, long modified, int hash) {
+            NavigableMap<String, Category> categories = new TreeMap<>();
+            entries.forEach((name, entry) -> {
+                String key = key(name);
+                if (key.equals(name)) {
+                    categories.put(key, new Category(key, entry.items, entry.quantity,
+                            Arrays.copyOf(entry.ranges, entry.length)));
+                }
+            });
+            return new CategoryIndex(size, modified, hash, Collections.unmodifiableNavigableMap(categories));
+        }
+
+        /**
+         * Writes the index of a file that was just written, logging rather than throwing on
+         * failure: a missing index is rebuilt by the next reader.
+         *
+         * @param file the indexed file
+         * @param hash its CRC32C
+         */
+        void writeFor(Path file, int hash) {
+            Path sidecar = sidecar(file);
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                build(attributes.size(), attributes.lastModifiedTime().toMillis(), hash).write(sidecar);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write category index: " + sidecar, e);
+            }
+        }
+    }
+
+    /**
+     * Output stream counting and checksumming the bytes written through it, so that a file can be
+     * indexed while it is written.
+     */
+    static final class HashingOutputStream extends FilterOutputStream {
+
+        private final CRC32C checksum = new CRC32C();
+        private long count;
+
+        HashingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            checksum.update(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            checksum.update(bytes, offset, length);
+            count += length;
+        }
+
+        /** @return the number of bytes written so far */
+        long getCount() {
+            return count;
+        }
+
+        /** @return the CRC32C of the bytes written so far */
+        int getHash() {
+            return (int) checksum.getValue();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.fges.dao;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fges.core.CategorySummary;
+
+/**
+ * A {@link StreamingGroceryListDAO} keeping a per-category index beside its storage.
+ * Item counts and quantity totals are read from the index alone, and a scan restricted to a
+ * category only reads the parts of the storage holding it.
+ */
+public interface CategoryIndexedGroceryListDAO extends StreamingGroceryListDAO {
+
+    /**
+     * Summarizes every category from the index, rebuilding the index first if it is stale.
+     *
+     * @return one summary per category, sorted by category; empty if the storage does not exist
+     * @throws IOException if the storage or its index cannot be read
+     */
+    List<CategorySummary> summarize() throws IOException;
+}
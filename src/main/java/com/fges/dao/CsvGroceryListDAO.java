@@ -1,95 +1,417 @@
 package com.fges.dao;
 
+import com.fges.core.CategorySummary;
 import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Implementation of {@link GroceryListDAO} for handling CSV file operations.
- * Uses simple parsing and validation to support saving and loading grocery items.
+ * Loading goes through a byte-level {@link CsvScanner} and saving streams rows through a
+ * {@link CsvWriter}, so neither materializes the file as lines in memory.
+ * <p>
+ * With a parallelism above one, large files are memory-mapped, split into chunks at line
+ * breaks that are not inside quotes, and the chunks are parsed concurrently on a fork-join pool.
+ * The resulting items are in file order, exactly as with a sequential load.
+ * <p>
+ * Every save also writes a {@link CategoryIndex} beside the file, locating each category by the
+ * byte ranges of its rows.
  */
-public class CsvGroceryListDAO implements GroceryListDAO {
+public class CsvGroceryListDAO implements SnapshotGroceryListDAO, CategoryIndexedGroceryListDAO {
+
+    private static final String HEADER = "Item,Quantity,Category";
+
+    /** Files smaller than this are always loaded sequentially */
+    static final long DEFAULT_MIN_PARALLEL_BYTES = 16L * 1024 * 1024;
+
+    /** Upper bound of a chunk, which keeps every mapping far below the 2 GB limit */
+    private static final long MAX_CHUNK_BYTES = 256L * 1024 * 1024;
+
+    /** Chunks per thread, so that uneven chunks still keep every thread busy */
+    private static final int CHUNKS_PER_THREAD = 4;
 
     private final Path path;
+    private final int parallelism;
+    private final long minParallelBytes;
 
     /**
-     * Constructs a new CsvGroceryListDAO for a given file path.
+     * Constructs a new CsvGroceryListDAO for a given file path, loading sequentially.
      *
      * @param fileName the CSV file to load from and save to
      */
     public CsvGroceryListDAO(String fileName) {
+        this(fileName, 1);
+    }
+
+    /**
+     * Constructs a new CsvGroceryListDAO for a given file path.
+     *
+     * @param fileName    the CSV file to load from and save to
+     * @param parallelism the number of threads used to parse large files (1 = sequential)
+     */
+    public CsvGroceryListDAO(String fileName, int parallelism) {
+        this(fileName, parallelism, DEFAULT_MIN_PARALLEL_BYTES);
+    }
+
+    /**
+     * @param minParallelBytes files smaller than this are loaded sequentially
+     */
+    CsvGroceryListDAO(String fileName, int parallelism, long minParallelBytes) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Load parallelism must be at least 1.");
+        }
         this.path = Path.of(fileName);
+        this.parallelism = parallelism;
+        this.minParallelBytes = minParallelBytes;
     }
 
     /**
      * Loads grocery items from a CSV file.
+     * The header row is skipped, as are rows that do not have exactly three fields.
      *
      * @return list of {@link GroceryItem} parsed from the file
+     * @throws IOException if the file cannot be read or a quantity is not a number
      */
     @Override
     public List<GroceryItem> load() throws IOException {
         List<GroceryItem> items = new ArrayList<>();
-    
+
         if (!Files.exists(path)) {
             return items;
         }
-    
-        List<String> lines = Files.readAllLines(path);
-        for (int i = 1; i < lines.size(); i++) { // Skip header
-            String line = lines.get(i);
-            String[] tokens = parseCsvLine(line);
-            if (tokens.length != 3) continue;
-    
-            GroceryItem item = new GroceryItem(tokens[0].trim(), Integer.parseInt(tokens[1].trim()), tokens[2].trim());
-            items.add(item);
-        }
-    
+
+        if (parallelism > 1 && Files.size(path) >= minParallelBytes) {
+            return loadParallel();
+        }
+
+        try (InputStream in = Files.newInputStream(path)) {
+            CsvScanner scanner = new CsvScanner(in);
+            if (!scanner.nextRow()) { // Skip header
+                return items;
+            }
+            while (scanner.nextRow()) {
+                if (scanner.getFieldCount() != 3) continue;
+                items.add(toItem(scanner));
+            }
+        }
+
         return items;
     }
-    
+
     /**
-     * Simple CSV parser that handles quoted fields with commas.
+     * Streams the rows of the file, sequentially. The category and quantity of a row are tested
+     * before its name is decoded, and an item is only built for rows matching the filter.
+     * A scan restricted to a category only reads the byte ranges the index gives for it.
+     *
+     * @param filter   the items to read
+     * @param consumer receives the matching items
+     * @return the number of items passed to the consumer
+     * @throws IOException if the file cannot be read or a quantity is not a number, or the consumer failed
      */
-    private String[] parseCsvLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        boolean insideQuotes = false;
-    
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-    
-            if (c == '"') {
-                insideQuotes = !insideQuotes;
-            } else if (c == ',' && !insideQuotes) {
-                fields.add(current.toString());
-                current.setLength(0);
-            } else {
-                current.append(c);
-            }
-        }
-    
-        fields.add(current.toString());
-        return fields.toArray(new String[0]);
+    @Override
+    public long scan(GroceryItemFilter filter, ItemConsumer consumer) throws IOException {
+        if (!Files.exists(path) || filter.limit() == 0) {
+            return 0;
+        }
+        if (filter.category() == null) {
+            try (InputStream in = Files.newInputStream(path)) {
+                CsvScanner scanner = new CsvScanner(in);
+                if (!scanner.nextRow()) { // Skip header
+                    return 0;
+                }
+                return scanRows(scanner, filter, consumer, filter.limit());
+            }
+        }
+
+        CategoryIndex index = index();
+        CategoryIndex.Category category = index == null ? null : index.get(filter.category());
+        if (category == null) {
+            return 0;
+        }
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] ranges = category.ranges();
+            for (int i = 0; i < ranges.length && count < filter.limit(); i += 2) {
+                CsvScanner scanner = new CsvScanner(CategoryIndex.open(channel, ranges[i], ranges[i + 1]),
+                        (int) Math.min(ranges[i + 1] - ranges[i], 64 * 1024));
+                count += scanRows(scanner, filter, consumer, filter.limit() - count);
+            }
+        }
+        return count;
+    }
+
+    private static long scanRows(CsvScanner scanner, GroceryItemFilter filter, ItemConsumer consumer, long limit)
+            throws IOException {
+        long count = 0;
+        while (scanner.nextRow()) {
+            if (scanner.getFieldCount() != 3 || !filter.matchesCategory(scanner.getSharedString(2))) {
+                continue;
+            }
+            GroceryItem item = toItem(scanner);
+            if (filter.matchesQuantity(item.getQuantity()) && filter.matchesName(item.getName())) {
+                consumer.accept(item);
+                if (++count == limit) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Summarizes the categories from the index, rebuilding it first if it is stale.
+     *
+     * @return one summary per category, sorted by category; empty if the file does not exist
+     * @throws IOException if the file cannot be read or a quantity is not a number
+     */
+    @Override
+    public List<CategorySummary> summarize() throws IOException {
+        CategoryIndex index = index();
+        return index == null ? List.of() : index.summaries();
+    }
+
+    private CategoryIndex index() throws IOException {
+        return CategoryIndex.of(path, builder -> {
+            try (InputStream in = Files.newInputStream(path)) {
+                CsvScanner scanner = new CsvScanner(in);
+                if (!scanner.nextRow()) { // Skip header
+                    return;
+                }
+                while (scanner.nextRow()) {
+                    if (scanner.getFieldCount() == 3) {
+                        builder.add(scanner.getSharedString(2), quantity(scanner), scanner.getRowOffset(), scanner.getOffset());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Parses the file in chunks on a fork-join pool and concatenates the chunks in order.
+     */
+    private List<GroceryItem> loadParallel() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            long size = channel.size();
+            long[] starts = chunkStarts(channel, size, pool);
+
+            List<Future<List<GroceryItem>>> chunks = new ArrayList<>(starts.length);
+            for (int i = 0; i < starts.length; i++) {
+                long start = starts[i];
+                long end = i + 1 < starts.length ? starts[i + 1] : size;
+                boolean header = i == 0;
+                chunks.add(pool.submit(() -> parseChunk(channel, start, end, header)));
+            }
+
+            List<List<GroceryItem>> parsed = new ArrayList<>(chunks.size());
+            int total = 0;
+            for (Future<List<GroceryItem>> chunk : chunks) {
+                List<GroceryItem> chunkItems = await(chunk);
+                parsed.add(chunkItems);
+                total += chunkItems.size();
+            }
+
+            List<GroceryItem> items = new ArrayList<>(total);
+            parsed.forEach(items::addAll);
+            return items;
+        }
+    }
+
+    /**
+     * Computes where each chunk starts. The file is first cut into equal slices whose double
+     * quotes are counted in parallel; since every quote toggles the quoted state of the scanner
+     * (an escaped quote toggles it twice), the parity of the quotes before a slice tells whether
+     * it starts inside a quoted field. Each chunk then starts right after the first line break
+     * outside quotes following its slice start.
+     *
+     * @return the strictly increasing start offsets, the first one being 0
+     */
+    private long[] chunkStarts(FileChannel channel, long size, ForkJoinPool pool) throws IOException {
+        int count = (int) Math.max((long) parallelism * CHUNKS_PER_THREAD, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        long sliceSize = Math.max(1, (size + count - 1) / count);
+        count = (int) Math.max(1, (size + sliceSize - 1) / sliceSize);
+
+        List<Future<Long>> quoteCounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long from = i * sliceSize;
+            long to = Math.min(size, from + sliceSize);
+            quoteCounts.add(pool.submit((Callable<Long>) () -> countQuotes(channel, from, to)));
+        }
+
+        List<Long> starts = new ArrayList<>(count);
+        starts.add(0L);
+        long quotes = 0;
+        for (int i = 1; i < count; i++) {
+            quotes += await(quoteCounts.get(i - 1));
+            long start = lineStartAfter(channel, i * sliceSize, (quotes & 1) == 1, size);
+            if (start > starts.get(starts.size() - 1) && start < size) {
+                starts.add(start);
+            }
+        }
+        return starts.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long countQuotes(FileChannel channel, long from, long to) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        long quotes = 0;
+        for (int i = 0, n = buffer.limit(); i < n; i++) {
+            if (buffer.get(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    /**
+     * @return the offset following the first line break outside quotes at or after {@code from},
+     *         or {@code size} if there is none
+     */
+    private static long lineStartAfter(FileChannel channel, long from, boolean quoted, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8 * 1024);
+        long offset = from;
+        while (offset < size) {
+            window.clear();
+            int read = channel.read(window, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static List<GroceryItem> parseChunk(FileChannel channel, long start, long end, boolean header)
+            throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        CsvScanner scanner = new CsvScanner(new ByteBufferInputStream(buffer));
+        List<GroceryItem> items = new ArrayList<>((int) Math.min(Integer.MAX_VALUE - 8, (end - start) / 24));
+        try {
+            if (header && !scanner.nextRow()) {
+                return items;
+            }
+            while (scanner.nextRow()) {
+                if (scanner.getFieldCount() != 3) continue;
+                items.add(toItem(scanner));
+            }
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + " (in the chunk starting at byte " + start + ")", e);
+        }
+        return items;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading CSV file");
+        } catch (ExecutionException e) {
+            // Fork-join tasks wrap checked exceptions in RuntimeExceptions: rethrow the original one
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException io) {
+                    throw io;
+                }
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Builds an item from the current row of the scanner.
+     */
+    static GroceryItem toItem(CsvScanner scanner) throws IOException {
+        return new GroceryItem(scanner.getString(0), quantity(scanner), scanner.getSharedString(2));
+    }
+
+    private static int quantity(CsvScanner scanner) throws IOException {
+        try {
+            return scanner.getInt(1);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid quantity on CSV row " + scanner.getRowNumber() + ": " + e.getMessage(), e);
+        }
     }
 
     /**
      * Saves grocery items to a CSV file.
+     * Rows are streamed to a temporary file which then replaces the target,
+     * so memory stays bounded and a failed save leaves the previous file intact.
      *
      * @param items the list of {@link GroceryItem} to persist
+     * @param force true to force the new file to disk before it replaces the previous one
+     * @throws IOException if the file cannot be written
      */
     @Override
-    public void save(List<GroceryItem> items) throws IOException {
-        List<String> lines = new ArrayList<>();
-        lines.add("Item,Quantity,Category");
+    public void save(List<GroceryItem> items, boolean force) throws IOException {
+        Path temp = AtomicFiles.tempSibling(path);
+        CategoryIndex.Builder index = new CategoryIndex.Builder();
+        CategoryIndex.HashingOutputStream out;
+        try {
+            try (CsvWriter writer = new CsvWriter(out = new CategoryIndex.HashingOutputStream(Files.newOutputStream(temp)))) {
+                writer.writeLine(HEADER);
+                for (GroceryItem item : items) {
+                    long start = writer.getBytesWritten();
+                    writer.writeRow(item.getName(), item.getQuantity(), item.getCategory());
+                    index.add(item.getCategory(), item.getQuantity(), start, writer.getBytesWritten());
+                }
+            }
+            // The previous index must not describe the new file, even if writing the new one fails
+            Files.deleteIfExists(CategoryIndex.sidecar(path));
+            AtomicFiles.moveIntoPlace(temp, path, force);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        index.writeFor(path, out.getHash());
+    }
 
-        for (GroceryItem item : items) {
-            lines.add(item.getName() + "," + item.getQuantity() + "," + item.getCategory());
+    /**
+     * Minimal {@link InputStream} view of a buffer, letting a {@link CsvScanner} read a mapped chunk.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
         }
 
-        Files.write(path, lines);
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
     }
-}
\ No newline at end of file
+}
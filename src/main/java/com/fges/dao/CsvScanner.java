@@ -0,0 +1,261 @@
+package com.fges.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Buffered byte-level CSV scanner (RFC 4180 quoting, LF or CRLF line endings).
+ * Rows are parsed into a reusable byte buffer; the only allocations are the strings
+ * requested through {@link #getString(int)}, and low-cardinality fields such as categories
+ * can be decoded through {@link #getSharedString(int)} to reuse one instance per distinct value.
+ * Fields are trimmed of surrounding blanks.
+ */
+final class CsvScanner {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    /** Bytes of the current row's fields, back to back */
+    private byte[] data = new byte[256];
+    private int dataLength;
+
+    /** Trimmed bounds of each field of the current row inside {@link #data} */
+    private int[] starts = new int[4];
+    private int[] ends = new int[4];
+    private int fieldCount;
+    private int fieldStart;
+
+    private long rowNumber;
+
+    /** Bytes of the input before {@link #buffer}, and offset of the current row */
+    private long bufferOffset;
+    private long rowOffset;
+
+    /** Small direct-mapped cache of recently decoded values for {@link #getSharedString(int)} */
+    private static final int SHARED_SLOTS = 256;
+    private final byte[][] sharedBytes = new byte[SHARED_SLOTS][];
+    private final String[] sharedValues = new String[SHARED_SLOTS];
+
+    /**
+     * @param in the stream to scan; it is not closed by the scanner
+     */
+    CsvScanner(InputStream in) {
+        this(in, BUFFER_SIZE);
+    }
+
+    /**
+     * @param in         the stream to scan; it is not closed by the scanner
+     * @param bufferSize the read buffer size in bytes
+     */
+    CsvScanner(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Parses the next row.
+     *
+     * @return false once the end of the input is reached
+     * @throws IOException if reading fails
+     */
+    boolean nextRow() throws IOException {
+        fieldCount = 0;
+        dataLength = 0;
+        fieldStart = 0;
+
+        if (position == limit && !fill()) {
+            return false;
+        }
+        rowOffset = bufferOffset + position;
+
+        boolean quoted = false;
+        while (position < limit || fill()) {
+            byte[] buf = buffer;
+            int p = position;
+            int end = limit;
+
+            if (quoted) {
+                int from = p;
+                while (p < end && buf[p] != '"') {
+                    p++;
+                }
+                append(buf, from, p - from);
+                if (p == end) {
+                    position = p;
+                    continue;
+                }
+                // Closing quote, unless it is immediately followed by another one
+                position = p + 1;
+                if (position == limit && !fill()) {
+                    break;
+                }
+                if (buffer[position] == '"') {
+                    append(buffer, position++, 1);
+                } else {
+                    quoted = false;
+                }
+            } else {
+                int from = p;
+                byte b = 0;
+                while (p < end && (b = buf[p]) != ',' && b != '\n' && b != '"' && b != '\r') {
+                    p++;
+                }
+                append(buf, from, p - from);
+                if (p == end) {
+                    position = p;
+                    continue;
+                }
+                position = p + 1;
+                if (b == ',') {
+                    endField();
+                } else if (b == '"') {
+                    quoted = true;
+                } else if (b == '\n') {
+                    break;
+                }
+            }
+        }
+
+        endField();
+        rowNumber++;
+        return true;
+    }
+
+    /** @return the number of fields in the current row */
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    /** @return the offset of the first byte of the current row in the input */
+    long getRowOffset() {
+        return rowOffset;
+    }
+
+    /** @return the number of input bytes consumed so far, i.e. the offset after the current row */
+    long getOffset() {
+        return bufferOffset + position;
+    }
+
+    /** @return the 1-based number of the current row */
+    long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @param field the field index
+     * @return the field decoded as UTF-8
+     */
+    String getString(int field) {
+        return new String(data, starts[field], ends[field] - starts[field], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a field, returning the same instance for values seen recently.
+     * Meant for fields with few distinct values, such as categories.
+     *
+     * @param field the field index
+     * @return the field decoded as UTF-8
+     */
+    String getSharedString(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + data[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (SHARED_SLOTS - 1);
+
+        byte[] cached = sharedBytes[slot];
+        if (cached != null && Arrays.equals(cached, 0, cached.length, data, start, end)) {
+            return sharedValues[slot];
+        }
+        String value = getString(field);
+        sharedBytes[slot] = Arrays.copyOfRange(data, start, end);
+        sharedValues[slot] = value;
+        return value;
+    }
+
+    /**
+     * Parses a field as a decimal integer without allocating.
+     *
+     * @param field the field index
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    int getInt(int field) {
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = i < end && data[i] == '-';
+        if (negative || (i < end && data[i] == '+')) {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Empty number in field " + field);
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid number in field " + field + ": " + getString(field));
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Number out of range in field " + field + ": " + getString(field));
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number out of range in field " + field + ": " + getString(field));
+        }
+        return (int) value;
+    }
+
+    private boolean fill() throws IOException {
+        bufferOffset += limit;
+        limit = in.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private void append(byte[] source, int offset, int length) {
+        if (dataLength + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + length));
+        }
+        System.arraycopy(source, offset, data, dataLength, length);
+        dataLength += length;
+    }
+
+    private void endField() {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        int start = fieldStart;
+        int end = dataLength;
+        while (start < end && isBlank(data[start])) {
+            start++;
+        }
+        while (end > start && isBlank(data[end - 1])) {
+            end--;
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+        fieldStart = dataLength;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
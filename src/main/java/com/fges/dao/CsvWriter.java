@@ -0,0 +1,185 @@
+package com.fges.dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming CSV writer used by {@link CsvGroceryListDAO}.
+ * Rows are assembled in a fixed char buffer that is handed to the UTF-8 encoder in large blocks;
+ * fields containing separators, quotes or line breaks are quoted, with embedded quotes doubled (RFC 4180).
+ */
+final class CsvWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer out;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int length;
+
+    /** UTF-8 bytes of everything written, buffered chars included */
+    private long bytes;
+
+    /**
+     * @param out the stream to write to; closed with this writer
+     */
+    CsvWriter(OutputStream out) {
+        this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a raw, already valid line (e.g. a header).
+     *
+     * @param line the line without terminator
+     * @throws IOException if writing fails
+     */
+    void writeLine(String line) throws IOException {
+        write(line, 0, line.length());
+        write('\n');
+    }
+
+    /**
+     * Writes one grocery row.
+     *
+     * @param name     the item name
+     * @param quantity the item quantity
+     * @param category the item category, written as an empty field when null
+     * @throws IOException if writing fails
+     */
+    void writeRow(String name, int quantity, String category) throws IOException {
+        writeField(name);
+        write(',');
+        writeInt(quantity);
+        write(',');
+        writeField(category);
+        write('\n');
+    }
+
+    /** @return the number of bytes written so far, including those still buffered */
+    long getBytesWritten() {
+        return bytes;
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            write(value, 0, value.length());
+            return;
+        }
+
+        write('"');
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                write(value, from, i - from + 1);
+                write('"');
+                from = i + 1;
+            }
+        }
+        write(value, from, value.length() - from);
+        write('"');
+    }
+
+    private void writeInt(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            String digits = Integer.toString(value);
+            write(digits, 0, digits.length());
+            return;
+        }
+        if (buffer.length - length < 11) {
+            flushBuffer();
+        }
+        int digits = 1;
+        int remaining = Math.abs(value);
+        while (remaining >= 10) {
+            remaining /= 10;
+            digits++;
+        }
+        if (value < 0) {
+            buffer[length++] = '-';
+            bytes++;
+        }
+        bytes += digits;
+        remaining = Math.abs(value);
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        length += digits;
+    }
+
+    /** Only used for ASCII characters, encoded as one byte */
+    private void write(char c) throws IOException {
+        if (length == buffer.length) {
+            flushBuffer();
+        }
+        buffer[length++] = c;
+        bytes++;
+    }
+
+    private void write(String value, int offset, int count) throws IOException {
+        bytes += utf8Length(value, offset, count);
+        while (count > 0) {
+            if (length == buffer.length) {
+                flushBuffer();
+            }
+            int chunk = Math.min(count, buffer.length - length);
+            value.getChars(offset, offset + chunk, buffer, length);
+            length += chunk;
+            offset += chunk;
+            count -= chunk;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, length);
+        length = 0;
+    }
+
+    /**
+     * Counts the bytes the encoder produces for a slice of a string; an unpaired surrogate,
+     * which it replaces with '?', counts as one byte.
+     */
+    private static long utf8Length(String value, int offset, int count) {
+        long total = count;
+        for (int i = offset, end = offset + count; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                total += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                total += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                total += 2;
+            }
+        }
+        return total;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.fges.dao;
+
+/**
+ * How far a saved list must have reached before a save returns.
+ */
+public enum Durability {
+
+    /** The file is replaced atomically but left in the OS cache; a crash may lose recent saves */
+    NONE,
+
+    /** Saves return at once; a background writer forces them to disk, several saves per fsync */
+    ASYNC,
+
+    /** Saves return once forced to disk; concurrent saves wait for the same fsync */
+    SYNC;
+
+    /**
+     * @param value the level name, case-insensitive (none, async or sync)
+     * @return the matching level
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static Durability parse(String value) {
+        String normalized = value == null ? "" : value.trim().toUpperCase();
+        for (Durability durability : values()) {
+            if (durability.name().equals(normalized)) {
+                return durability;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported durability: " + value + " (expected none, async or sync)");
+    }
+}
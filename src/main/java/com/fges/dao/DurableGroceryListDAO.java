@@ -0,0 +1,291 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryItem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Makes the saves of a whole-file DAO survive a crash, with group commit.
+ * Every save is a complete snapshot, so a newer one makes the older ones pending with it
+ * redundant: whoever writes takes the latest snapshot only, forces it to disk once, and
+ * thereby acknowledges every save submitted before it (one fsync for all of them).
+ * <p>
+ * In {@link Durability#SYNC} mode, the first caller that finds no write in progress writes
+ * for everyone and the others wait for the fsync covering their ticket. In
+ * {@link Durability#ASYNC} mode, saves return at once and a background thread does the writes;
+ * a failed background write is reported by the next save. Once closed, saves are written
+ * synchronously, whatever the mode.
+ * <p>
+ * Saving is split into {@link #submit(List)} and {@link #awaitDurable(long)} so that an owner
+ * serializing its saves can submit under its lock and wait after releasing it, letting the
+ * saves of concurrent writers join the same fsync.
+ */
+public final class DurableGroceryListDAO implements GroceryListDAO, Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(DurableGroceryListDAO.class.getName());
+
+    private final SnapshotGroceryListDAO delegate;
+    private final Durability durability;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    /** Latest snapshot not written yet, or null (guarded by lock) */
+    private List<GroceryItem> pending;
+
+    /** Ticket of the latest submitted snapshot (guarded by lock) */
+    private long submitted;
+
+    /** Ticket of the latest snapshot forced to disk (guarded by lock) */
+    private long durable;
+
+    /** Tickets up to this one were dropped by a failed write (guarded by lock) */
+    private long failedUpTo;
+
+    /** Error of the last failed write, kept for the waiters of its tickets (guarded by lock) */
+    private IOException failure;
+
+    /** Error of a background write not reported to a caller yet, in async mode (guarded by lock) */
+    private IOException unreported;
+
+    /** True while a snapshot is being written (guarded by lock) */
+    private boolean writing;
+
+    /** Set once closed; the background writer is then stopped */
+    private volatile boolean closed;
+
+    /** Background writer in ASYNC mode, null otherwise */
+    private final Thread flusher;
+
+    /** Statistics: forced writes, and snapshots they acknowledged */
+    private volatile long syncs;
+    private volatile long acknowledged;
+
+    /**
+     * @param delegate   the DAO writing the file
+     * @param durability {@link Durability#SYNC} or {@link Durability#ASYNC}
+     */
+    DurableGroceryListDAO(SnapshotGroceryListDAO delegate, Durability durability) {
+        this.delegate = Objects.requireNonNull(delegate, "Delegate DAO cannot be null");
+        if (durability != Durability.SYNC && durability != Durability.ASYNC) {
+            throw new IllegalArgumentException("Group commit needs the sync or async durability.");
+        }
+        this.durability = durability;
+        if (durability == Durability.ASYNC) {
+            flusher = new Thread(this::flushLoop, "grocery-fsync");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    @Override
+    public List<GroceryItem> load() throws IOException {
+        return delegate.load();
+    }
+
+    /**
+     * Saves a snapshot and, in sync mode, waits until it is on disk.
+     *
+     * @param items the complete list to persist
+     * @throws IOException if the write covering this save failed, or a previous background write failed
+     */
+    @Override
+    public void save(List<GroceryItem> items) throws IOException {
+        awaitDurable(submit(items));
+    }
+
+    /**
+     * Queues a snapshot, superseding any snapshot not written yet.
+     * Snapshots must be submitted in the order they were taken.
+     *
+     * @param items the complete list to persist
+     * @return the ticket to pass to {@link #awaitDurable(long)}
+     * @throws IOException if a previous background write failed (async mode)
+     */
+    public long submit(List<GroceryItem> items) throws IOException {
+        Objects.requireNonNull(items, "Items cannot be null");
+        lock.lock();
+        try {
+            if (durability == Durability.ASYNC && unreported != null) {
+                IOException e = unreported;
+                unreported = null;
+                throw new IOException("Background save of grocery list failed", e);
+            }
+            pending = List.copyOf(items);
+            submitted++;
+            changed.signalAll();
+            return submitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * In sync mode, waits until the snapshot of the ticket, or a newer one, is forced to disk,
+     * writing it from this thread if no write is in progress. Returns at once in async mode, unless closed.
+     *
+     * @param ticket a ticket returned by {@link #submit(List)}
+     * @throws IOException if the write that should have covered the ticket failed
+     */
+    public void awaitDurable(long ticket) throws IOException {
+        if (durability == Durability.SYNC || closed) {
+            await(ticket);
+        }
+    }
+
+    /**
+     * Waits until every snapshot submitted so far is forced to disk, in either mode.
+     *
+     * @throws IOException if the write covering the last snapshot failed
+     */
+    public void flush() throws IOException {
+        long last;
+        lock.lock();
+        try {
+            last = submitted;
+        } finally {
+            lock.unlock();
+        }
+        await(last);
+    }
+
+    private void await(long ticket) throws IOException {
+        lock.lock();
+        try {
+            while (durable < ticket) {
+                if (failedUpTo >= ticket) {
+                    throw new IOException("Save of grocery list failed", failure);
+                }
+                if (writing || (flusher != null && !closed)) {
+                    changed.awaitUninterruptibly();
+                } else {
+                    writePending();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the latest pending snapshot, releasing the lock during the I/O.
+     * Must be called with the lock held and no write in progress.
+     *
+     * @return false if nothing was pending
+     */
+    private boolean writePending() {
+        List<GroceryItem> snapshot = pending;
+        if (snapshot == null) {
+            return false;
+        }
+        long ticket = submitted;
+        long covered = ticket - Math.max(durable, failedUpTo);
+        pending = null;
+        writing = true;
+        lock.unlock();
+        IOException error = null;
+        try {
+            delegate.save(snapshot, true);
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e);
+        } finally {
+            lock.lock();
+            writing = false;
+        }
+        if (error == null) {
+            durable = ticket;
+            syncs++;
+            acknowledged += covered;
+        } else {
+            // The snapshots it covered are lost: a later save rewrites the whole list anyway
+            failedUpTo = ticket;
+            failure = error;
+            unreported = error;
+            LOGGER.log(Level.SEVERE, "Failed to force grocery list to disk.", error);
+        }
+        changed.signalAll();
+        return true;
+    }
+
+    /**
+     * Background writer of the async mode: writes whatever is pending, until closed and drained.
+     */
+    private void flushLoop() {
+        lock.lock();
+        try {
+            while (true) {
+                if (!writePending()) {
+                    if (closed) {
+                        return;
+                    }
+                    changed.awaitUninterruptibly();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the durability level
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * @return the number of fsync'ed writes so far
+     */
+    public long getSyncCount() {
+        return syncs;
+    }
+
+    /**
+     * @return the number of saves made durable so far; divided by {@link #getSyncCount()}, the group commit ratio
+     */
+    public long getAcknowledgedCount() {
+        return acknowledged;
+    }
+
+    /**
+     * Writes any pending snapshot and stops the background writer.
+     *
+     * @throws IOException if the last write failed
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flush();
+        } finally {
+            if (flusher != null) {
+                try {
+                    flusher.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            LOGGER.info("Durable saves closed: " + acknowledged + " save(s) acknowledged with " + syncs + " fsync(s).");
+        }
+    }
+}
@@ -2,23 +2,70 @@ package com.fges.dao;
 
 /**
  * Factory class responsible for creating a GroceryListDAO instance
- * based on the provided format (e.g., "json", "csv").
+ * based on the provided format (e.g., "json", "csv", "wal", "bin", "mmap", "lsm", "btree").
  */
 public class GroceryListDAOFactory {
 
     /**
      * Creates the appropriate DAO implementation based on the file format.
      *
-     * @param format the format of the file ("json" or "csv")
+     * @param format the format of the file ("json", "csv", "wal", "bin", "mmap", "lsm" or "btree")
      * @param fileName the name/path of the file to use
      * @return an instance of GroceryListDAO
      * @throws IllegalArgumentException if the format is unsupported
      */
     public static GroceryListDAO create(String format, String fileName) {
+        return create(format, fileName, 1);
+    }
+
+    /**
+     * Creates the appropriate DAO implementation, loading large files with several threads
+     * when the format supports it (currently "csv").
+     *
+     * @param format      the format of the file ("json", "csv", "wal", "bin", "mmap", "lsm" or "btree")
+     * @param fileName    the name/path of the file to use
+     * @param loadThreads the number of threads used to load the file
+     * @return an instance of GroceryListDAO
+     * @throws IllegalArgumentException if the format is unsupported
+     */
+    public static GroceryListDAO create(String format, String fileName, int loadThreads) {
+        return create(format, fileName, loadThreads, Durability.NONE);
+    }
+
+    /**
+     * Creates the appropriate DAO implementation with the given durability.
+     * Above {@link Durability#NONE}, whole-file formats ("json", "csv", "bin") are wrapped in a
+     * {@link DurableGroceryListDAO} forcing their writes to disk with group commit.
+     *
+     * @param format      the format of the file ("json", "csv", "wal", "bin", "mmap", "lsm" or "btree")
+     * @param fileName    the name/path of the file to use
+     * @param loadThreads the number of threads used to load the file
+     * @param durability  how far saves must reach before returning
+     * @return an instance of GroceryListDAO
+     * @throws IllegalArgumentException if the format is unsupported, or is "wal" with a durability above none
+     */
+    public static GroceryListDAO create(String format, String fileName, int loadThreads, Durability durability) {
+        GroceryListDAO dao = createFormat(format, fileName, loadThreads);
+        if (durability == null || durability == Durability.NONE) {
+            return dao;
+        }
+        if (!(dao instanceof SnapshotGroceryListDAO snapshot)) {
+            throw new IllegalArgumentException("Durability " + durability.name().toLowerCase()
+                    + " is not supported by format: " + format);
+        }
+        return new DurableGroceryListDAO(snapshot, durability);
+    }
+
+    private static GroceryListDAO createFormat(String format, String fileName, int loadThreads) {
         String normalized = format == null ? "" : format.trim().toLowerCase();
         return switch (normalized) {
             case "json" -> new JsonGroceryListDAO(fileName);
-            case "csv" -> new CsvGroceryListDAO(fileName);
+            case "csv" -> new CsvGroceryListDAO(fileName, loadThreads);
+            case "wal" -> new WalGroceryListDAO(fileName);
+            case "bin" -> new BinaryGroceryListDAO(fileName);
+            case "mmap" -> new MappedGroceryListDAO(fileName);
+            case "lsm" -> new LsmGroceryListDAO(fileName);
+            case "btree" -> new BTreeGroceryListDAO(fileName);
             default -> throw new IllegalArgumentException("Unsupported format: " + format);
         };
     }
@@ -0,0 +1,32 @@
+package com.fges.dao;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fges.core.GroceryChange;
+
+/**
+ * A {@link GroceryListDAO} that can persist individual changes instead of
+ * rewriting the whole list on every mutation.
+ * {@link #save(List)} is still used to write a complete snapshot when requested.
+ */
+public interface IncrementalGroceryListDAO extends GroceryListDAO {
+
+    /**
+     * Persists the given changes, in order, on top of the current stored state.
+     *
+     * @param changes the changes to persist
+     * @throws IOException if writing to the storage fails
+     */
+    void apply(List<GroceryChange> changes) throws IOException;
+
+    /**
+     * Tells the owner of the list whether a full {@link #save(List)} would now be worthwhile,
+     * for instance because the accumulated changes have grown large.
+     *
+     * @return true if a full snapshot should be saved
+     */
+    default boolean needsCompaction() {
+        return false;
+    }
+}
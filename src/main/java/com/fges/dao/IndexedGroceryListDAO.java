@@ -0,0 +1,23 @@
+package com.fges.dao;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fges.core.GroceryItem;
+
+/**
+ * An {@link IncrementalGroceryListDAO} that can look items up by name without reading the whole list.
+ * The owner of the list may then load only the items its mutations touch, and call
+ * {@link #load()} once the whole list is actually needed.
+ */
+public interface IndexedGroceryListDAO extends IncrementalGroceryListDAO {
+
+    /**
+     * Reads the items with the given name, in every category.
+     *
+     * @param name the item name, matched case-insensitively
+     * @return the matching items, empty if there are none
+     * @throws IOException if reading from the storage fails
+     */
+    List<GroceryItem> find(String name) throws IOException;
+}
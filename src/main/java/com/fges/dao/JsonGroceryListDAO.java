@@ -1,11 +1,25 @@
 package com.fges.dao;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fges.core.CategorySummary;
 import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.logging.Level;
@@ -13,12 +27,23 @@ import java.util.logging.Logger;
 
 /**
  * Data Access Object (DAO) implementation for reading and writing grocery list data in JSON format.
+ * Items are streamed token by token with Jackson's {@link JsonParser} and {@link JsonGenerator},
+ * so no reflective binding or intermediate tree is involved.
+ * <p>
+ * Every save also writes a {@link CategoryIndex} beside the file, locating each category by the
+ * byte ranges of its objects.
  */
-public class JsonGroceryListDAO implements GroceryListDAO {
+public class JsonGroceryListDAO implements SnapshotGroceryListDAO, CategoryIndexedGroceryListDAO {
 
     private static final Logger LOGGER = Logger.getLogger(JsonGroceryListDAO.class.getName());
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    /** Thread-safe factory shared by every DAO instance */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String NAME = "name";
+    private static final String QUANTITY = "quantity";
+    private static final String CATEGORY = "category";
+
     private final File file;
 
     /**
@@ -52,36 +77,229 @@ public class JsonGroceryListDAO implements GroceryListDAO {
             return new ArrayList<>();
         }
 
-        try {
-            return mapper.readValue(file, new TypeReference<>() {});
+        try (JsonParser parser = JSON_FACTORY.createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Cannot deserialize grocery list: expected a JSON array");
+            }
+
+            List<GroceryItem> items = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                items.add(readItem(parser, GroceryItemFilter.ALL));
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Cannot deserialize grocery item: expected a JSON object");
+            }
+            return items;
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Failed to load grocery list from JSON file: " + file.getName(), e);
             throw e;
         }
     }
 
+    /**
+     * Streams the items of the JSON array, building only those matching the filter.
+     * A scan restricted to a category only parses the byte ranges the index gives for it.
+     *
+     * @param filter   the items to read
+     * @param consumer receives the matching items
+     * @return the number of items passed to the consumer
+     * @throws IOException if the file cannot be read or parsed, or the consumer failed
+     */
+    @Override
+    public long scan(GroceryItemFilter filter, ItemConsumer consumer) throws IOException {
+        if (!file.exists() || file.length() == 0 || filter.limit() == 0) {
+            return 0;
+        }
+        if (filter.category() == null) {
+            try (JsonParser parser = JSON_FACTORY.createParser(file)) {
+                return scanArray(parser, filter, consumer, filter.limit());
+            }
+        }
+
+        CategoryIndex index = index();
+        CategoryIndex.Category category = index == null ? null : index.get(filter.category());
+        if (category == null) {
+            return 0;
+        }
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] ranges = category.ranges();
+            for (int i = 0; i < ranges.length && count < filter.limit(); i += 2) {
+                // A range runs from the first object to the last, so it parses as the content of an array
+                InputStream range = new SequenceInputStream(Collections.enumeration(List.of(
+                        new ByteArrayInputStream(new byte[]{'['}),
+                        CategoryIndex.open(channel, ranges[i], ranges[i + 1]),
+                        new ByteArrayInputStream(new byte[]{']'}))));
+                try (JsonParser parser = JSON_FACTORY.createParser(range)) {
+                    count += scanArray(parser, filter, consumer, filter.limit() - count);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Summarizes the categories from the index, rebuilding it first if it is stale.
+     *
+     * @return one summary per category, sorted by category; empty if the file does not exist
+     * @throws IOException if the file cannot be read or parsed
+     */
+    @Override
+    public List<CategorySummary> summarize() throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return List.of();
+        }
+        CategoryIndex index = index();
+        return index == null ? List.of() : index.summaries();
+    }
+
+    private CategoryIndex index() throws IOException {
+        return CategoryIndex.of(file.toPath(), builder -> {
+            try (JsonParser parser = JSON_FACTORY.createParser(file)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new JsonParseException(parser, "Cannot deserialize grocery list: expected a JSON array");
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    long start = parser.currentTokenLocation().getByteOffset();
+                    GroceryItem item = readItem(parser, GroceryItemFilter.ALL);
+                    builder.add(item.getCategory(), item.getQuantity(), start, parser.currentLocation().getByteOffset());
+                }
+            }
+        });
+    }
+
+    /**
+     * Streams the items of an array up to the limit.
+     */
+    private static long scanArray(JsonParser parser, GroceryItemFilter filter, ItemConsumer consumer, long limit)
+            throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Cannot deserialize grocery list: expected a JSON array");
+        }
+
+        long count = 0;
+        JsonToken token = parser.nextToken();
+        while (token == JsonToken.START_OBJECT) {
+            GroceryItem item = readItem(parser, filter);
+            if (item != null) {
+                consumer.accept(item);
+                if (++count == limit) {
+                    return count;
+                }
+            }
+            token = parser.nextToken();
+        }
+        if (token != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "Cannot deserialize grocery item: expected a JSON object");
+        }
+        return count;
+    }
+
+    /**
+     * Reads the fields of one item; the parser must be positioned on its START_OBJECT token.
+     * Unknown fields are skipped, including their nested objects and arrays.
+     *
+     * @return the item, or null if it does not match the filter
+     * @throws JsonParseException if the quantity is not an integer, or the name or category not a scalar
+     */
+    private static GroceryItem readItem(JsonParser parser, GroceryItemFilter filter) throws IOException {
+        String name = null;
+        int quantity = 0;
+        String category = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case NAME -> name = readText(parser, value, NAME);
+                case QUANTITY -> {
+                    if (value != JsonToken.VALUE_NUMBER_INT) {
+                        throw new JsonParseException(parser, "Cannot deserialize grocery item: quantity must be an integer");
+                    }
+                    quantity = parser.getIntValue();
+                }
+                case CATEGORY -> category = readText(parser, value, CATEGORY);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (name != null && !(filter.matchesCategory(category)
+                && filter.matchesQuantity(quantity) && filter.matchesName(name))) {
+            return null;
+        }
+        try {
+            return new GroceryItem(name, quantity, category);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(parser, "Cannot deserialize grocery item: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a text field as a string, null included. Numbers and booleans are read as their text.
+     *
+     * @throws JsonParseException if the value is an object or an array, which is skipped first
+     */
+    private static String readText(JsonParser parser, JsonToken value, String field) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!value.isScalarValue()) {
+            parser.skipChildren();
+            throw new JsonParseException(parser, "Cannot deserialize grocery item: " + field + " must be a string");
+        }
+        return parser.getText();
+    }
+
     /**
      * Saves the list of grocery items to the JSON file.
+     * Items are validated while they are written; the file is written to a temporary
+     * sibling first and moved into place, so a failure never leaves a half-written list.
      *
      * @param items the list of GroceryItem objects to be saved
+     * @param force true to force the new file to disk before it replaces the previous one
      * @throws IOException if the file cannot be written
      */
     @Override
-    public void save(List<GroceryItem> items) throws IOException {
-        for (GroceryItem item : items) {
-            item.validate();
-        }
+    public void save(List<GroceryItem> items, boolean force) throws IOException {
+        Path target = file.toPath();
+        Path temp = AtomicFiles.tempSibling(target);
+        boolean created = !file.exists();
+        CategoryIndex.Builder index = new CategoryIndex.Builder();
+        CategoryIndex.HashingOutputStream out;
 
         try {
-            if (!file.exists() && file.createNewFile()) {
-                LOGGER.info("Created new JSON file: " + file.getAbsolutePath());
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(
+                    out = new CategoryIndex.HashingOutputStream(Files.newOutputStream(temp)), JsonEncoding.UTF8)) {
+                generator.writeStartArray();
+                for (GroceryItem item : items) {
+                    item.validate();
+                    generator.writeStartObject();
+                    long start = out.getCount() + generator.getOutputBuffered() - 1;
+                    generator.writeStringField(NAME, item.getName());
+                    generator.writeNumberField(QUANTITY, item.getQuantity());
+                    generator.writeStringField(CATEGORY, item.getCategory());
+                    generator.writeEndObject();
+                    index.add(item.getCategory(), item.getQuantity(), start, out.getCount() + generator.getOutputBuffered());
+                }
+                generator.writeEndArray();
+            }
+            // The previous index must not describe the new file, even if writing the new one fails
+            Files.deleteIfExists(CategoryIndex.sidecar(target));
+            AtomicFiles.moveIntoPlace(temp, target, force);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            if (e instanceof IOException) {
+                LOGGER.log(Level.SEVERE, "Failed to save grocery list to JSON file: " + file.getName(), e);
             }
-
-            mapper.writeValue(file, items);
-            LOGGER.info("Grocery list saved to: " + file.getAbsolutePath());
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to save grocery list to JSON file: " + file.getName(), e);
             throw e;
         }
+
+        index.writeFor(target, out.getHash());
+
+        if (created) {
+            LOGGER.info("Created new JSON file: " + file.getAbsolutePath());
+        }
+        LOGGER.info("Grocery list saved to: " + file.getAbsolutePath());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,762 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryItem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Log-structured (LSM) {@link GroceryListDAO} for write-heavy lists.
+ * The list is a directory. Changes go to an in-memory memtable sorted by normalized
+ * (name, category) key, and to a log ("memtable.log") so that they survive a crash. Once the
+ * memtable holds enough keys it is flushed to an immutable sorted segment file and the log is
+ * dropped; a background thread folds the segments into one when they pile up.
+ * <p>
+ * Records carry a sequence number. Additions are stored as the item quantity, merges as the
+ * quantity added (a delta), and removals as a tombstone on the name, covering every category.
+ * {@link #load()} is a k-way merge of the memtable and the segments, newest record first for
+ * each key: deltas are summed down to the quantity they apply to, and records older than a
+ * tombstone of their name are dropped. Compaction does the same and drops the tombstones.
+ * <p>
+ * A segment is named after the range of flushes it holds ("segment-&lt;first&gt;-&lt;last&gt;.lsm"),
+ * so a segment left behind by a compaction that crashed before removing its inputs is recognized
+ * and deleted on open. {@link #getStats()} reports write amplification and compaction counters.
+ */
+public class LsmGroceryListDAO implements IncrementalGroceryListDAO, Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(LsmGroceryListDAO.class.getName());
+
+    /** Default number of memtable keys that triggers a flush */
+    public static final int DEFAULT_MEMTABLE_KEYS = 4_096;
+
+    /** Default number of segments that triggers a compaction */
+    public static final int DEFAULT_COMPACTION_SEGMENTS = 4;
+
+    static final byte[] MAGIC = {'G', 'R', 'C', 'L'};
+    static final byte VERSION = 1;
+
+    private static final String LOG_NAME = "memtable.log";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{10})-(\\d{10})\\.lsm");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte PUT = 1;
+    private static final byte DELTA = 2;
+    private static final byte REMOVE = 3;
+
+    /** Ends the name in tombstone keys, so that a tombstone sorts just before the items of its name */
+    private static final char TOMBSTONE_SEPARATOR = '\u0000';
+
+    /** Separates the name from the category in item keys */
+    private static final char SEPARATOR = '\u0001';
+
+    private final Path directory;
+    private final Path logPath;
+    private final int memtableKeys;
+    private final int compactionSegments;
+
+    /** Latest record of each key not flushed yet */
+    private final NavigableMap<String, Entry> memtable = new TreeMap<>();
+
+    /** Live segments, newest first */
+    private final List<Segment> segments = new ArrayList<>();
+
+    private long lastSeq;
+    private long lastFlush;
+    private boolean opened;
+    private boolean created;
+    private boolean compacting;
+
+    private final ExecutorService compactor;
+
+    // Statistics
+    private long userBytes;
+    private long logBytes;
+    private long flushBytes;
+    private long compactionBytes;
+    private long compactionInputBytes;
+    private int flushes;
+    private int compactions;
+
+    /**
+     * One record: an item quantity, a quantity delta, or a tombstone on a name.
+     *
+     * @param type     PUT, DELTA or REMOVE
+     * @param seq      the sequence number, increasing with every change
+     * @param value    the quantity for PUT, the quantity added for DELTA, 0 for REMOVE
+     * @param name     the item name (the removed name for REMOVE)
+     * @param category the item category ("" for REMOVE)
+     */
+    private record Entry(byte type, long seq, int value, String name, String category) {
+
+        String key() {
+            String name = this.name.toLowerCase();
+            return type == REMOVE ? name + TOMBSTONE_SEPARATOR : name + SEPARATOR + category;
+        }
+
+        /** Name part of the key */
+        String nameKey() {
+            return name.toLowerCase();
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(type);
+            out.writeLong(seq);
+            out.writeInt(value);
+            out.writeUTF(name);
+            out.writeUTF(category);
+        }
+
+        static Entry read(DataInputStream in) throws IOException {
+            byte type = in.readByte();
+            if (type != PUT && type != DELTA && type != REMOVE) {
+                throw new IOException("Invalid record type " + type);
+            }
+            return new Entry(type, in.readLong(), in.readInt(), in.readUTF(), in.readUTF());
+        }
+    }
+
+    /**
+     * An immutable sorted file holding the records of the flushes {@code first} to {@code last}.
+     */
+    private record Segment(Path path, long first, long last, long maxSeq, long bytes) {
+    }
+
+    /**
+     * Write amplification and compaction counters.
+     *
+     * @param userBytes            encoded size of the changes applied
+     * @param logBytes             bytes appended to the log
+     * @param flushBytes           bytes of the segments written by memtable flushes
+     * @param compactionBytes      bytes of the segments written by compactions and full saves
+     * @param compactionInputBytes bytes of the segments read by compactions
+     * @param flushes              number of memtable flushes
+     * @param compactions          number of compactions
+     * @param segments             number of live segments
+     * @param memtableKeys         number of keys in the memtable
+     */
+    public record Stats(long userBytes, long logBytes, long flushBytes, long compactionBytes,
+                        long compactionInputBytes, int flushes, int compactions, int segments, int memtableKeys) {
+
+        /**
+         * @return bytes written to disk per byte of change, 0 before any change
+         */
+        public double writeAmplification() {
+            return userBytes == 0 ? 0 : (double) (logBytes + flushBytes + compactionBytes) / userBytes;
+        }
+    }
+
+    /**
+     * Constructs a new LsmGroceryListDAO with the default flush and compaction thresholds.
+     *
+     * @param directoryName the directory holding the log and the segments, created on first write
+     */
+    public LsmGroceryListDAO(String directoryName) {
+        this(directoryName, DEFAULT_MEMTABLE_KEYS, DEFAULT_COMPACTION_SEGMENTS);
+    }
+
+    /**
+     * Constructs a new LsmGroceryListDAO.
+     *
+     * @param directoryName      the directory holding the log and the segments, created on first write
+     * @param memtableKeys       number of memtable keys that triggers a flush
+     * @param compactionSegments number of segments that triggers a compaction (at least 2)
+     */
+    public LsmGroceryListDAO(String directoryName, int memtableKeys, int compactionSegments) {
+        if (directoryName == null || directoryName.isBlank()) {
+            throw new IllegalArgumentException("LSM directory name must not be null or empty.");
+        }
+        if (memtableKeys <= 0) {
+            throw new IllegalArgumentException("Memtable size must be positive.");
+        }
+        if (compactionSegments < 2) {
+            throw new IllegalArgumentException("Compaction needs at least 2 segments.");
+        }
+        this.directory = Path.of(directoryName);
+        this.logPath = directory.resolve(LOG_NAME);
+        this.memtableKeys = memtableKeys;
+        this.compactionSegments = compactionSegments;
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "grocery-lsm-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the directory and merges the memtable and every segment.
+     *
+     * @return the current items, sorted by key
+     * @throws IOException if a segment or the log cannot be read
+     */
+    @Override
+    public synchronized List<GroceryItem> load() throws IOException {
+        open();
+        List<GroceryItem> items = new ArrayList<>();
+        mergeSegments(segments, memtable.values().iterator(),
+                entry -> items.add(new GroceryItem(entry.name(), entry.value(), entry.category())));
+        return items;
+    }
+
+    /**
+     * Logs the changes and applies them to the memtable, flushing it once large enough.
+     *
+     * @param changes the changes to persist
+     * @throws IOException if the log or a segment cannot be written
+     */
+    @Override
+    public synchronized void apply(List<GroceryChange> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        open();
+
+        List<Entry> entries = new ArrayList<>(changes.size());
+        for (GroceryChange change : changes) {
+            long seq = ++lastSeq;
+            entries.add(switch (change.type()) {
+                case ADD -> new Entry(PUT, seq, change.quantity(), change.name(), change.category());
+                case MERGE -> new Entry(DELTA, seq, change.delta(), change.name(), change.category());
+                case REMOVE -> new Entry(REMOVE, seq, 0, change.name(), "");
+            });
+        }
+        appendToLog(entries);
+        entries.forEach(this::insert);
+
+        if (memtable.size() >= memtableKeys) {
+            flush();
+        }
+    }
+
+    /**
+     * Compaction runs in the background, so the owner never needs to save a snapshot.
+     */
+    @Override
+    public boolean needsCompaction() {
+        return false;
+    }
+
+    /**
+     * Replaces the whole list with a single segment holding the given items.
+     *
+     * @param items the complete list of grocery items
+     * @throws IOException if the segment cannot be written
+     */
+    @Override
+    public synchronized void save(List<GroceryItem> items) throws IOException {
+        open();
+        TreeMap<String, Entry> sorted = new TreeMap<>();
+        for (GroceryItem item : items) {
+            item.validate();
+            Entry entry = new Entry(PUT, ++lastSeq, item.getQuantity(), item.getName(), item.getCategory());
+            sorted.put(entry.key(), entry);
+        }
+        Segment segment = writeSegment(sorted.values(), 1, ++lastFlush, lastSeq);
+        compactionBytes += segment.bytes();
+        for (Segment old : segments) {
+            Files.deleteIfExists(old.path());
+        }
+        segments.clear();
+        segments.add(segment);
+        memtable.clear();
+        Files.deleteIfExists(logPath);
+    }
+
+    /**
+     * @return the write amplification and compaction counters
+     */
+    public synchronized Stats getStats() {
+        return new Stats(userBytes, logBytes, flushBytes, compactionBytes, compactionInputBytes,
+                flushes, compactions, segments.size(), memtable.size());
+    }
+
+    /**
+     * Waits for a running compaction, then flushes the memtable so that the next open has no log to replay.
+     * The DAO remains usable; compactions then run on the calling thread.
+     *
+     * @throws IOException if the memtable cannot be flushed
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (opened && !memtable.isEmpty()) {
+                flush();
+            }
+            Stats stats = getStats();
+            LOGGER.info(String.format("LSM store closed: %d flush(es), %d compaction(s), write amplification %.2f.",
+                    stats.flushes(), stats.compactions(), stats.writeAmplification()));
+        }
+    }
+
+    /**
+     * Folds a record into the memtable. A tombstone drops the records of its name.
+     */
+    private void insert(Entry entry) {
+        if (entry.type() == REMOVE) {
+            String prefix = entry.key();
+            memtable.subMap(prefix, true, entry.nameKey() + (char) (SEPARATOR + 1), false).clear();
+            memtable.put(prefix, entry);
+            return;
+        }
+        String key = entry.key();
+        Entry previous = memtable.get(key);
+        if (entry.type() == DELTA && previous != null) {
+            // PUT + DELTA is a PUT, DELTA + DELTA a larger DELTA; the item keeps the name it was added with
+            entry = new Entry(previous.type(), entry.seq(), previous.value() + entry.value(), previous.name(), entry.category());
+        }
+        memtable.put(key, entry);
+    }
+
+    /**
+     * Writes the memtable to a new segment, drops the log and compacts if segments piled up.
+     */
+    private void flush() throws IOException {
+        long flush = ++lastFlush;
+        Segment segment = writeSegment(memtable.values(), flush, flush, lastSeq);
+        segments.add(0, segment);
+        memtable.clear();
+        Files.deleteIfExists(logPath);
+        flushBytes += segment.bytes();
+        flushes++;
+
+        if (segments.size() >= compactionSegments && !compacting) {
+            compacting = true;
+            List<Segment> inputs = List.copyOf(segments);
+            if (compactor.isShutdown()) {
+                compact(inputs);
+            } else {
+                compactor.execute(() -> compact(inputs));
+            }
+        }
+    }
+
+    /**
+     * Merges the given segments into one, then swaps them for it if no full save replaced them meanwhile.
+     */
+    private void compact(List<Segment> inputs) {
+        Path output = null;
+        try {
+            long first = inputs.get(inputs.size() - 1).first();
+            long last = inputs.get(0).last();
+            List<Entry> merged = new ArrayList<>();
+            mergeSegments(inputs, Collections.emptyIterator(), merged::add);
+            long maxSeq = inputs.stream().mapToLong(Segment::maxSeq).max().orElse(0);
+            Segment segment = writeSegment(merged, first, last, maxSeq);
+            output = segment.path();
+
+            synchronized (this) {
+                if (!segments.containsAll(inputs)) {
+                    Files.deleteIfExists(output);
+                    return;
+                }
+                segments.removeAll(inputs);
+                segments.add(segment);
+                for (Segment input : inputs) {
+                    Files.deleteIfExists(input.path());
+                    compactionInputBytes += input.bytes();
+                }
+                compactionBytes += segment.bytes();
+                compactions++;
+            }
+            LOGGER.fine(() -> "Compacted " + inputs.size() + " segment(s) into " + segment.path().getFileName());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Compaction of grocery list segments failed: " + directory, e);
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    /**
+     * Merges the records of the given segments and of a sorted in-memory source.
+     */
+    private static void mergeSegments(List<Segment> inputs, Iterator<Entry> memory, Consumer<Entry> live) throws IOException {
+        List<SegmentReader> readers = new ArrayList<>();
+        try {
+            List<Iterator<Entry>> sources = new ArrayList<>();
+            sources.add(memory);
+            for (Segment segment : inputs) {
+                SegmentReader reader = new SegmentReader(segment.path());
+                readers.add(reader);
+                sources.add(reader);
+            }
+            merge(sources, live);
+        } catch (UncheckedSegmentException e) {
+            throw e.getCause();
+        } finally {
+            for (SegmentReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * K-way merge of sources sorted by key: resolves each key to the current item, if any.
+     * Live items are passed as PUT records holding the resolved quantity.
+     */
+    private static void merge(List<Iterator<Entry>> sources, Consumer<Entry> live) {
+        // Newest record first among records of the same key
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Comparator.comparing(Cursor::key)
+                .thenComparing(Comparator.comparingLong((Cursor cursor) -> cursor.head().seq()).reversed()));
+        for (Iterator<Entry> source : sources) {
+            Cursor cursor = new Cursor(source);
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+
+        String tombstoneName = null;
+        long tombstoneSeq = 0;
+        while (!heap.isEmpty()) {
+            String key = heap.peek().key();
+            // Records of this key, newest first
+            List<Entry> versions = new ArrayList<>();
+            while (!heap.isEmpty() && heap.peek().key().equals(key)) {
+                Cursor cursor = heap.poll();
+                versions.add(cursor.head());
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            }
+
+            Entry newest = versions.get(0);
+            if (newest.type() == REMOVE) {
+                tombstoneName = newest.nameKey();
+                tombstoneSeq = newest.seq();
+                continue;
+            }
+            long deletedBefore = newest.nameKey().equals(tombstoneName) ? tombstoneSeq : 0;
+
+            int quantity = 0;
+            Entry base = null;
+            for (Entry version : versions) {
+                if (version.seq() < deletedBefore) {
+                    break;
+                }
+                quantity += version.value();
+                base = version;
+                if (version.type() == PUT) {
+                    break;
+                }
+            }
+            if (base != null) {
+                live.accept(new Entry(PUT, newest.seq(), quantity, base.name(), base.category()));
+            }
+        }
+    }
+
+    /**
+     * Head of a sorted source during a merge, with its key computed once.
+     */
+    private static final class Cursor {
+        private final Iterator<Entry> source;
+        private Entry head;
+        private String key;
+
+        Cursor(Iterator<Entry> source) {
+            this.source = source;
+        }
+
+        Entry head() {
+            return head;
+        }
+
+        String key() {
+            return key;
+        }
+
+        boolean advance() {
+            head = source.hasNext() ? source.next() : null;
+            key = head == null ? null : head.key();
+            return head != null;
+        }
+    }
+
+    /**
+     * Loads the segments and replays the log, once.
+     */
+    private void open() throws IOException {
+        if (opened) {
+            return;
+        }
+        if (Files.isDirectory(directory)) {
+            List<Segment> found = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                    if (matcher.matches()) {
+                        found.add(readSegmentHeader(file, Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))));
+                    } else if (file.getFileName().toString().endsWith(".tmp")) {
+                        Files.delete(file);
+                    }
+                }
+            }
+            // Segments covered by a wider one are inputs of a compaction that did not finish cleaning up
+            for (Segment segment : found) {
+                boolean covered = found.stream().anyMatch(other -> other != segment
+                        && other.first() <= segment.first() && segment.last() <= other.last());
+                if (covered) {
+                    Files.delete(segment.path());
+                } else {
+                    segments.add(segment);
+                }
+            }
+            segments.sort(Comparator.comparingLong(Segment::last).reversed());
+            for (Segment segment : segments) {
+                lastSeq = Math.max(lastSeq, segment.maxSeq());
+                lastFlush = Math.max(lastFlush, segment.last());
+            }
+            replayLog();
+            created = true;
+        }
+        opened = true;
+    }
+
+    /**
+     * Reapplies the logged records newer than the segments; a torn trailing record is ignored.
+     */
+    private void replayLog() throws IOException {
+        if (!Files.exists(logPath)) {
+            return;
+        }
+        long flushedSeq = lastSeq;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath), BUFFER_SIZE))) {
+            while (true) {
+                int length;
+                byte[] payload;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    if (length <= 0 || length > BUFFER_SIZE) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32C crc = new CRC32C();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    LOGGER.warning("Ignoring corrupted tail of grocery list log: " + logPath);
+                    break;
+                }
+                Entry entry = Entry.read(new DataInputStream(new ByteArrayInputStream(payload)));
+                if (entry.seq() > flushedSeq) {
+                    insert(entry);
+                    lastSeq = Math.max(lastSeq, entry.seq());
+                }
+            }
+        }
+    }
+
+    private void createDirectory() throws IOException {
+        if (!created) {
+            Files.createDirectories(directory);
+            created = true;
+        }
+    }
+
+    /**
+     * Appends records to the log, each framed by its length and checksum.
+     */
+    private void appendToLog(List<Entry> entries) throws IOException {
+        createDirectory();
+        ByteArrayOutputStream frames = new ByteArrayOutputStream(entries.size() * 48);
+        DataOutputStream out = new DataOutputStream(frames);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        for (Entry entry : entries) {
+            payload.reset();
+            entry.write(new DataOutputStream(payload));
+            CRC32C crc = new CRC32C();
+            crc.update(payload.toByteArray());
+            out.writeInt(payload.size());
+            payload.writeTo(out);
+            out.writeInt((int) crc.getValue());
+            userBytes += payload.size();
+        }
+        try (OutputStream log = Files.newOutputStream(logPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            frames.writeTo(log);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to append to grocery list log: " + logPath, e);
+            throw e;
+        }
+        logBytes += frames.size();
+    }
+
+    /**
+     * Writes sorted records to a new segment file through a temporary sibling.
+     * Layout: magic, version, record count, sequence number covered, records, CRC32C of all of it.
+     * The sequence number covered tells which log records are already in the segments.
+     */
+    private Segment writeSegment(Collection<Entry> records, long first, long last, long maxSeq) throws IOException {
+        createDirectory();
+        Path path = directory.resolve(String.format("segment-%010d-%010d.lsm", first, last));
+        Path temp = AtomicFiles.tempSibling(path);
+        try {
+            CRC32C crc = new CRC32C();
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), BUFFER_SIZE))) {
+                out.write(MAGIC);
+                out.writeByte(VERSION);
+                out.writeInt(records.size());
+                out.writeLong(maxSeq);
+                for (Entry entry : records) {
+                    entry.write(out);
+                }
+                out.flush();
+                // The trailer itself is written past the checksummed stream
+                new DataOutputStream(file).writeInt((int) crc.getValue());
+            }
+            AtomicFiles.moveIntoPlace(temp, path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return new Segment(path, first, last, maxSeq, Files.size(path));
+    }
+
+    private Segment readSegmentHeader(Path path, long first, long last) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            byte[] magic = in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a grocery list segment: " + path);
+            }
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported grocery list segment version " + version + ": " + path);
+            }
+            in.readInt();
+            return new Segment(path, first, last, in.readLong(), Files.size(path));
+        } catch (EOFException e) {
+            throw new IOException("Grocery list segment is truncated: " + path, e);
+        }
+    }
+
+    /**
+     * Reads the records of a segment in order, verifying its checksum once the last one is read.
+     * Read failures are rethrown as {@link UncheckedSegmentException}, so that the merge can stay an iteration.
+     */
+    private static final class SegmentReader implements Iterator<Entry>, Closeable {
+        private final Path path;
+        private final InputStream file;
+        private final CRC32C crc = new CRC32C();
+        private final DataInputStream records;
+        private int remaining;
+
+        SegmentReader(Path path) throws IOException {
+            this.path = path;
+            this.file = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+            this.records = new DataInputStream(new CheckedInputStream(file, crc));
+            try {
+                records.skipNBytes(MAGIC.length + 1);
+                remaining = records.readInt();
+                records.readLong();
+                if (remaining == 0) {
+                    verifyChecksum();
+                }
+            } catch (EOFException e) {
+                file.close();
+                throw truncated(e);
+            } catch (IOException e) {
+                file.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Entry next() {
+            try {
+                Entry entry = Entry.read(records);
+                if (--remaining == 0) {
+                    verifyChecksum();
+                }
+                return entry;
+            } catch (EOFException e) {
+                throw new UncheckedSegmentException(truncated(e));
+            } catch (IOException e) {
+                throw new UncheckedSegmentException(e);
+            }
+        }
+
+        private void verifyChecksum() throws IOException {
+            int expected = new DataInputStream(file).readInt();
+            if (expected != (int) crc.getValue()) {
+                throw new IOException("Grocery list segment fails its checksum: " + path);
+            }
+        }
+
+        private IOException truncated(EOFException e) {
+            return new IOException("Grocery list segment is truncated: " + path, e);
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+
+    /**
+     * Carries a segment read failure through the merge.
+     */
+    private static final class UncheckedSegmentException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        UncheckedSegmentException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryItem;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link GroceryListDAO} storing each item in a fixed-size slot of a memory-mapped file,
+ * so that a change only touches the bytes of its own slot:
+ * a merge is a 4-byte quantity write, a removal a 1-byte tombstone, and an addition fills a free
+ * (possibly tombstoned) slot. Loading scans the slot table; there is nothing to replay.
+ * Layout:
+ * <pre>
+ * header    64 bytes  "GRCM", version, slot capacity, slots in use, overflow end, overflow garbage
+ * slots     capacity x 64 bytes:
+ *           state (free / live / tombstone), flags, quantity (int),
+ *           name (36 bytes) and category (20 bytes), each either inline as length + UTF-8 bytes
+ *           or, when too long, a reference (offset, length) to the overflow area
+ * overflow  UTF-8 bytes of the long names and categories, appended
+ * </pre>
+ * When the slot table is full, or the overflow area holds mostly garbage (the owner is then asked
+ * for a compaction), the whole file is rewritten through a temporary file moved into place.
+ * Items are loaded in slot order, which differs from insertion order once slots are reused.
+ * Changes reach the disk when the OS writes the mapped pages back; a process crash loses nothing,
+ * a power loss may lose the latest changes.
+ */
+public class MappedGroceryListDAO implements IncrementalGroceryListDAO {
+
+    static final byte[] MAGIC = {'G', 'R', 'C', 'M'};
+    static final byte VERSION = 1;
+
+    static final int HEADER_BYTES = 64;
+    static final int SLOT_BYTES = 64;
+
+    /** Slots of a new file */
+    static final int MIN_CAPACITY = 256;
+
+    private static final int MIN_OVERFLOW_BYTES = 4 * 1024;
+    private static final long MAX_FILE_BYTES = Integer.MAX_VALUE;
+
+    /** Overflow garbage below this size never asks for a compaction */
+    private static final long MIN_COMPACTION_GARBAGE = 64 * 1024;
+
+    // Header fields
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int USED_OFFSET = 12;
+    private static final int OVERFLOW_END_OFFSET = 16;
+    private static final int GARBAGE_OFFSET = 24;
+
+    // Slot fields; a never used slot is all zeros
+    private static final byte LIVE = 1;
+    private static final byte TOMBSTONE = 2;
+    private static final int FLAGS = 1;
+    private static final int QUANTITY = 4;
+    private static final int NAME = 8;
+    private static final int NAME_BYTES = 36;
+    private static final int CATEGORY = NAME + NAME_BYTES;
+    private static final int CATEGORY_BYTES = SLOT_BYTES - CATEGORY;
+    private static final byte NAME_OVERFLOW = 1;
+    private static final byte CATEGORY_OVERFLOW = 2;
+
+    private final Path path;
+
+    /** Mapping of the whole file, null until the file is opened or created */
+    private MappedByteBuffer map;
+    private int capacity;
+    private int used;
+    private int overflowStart;
+    private int overflowBytes;
+    private long overflowEnd;
+    private long overflowGarbage;
+
+    /** Slot of each live item, by lowercase name and category */
+    private final Map<String, Integer> slotsByKey = new HashMap<>();
+
+    /** Slots of the live items sharing a lowercase name, for removal by name */
+    private final Map<String, List<Integer>> slotsByName = new HashMap<>();
+
+    /** Key of the item in each live slot */
+    private String[] slotKeys = new String[0];
+
+    /** Free and tombstoned slots below {@link #used}, reused before the table grows */
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    /**
+     * Constructs a new MappedGroceryListDAO for the specified file.
+     *
+     * @param fileName the slot file to load from and save to
+     */
+    public MappedGroceryListDAO(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("Mapped file name must not be null or empty.");
+        }
+        this.path = Path.of(fileName);
+    }
+
+    /**
+     * Maps the file and scans its slot table.
+     *
+     * @return the live items in slot order; an empty list if the file does not exist
+     * @throws IOException if the file cannot be mapped or is not a valid slot file
+     */
+    @Override
+    public synchronized List<GroceryItem> load() throws IOException {
+        if (!Files.exists(path)) {
+            close();
+            return new ArrayList<>();
+        }
+        return open();
+    }
+
+    /**
+     * Applies each change to its slot only.
+     *
+     * @param changes the changes to persist
+     * @throws IOException if the file must grow and cannot be rewritten
+     */
+    @Override
+    public synchronized void apply(List<GroceryChange> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (map == null) {
+            if (Files.exists(path)) {
+                open();
+            } else {
+                write(List.of(), MIN_CAPACITY, MIN_OVERFLOW_BYTES);
+            }
+        }
+        for (GroceryChange change : changes) {
+            if (change.type() == GroceryChange.Type.REMOVE) {
+                remove(change.name());
+            } else {
+                upsert(change.name(), change.category(), change.quantity());
+            }
+        }
+    }
+
+    /**
+     * @return true once most of the overflow area is taken by removed names
+     */
+    @Override
+    public synchronized boolean needsCompaction() {
+        return overflowGarbage >= MIN_COMPACTION_GARBAGE && overflowGarbage * 2 > overflowEnd;
+    }
+
+    /**
+     * Rewrites the whole file with the given items, leaving room for as many more.
+     *
+     * @param items the complete list of grocery items
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public synchronized void save(List<GroceryItem> items) throws IOException {
+        for (GroceryItem item : items) {
+            item.validate();
+        }
+        write(items, Math.max(MIN_CAPACITY, items.size() * 2), 0);
+    }
+
+    /**
+     * @return the number of slots of the file
+     */
+    synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Updates the quantity of an item in place, or stores a new item in a free slot.
+     */
+    private void upsert(String name, String category, int quantity) throws IOException {
+        String key = key(name, category);
+        Integer slot = slotsByKey.get(key);
+        if (slot != null) {
+            map.putInt(slotOffset(slot) + QUANTITY, quantity);
+            return;
+        }
+
+        int free = allocate();
+        int base = slotOffset(free);
+        byte flags = 0;
+        if (writeString(base + NAME, NAME_BYTES, name)) {
+            flags |= NAME_OVERFLOW;
+        }
+        if (writeString(base + CATEGORY, CATEGORY_BYTES, category)) {
+            flags |= CATEGORY_OVERFLOW;
+        }
+        map.put(base + FLAGS, flags);
+        map.putInt(base + QUANTITY, quantity);
+        // The slot only becomes live once complete
+        map.put(base, LIVE);
+        index(free, key, name);
+    }
+
+    /**
+     * Tombstones every slot holding an item of that name.
+     */
+    private void remove(String name) {
+        List<Integer> slots = slotsByName.remove(name.toLowerCase());
+        if (slots == null) {
+            return;
+        }
+        for (int slot : slots) {
+            int base = slotOffset(slot);
+            map.put(base, TOMBSTONE);
+            byte flags = map.get(base + FLAGS);
+            if ((flags & NAME_OVERFLOW) != 0) {
+                overflowGarbage += map.getInt(base + NAME + 8);
+            }
+            if ((flags & CATEGORY_OVERFLOW) != 0) {
+                overflowGarbage += map.getInt(base + CATEGORY + 8);
+            }
+            slotsByKey.remove(slotKeys[slot]);
+            slotKeys[slot] = null;
+            freeSlots.push(slot);
+        }
+        map.putLong(GARBAGE_OFFSET, overflowGarbage);
+    }
+
+    /**
+     * @return a free slot, doubling the slot table when every slot is in use
+     */
+    private int allocate() throws IOException {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        if (used == capacity) {
+            write(readLive(), capacity * 2, 0);
+            if (!freeSlots.isEmpty()) {
+                return freeSlots.pop();
+            }
+        }
+        map.putInt(USED_OFFSET, used + 1);
+        return used++;
+    }
+
+    /**
+     * Writes a string inline if it fits in the field, otherwise to the overflow area.
+     *
+     * @return true if the string went to the overflow area
+     */
+    private boolean writeString(int offset, int fieldBytes, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < fieldBytes) {
+            map.put(offset, (byte) bytes.length);
+            map.put(offset + 1, bytes);
+            return false;
+        }
+        if (overflowEnd + bytes.length > overflowBytes) {
+            growOverflow(bytes.length);
+        }
+        map.put(overflowStart + (int) overflowEnd, bytes);
+        map.putLong(offset, overflowEnd);
+        map.putInt(offset + 8, bytes.length);
+        overflowEnd += bytes.length;
+        map.putLong(OVERFLOW_END_OFFSET, overflowEnd);
+        return true;
+    }
+
+    /**
+     * Extends the file and maps it again, at least doubling the overflow area.
+     */
+    private void growOverflow(int needed) throws IOException {
+        long size = (long) overflowStart + Math.max(overflowBytes * 2L, overflowEnd + needed);
+        if (size > MAX_FILE_BYTES) {
+            throw new IOException("Mapped grocery list cannot grow beyond 2 GB: " + path);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        overflowBytes = (int) (size - overflowStart);
+    }
+
+    /**
+     * Writes a fresh file through a temporary sibling, then maps it.
+     *
+     * @param items         the items to store
+     * @param slotCapacity  the number of slots of the new file
+     * @param overflowSpare overflow bytes to reserve beyond the long strings of the items
+     */
+    private void write(List<GroceryItem> items, int slotCapacity, int overflowSpare) throws IOException {
+        long longStrings = 0;
+        for (GroceryItem item : items) {
+            longStrings += overflowLength(item.getName(), NAME_BYTES) + overflowLength(item.getCategory(), CATEGORY_BYTES);
+        }
+        long overflowSize = Math.max(MIN_OVERFLOW_BYTES, longStrings * 2 + overflowSpare);
+        long size = HEADER_BYTES + (long) slotCapacity * SLOT_BYTES + overflowSize;
+        if (size > MAX_FILE_BYTES) {
+            throw new IOException("Mapped grocery list cannot grow beyond 2 GB: " + path);
+        }
+
+        Path temp = AtomicFiles.tempSibling(path);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            map.put(0, MAGIC);
+            map.put(MAGIC.length, VERSION);
+            map.putInt(CAPACITY_OFFSET, slotCapacity);
+            resetState(slotCapacity, (int) overflowSize);
+            for (GroceryItem item : items) {
+                upsert(item.getName(), item.getCategory(), item.getQuantity());
+            }
+            AtomicFiles.moveIntoPlace(temp, path);
+        } catch (IOException | RuntimeException e) {
+            close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the existing file, validates its header and indexes its live slots.
+     *
+     * @return the live items in slot order
+     */
+    private List<GroceryItem> open() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Mapped grocery list is truncated: " + path);
+            }
+            if (size > MAX_FILE_BYTES) {
+                throw new IOException("Mapped grocery list is larger than 2 GB: " + path);
+            }
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            map.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a mapped grocery list: " + path);
+            }
+            int version = map.get(MAGIC.length);
+            if (version != VERSION) {
+                throw new IOException("Unsupported mapped grocery list version " + version + ": " + path);
+            }
+            int slotCapacity = map.getInt(CAPACITY_OFFSET);
+            long start = HEADER_BYTES + (long) slotCapacity * SLOT_BYTES;
+            if (slotCapacity <= 0 || start > map.capacity()) {
+                throw new IOException("Invalid slot capacity " + slotCapacity + ": " + path);
+            }
+            resetState(slotCapacity, (int) (map.capacity() - start));
+            used = map.getInt(USED_OFFSET);
+            overflowEnd = map.getLong(OVERFLOW_END_OFFSET);
+            overflowGarbage = map.getLong(GARBAGE_OFFSET);
+            if (used < 0 || used > capacity || overflowEnd < 0 || overflowEnd > overflowBytes) {
+                throw new IOException("Corrupted mapped grocery list header: " + path);
+            }
+
+            List<GroceryItem> items = new ArrayList<>();
+            for (int slot = 0; slot < used; slot++) {
+                if (map.get(slotOffset(slot)) != LIVE) {
+                    freeSlots.push(slot);
+                    continue;
+                }
+                GroceryItem item = readSlot(slot);
+                String key = key(item.getName(), item.getCategory());
+                if (slotsByKey.containsKey(key)) {
+                    throw new IOException("Duplicate item " + item.getName() + " in slot " + slot + ": " + path);
+                }
+                index(slot, key, item.getName());
+                items.add(item);
+            }
+            return items;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            close();
+            throw new IOException("Corrupted mapped grocery list " + path + ": " + e.getMessage(), e);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the live items of the mapped file, in slot order
+     */
+    private List<GroceryItem> readLive() {
+        List<GroceryItem> items = new ArrayList<>(slotsByKey.size());
+        for (int slot = 0; slot < used; slot++) {
+            if (slotKeys[slot] != null) {
+                items.add(readSlot(slot));
+            }
+        }
+        return items;
+    }
+
+    private GroceryItem readSlot(int slot) {
+        int base = slotOffset(slot);
+        byte flags = map.get(base + FLAGS);
+        String name = readString(base + NAME, NAME_BYTES, (flags & NAME_OVERFLOW) != 0);
+        String category = readString(base + CATEGORY, CATEGORY_BYTES, (flags & CATEGORY_OVERFLOW) != 0);
+        return new GroceryItem(name, map.getInt(base + QUANTITY), category);
+    }
+
+    private String readString(int offset, int fieldBytes, boolean overflow) {
+        byte[] bytes;
+        if (overflow) {
+            long start = map.getLong(offset);
+            int length = map.getInt(offset + 8);
+            if (start < 0 || length < 0 || start + length > overflowEnd) {
+                throw new IllegalArgumentException("overflow reference out of bounds at " + offset);
+            }
+            bytes = new byte[length];
+            map.get(overflowStart + (int) start, bytes);
+        } else {
+            int length = map.get(offset) & 0xFF;
+            if (length >= fieldBytes) {
+                throw new IllegalArgumentException("inline string too long at " + offset);
+            }
+            bytes = new byte[length];
+            map.get(offset + 1, bytes);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void resetState(int slotCapacity, int overflowSize) {
+        capacity = slotCapacity;
+        used = 0;
+        overflowStart = HEADER_BYTES + slotCapacity * SLOT_BYTES;
+        overflowBytes = overflowSize;
+        overflowEnd = 0;
+        overflowGarbage = 0;
+        slotsByKey.clear();
+        slotsByName.clear();
+        freeSlots.clear();
+        slotKeys = new String[slotCapacity];
+    }
+
+    /**
+     * Forgets the mapping, which the garbage collector releases.
+     */
+    private void close() {
+        map = null;
+        resetState(0, 0);
+    }
+
+    private void index(int slot, String key, String name) {
+        slotsByKey.put(key, slot);
+        slotsByName.computeIfAbsent(name.toLowerCase(), k -> new ArrayList<>(1)).add(slot);
+        slotKeys[slot] = key;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    /**
+     * @return the overflow bytes needed by a string stored in a field of that size
+     */
+    private static int overflowLength(String value, int fieldBytes) {
+        int length = value.getBytes(StandardCharsets.UTF_8).length;
+        return length < fieldBytes ? 0 : length;
+    }
+
+    private static String key(String name, String category) {
+        return name.toLowerCase() + '\u0000' + category;
+    }
+}
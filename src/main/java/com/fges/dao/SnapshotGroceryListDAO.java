@@ -0,0 +1,28 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryItem;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link GroceryListDAO} rewriting its whole file on every save, through a temporary
+ * sibling moved into place, that can force the new content to disk on the way.
+ */
+interface SnapshotGroceryListDAO extends GroceryListDAO {
+
+    /**
+     * Saves the items; with {@code force}, the temporary file is forced to disk before it
+     * replaces the target and the directory entry is forced after.
+     *
+     * @param items the items to persist
+     * @param force true to return only once the new content survives a crash
+     * @throws IOException if the file cannot be written
+     */
+    void save(List<GroceryItem> items, boolean force) throws IOException;
+
+    @Override
+    default void save(List<GroceryItem> items) throws IOException {
+        save(items, false);
+    }
+}
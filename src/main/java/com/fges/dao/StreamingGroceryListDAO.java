@@ -0,0 +1,37 @@
+package com.fges.dao;
+
+import java.io.IOException;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
+
+/**
+ * A {@link GroceryListDAO} that can read its items one at a time, without holding the list in memory.
+ * The filter is evaluated while the storage is parsed, so items that do not match are never built.
+ */
+public interface StreamingGroceryListDAO extends GroceryListDAO {
+
+    /**
+     * Receives the items read by {@link #scan}.
+     */
+    @FunctionalInterface
+    interface ItemConsumer {
+        /**
+         * @param item an item matching the filter
+         * @throws IOException if the item cannot be processed, which stops the scan
+         */
+        void accept(GroceryItem item) throws IOException;
+    }
+
+    /**
+     * Reads the items matching the filter in storage order, passing each one to the consumer as soon
+     * as it is read, and stops once the filter limit is reached. Unlike {@link #load()}, duplicates
+     * are not merged, and a stopped scan does not verify the parts of the storage it did not read.
+     *
+     * @param filter   the items to read
+     * @param consumer receives the matching items
+     * @return the number of items passed to the consumer
+     * @throws IOException if the storage cannot be read, or the consumer failed
+     */
+    long scan(GroceryItemFilter filter, ItemConsumer consumer) throws IOException;
+}
@@ -0,0 +1,319 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryItem;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only {@link GroceryListDAO} implementation.
+ * The list is stored as a JSON snapshot plus a write-ahead log ("&lt;file&gt;.wal") holding
+ * one small record per mutation, so the cost of a write depends on the size of the change.
+ * Loading replays the log on top of the snapshot; once the log grows past a threshold,
+ * the owner of the list is asked to save a compacted snapshot, which truncates the log.
+ */
+public class WalGroceryListDAO implements IncrementalGroceryListDAO {
+
+    private static final Logger LOGGER = Logger.getLogger(WalGroceryListDAO.class.getName());
+
+    /** Default number of log records after which a compacted snapshot is requested */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+
+    private static final String LOG_SUFFIX = ".wal";
+    private static final char UPSERT = 'U';
+    private static final char REMOVE = 'R';
+
+    private final Path logPath;
+    private final JsonGroceryListDAO snapshot;
+    private final int compactionThreshold;
+
+    /** Number of records currently in the log */
+    private int logRecords;
+
+    /** Whether the log is known to end with a complete record, so appends can start right away */
+    private boolean tailChecked;
+
+    /**
+     * Constructs a new WalGroceryListDAO using the default compaction threshold.
+     *
+     * @param fileName the snapshot file; the log is stored next to it with a ".wal" suffix
+     */
+    public WalGroceryListDAO(String fileName) {
+        this(fileName, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Constructs a new WalGroceryListDAO.
+     *
+     * @param fileName            the snapshot file; the log is stored next to it with a ".wal" suffix
+     * @param compactionThreshold number of log records after which a compacted snapshot is requested
+     */
+    public WalGroceryListDAO(String fileName, int compactionThreshold) {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Compaction threshold must be positive.");
+        }
+        this.snapshot = new JsonGroceryListDAO(fileName);
+        this.logPath = Path.of(fileName + LOG_SUFFIX);
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Loads the snapshot and replays the log on top of it.
+     * Only records terminated by a line break are replayed: a truncated trailing record
+     * (e.g. after a crash mid-write) is ignored rather than applied in its partial form.
+     *
+     * @return the current list of grocery items
+     * @throws IOException if the snapshot or the log cannot be read
+     */
+    @Override
+    public synchronized List<GroceryItem> load() throws IOException {
+        Map<String, GroceryItem> items = new LinkedHashMap<>();
+        Map<String, List<String>> keysByName = new HashMap<>();
+        for (GroceryItem item : snapshot.load()) {
+            put(items, keysByName, item);
+        }
+
+        logRecords = 0;
+        if (Files.exists(logPath)) {
+            byte[] log = Files.readAllBytes(logPath);
+            int complete = completeLength(log);
+            if (complete < log.length) {
+                LOGGER.warning("Ignoring truncated trailing WAL record in " + logPath);
+            }
+            String records = new String(log, 0, complete, StandardCharsets.UTF_8);
+            int start = 0;
+            while (start < records.length()) {
+                int end = records.indexOf('\n', start);
+                String line = records.substring(start, end);
+                start = end + 1;
+                if (replay(line, items, keysByName)) {
+                    logRecords++;
+                } else {
+                    LOGGER.warning("Skipping malformed WAL record in " + logPath + ": " + line);
+                }
+            }
+        }
+
+        return new ArrayList<>(items.values());
+    }
+
+    /**
+     * Appends one record per change to the log.
+     * ADD and MERGE are both stored as the resulting quantity so that replay is idempotent.
+     * Before the first append, a truncated trailing record is cut off so the new records
+     * do not get glued onto it.
+     *
+     * @param changes the changes to persist
+     * @throws IOException if the log cannot be written
+     */
+    @Override
+    public synchronized void apply(List<GroceryChange> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        StringBuilder records = new StringBuilder(changes.size() * 32);
+        for (GroceryChange change : changes) {
+            if (change.type() == GroceryChange.Type.REMOVE) {
+                records.append(REMOVE).append('\t').append(escape(change.name()));
+            } else {
+                records.append(UPSERT).append('\t').append(change.quantity())
+                        .append('\t').append(escape(change.category()))
+                        .append('\t').append(escape(change.name()));
+            }
+            records.append('\n');
+        }
+
+        try {
+            discardTornTail();
+            try (BufferedWriter writer = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(records.toString());
+            }
+        } catch (IOException e) {
+            // A failed append may itself leave a partial record behind
+            tailChecked = false;
+            LOGGER.log(Level.SEVERE, "Failed to append to grocery list log: " + logPath, e);
+            throw e;
+        }
+        logRecords += changes.size();
+    }
+
+    /**
+     * @return true once the log holds at least the configured number of records
+     */
+    @Override
+    public synchronized boolean needsCompaction() {
+        return logRecords >= compactionThreshold;
+    }
+
+    /**
+     * Writes a compacted snapshot of the full list and truncates the log.
+     * If a crash happens between both steps, replaying the old log is harmless.
+     *
+     * @param items the complete list of grocery items
+     * @throws IOException if the snapshot cannot be written or the log cannot be deleted
+     */
+    @Override
+    public synchronized void save(List<GroceryItem> items) throws IOException {
+        snapshot.save(items);
+        Files.deleteIfExists(logPath);
+        logRecords = 0;
+        LOGGER.info("Compacted grocery list log into snapshot.");
+    }
+
+    /**
+     * Truncates the log to its last complete record, once per DAO or after a failed append.
+     */
+    private void discardTornTail() throws IOException {
+        if (tailChecked) {
+            return;
+        }
+        if (Files.exists(logPath)) {
+            try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                long complete = completeLength(channel, size);
+                if (complete < size) {
+                    LOGGER.warning("Discarding truncated trailing WAL record in " + logPath);
+                    channel.truncate(complete);
+                }
+            }
+        }
+        tailChecked = true;
+    }
+
+    /**
+     * @return the length of the prefix of the log that ends with a line break
+     */
+    private static int completeLength(byte[] log) {
+        int end = log.length;
+        while (end > 0 && log[end - 1] != '\n') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Scans the log backwards for the last line break without reading it whole.
+     *
+     * @return the length of the prefix of the log that ends with a line break
+     */
+    private static long completeLength(FileChannel channel, long size) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(4096);
+        long end = size;
+        while (end > 0) {
+            long start = Math.max(0, end - block.capacity());
+            block.clear().limit((int) (end - start));
+            while (block.hasRemaining()) {
+                if (channel.read(block, start + block.position()) < 0) {
+                    throw new IOException("Log shrank while being read: " + size);
+                }
+            }
+            for (int i = block.limit() - 1; i >= 0; i--) {
+                if (block.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * Applies a single log line to the replayed state.
+     *
+     * @return false if the line is malformed
+     */
+    private boolean replay(String line, Map<String, GroceryItem> items, Map<String, List<String>> keysByName) {
+        String[] fields = line.split("\t", -1);
+        try {
+            if (fields.length == 2 && fields[0].equals(String.valueOf(REMOVE))) {
+                List<String> keys = keysByName.remove(unescape(fields[1]).toLowerCase());
+                if (keys != null) {
+                    keys.forEach(items::remove);
+                }
+                return true;
+            }
+            if (fields.length == 4 && fields[0].equals(String.valueOf(UPSERT))) {
+                int quantity = Integer.parseInt(fields[1]);
+                GroceryItem item = new GroceryItem(unescape(fields[3]), quantity, unescape(fields[2]));
+                GroceryItem existing = items.get(key(item));
+                if (existing != null) {
+                    existing.setQuantity(quantity);
+                } else {
+                    put(items, keysByName, item);
+                }
+                return true;
+            }
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.FINE, "Invalid WAL record: " + line, e);
+        }
+        return false;
+    }
+
+    private static void put(Map<String, GroceryItem> items, Map<String, List<String>> keysByName, GroceryItem item) {
+        String key = key(item);
+        items.put(key, item);
+        keysByName.computeIfAbsent(item.getName().toLowerCase(), k -> new ArrayList<>(1)).add(key);
+    }
+
+    private static String key(GroceryItem item) {
+        return item.getName().toLowerCase() + '\u0000' + item.getCategory();
+    }
+
+    /**
+     * Escapes backslashes, tabs and line breaks so a record always fits on one line.
+     */
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Reverses {@link #escape(String)}.
+     */
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                unescaped.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
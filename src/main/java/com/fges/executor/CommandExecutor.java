@@ -24,12 +24,19 @@ public class CommandExecutor {
 
     /**
      * Executes the appropriate command and returns an exit code.
+     * Resources owned by the command (e.g. its manager) are closed afterwards.
      *
      * @return 0 on success, non-zero on failure
      * @throws Exception if the command fails
      */
     public int execute() throws Exception {
         Command command = CommandFactory.create(cliArgs);
-        return command.execute(cliArgs.getCommandArgs());
+        try {
+            return command.execute(cliArgs.getCommandArgs());
+        } finally {
+            if (command instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
     }
 }
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.fges.executor;
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.List;
 
 import com.fges.cli.CommandLineArgs;
+import com.fges.core.GroceryItemFilter;
 import com.fges.core.GroceryListManager;
+import com.fges.core.WriteBehindPolicy;
+import com.fges.dao.CategoryIndexedGroceryListDAO;
 import com.fges.dao.GroceryListDAOFactory;
+import com.fges.dao.StreamingGroceryListDAO;
 import com.fges.executor.commands.*;
 
 /**
@@ -39,6 +45,19 @@ public class CommandFactory {
      * @return the command instance
      */
     public static Command create(String commandName, GroceryListManager manager, String category) {
+        return create(commandName, manager, category, System.out);
+    }
+
+    /**
+     * Creates a command that requires a manager and possibly a category, printing to the given stream.
+     *
+     * @param commandName the command to create (e.g., "add", "list", "remove")
+     * @param manager the GroceryListManager to use
+     * @param category the category to use for "add"
+     * @param out the stream commands such as "list" print to
+     * @return the command instance
+     */
+    public static Command create(String commandName, GroceryListManager manager, String category, PrintStream out) {
         if (commandName == null || commandName.isBlank()) {
             throw new IllegalArgumentException("Command name must not be null or empty.");
         }
@@ -53,15 +72,33 @@ public class CommandFactory {
                 }
                 yield new AddCommand(manager, category);
             }
-            case "list" -> new ListCommand(manager);
+            case "list" -> new ListCommand(manager, out);
             case "remove" -> new RemoveCommand(manager);
             default -> throw new IllegalArgumentException("Unknown or unsupported command: " + commandName);
         };
     }
 
+    /**
+     * Creates the manager for the source file, format and persistence options of the given arguments.
+     *
+     * @param args the full CLI argument object
+     * @return a manager loaded from the source file
+     * @throws IOException if the source file cannot be loaded
+     */
+    public static GroceryListManager createManager(CommandLineArgs args) throws IOException {
+        var dao = GroceryListDAOFactory.create(args.getFormat(), args.getFileName(), args.getLoadThreads(), args.getDurability());
+        return new GroceryListManager(dao, args.getWriteBehindPolicy());
+    }
+
     /**
      * Creates a command using the full parsed command-line arguments.
      * Needed for commands like "web" that need access to raw args.
+     * Commands working on a file own their manager and must be closed after execution.
+     * The "batch" command keeps mutations pending and persists them every --flush-every commands.
+     * The "list" command reads straight from the file when its format can be streamed and either a
+     * filter or --stream is given; otherwise it prints the merged list sorted by category, as
+     * loaded into a manager. The "summary" command reads the category index of the file when its
+     * format keeps one.
      *
      * @param args the full CLI argument object
      * @return the command instance
@@ -81,11 +118,37 @@ public class CommandFactory {
 
         return switch (command) {
             case "web" -> new WebCommand(args);
+            case "serve" -> new ServeCommand(args);
             case "info" -> new InfoCommand();
-            case "add", "list", "remove" -> {
+            case "list" -> {
+                GroceryItemFilter filter = args.getItemFilter();
+                if (args.isStreamingList() || !filter.keepsAll()) {
+                    var dao = GroceryListDAOFactory.create(args.getFormat(), args.getFileName());
+                    if (dao instanceof StreamingGroceryListDAO streaming) {
+                        yield new StreamingListCommand(streaming, filter, System.out);
+                    }
+                }
+                var manager = createManager(args);
+                yield new ManagedCommand(new ListCommand(manager, System.out, filter), manager);
+            }
+            case "summary" -> {
+                String category = args.getItemFilter().category();
                 var dao = GroceryListDAOFactory.create(args.getFormat(), args.getFileName());
-                var manager = new GroceryListManager(dao);
-                yield create(command, manager, args.getCategory());
+                if (dao instanceof CategoryIndexedGroceryListDAO indexed) {
+                    yield new SummaryCommand(indexed, category, System.out);
+                }
+                var manager = createManager(args);
+                yield new ManagedCommand(new SummaryCommand(manager, category, System.out), manager);
+            }
+            case "add", "remove" -> {
+                var manager = createManager(args);
+                yield new ManagedCommand(create(command, manager, args.getCategory()), manager);
+            }
+            case "batch" -> {
+                var dao = GroceryListDAOFactory.create(args.getFormat(), args.getFileName(), args.getLoadThreads(), args.getDurability());
+                var manager = new GroceryListManager(dao, WriteBehindPolicy.manual());
+                var batch = new BatchCommand(manager, args.getCategory(), args.getLongOption("flush-every", 0));
+                yield new ManagedCommand(batch, manager);
             }
             default -> throw new IllegalArgumentException("Unknown or unsupported command: " + command);
         };
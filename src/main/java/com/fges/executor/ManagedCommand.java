@@ -0,0 +1,41 @@
+package com.fges.executor;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fges.core.GroceryListManager;
+import com.fges.executor.commands.Command;
+
+/**
+ * Command bound to a {@link GroceryListManager} that it owns.
+ * Closing it closes the manager, which flushes any write-behind mutations.
+ */
+class ManagedCommand implements Command, AutoCloseable {
+
+    private final Command delegate;
+    private final GroceryListManager manager;
+
+    /**
+     * @param delegate the command to run
+     * @param manager  the manager created for this command
+     */
+    ManagedCommand(Command delegate, GroceryListManager manager) {
+        this.delegate = delegate;
+        this.manager = manager;
+    }
+
+    /** @return the wrapped command */
+    Command getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public int execute(List<String> args) throws IOException {
+        return delegate.execute(args);
+    }
+
+    @Override
+    public void close() throws IOException {
+        manager.close();
+    }
+}
@@ -1,12 +1,15 @@
 package com.fges.executor.commands;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+
+import com.fges.core.GroceryItem;
 import com.fges.core.GroceryListManager;
 
 /**
  * Command to add items to the grocery list.
- * This command adds an item with a specified quantity and category to the grocery list.
+ * This command adds one or more items with specified quantities and the command category to the grocery list.
  */
 public class AddCommand implements Command {
 
@@ -35,39 +38,50 @@ public class AddCommand implements Command {
     }
 
     /**
-     * Executes the 'add' command to add an item with a specified quantity and category.
+     * Executes the 'add' command to add one or more items with the command category.
+     * All the items are added as one batch and persisted with a single write.
+     * An odd number of arguments (e.g. a trailing name without quantity) is rejected with the usage.
      *
-     * @param args the arguments for the add command; expects item name, quantity, and category
+     * @param args the arguments for the add command; expects one or more item name and quantity pairs
      * @return 0 if successful
-     * @throws IOException if there is an error while saving the item
+     * @throws IOException if there is an error while saving the items
      */
     @Override
     public int execute(List<String> args) throws IOException {
-        if (args == null || args.size() < 2) {
-            throw new IllegalArgumentException("""
-                Usage: add <item-name> <quantity>
-                Example: add Milk 2
-                """);
-        }
-    
-        String itemName = args.get(0);
-        int quantity;
-    
-        try {
-            quantity = Integer.parseInt(args.get(1));
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Quantity must be a number");
-        }
-    
-        if (itemName == null || itemName.isBlank()) {
-            throw new IllegalArgumentException("Item name must not be blank.");
+        if (args == null || args.size() < 2 || args.size() % 2 != 0) {
+            throw usage();
         }
-    
-        if (quantity < 0) {
-            throw new IllegalArgumentException("Quantity must be non-negative.");
+
+        List<GroceryItem> items = new ArrayList<>(args.size() / 2);
+        for (int i = 0; i < args.size(); i += 2) {
+            String itemName = args.get(i);
+            int quantity;
+
+            try {
+                quantity = Integer.parseInt(args.get(i + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Quantity must be a number");
+            }
+
+            if (itemName == null || itemName.isBlank()) {
+                throw new IllegalArgumentException("Item name must not be blank.");
+            }
+
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive.");
+            }
+
+            items.add(new GroceryItem(itemName, quantity, category));
         }
-    
-        manager.addItem(itemName, quantity, category);
+
+        manager.addItems(items);
         return 0;
     }
-}
\ No newline at end of file
+
+    private static IllegalArgumentException usage() {
+        return new IllegalArgumentException("""
+            Usage: add <item-name> <quantity> [<item-name> <quantity> ...]
+            Example: add Milk 2 Eggs 12
+            """);
+    }
+}
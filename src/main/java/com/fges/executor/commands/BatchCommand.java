@@ -0,0 +1,170 @@
+package com.fges.executor.commands;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.fges.cli.CommandLineArgs;
+import com.fges.cli.CommandLineProcessor;
+import com.fges.core.GroceryListManager;
+import com.fges.executor.CommandFactory;
+
+/**
+ * Command running a script of grocery commands against a single shared manager, in one JVM.
+ * Each line uses the CLI syntax without the source and format options (e.g. {@code -c dairy add Milk 2});
+ * blank lines and lines starting with '#' are ignored. Lines are dispatched through
+ * {@link CommandFactory}; a failing line is reported and counted but does not stop the batch.
+ * The manager is expected to hold mutations until flushed: the list is persisted every
+ * {@code flushEvery} commands (0 = only at the end), and a summary is printed at the end.
+ */
+public class BatchCommand implements Command {
+
+    /** Commands that may appear in a batch script */
+    private static final Set<String> SUPPORTED = Set.of("add", "list", "remove");
+
+    private final GroceryListManager manager;
+    private final String category;
+    private final long flushEvery;
+    private final InputStream stdin;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    /**
+     * @param manager    the manager shared by all commands of the batch
+     * @param category   the category used by lines without -c
+     * @param flushEvery number of commands between two writes, 0 to write only at the end
+     */
+    public BatchCommand(GroceryListManager manager, String category, long flushEvery) {
+        this(manager, category, flushEvery, System.in, System.out, System.err);
+    }
+
+    BatchCommand(GroceryListManager manager, String category, long flushEvery,
+                 InputStream stdin, PrintStream out, PrintStream err) {
+        if (manager == null) {
+            throw new IllegalArgumentException("GroceryListManager cannot be null.");
+        }
+        if (flushEvery < 0) {
+            throw new IllegalArgumentException("Flush interval must not be negative.");
+        }
+        this.manager = manager;
+        this.category = category;
+        this.flushEvery = flushEvery;
+        this.stdin = stdin;
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Runs the script.
+     *
+     * @param args the script file, or nothing (or "-") to read the script from standard input
+     * @return 0 if every command succeeded, 1 otherwise
+     * @throws IOException if the script cannot be read or the list cannot be persisted
+     */
+    @Override
+    public int execute(List<String> args) throws IOException {
+        String script = args == null || args.isEmpty() ? "-" : args.get(0);
+        InputStream in = script.equals("-") ? stdin : Files.newInputStream(Path.of(script));
+
+        CommandLineProcessor processor = new CommandLineProcessor();
+        long start = System.nanoTime();
+        long commands = 0;
+        long failures = 0;
+        long lineNumber = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.strip();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+
+                commands++;
+                try {
+                    if (run(processor, trimmed) != 0) {
+                        failures++;
+                    }
+                } catch (IllegalArgumentException e) {
+                    failures++;
+                    err.println("Line " + lineNumber + ": " + e.getMessage().strip());
+                }
+
+                if (flushEvery > 0 && commands % flushEvery == 0) {
+                    manager.flush();
+                }
+            }
+        } finally {
+            if (in != stdin) {
+                in.close();
+            }
+        }
+        manager.flush();
+
+        long elapsedNanos = System.nanoTime() - start;
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Batch: %d command(s), %d failed, %.1f ms (%.0f commands/s), %d write(s)%n",
+                commands, failures, elapsedNanos / 1e6, seconds > 0 ? commands / seconds : 0.0,
+                manager.getWriteCount());
+        return failures == 0 ? 0 : 1;
+    }
+
+    private int run(CommandLineProcessor processor, String line) throws IOException {
+        CommandLineArgs lineArgs = processor.parseArgs(tokenize(line).toArray(String[]::new), category);
+        String name = lineArgs.getCommand().toLowerCase();
+        if (!SUPPORTED.contains(name)) {
+            throw new IllegalArgumentException("Unsupported command in batch: " + lineArgs.getCommand());
+        }
+        Command command = CommandFactory.create(name, manager, lineArgs.getCategory());
+        return command.execute(lineArgs.getCommandArgs());
+    }
+
+    /**
+     * Splits a line on blanks, keeping single- or double-quoted sections (e.g. "Greek yogurt") together.
+     */
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean inToken = false;
+        char quote = 0;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    token.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unterminated quote in: " + line);
+        }
+        if (inToken) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -1,8 +1,12 @@
 package com.fges.executor.commands;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
 import com.fges.core.GroceryListManager;
 
 /**
@@ -14,36 +18,79 @@ public class ListCommand implements Command {
     /** The grocery list manager responsible for listing the items */
     private final GroceryListManager manager;
 
+    /** Where the list is printed */
+    private final PrintStream out;
+
+    /** The items to print */
+    private final GroceryItemFilter filter;
+
     /**
-     * Constructs the ListCommand with the specified manager.
+     * Constructs the ListCommand with the specified manager, printing to the console.
      *
      * @param manager the grocery list manager responsible for listing the items
      */
     public ListCommand(GroceryListManager manager) {
+        this(manager, System.out);
+    }
+
+    /**
+     * Constructs the ListCommand with the specified manager and output.
+     *
+     * @param manager the grocery list manager responsible for listing the items
+     * @param out     the stream the list is printed to
+     */
+    public ListCommand(GroceryListManager manager, PrintStream out) {
+        this(manager, out, GroceryItemFilter.ALL);
+    }
+
+    /**
+     * Constructs the ListCommand with the specified manager, output and filter.
+     *
+     * @param manager the grocery list manager responsible for listing the items
+     * @param out     the stream the list is printed to
+     * @param filter  the items to print
+     */
+    public ListCommand(GroceryListManager manager, PrintStream out, GroceryItemFilter filter) {
         if (manager == null) {
             throw new IllegalArgumentException("GroceryListManager cannot be null.");
         }
         this.manager = manager;
+        this.out = out;
+        this.filter = filter == null ? GroceryItemFilter.ALL : filter;
     }
 
     /**
-     * Executes the 'list' command to display all items from the grocery list.
-     * The items are printed to the console grouped by category.
+     * Executes the 'list' command to display the matching items from the grocery list.
+     * The items are printed grouped by category.
      *
      * @param args the arguments for the list command (ignored in this case)
      * @return 0 if successful
      */
     @Override
     public int execute(List<String> args) {
-        Map<String, List<GroceryItem>> groupedItems = manager.listItems();
+        Map<String, List<GroceryItem>> groupedItems = filter.category() == null
+                ? manager.listItems()
+                : Map.of(filter.category(), manager.listItems(filter.category()));
 
-        groupedItems.forEach((category, items) -> {
-            System.out.println("# " + category + ":");
-            for (GroceryItem item : items) {
-                System.out.println(item.getName() + ": " + item.getQuantity());
+        ListPrinter printer = new ListPrinter(out);
+        long remaining = filter.limit();
+        try {
+            for (List<GroceryItem> items : groupedItems.values()) {
+                for (GroceryItem item : items) {
+                    if (remaining == 0) {
+                        break;
+                    }
+                    if (filter.matches(item)) {
+                        printer.print(item);
+                        remaining--;
+                    }
+                }
             }
-            System.out.println();
-        });
+            printer.finish();
+        } catch (IOException e) {
+            // A PrintStream records write errors instead of throwing them
+            throw new UncheckedIOException(e);
+        }
 
         return 0;
     }
@@ -0,0 +1,62 @@
+package com.fges.executor.commands;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+
+/**
+ * Prints items in the format of the 'list' command through a single buffered writer:
+ * a "# category:" header each time the category changes, one "name: quantity" line per item,
+ * and an empty line closing each category.
+ */
+class ListPrinter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+    private String category;
+
+    /**
+     * @param out the stream the list is printed to, in its charset
+     */
+    ListPrinter(PrintStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, out.charset()), BUFFER_SIZE);
+    }
+
+    /**
+     * Prints an item, preceded by its category header if it differs from the previous item's.
+     *
+     * @param item the item to print
+     * @throws IOException if the output cannot be written
+     */
+    void print(GroceryItem item) throws IOException {
+        String itemCategory = item.getCategory() == null ? GroceryListManager.DEFAULT_CATEGORY : item.getCategory();
+        if (!itemCategory.equals(category)) {
+            if (category != null) {
+                writer.write(System.lineSeparator());
+            }
+            category = itemCategory;
+            writer.write("# " + category + ":" + System.lineSeparator());
+        }
+        writer.write(item.getName());
+        writer.write(": ");
+        writer.write(Integer.toString(item.getQuantity()));
+        writer.write(System.lineSeparator());
+    }
+
+    /**
+     * Closes the last category and flushes the output, leaving the stream open.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    void finish() throws IOException {
+        if (category != null) {
+            writer.write(System.lineSeparator());
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,140 @@
+package com.fges.executor.commands;
+
+import com.fges.cli.CommandLineArgs;
+import com.fges.core.GroceryListManager;
+import com.fges.core.GroceryListRegistry;
+import com.fges.core.GroceryWritePipeline;
+import com.fges.dao.GroceryListDAOFactory;
+import com.fges.web.GroceryHttpServer;
+import com.fges.web.GroceryShopAdapter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command to start the built-in JSON HTTP server ({@link GroceryHttpServer}).
+ * Unlike "web", it serves a REST API only, with requests handled on virtual threads
+ * and a configurable accept backlog (--backlog).
+ * When the source is a directory, each file of the directory is a list served under
+ * /lists/{id}/groceries, kept in memory within the --max-lists, --max-items and
+ * --idle-timeout limits.
+ * With --pipeline, writes to a single list go through a {@link GroceryWritePipeline} of that capacity.
+ */
+public class ServeCommand implements Command {
+
+    private static final int DEFAULT_PORT = 8080;
+
+    /** Read by the JDK HTTP server when the first server of the JVM is created */
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    /** Parsed CLI arguments */
+    private final CommandLineArgs args;
+
+    /**
+     * Constructs the ServeCommand with parsed CLI arguments.
+     *
+     * @param args parsed command-line arguments
+     */
+    public ServeCommand(CommandLineArgs args) {
+        if (args == null) {
+            throw new IllegalArgumentException("CommandLineArgs cannot be null.");
+        }
+        this.args = args;
+    }
+
+    /**
+     * Starts the server and blocks until the JVM shuts down.
+     * Defaults to port 8080 unless a port is passed after "serve".
+     *
+     * @param unusedArgs ignored (command args already embedded in CommandLineArgs)
+     * @return 0 if success, 1 if failure
+     */
+    @Override
+    public int execute(List<String> unusedArgs) {
+        int port = DEFAULT_PORT;
+        List<String> commandArgs = args.getCommandArgs();
+        if (!commandArgs.isEmpty()) {
+            try {
+                port = Integer.parseInt(commandArgs.get(0));
+            } catch (NumberFormatException e) {
+                System.err.println("❌ Invalid port '" + commandArgs.get(0) + "'.");
+                return 1;
+            }
+        }
+        int backlog = (int) Math.min(args.getLongOption("backlog", GroceryHttpServer.DEFAULT_BACKLOG), Integer.MAX_VALUE);
+        enableNoDelay();
+
+        try {
+            GroceryHttpServer server;
+            AutoCloseable lists;
+            String url;
+            Path source = Path.of(args.getFileName());
+            if (Files.isDirectory(source)) {
+                var registry = new GroceryListRegistry(
+                        GroceryListRegistry.directory(source, args.getFormat(), args.getWriteBehindPolicy(), args.getDurability()),
+                        (int) Math.min(args.getLongOption("max-lists", GroceryListRegistry.DEFAULT_MAX_LISTS), Integer.MAX_VALUE),
+                        args.getLongOption("max-items", 0),
+                        args.getLongOption("idle-timeout", 0));
+                server = new GroceryHttpServer(registry, port, backlog);
+                lists = registry;
+                url = "/lists/{id}/groceries";
+            } else {
+                var dao = GroceryListDAOFactory.create(args.getFormat(), args.getFileName(), args.getLoadThreads(), args.getDurability());
+                var manager = new GroceryListManager(dao, args.getWriteBehindPolicy());
+                int pipelineCapacity = (int) Math.min(args.getLongOption("pipeline", 0), 1 << 30);
+                if (pipelineCapacity > 0) {
+                    var pipeline = new GroceryWritePipeline(manager, pipelineCapacity);
+                    server = new GroceryHttpServer(new GroceryShopAdapter(manager, pipeline), port, backlog);
+                    lists = () -> {
+                        pipeline.close();
+                        manager.close();
+                    };
+                } else {
+                    server = new GroceryHttpServer(new GroceryShopAdapter(manager), port, backlog);
+                    lists = manager;
+                }
+                url = "/api/groceries";
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                closeQuietly(lists);
+            }, "grocery-serve-shutdown"));
+
+            server.start();
+            System.out.println("✅ REST API running at http://localhost:" + server.getPort() + url);
+            Thread.currentThread().join();
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (Exception e) {
+            System.err.println("❌ Failed to start REST server: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Disables Nagle's algorithm on the server's connections, unless the JVM was given another value.
+     * Otherwise each keep-alive response stalls on the client's delayed ACK (~40 ms),
+     * capping a connection at ~25 requests/s.
+     */
+    private static void enableNoDelay() {
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+    }
+
+    /**
+     * Flushes pending write-behind mutations when the server is shut down.
+     *
+     * @param lists the manager or registry served by the server
+     */
+    private static void closeQuietly(AutoCloseable lists) {
+        try {
+            lists.close();
+        } catch (Exception e) {
+            System.err.println("❌ Failed to flush grocery list on shutdown: " + e.getMessage());
+        }
+    }
+}
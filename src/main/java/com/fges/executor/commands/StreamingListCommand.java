@@ -0,0 +1,56 @@
+package com.fges.executor.commands;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import com.fges.core.GroceryItemFilter;
+import com.fges.dao.StreamingGroceryListDAO;
+
+/**
+ * Command to list items straight from the grocery list file, without loading it into a manager.
+ * Items are filtered while the file is parsed and printed as they are read, so memory use does not
+ * grow with the file. Categories are printed in file order; a category whose items are not
+ * contiguous in the file gets one header per run.
+ */
+public class StreamingListCommand implements Command {
+
+    /** The storage the items are read from */
+    private final StreamingGroceryListDAO dao;
+
+    /** The items to print */
+    private final GroceryItemFilter filter;
+
+    /** Where the list is printed */
+    private final PrintStream out;
+
+    /**
+     * Constructs the StreamingListCommand with the specified storage, filter and output.
+     *
+     * @param dao    the storage the items are read from
+     * @param filter the items to print
+     * @param out    the stream the list is printed to
+     */
+    public StreamingListCommand(StreamingGroceryListDAO dao, GroceryItemFilter filter, PrintStream out) {
+        if (dao == null) {
+            throw new IllegalArgumentException("GroceryListDAO cannot be null.");
+        }
+        this.dao = dao;
+        this.filter = filter == null ? GroceryItemFilter.ALL : filter;
+        this.out = out;
+    }
+
+    /**
+     * Executes the 'list' command, printing the matching items grouped by category.
+     *
+     * @param args the arguments for the list command (ignored in this case)
+     * @return 0 if successful
+     * @throws IOException if the file cannot be read or the output written
+     */
+    @Override
+    public int execute(List<String> args) throws IOException {
+        ListPrinter printer = new ListPrinter(out);
+        dao.scan(filter, printer::print);
+        printer.finish();
+        return 0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.fges.executor.commands;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import com.fges.core.CategorySummary;
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import com.fges.dao.CategoryIndexedGroceryListDAO;
+
+/**
+ * Command to summarize the grocery list: the number of items and the total quantity of each category.
+ * With an indexed storage the summary is read from the index alone; otherwise the list is loaded
+ * into a manager and counted.
+ */
+public class SummaryCommand implements Command {
+
+    @FunctionalInterface
+    private interface SummarySource {
+        List<CategorySummary> read() throws IOException;
+    }
+
+    /** Where the summaries come from */
+    private final SummarySource source;
+
+    /** The category to summarize, or null for every category */
+    private final String category;
+
+    /** Where the summary is printed */
+    private final PrintStream out;
+
+    /**
+     * Constructs the SummaryCommand reading the index of the specified storage.
+     *
+     * @param dao      the indexed storage to summarize
+     * @param category the category to summarize, or null for every category
+     * @param out      the stream the summary is printed to
+     */
+    public SummaryCommand(CategoryIndexedGroceryListDAO dao, String category, PrintStream out) {
+        if (dao == null) {
+            throw new IllegalArgumentException("GroceryListDAO cannot be null.");
+        }
+        this.source = dao::summarize;
+        this.category = category;
+        this.out = out;
+    }
+
+    /**
+     * Constructs the SummaryCommand counting the items of the specified manager.
+     *
+     * @param manager  the grocery list manager holding the items
+     * @param category the category to summarize, or null for every category
+     * @param out      the stream the summary is printed to
+     */
+    public SummaryCommand(GroceryListManager manager, String category, PrintStream out) {
+        if (manager == null) {
+            throw new IllegalArgumentException("GroceryListManager cannot be null.");
+        }
+        this.source = () -> {
+            List<CategorySummary> summaries = new ArrayList<>();
+            manager.listItems().forEach((name, items) -> summaries.add(new CategorySummary(name, items.size(),
+                    items.stream().mapToLong(GroceryItem::getQuantity).sum())));
+            return summaries;
+        };
+        this.category = category;
+        this.out = out;
+    }
+
+    /**
+     * Executes the 'summary' command, printing one "category: N items, quantity Q" line per category.
+     * A category given explicitly is printed even when it holds no item.
+     *
+     * @param args the arguments for the summary command (ignored in this case)
+     * @return 0 if successful
+     * @throws IOException if the list or its index cannot be read
+     */
+    @Override
+    public int execute(List<String> args) throws IOException {
+        List<CategorySummary> summaries = source.read();
+        if (category == null) {
+            summaries.forEach(this::print);
+            return 0;
+        }
+
+        String wanted = category.trim().toLowerCase();
+        print(summaries.stream()
+                .filter(summary -> summary.category().equals(wanted))
+                .findFirst()
+                .orElse(new CategorySummary(wanted, 0, 0)));
+        return 0;
+    }
+
+    private void print(CategorySummary summary) {
+        out.println(summary.category() + ": " + summary.items() + " items, quantity " + summary.quantity());
+    }
+}
@@ -50,8 +50,9 @@ public class WebCommand implements Command {
         }
 
         try {
-            var dao = GroceryListDAOFactory.create(args.getFormat(), args.getFileName());
-            var manager = new GroceryListManager(dao);
+            var dao = GroceryListDAOFactory.create(args.getFormat(), args.getFileName(), args.getLoadThreads(), args.getDurability());
+            var manager = new GroceryListManager(dao, args.getWriteBehindPolicy());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> closeQuietly(manager), "grocery-web-shutdown"));
             var shop = new GroceryShopAdapter(manager);
             var server = new GroceryShopServer(shop);
 
@@ -65,4 +66,17 @@ public class WebCommand implements Command {
             return 1;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Flushes pending write-behind mutations when the server is shut down.
+     *
+     * @param manager the manager served by the web server
+     */
+    private static void closeQuietly(GroceryListManager manager) {
+        try {
+            manager.close();
+        } catch (Exception e) {
+            System.err.println("❌ Failed to flush grocery list on shutdown: " + e.getMessage());
+        }
+    }
+}
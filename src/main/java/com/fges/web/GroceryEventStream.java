@@ -0,0 +1,253 @@
+package com.fges.web;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryChangeFeed;
+import com.fges.core.GroceryChangeListener;
+import com.fges.core.GroceryEvent;
+import com.fges.core.GroceryListManager;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-sent events stream of the changes of one list, shared by all the clients watching it.
+ * A single subscription to the {@link GroceryChangeFeed} of the manager serializes each event
+ * once; the resulting frame is handed to every connection, each written by its own exchange
+ * thread from a bounded queue.
+ * <p>
+ * A connection whose queue is full (a client that does not read fast enough) loses its pending
+ * frames and receives a {@code resync} event instead, telling it to fetch the whole list again;
+ * so does a client reconnecting with a Last-Event-ID that is not the last event sent.
+ * <p>
+ * Connections do not keep the list loaded: when the manager is closed, e.g. because the list was
+ * evicted from its registry, every client receives a {@code resync} event and the stream ends,
+ * so that clients reconnect to the reloaded list and fetch it again.
+ */
+final class GroceryEventStream implements GroceryChangeListener {
+
+    /** Frames a connection may have pending before it is dropped to a resync */
+    static final int QUEUE_CAPACITY = 256;
+
+    /** Interval of the keep-alive comments, which also detect clients that went away */
+    static final long HEARTBEAT_MILLIS = 15_000;
+
+    private static final byte[] CONNECTED = ": connected\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESYNC = "event: resync\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /** Queue sentinel ending a connection */
+    private static final byte[] END = new byte[0];
+
+    private final GroceryChangeFeed.Subscription subscription;
+
+    /** Connections registered or fed under the stream monitor, so that none misses an event */
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    /** Sequence of the last event broadcast (guarded by this) */
+    private long lastSequence;
+
+    /** Set once the feed or the server closed the stream (guarded by this) */
+    private boolean closed;
+
+    /**
+     * Subscribes to the changes made to the manager from now on.
+     *
+     * @param manager the manager of the list
+     */
+    GroceryEventStream(GroceryListManager manager) {
+        this.lastSequence = manager.getLastSequence();
+        this.subscription = manager.subscribe(lastSequence + 1, this);
+    }
+
+    /**
+     * One client of the stream, registered by {@link #connect}.
+     */
+    final class Connection {
+        final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        void offer(byte[] frame) {
+            if (!queue.offer(frame)) {
+                queue.clear();
+                queue.offer(RESYNC);
+            }
+        }
+
+        void resync() {
+            queue.clear();
+            queue.offer(RESYNC);
+        }
+
+        void end() {
+            if (!queue.offer(END)) {
+                queue.clear();
+                queue.offer(END);
+            }
+        }
+
+        /**
+         * Serves the client until the stream is closed or the client goes away.
+         * Runs on the (virtual) exchange thread, which it keeps for the whole connection.
+         *
+         * @param exchange the GET exchange
+         */
+        void serve(HttpExchange exchange) throws IOException {
+            try {
+                exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream out = exchange.getResponseBody();
+                out.write(CONNECTED);
+                out.flush();
+
+                while (true) {
+                    byte[] frame = queue.poll(HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (frame == null) {
+                        out.write(HEARTBEAT);
+                    } else {
+                        // Write everything pending before flushing once
+                        do {
+                            if (frame == END) {
+                                out.flush();
+                                return;
+                            }
+                            out.write(frame);
+                        } while ((frame = queue.poll()) != null);
+                    }
+                    out.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // The client went away
+            } finally {
+                connections.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Registers a client, which receives every event broadcast from now on.
+     *
+     * @param lastEventId the Last-Event-ID header of a reconnecting client, or null
+     * @return the connection, to serve on the exchange thread
+     */
+    Connection connect(String lastEventId) {
+        Connection connection = new Connection();
+        synchronized (this) {
+            if (closed) {
+                connection.resync();
+                connection.end();
+            } else {
+                connections.add(connection);
+                if (lastEventId != null && !lastEventId.strip().equals(Long.toString(lastSequence))) {
+                    connection.resync();
+                }
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Registers a client and serves it until the stream is closed or the client goes away.
+     *
+     * @param exchange    the GET exchange
+     * @param lastEventId the Last-Event-ID header of a reconnecting client, or null
+     */
+    void serve(HttpExchange exchange, String lastEventId) throws IOException {
+        connect(lastEventId).serve(exchange);
+    }
+
+    /**
+     * @return the number of connected clients
+     */
+    int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Ends every connection and stops listening to the manager.
+     *
+     * @param resync true to tell clients to fetch the list again, e.g. when it was evicted
+     */
+    void close(boolean resync) {
+        end(resync);
+        subscription.close();
+    }
+
+    @Override
+    public void onEvent(GroceryEvent event) {
+        byte[] frame = frame(event);
+        synchronized (this) {
+            lastSequence = event.sequence();
+            for (Connection connection : connections) {
+                connection.offer(frame);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onGap(long missedFrom, long resumedAt) {
+        lastSequence = resumedAt - 1;
+        connections.forEach(Connection::resync);
+    }
+
+    /**
+     * The manager was closed: its list is no longer served by this stream.
+     */
+    @Override
+    public void onClose() {
+        end(true);
+    }
+
+    private synchronized void end(boolean resync) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Connection connection : connections) {
+            if (resync) {
+                connection.resync();
+            }
+            connection.end();
+        }
+    }
+
+    /**
+     * Serializes an event as an SSE frame: its sequence as id, its type as event name and the
+     * item state as JSON data.
+     */
+    static byte[] frame(GroceryEvent event) {
+        GroceryChange change = event.change();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+        try {
+            bytes.write(("id: " + event.sequence() + "\nevent: " + change.type().name().toLowerCase() + "\ndata: ")
+                    .getBytes(StandardCharsets.UTF_8));
+            try (JsonGenerator generator = GroceryHttpServer.JSON_FACTORY.createGenerator(bytes, JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                generator.writeStringField("name", change.name());
+                if (change.type() != GroceryChange.Type.REMOVE) {
+                    generator.writeNumberField("quantity", change.quantity());
+                    generator.writeStringField("category", change.category());
+                    generator.writeNumberField("delta", change.delta());
+                }
+                generator.writeNumberField("version", event.version());
+                generator.writeEndObject();
+            }
+            bytes.write("\n\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,472 @@
+package com.fges.web;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fges.core.GroceryListManager;
+import com.fges.core.GroceryListRegistry;
+import com.fges.core.GroceryMutation;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fr.anthonyquere.MyGroceryShop;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Built-in JSON front end for a {@link GroceryShopAdapter}, based on the JDK {@link HttpServer}.
+ * Every exchange runs on its own virtual thread. Endpoints:
+ * <pre>
+ * GET    /api/groceries         list all items: [{"name":..., "quantity":..., "category":...}]
+ * POST   /api/groceries         add an item from {"name":..., "quantity":..., "category":...}
+ * POST   /api/groceries/batch   apply [{"op":"add", "name":..., "quantity":..., "category":...}, {"op":"remove", "name":...}]
+ *                               as one batch persisted once; answers {"changes": n}
+ * DELETE /api/groceries/{name}  remove an item (name URL-encoded)
+ * GET    /api/groceries/events  server-sent events: one add/merge/remove event per change
+ * </pre>
+ * Invalid requests are answered with 400 and {"error": "..."}; an invalid batch is rejected as a whole.
+ * <p>
+ * Backed by a {@link GroceryListRegistry}, the server hosts many lists instead, with the same
+ * endpoints under {@code /lists/{id}/groceries}; lists are loaded on first use and evicted by
+ * the registry.
+ * <p>
+ * The serialized list is cached with the version of the projection it was built from and
+ * served with an ETag; a GET whose If-None-Match holds the current tag is answered with 304.
+ * Clients of the event stream only need to fetch the list again when told to resync
+ * (see {@link GroceryEventStream}).
+ * <p>
+ * The JDK server leaves Nagle's algorithm enabled unless the JVM runs with
+ * {@code -Dsun.net.httpserver.nodelay=true}, read when the first server is created; without it,
+ * each keep-alive response stalls on the client's delayed ACK (~40 ms). The "serve" command
+ * sets it at startup; embedders should pass the flag.
+ */
+public class GroceryHttpServer implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(GroceryHttpServer.class.getName());
+
+    /** Default number of pending connections queued by the kernel */
+    public static final int DEFAULT_BACKLOG = 1024;
+
+    static final String GROCERIES_PATH = "/api/groceries";
+    static final String LISTS_PATH = "/lists/";
+    static final String LIST_GROCERIES_PATH = "/groceries";
+    static final String BATCH_PATH = "/batch";
+    static final String EVENTS_PATH = "/events";
+
+    /** Thread-safe factory shared by every server instance */
+    static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Distinguishes the versions of this process from those of a previous run in ETags */
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+    /** Distinguishes successive loads of the same list in ETags, since versions restart at 0 */
+    private final AtomicLong loads = new AtomicLong();
+
+    /** The single list served under /api/groceries, or null when serving a registry */
+    private final ListResource single;
+
+    /** The lists served under /lists/{id}, or null when serving a single list */
+    private final GroceryListRegistry registry;
+
+    /** Resources of the resident lists of the registry, dropped when a list is evicted */
+    private final Map<String, ListResource> resources = new ConcurrentHashMap<>();
+
+    /**
+     * Serialized list with its entity tag.
+     */
+    private record Body(GroceryShopAdapter.Groceries groceries, byte[] json, String etag) {
+    }
+
+    /**
+     * One served list: its adapter and its last serialized body.
+     */
+    private final class ListResource {
+        final GroceryListManager manager;
+        final GroceryShopAdapter shop;
+        final String tagPrefix = epoch + "." + loads.incrementAndGet() + "-";
+
+        /** Last serialized list, reused until the projection changes */
+        volatile Body cachedBody;
+
+        /** Change stream, created by the first client watching the list */
+        private GroceryEventStream events;
+
+        ListResource(GroceryListManager manager, GroceryShopAdapter shop) {
+            this.manager = manager;
+            this.shop = shop;
+        }
+
+        synchronized GroceryEventStream events() {
+            if (events == null) {
+                events = new GroceryEventStream(manager);
+            }
+            return events;
+        }
+
+        synchronized void closeEvents(boolean resync) {
+            if (events != null) {
+                events.close(resync);
+            }
+        }
+    }
+
+    /**
+     * Creates a server for a single list; it does not accept requests before {@link #start()}.
+     *
+     * @param shop    the grocery shop to expose
+     * @param port    the port to listen on, 0 for an ephemeral port
+     * @param backlog the maximum number of queued incoming connections
+     * @throws IOException if the port cannot be bound
+     */
+    public GroceryHttpServer(GroceryShopAdapter shop, int port, int backlog) throws IOException {
+        Objects.requireNonNull(shop, "GroceryShopAdapter cannot be null");
+        this.single = new ListResource(shop.getManager(), shop);
+        this.registry = null;
+        this.server = HttpServer.create(new InetSocketAddress(port), backlog);
+        server.setExecutor(executor);
+        server.createContext(GROCERIES_PATH, this::handle);
+    }
+
+    /**
+     * Creates a server for the lists of a registry; it does not accept requests before {@link #start()}.
+     *
+     * @param registry the lists to expose
+     * @param port     the port to listen on, 0 for an ephemeral port
+     * @param backlog  the maximum number of queued incoming connections
+     * @throws IOException if the port cannot be bound
+     */
+    public GroceryHttpServer(GroceryListRegistry registry, int port, int backlog) throws IOException {
+        this.registry = Objects.requireNonNull(registry, "GroceryListRegistry cannot be null");
+        this.single = null;
+        registry.addEvictionListener(this::evicted);
+        this.server = HttpServer.create(new InetSocketAddress(port), backlog);
+        server.setExecutor(executor);
+        server.createContext(LISTS_PATH, this::handleList);
+    }
+
+    /** Starts accepting requests. */
+    public void start() {
+        server.start();
+    }
+
+    /** @return the port the server listens on */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Ends the event streams, stops the server immediately and waits for running exchanges to finish.
+     */
+    @Override
+    public void close() {
+        if (single != null) {
+            single.closeEvents(false);
+        }
+        resources.values().forEach(resource -> resource.closeEvents(false));
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getRawPath();
+            guard(exchange, () -> {
+                if (path.equals(GROCERIES_PATH) || path.startsWith(GROCERIES_PATH + "/")) {
+                    handleGroceries(exchange, single, path.substring(GROCERIES_PATH.length()));
+                } else {
+                    sendError(exchange, 404, "Not found: " + path);
+                }
+            });
+        }
+    }
+
+    /**
+     * Routes /lists/{id}/groceries... to the list, loaded through the registry.
+     */
+    private void handleList(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getRawPath();
+            guard(exchange, () -> {
+                int idEnd = path.indexOf('/', LISTS_PATH.length());
+                String rest = idEnd < 0 ? "" : path.substring(idEnd);
+                if (idEnd <= LISTS_PATH.length()
+                        || !(rest.equals(LIST_GROCERIES_PATH) || rest.startsWith(LIST_GROCERIES_PATH + "/"))) {
+                    sendError(exchange, 404, "Not found: " + path);
+                    return;
+                }
+                String id = URLDecoder.decode(path.substring(LISTS_PATH.length(), idEnd), StandardCharsets.UTF_8);
+                String subPath = rest.substring(LIST_GROCERIES_PATH.length());
+                if (subPath.equals(EVENTS_PATH) && exchange.getRequestMethod().equals("GET")) {
+                    // Only subscribing needs the list: the connection must not keep it from being evicted
+                    String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+                    registry.withList(id, manager -> resource(id, manager).events().connect(lastEventId)).serve(exchange);
+                    return;
+                }
+                registry.withList(id, manager -> {
+                    handleGroceries(exchange, resource(id, manager), subPath);
+                    return null;
+                });
+            });
+        }
+    }
+
+    /**
+     * Drops the resource of an evicted list and tells the clients watching it to resync.
+     */
+    private void evicted(String id) {
+        ListResource resource = resources.remove(id);
+        if (resource != null) {
+            resource.closeEvents(true);
+        }
+    }
+
+    /**
+     * @return the resource of a resident list, recreated if the list was reloaded since
+     */
+    private ListResource resource(String id, GroceryListManager manager) {
+        return resources.compute(id, (key, existing) ->
+                existing != null && existing.manager == manager ? existing : new ListResource(manager, new GroceryShopAdapter(manager)));
+    }
+
+    /**
+     * Exchange handler that may fail with an I/O or validation error.
+     */
+    @FunctionalInterface
+    private interface Handler {
+        void handle() throws IOException;
+    }
+
+    /**
+     * Runs a handler, answering malformed or invalid requests with 400 and any other failure,
+     * including I/O errors whose messages may name files, with a generic 500.
+     */
+    private static void guard(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            handler.handle();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Failed to handle " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+            sendError(exchange, 500, "Internal server error");
+        }
+    }
+
+    /**
+     * Serves the grocery endpoints of a list.
+     *
+     * @param subPath the path after the groceries prefix: "", "/", "/batch", "/events" or "/{name}"
+     */
+    private void handleGroceries(HttpExchange exchange, ListResource list, String subPath) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (subPath.isEmpty() || subPath.equals("/")) {
+            switch (method) {
+                case "GET" -> sendGroceries(exchange, list);
+                case "POST" -> {
+                    addItem(list.shop, exchange.getRequestBody());
+                    exchange.sendResponseHeaders(201, -1);
+                }
+                default -> sendMethodNotAllowed(exchange, "GET, POST");
+            }
+        } else if (subPath.equals(BATCH_PATH) && method.equals("POST")) {
+            sendChangeCount(exchange, applyBatch(list.shop, exchange.getRequestBody()));
+        } else if (subPath.equals(EVENTS_PATH) && method.equals("GET")) {
+            list.events().serve(exchange, exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+        } else if (method.equals("DELETE")) {
+            String name = URLDecoder.decode(subPath.substring(1), StandardCharsets.UTF_8);
+            list.shop.removeGroceryItem(name);
+            exchange.sendResponseHeaders(204, -1);
+        } else {
+            sendMethodNotAllowed(exchange, "DELETE");
+        }
+    }
+
+    /**
+     * Sends the cached list, or 304 if the client already holds the current version.
+     */
+    private void sendGroceries(HttpExchange exchange, ListResource list) throws IOException {
+        Body body = currentBody(list);
+        exchange.getResponseHeaders().set("ETag", body.etag());
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && matches(ifNoneMatch, body.etag())) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        sendJson(exchange, 200, body.json());
+    }
+
+    private static Body currentBody(ListResource list) throws IOException {
+        GroceryShopAdapter.Groceries groceries = list.shop.getVersionedGroceries();
+        Body body = list.cachedBody;
+        if (body == null || body.groceries() != groceries) {
+            body = new Body(groceries, writeGroceries(groceries.items()), "\"" + list.tagPrefix + groceries.version() + "\"");
+            list.cachedBody = body;
+        }
+        return body;
+    }
+
+    /**
+     * @return true if the If-None-Match header value lists the tag (or is "*")
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.strip();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses an item object from the request body and adds it to the shop.
+     */
+    private static void addItem(GroceryShopAdapter shop, InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (!(readMutation(parser, parser.nextToken()) instanceof GroceryMutation.Add add)) {
+                throw new IllegalArgumentException("Expected an item to add");
+            }
+            shop.addGroceryItem(add.name(), add.quantity(), add.category());
+        }
+    }
+
+    /**
+     * Parses an array of mutations from the request body and applies them as one batch.
+     *
+     * @return the number of changes made
+     */
+    private static int applyBatch(GroceryShopAdapter shop, InputStream body) throws IOException {
+        List<GroceryMutation> mutations = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                mutations.add(readMutation(parser, token));
+            }
+        }
+        return shop.applyBatch(mutations).size();
+    }
+
+    /**
+     * Reads one mutation object: {"op": "add" (default) or "remove", "name", "quantity", "category"}.
+     * An addition needs a positive quantity: a list holding an item it cannot save would fail every later save.
+     *
+     * @param token the current token, expected to start the object
+     */
+    private static GroceryMutation readMutation(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        String op = "add";
+        String name = null;
+        Integer quantity = null;
+        String category = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "op" -> op = value == JsonToken.VALUE_NULL ? op : parser.getValueAsString();
+                case "name" -> name = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                case "quantity" -> {
+                    if (value != JsonToken.VALUE_NUMBER_INT) {
+                        throw new IllegalArgumentException("Quantity must be an integer");
+                    }
+                    quantity = parser.getIntValue();
+                }
+                case "category" -> category = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Item name must not be blank");
+        }
+        return switch (op) {
+            case "add" -> {
+                if (quantity == null || quantity <= 0) {
+                    throw new IllegalArgumentException("Quantity must be a positive integer");
+                }
+                yield GroceryMutation.add(name, quantity, category);
+            }
+            case "remove" -> GroceryMutation.remove(name);
+            default -> throw new IllegalArgumentException("Unknown operation: " + op);
+        };
+    }
+
+    static byte[] writeGroceries(List<MyGroceryShop.WebGroceryItem> groceries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + groceries.size() * 64);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(bytes, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            for (MyGroceryShop.WebGroceryItem item : groceries) {
+                generator.writeStartObject();
+                generator.writeStringField("name", item.name());
+                generator.writeNumberField("quantity", item.quantity());
+                generator.writeStringField("category", item.category());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendChangeCount(HttpExchange exchange, int changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(bytes, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField("changes", changes);
+            generator.writeEndObject();
+        }
+        sendJson(exchange, 200, bytes.toByteArray());
+    }
+
+    private static void sendMethodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendError(exchange, 405, "Method not allowed");
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(bytes, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("error", message);
+            generator.writeEndObject();
+        }
+        sendJson(exchange, status, bytes.toByteArray());
+    }
+}
@@ -1,29 +1,70 @@
 package com.fges.web;
 
+import com.fges.core.GroceryChange;
 import com.fges.core.GroceryListManager;
+import com.fges.core.GroceryMutation;
+import com.fges.core.GroceryWritePipeline;
 import fr.anthonyquere.MyGroceryShop;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Adapter class that bridges the {@link GroceryListManager}
  * to the {@link MyGroceryShop} interface for use with the web UI.
+ * The projected list is cached until the version of the manager changes,
+ * so repeated reads between two writes cost a version check.
+ * With a {@link GroceryWritePipeline}, additions and removals are submitted to its writer
+ * thread, which persists concurrent requests together.
  */
 public class GroceryShopAdapter implements MyGroceryShop {
 
     private final GroceryListManager manager;
 
+    /** Single-writer pipeline of the manager, or null to write directly */
+    private final GroceryWritePipeline pipeline;
+
+    /** Last projection of the list, tagged with the manager version it was built from */
+    private volatile Groceries cached;
+
+    /**
+     * Web projection of the list at a given version of the manager.
+     *
+     * @param version the manager version the items were read at
+     * @param items   the read-only projected items
+     */
+    public record Groceries(long version, List<WebGroceryItem> items) {
+    }
+
     /**
      * Constructs a GroceryShopAdapter using a {@link GroceryListManager}.
      *
      * @param manager the core manager to delegate data operations
      */
     public GroceryShopAdapter(GroceryListManager manager) {
+        this(manager, null);
+    }
+
+    /**
+     * Constructs a GroceryShopAdapter writing through a pipeline.
+     *
+     * @param manager  the core manager to delegate data operations
+     * @param pipeline the pipeline writing to the manager, or null to write directly
+     */
+    public GroceryShopAdapter(GroceryListManager manager, GroceryWritePipeline pipeline) {
         this.manager = Objects.requireNonNull(manager, "GroceryListManager cannot be null");
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * @return the manager this adapter delegates to
+     */
+    public GroceryListManager getManager() {
+        return manager;
     }
 
     /**
@@ -33,9 +74,27 @@ public class GroceryShopAdapter implements MyGroceryShop {
      */
     @Override
     public List<MyGroceryShop.WebGroceryItem> getGroceries() {
-        return manager.getItems().stream()
+        return getVersionedGroceries().items();
+    }
+
+    /**
+     * Returns the projected list with the manager version it reflects, rebuilding it only after a change.
+     *
+     * @return the current projection
+     */
+    public Groceries getVersionedGroceries() {
+        long version = manager.getVersion();
+        Groceries current = cached;
+        if (current != null && current.version() == version) {
+            return current;
+        }
+
+        List<WebGroceryItem> items = manager.getItems().stream()
                 .map(item -> new WebGroceryItem(item.getName(), item.getQuantity(), item.getCategory()))
-                .collect(Collectors.toList());
+                .toList();
+        current = new Groceries(version, items);
+        cached = current;
+        return current;
     }
 
     /**
@@ -48,7 +107,11 @@ public class GroceryShopAdapter implements MyGroceryShop {
     @Override
     public void addGroceryItem(String name, int quantity, String category) {
         try {
-            manager.addItem(name, quantity, category);
+            if (pipeline != null) {
+                await(pipeline.submit(GroceryMutation.add(name, quantity, category)));
+            } else {
+                manager.addItem(name, quantity, category);
+            }
         } catch (IOException e) {
             throw new RuntimeException("Failed to add grocery item", e);
         }
@@ -62,12 +125,47 @@ public class GroceryShopAdapter implements MyGroceryShop {
     @Override
     public void removeGroceryItem(String name) {
         try {
-            manager.removeItem(name);
+            if (pipeline != null) {
+                await(pipeline.submit(GroceryMutation.remove(name)));
+            } else {
+                manager.removeItem(name);
+            }
         } catch (IOException e) {
             throw new RuntimeException("Failed to remove grocery item", e);
         }
     }
 
+    /**
+     * Waits for a pipelined mutation to be persisted, rethrowing its failure.
+     */
+    private static void await(CompletableFuture<Long> result) throws IOException {
+        try {
+            result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Applies several mutations as one batch, persisted with a single write.
+     *
+     * @param mutations the mutations to apply in order
+     * @return the changes made
+     */
+    public List<GroceryChange> applyBatch(List<GroceryMutation> mutations) {
+        try {
+            return manager.applyBatch(mutations);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to apply grocery batch", e);
+        }
+    }
+
     /**
      * Returns basic runtime info for display in the UI.
      *
@@ -129,6 +129,30 @@ class MainTest {
         assertThat(lines).anyMatch(line -> line.startsWith("Milk,1"));
     }
     
+    /**
+     * Should print the unfiltered list merged and sorted by category, and in file order only with --stream.
+     */
+    @Test
+    void should_list_merged_and_sorted_unless_streamed() throws IOException {
+        Files.writeString(tempJson, """
+                [{"name":"Tea","quantity":1,"category":"drinks"},
+                 {"name":"Milk","quantity":2,"category":"dairy"},
+                 {"name":"Juice","quantity":4,"category":"drinks"},
+                 {"name":"Milk","quantity":3,"category":"dairy"}]
+                """);
+        String n = System.lineSeparator();
+
+        assertThat(Main.exec(new String[]{"-s", tempJson.toString(), "list"})).isEqualTo(0);
+        assertThat(outputStreamCaptor.toString()).isEqualTo(
+                "# dairy:" + n + "Milk: 5" + n + n + "# drinks:" + n + "Tea: 1" + n + "Juice: 4" + n + n);
+
+        outputStreamCaptor.reset();
+        assertThat(Main.exec(new String[]{"-s", tempJson.toString(), "--stream", "list"})).isEqualTo(0);
+        assertThat(outputStreamCaptor.toString()).isEqualTo(
+                "# drinks:" + n + "Tea: 1" + n + n + "# dairy:" + n + "Milk: 2" + n + n
+                        + "# drinks:" + n + "Juice: 4" + n + n + "# dairy:" + n + "Milk: 3" + n + n);
+    }
+
     /**
      * Should return 0 when 'info' command is executed and display system information.
      */
@@ -1,5 +1,7 @@
 package com.fges.cli;
 
+import com.fges.core.GroceryItemFilter;
+import com.fges.dao.Durability;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.*;
@@ -86,4 +88,81 @@ class CommandLineProcessorTest {
         assertThat(parsedArgs.getCommandArgs()).containsExactly("8080");
         assertThat(parsedArgs.getFileName()).isNull();
     }
-}
\ No newline at end of file
+
+    /**
+     * Should parse write-behind options and fall back to synchronous writes without them.
+     */
+    @Test
+    void should_parse_write_behind_options() {
+        CommandLineArgs parsedArgs = new CommandLineProcessor().parseArgs(
+                new String[]{"-s", "groceries.json", "--write-behind", "200", "--write-behind-max", "50", "list"});
+
+        assertThat(parsedArgs.isWriteBehind()).isTrue();
+        assertThat(parsedArgs.getWriteBehindPolicy().flushIntervalMillis()).isEqualTo(200);
+        assertThat(parsedArgs.getWriteBehindPolicy().maxPendingChanges()).isEqualTo(50);
+
+        CommandLineArgs defaults = new CommandLineProcessor().parseArgs(new String[]{"-s", "groceries.json", "list"});
+        assertThat(defaults.isWriteBehind()).isFalse();
+        assertThat(defaults.getWriteBehindPolicy()).isNull();
+    }
+
+    /**
+     * Should reject a non-numeric write-behind interval.
+     */
+    @Test
+    void should_throw_when_write_behind_is_not_numeric() {
+        String[] rawArgs = {"-s", "groceries.json", "--write-behind", "soon", "list"};
+        assertThatThrownBy(() -> new CommandLineProcessor().parseArgs(rawArgs))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("--write-behind");
+    }
+
+    /**
+     * Should parse the load thread count and default to a single thread.
+     */
+    @Test
+    void should_parse_load_threads() {
+        CommandLineArgs parsedArgs = new CommandLineProcessor().parseArgs(
+                new String[]{"-s", "groceries.csv", "-f", "csv", "--load-threads", "4", "list"});
+        assertThat(parsedArgs.getLoadThreads()).isEqualTo(4);
+
+        CommandLineArgs defaults = new CommandLineProcessor().parseArgs(new String[]{"-s", "groceries.json", "list"});
+        assertThat(defaults.getLoadThreads()).isEqualTo(1);
+    }
+
+    /**
+     * Should parse the durability level, default to none and reject unknown levels.
+     */
+    @Test
+    void should_parse_durability() {
+        CommandLineArgs parsedArgs = new CommandLineProcessor().parseArgs(
+                new String[]{"-s", "groceries.json", "--durability", "SYNC", "list"});
+        assertThat(parsedArgs.getDurability()).isEqualTo(Durability.SYNC);
+
+        CommandLineArgs defaults = new CommandLineProcessor().parseArgs(new String[]{"-s", "groceries.json", "list"});
+        assertThat(defaults.getDurability()).isEqualTo(Durability.NONE);
+
+        String[] rawArgs = {"-s", "groceries.json", "--durability", "eventually", "list"};
+        assertThatThrownBy(() -> new CommandLineProcessor().parseArgs(rawArgs))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unsupported durability");
+    }
+
+    /**
+     * Should build the list filter from the explicit category and the list options, keeping every item by default.
+     */
+    @Test
+    void should_parse_list_filter() {
+        CommandLineArgs parsedArgs = new CommandLineProcessor().parseArgs(new String[]{"-s", "groceries.json",
+                "-c", "dairy", "--name-prefix", "mil", "--min-quantity", "2", "--limit", "10", "list"});
+        assertThat(parsedArgs.getItemFilter()).isEqualTo(new GroceryItemFilter("dairy", "mil", 2, 10));
+
+        CommandLineArgs defaults = new CommandLineProcessor().parseArgs(new String[]{"-s", "groceries.json", "list"});
+        assertThat(defaults.getItemFilter()).isEqualTo(GroceryItemFilter.ALL);
+
+        String[] rawArgs = {"-s", "groceries.json", "--limit", "-1", "list"};
+        assertThatThrownBy(() -> new CommandLineProcessor().parseArgs(rawArgs))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("--limit");
+    }
+}
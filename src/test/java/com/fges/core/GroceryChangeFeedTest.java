@@ -0,0 +1,166 @@
+package com.fges.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GroceryChangeFeed}.
+ * Covers sequencing, resuming from a sequence, gaps, slow listeners and closing.
+ */
+class GroceryChangeFeedTest {
+
+    /**
+     * Listener recording what it receives in a queue.
+     */
+    private static class RecordingListener implements GroceryChangeListener {
+        final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void onEvent(GroceryEvent event) {
+            received.add(event.sequence());
+        }
+
+        @Override
+        public void onGap(long missedFrom, long resumedAt) {
+            received.add("gap " + missedFrom + "->" + resumedAt);
+        }
+
+        @Override
+        public void onClose() {
+            closed.countDown();
+        }
+
+        List<Object> take(int count) throws InterruptedException {
+            List<Object> values = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Object value = received.poll(5, TimeUnit.SECONDS);
+                assertThat(value).as("value %d of %d", i + 1, count).isNotNull();
+                values.add(value);
+            }
+            return values;
+        }
+    }
+
+    private static List<GroceryChange> added(String... names) {
+        List<GroceryChange> changes = new ArrayList<>();
+        for (String name : names) {
+            changes.add(GroceryChange.added(new GroceryItem(name, 1, "default")));
+        }
+        return changes;
+    }
+
+    /**
+     * Should number events from 1 and deliver the ones published after subscribing.
+     */
+    @Test
+    void should_deliver_events_published_after_subscribing() throws Exception {
+        try (GroceryChangeFeed feed = new GroceryChangeFeed(16)) {
+            feed.publish(1, added("Milk"));
+            RecordingListener listener = new RecordingListener();
+            feed.subscribe(listener);
+
+            feed.publish(2, added("Eggs", "Tea"));
+
+            assertThat(listener.take(2)).containsExactly(2L, 3L);
+            assertThat(feed.getLastSequence()).isEqualTo(3);
+        }
+    }
+
+    /**
+     * Should replay retained events when resuming from an earlier sequence.
+     */
+    @Test
+    void should_resume_from_sequence() throws Exception {
+        try (GroceryChangeFeed feed = new GroceryChangeFeed(16)) {
+            feed.publish(1, added("Milk", "Eggs", "Tea"));
+            RecordingListener listener = new RecordingListener();
+
+            feed.subscribe(2, listener);
+
+            assertThat(listener.take(2)).containsExactly(2L, 3L);
+        }
+    }
+
+    /**
+     * Should report a gap when the requested events are no longer retained.
+     */
+    @Test
+    void should_report_gap_beyond_capacity() throws Exception {
+        try (GroceryChangeFeed feed = new GroceryChangeFeed(2)) {
+            feed.publish(1, added("A", "B", "C", "D"));
+            RecordingListener listener = new RecordingListener();
+
+            feed.subscribe(1, listener);
+
+            assertThat(listener.take(3)).containsExactly("gap 1->3", 3L, 4L);
+        }
+    }
+
+    /**
+     * Should not block the publisher on a slow listener, which then skips to the retained events.
+     */
+    @Test
+    void should_not_stall_publisher_on_slow_listener() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingListener slow = new RecordingListener() {
+            @Override
+            public void onEvent(GroceryEvent event) {
+                entered.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onEvent(event);
+            }
+        };
+
+        try (GroceryChangeFeed feed = new GroceryChangeFeed(4)) {
+            feed.subscribe(slow);
+            feed.publish(1, added("First"));
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < 100; i++) {
+                feed.publish(i + 2, added("Item" + i));
+            }
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+
+            unblock.countDown();
+            assertThat(slow.take(2)).containsExactly(1L, "gap 2->98");
+            assertThat(slow.take(4)).containsExactly(98L, 99L, 100L, 101L);
+        }
+    }
+
+    /**
+     * Should notify listeners once when their subscription or the feed is closed.
+     */
+    @Test
+    void should_notify_listeners_on_close() throws Exception {
+        GroceryChangeFeed feed = new GroceryChangeFeed(4);
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        GroceryChangeFeed.Subscription subscription = feed.subscribe(first);
+        feed.subscribe(second);
+
+        subscription.close();
+        subscription.awaitTermination();
+        assertThat(first.closed.getCount()).isZero();
+        assertThat(feed.getSubscriberCount()).isEqualTo(1);
+
+        feed.close();
+        assertThat(second.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> feed.subscribe(new RecordingListener()))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
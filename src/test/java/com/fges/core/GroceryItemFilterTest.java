@@ -0,0 +1,56 @@
+package com.fges.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GroceryItemFilter}.
+ */
+class GroceryItemFilterTest {
+
+    /**
+     * Should keep every item when no criterion is given.
+     */
+    @Test
+    void should_match_everything_without_criteria() {
+        assertThat(GroceryItemFilter.ALL.matches(new GroceryItem("Milk", 0, "dairy"))).isTrue();
+        assertThat(GroceryItemFilter.ALL.matches(new GroceryItem("Tea", 3, null))).isTrue();
+        assertThat(new GroceryItemFilter(" ", "", 0, 10).category()).isNull();
+    }
+
+    /**
+     * Should match category and name prefix case-insensitively, and quantities from the minimum.
+     */
+    @Test
+    void should_match_each_criterion() {
+        GroceryItemFilter filter = new GroceryItemFilter(" Dairy ", "mil", 2, 10);
+
+        assertThat(filter.matches(new GroceryItem("Milk", 2, "dairy"))).isTrue();
+        assertThat(filter.matches(new GroceryItem("MILKSHAKE", 5, "DAIRY"))).isTrue();
+        assertThat(filter.matches(new GroceryItem("Milk", 1, "dairy"))).isFalse();
+        assertThat(filter.matches(new GroceryItem("Cheese", 2, "dairy"))).isFalse();
+        assertThat(filter.matches(new GroceryItem("Milk", 2, "drinks"))).isFalse();
+    }
+
+    /**
+     * Should list items without a category under the default category.
+     */
+    @Test
+    void should_match_missing_category_as_default() {
+        GroceryItemFilter filter = new GroceryItemFilter("default", null, 0, 10);
+
+        assertThat(filter.matchesCategory(null)).isTrue();
+        assertThat(filter.matchesCategory("")).isTrue();
+        assertThat(filter.matchesCategory("dairy")).isFalse();
+    }
+
+    /**
+     * Should reject a negative limit.
+     */
+    @Test
+    void should_reject_negative_limit() {
+        assertThatThrownBy(() -> new GroceryItemFilter(null, null, 0, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
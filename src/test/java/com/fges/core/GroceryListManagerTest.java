@@ -4,15 +4,25 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import com.fges.dao.BTreeGroceryListDAO;
 import com.fges.dao.CsvGroceryListDAO;
+import com.fges.dao.Durability;
+import com.fges.dao.DurableGroceryListDAO;
 import com.fges.dao.GroceryListDAO;
+import com.fges.dao.GroceryListDAOFactory;
 import com.fges.dao.JsonGroceryListDAO;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -184,4 +194,412 @@ class GroceryListManagerTest {
         List<GroceryItem> fruits = manager.listItems().get("fruits");
         assertThat(fruits).extracting(GroceryItem::getName).containsExactly("Apple", "Banana");
     }
-}
\ No newline at end of file
+
+    /**
+     * Should merge duplicate items returned by the DAO into a single entry.
+     */
+    @Test
+    void should_merge_duplicates_when_loading() throws IOException {
+        Files.writeString(csvFile, "Item,Quantity,Category\nMilk,1,dairy\nmilk,2,Dairy\nMilk,4,drinks\n");
+
+        GroceryListManager manager = new GroceryListManager(new CsvGroceryListDAO(csvFile.toString()));
+
+        assertThat(manager.getItems())
+            .extracting(GroceryItem::getName, GroceryItem::getQuantity, GroceryItem::getCategory)
+            .containsExactly(tuple("Milk", 3, "dairy"), tuple("Milk", 4, "drinks"));
+    }
+
+    /**
+     * Should remove every item with the given name, whatever its case or category.
+     */
+    @Test
+    void should_remove_item_from_all_categories_ignoring_case() throws IOException {
+        GroceryListManager manager = new GroceryListManager(new JsonGroceryListDAO(jsonFile.toString()));
+        manager.addItem("Milk", 1, "dairy");
+        manager.addItem("milk", 2, "drinks");
+        manager.addItem("Bread", 1, "bakery");
+
+        manager.removeItem("MILK");
+
+        assertThat(manager.getItems()).extracting(GroceryItem::getName).containsExactly("Bread");
+    }
+
+    /**
+     * Should read a single category and keep the category index up to date on removal.
+     */
+    @Test
+    void should_list_single_category_and_drop_empty_categories() throws IOException {
+        GroceryListManager manager = new GroceryListManager(new JsonGroceryListDAO(jsonFile.toString()));
+        manager.addItem("Milk", 1, "dairy");
+        manager.addItem("Cheese", 2, "Dairy");
+        manager.addItem("Bread", 1, "bakery");
+
+        assertThat(manager.listItems("DAIRY")).extracting(GroceryItem::getName).containsExactly("Milk", "Cheese");
+        assertThat(manager.listItems("unknown")).isEmpty();
+        assertThat(manager.getCategories()).containsExactly("bakery", "dairy");
+
+        manager.removeItem("Bread");
+
+        assertThat(manager.getCategories()).containsExactly("dairy");
+        assertThat(manager.listItems()).containsOnlyKeys("dairy");
+    }
+
+    /**
+     * Should serve readers from the published snapshot while a writer is blocked in persistence.
+     */
+    @Test
+    void should_not_block_readers_while_saving() throws Exception {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        GroceryListDAO slowDAO = new GroceryListDAO() {
+            @Override
+            public List<GroceryItem> load() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public void save(List<GroceryItem> items) {
+                saving.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        GroceryListManager manager = new GroceryListManager(slowDAO);
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                manager.addItem("Milk", 1, "dairy");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertThat(saving.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<GroceryItem> items = CompletableFuture.supplyAsync(manager::getItems).get(5, TimeUnit.SECONDS);
+        assertThat(items).extracting(GroceryItem::getName).containsExactly("Milk");
+
+        release.countDown();
+        writer.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Should hand out snapshots that are not affected by later merges.
+     */
+    @Test
+    void should_keep_published_snapshots_immutable() throws IOException {
+        GroceryListManager manager = new GroceryListManager(new JsonGroceryListDAO(jsonFile.toString()));
+        manager.addItem("Apple", 1, "fruits");
+        List<GroceryItem> before = manager.getItems();
+
+        manager.addItem("Apple", 2, "fruits");
+
+        assertThat(before).extracting(GroceryItem::getQuantity).containsExactly(1);
+        assertThat(manager.getItems()).extracting(GroceryItem::getQuantity).containsExactly(3);
+        assertThatThrownBy(() -> before.add(new GroceryItem("Pear", 1, "fruits")))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    /**
+     * Should only copy again the categories touched by a mutation, sharing the others with earlier views.
+     */
+    @Test
+    void should_republish_only_touched_categories() throws IOException {
+        GroceryListManager manager = new GroceryListManager(new JsonGroceryListDAO(jsonFile.toString()));
+        manager.addItem("Apple", 1, "fruits");
+        manager.addItem("Milk", 1, "dairy");
+        List<GroceryItem> dairy = manager.listItems("dairy");
+        List<GroceryItem> fruits = manager.listItems("fruits");
+
+        manager.addItem("Pear", 2, "fruits");
+
+        assertThat(manager.listItems("dairy")).isSameAs(dairy);
+        assertThat(manager.listItems().get("dairy")).isSameAs(dairy);
+        assertThat(manager.listItems("fruits")).isNotSameAs(fruits)
+            .extracting(GroceryItem::getName).containsExactly("Apple", "Pear");
+        assertThat(fruits).extracting(GroceryItem::getName).containsExactly("Apple");
+
+        manager.removeItem("Milk");
+
+        assertThat(manager.listItems("dairy")).isEmpty();
+        assertThat(manager.getCategories()).containsExactly("fruits");
+    }
+
+    /**
+     * Should coalesce mutations into a single write once the pending limit is reached.
+     */
+    @Test
+    void should_coalesce_writes_in_write_behind_mode() throws IOException {
+        GroceryListManager manager = new GroceryListManager(
+            new JsonGroceryListDAO(jsonFile.toString()), new WriteBehindPolicy(60_000, 3));
+
+        manager.addItem("Milk", 1, "dairy");
+        manager.addItem("Milk", 1, "dairy");
+        assertThat(jsonFile).doesNotExist();
+
+        manager.addItem("Bread", 1, "bakery");
+        assertThat(jsonFile).exists();
+        assertThat(manager.getWriteCount()).isEqualTo(1);
+        assertThat(manager.getCoalescedWrites()).isEqualTo(2);
+        manager.close();
+    }
+
+    /**
+     * Should write pending mutations in the background once the interval elapses.
+     */
+    @Test
+    void should_flush_in_background_after_interval() throws Exception {
+        GroceryListManager manager = new GroceryListManager(
+            new JsonGroceryListDAO(jsonFile.toString()), new WriteBehindPolicy(20, 1_000));
+        manager.addItem("Eggs", 6, "dairy");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (manager.getWriteCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(manager.getWriteCount()).isEqualTo(1);
+        assertThat(new JsonGroceryListDAO(jsonFile.toString()).load()).extracting(GroceryItem::getName).containsExactly("Eggs");
+        manager.close();
+    }
+
+    /**
+     * Should flush pending mutations on close.
+     */
+    @Test
+    void should_flush_pending_mutations_on_close() throws IOException {
+        GroceryListManager manager = new GroceryListManager(
+            new CsvGroceryListDAO(csvFile.toString()), new WriteBehindPolicy(60_000, 1_000));
+        manager.addItem("Tea", 1, "drinks");
+        manager.removeItem("Tea");
+        manager.addItem("Coffee", 2, "drinks");
+
+        manager.close();
+
+        assertThat(Files.readAllLines(csvFile)).containsExactly("Item,Quantity,Category", "Coffee,2,drinks");
+        assertThat(manager.getWriteCount()).isEqualTo(1);
+        assertThat(manager.getCoalescedWrites()).isEqualTo(2);
+    }
+
+    /**
+     * Should reject invalid write-behind settings.
+     */
+    @Test
+    void should_reject_invalid_write_behind_policy() {
+        assertThatThrownBy(() -> new WriteBehindPolicy(0, 10))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("interval");
+        assertThatThrownBy(() -> new WriteBehindPolicy(10, 0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("limit");
+    }
+
+    /**
+     * Should keep mutations pending until an explicit flush with a manual policy.
+     */
+    @Test
+    void should_write_only_on_flush_with_manual_policy() throws IOException {
+        GroceryListManager manager = new GroceryListManager(
+            new JsonGroceryListDAO(jsonFile.toString()), WriteBehindPolicy.manual());
+
+        manager.addItem("Milk", 1, "dairy");
+        manager.addItem("Eggs", 6, "dairy");
+        assertThat(jsonFile).doesNotExist();
+
+        manager.flush();
+        assertThat(manager.getWriteCount()).isEqualTo(1);
+        assertThat(new JsonGroceryListDAO(jsonFile.toString()).load()).hasSize(2);
+
+        manager.removeItem("Milk");
+        manager.close();
+        assertThat(new JsonGroceryListDAO(jsonFile.toString()).load()).hasSize(1);
+    }
+
+    /**
+     * Should bump the version on every change, but not when nothing is removed.
+     */
+    @Test
+    void should_increment_version_on_changes() throws IOException {
+        GroceryListManager manager = new GroceryListManager(new JsonGroceryListDAO(jsonFile.toString()));
+        long initial = manager.getVersion();
+
+        manager.addItem("Milk", 1, "dairy");
+        manager.addItem("Milk", 1, "dairy");
+        assertThat(manager.getVersion()).isEqualTo(initial + 2);
+
+        manager.removeItem("Unknown");
+        assertThat(manager.getVersion()).isEqualTo(initial + 2);
+
+        manager.removeItem("Milk");
+        assertThat(manager.getVersion()).isEqualTo(initial + 3);
+    }
+
+    /**
+     * Should apply a batch with one write, merging duplicate additions into one change.
+     */
+    @Test
+    void should_apply_batch_with_single_write() throws IOException {
+        GroceryListManager manager = new GroceryListManager(new JsonGroceryListDAO(jsonFile.toString()));
+        manager.addItem("Milk", 1, "dairy");
+        long writes = manager.getWriteCount();
+        long version = manager.getVersion();
+
+        List<GroceryChange> changes = manager.applyBatch(List.of(
+            GroceryMutation.add("Apple", 2, "fruits"),
+            GroceryMutation.add("apple", 3, "Fruits"),
+            GroceryMutation.add("Milk", 1, "dairy"),
+            GroceryMutation.remove("Unknown")));
+
+        assertThat(changes).containsExactly(
+            new GroceryChange(GroceryChange.Type.ADD, "Apple", "fruits", 5, 5),
+            new GroceryChange(GroceryChange.Type.MERGE, "Milk", "dairy", 2, 1));
+        assertThat(manager.getWriteCount()).isEqualTo(writes + 1);
+        assertThat(manager.getVersion()).isEqualTo(version + 1);
+        assertThat(new JsonGroceryListDAO(jsonFile.toString()).load())
+            .extracting(GroceryItem::getName, GroceryItem::getQuantity)
+            .containsExactly(tuple("Milk", 2), tuple("Apple", 5));
+    }
+
+    /**
+     * Should keep additions separated by a removal of the same item as distinct changes.
+     */
+    @Test
+    void should_not_merge_additions_across_a_removal() throws IOException {
+        GroceryListManager manager = new GroceryListManager(new JsonGroceryListDAO(jsonFile.toString()));
+
+        List<GroceryChange> changes = manager.applyBatch(List.of(
+            GroceryMutation.add("Tea", 1, "drinks"),
+            GroceryMutation.remove("TEA"),
+            GroceryMutation.add("Tea", 4, "drinks")));
+
+        assertThat(changes).extracting(GroceryChange::type)
+            .containsExactly(GroceryChange.Type.ADD, GroceryChange.Type.REMOVE, GroceryChange.Type.ADD);
+        assertThat(manager.listItems("drinks"))
+            .extracting(GroceryItem::getName, GroceryItem::getQuantity)
+            .containsExactly(tuple("Tea", 4));
+    }
+
+    /**
+     * Should add and remove collections of items with one write each.
+     */
+    @Test
+    void should_add_and_remove_collections_of_items() throws IOException {
+        GroceryListManager manager = new GroceryListManager(new CsvGroceryListDAO(csvFile.toString()));
+
+        manager.addItems(List.of(new GroceryItem("Bread", 1, null), new GroceryItem("Jam", 2, "spreads")));
+        assertThat(manager.listItems().keySet()).containsExactly("default", "spreads");
+
+        List<GroceryChange> removed = manager.removeItems(List.of("bread", "Jam", "Butter"));
+        assertThat(removed).hasSize(2);
+        assertThat(manager.getItems()).isEmpty();
+        assertThat(manager.getWriteCount()).isEqualTo(2);
+        assertThat(Files.readAllLines(csvFile)).containsExactly("Item,Quantity,Category");
+    }
+
+    /**
+     * Should reject invalid mutations when the batch is built.
+     */
+    @Test
+    void should_reject_invalid_mutations() {
+        assertThatThrownBy(() -> GroceryMutation.add(" ", 1, null))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GroceryMutation.add("Milk", -1, null))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GroceryMutation.add("Milk", 0, null))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GroceryMutation.remove(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Should publish the changes of every mutation, in order, to subscribers.
+     */
+    @Test
+    void should_publish_changes_to_subscribers() throws Exception {
+        GroceryListManager manager = new GroceryListManager(new JsonGroceryListDAO(jsonFile.toString()));
+        manager.addItem("Milk", 1, "dairy");
+        long start = manager.getLastSequence();
+
+        BlockingQueue<GroceryEvent> events = new LinkedBlockingQueue<>();
+        manager.subscribe(start + 1, events::add);
+        manager.applyBatch(List.of(GroceryMutation.add("Milk", 2, "dairy"), GroceryMutation.remove("Milk")));
+        manager.addItem("Tea", 1, "drinks");
+
+        List<GroceryEvent> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            received.add(events.poll(5, TimeUnit.SECONDS));
+        }
+        assertThat(received).extracting(event -> event.change().type()).containsExactly(
+            GroceryChange.Type.MERGE, GroceryChange.Type.REMOVE, GroceryChange.Type.ADD);
+        assertThat(received).extracting(GroceryEvent::sequence).containsExactly(start + 1, start + 2, start + 3);
+        assertThat(received.get(0).version()).isEqualTo(received.get(1).version());
+        assertThat(received.get(2).version()).isEqualTo(manager.getVersion());
+        manager.close();
+    }
+
+    /**
+     * Should acknowledge every concurrent write only once forced to disk, sharing fsyncs between writers.
+     */
+    @Test
+    void should_share_fsyncs_between_concurrent_writers() throws Exception {
+        var dao = (DurableGroceryListDAO) GroceryListDAOFactory.create("json", jsonFile.toString(), 1, Durability.SYNC);
+        GroceryListManager manager = new GroceryListManager(dao);
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 8; w++) {
+            String name = "Item" + w;
+            writers.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 25; i++) {
+                    try {
+                        manager.addItem(name, 1, "default");
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        manager.close();
+
+        assertThat(dao.getAcknowledgedCount()).isEqualTo(200);
+        assertThat(dao.getSyncCount()).isBetween(1L, 200L);
+        assertThat(new JsonGroceryListDAO(jsonFile.toString()).load())
+            .extracting(GroceryItem::getQuantity).containsOnly(25).hasSize(8);
+    }
+
+    /**
+     * Should apply mutations on an indexed DAO without loading the whole list, until a read needs it.
+     */
+    @Test
+    void should_load_indexed_list_on_demand() throws IOException {
+        Path file = tempDir.resolve("grocery.btree");
+        new BTreeGroceryListDAO(file.toString()).save(List.of(
+            new GroceryItem("Milk", 2, "dairy"),
+            new GroceryItem("Tea", 1, "drinks"),
+            new GroceryItem("Bread", 1, "bakery")));
+        List<String> loads = new ArrayList<>();
+        BTreeGroceryListDAO dao = new BTreeGroceryListDAO(file.toString()) {
+            @Override
+            public synchronized List<GroceryItem> load() throws IOException {
+                loads.add("load");
+                return super.load();
+            }
+        };
+
+        GroceryListManager manager = new GroceryListManager(dao);
+        manager.addItem("milk", 3, "dairy");
+        manager.removeItem("Tea");
+        manager.addItem("Jam", 1, "sweets");
+
+        assertThat(manager.size()).isEqualTo(2);
+        assertThat(loads).isEmpty();
+        assertThat(manager.getItems()).extracting(GroceryItem::getName, GroceryItem::getQuantity)
+            .containsExactlyInAnyOrder(tuple("Milk", 5), tuple("Jam", 1), tuple("Bread", 1));
+        assertThat(loads).hasSize(1);
+        assertThat(new BTreeGroceryListDAO(file.toString()).load()).extracting(GroceryItem::getQuantity)
+            .containsExactly(1, 1, 5);
+    }
+}
@@ -0,0 +1,207 @@
+package com.fges.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fges.dao.JsonGroceryListDAO;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GroceryListRegistry}.
+ * Covers on-demand loading, single in-flight loads, LRU and idle eviction, and flushing on eviction.
+ */
+class GroceryListRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private GroceryListRegistry.Loader directory() {
+        return GroceryListRegistry.directory(tempDir, "json", WriteBehindPolicy.manual());
+    }
+
+    private List<GroceryItem> stored(String id) throws IOException {
+        return new JsonGroceryListDAO(tempDir.resolve(id + ".json").toString()).load();
+    }
+
+    /**
+     * Should load a list once and keep it resident between uses.
+     */
+    @Test
+    void should_load_list_on_first_use_only() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        GroceryListRegistry.Loader directory = directory();
+        try (GroceryListRegistry registry = new GroceryListRegistry(id -> {
+            loads.incrementAndGet();
+            return directory.load(id);
+        }, 10)) {
+            registry.withList("smith", manager -> {
+                manager.addItem("Milk", 1, "dairy");
+                return null;
+            });
+            int size = registry.withList("smith", GroceryListManager::size);
+
+            assertThat(size).isEqualTo(1);
+            assertThat(loads).hasValue(1);
+            assertThat(registry.isResident("smith")).isTrue();
+        }
+    }
+
+    /**
+     * Should share a single load between concurrent requests for the same list.
+     */
+    @Test
+    void should_load_once_for_concurrent_misses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        GroceryListRegistry.Loader directory = directory();
+        try (GroceryListRegistry registry = new GroceryListRegistry(id -> {
+            loads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return directory.load(id);
+        }, 10)) {
+            List<CompletableFuture<GroceryListManager>> requests = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                requests.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return registry.withList("shared", manager -> manager);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            GroceryListManager first = requests.get(0).get(5, TimeUnit.SECONDS);
+            for (CompletableFuture<GroceryListManager> request : requests) {
+                assertThat(request.get(5, TimeUnit.SECONDS)).isSameAs(first);
+            }
+            assertThat(loads).hasValue(1);
+        }
+    }
+
+    /**
+     * Should evict the least recently used list beyond the list limit, flushing it first.
+     */
+    @Test
+    void should_evict_least_recently_used_list_and_flush_it() throws IOException {
+        List<String> evicted = new ArrayList<>();
+        try (GroceryListRegistry registry = new GroceryListRegistry(directory(), 2)) {
+            registry.addEvictionListener(evicted::add);
+            registry.withList("a", manager -> {
+                manager.addItem("Apple", 1, "fruits");
+                return null;
+            });
+            registry.withList("b", GroceryListManager::size);
+            registry.withList("a", GroceryListManager::size);
+            assertThat(stored("a")).isEmpty();
+
+            registry.withList("c", GroceryListManager::size);
+
+            assertThat(evicted).containsExactly("b");
+            registry.withList("d", GroceryListManager::size);
+            assertThat(evicted).containsExactly("b", "a");
+            assertThat(stored("a")).extracting(GroceryItem::getName).containsExactly("Apple");
+            assertThat(registry.size()).isEqualTo(2);
+        }
+    }
+
+    /**
+     * Should evict lists while the total number of items exceeds the item budget.
+     */
+    @Test
+    void should_evict_lists_beyond_item_budget() throws IOException {
+        try (GroceryListRegistry registry = new GroceryListRegistry(directory(), 10, 3, 0)) {
+            registry.withList("a", manager -> manager.addItems(List.of(
+                new GroceryItem("Milk", 1, null), new GroceryItem("Eggs", 1, null))));
+            registry.withList("b", manager -> manager.addItems(List.of(
+                new GroceryItem("Tea", 1, null), new GroceryItem("Jam", 1, null))));
+
+            assertThat(registry.isResident("a")).isFalse();
+            assertThat(registry.isResident("b")).isTrue();
+            assertThat(stored("a")).hasSize(2);
+
+            int reloaded = registry.withList("a", GroceryListManager::size);
+            assertThat(reloaded).isEqualTo(2);
+        }
+    }
+
+    /**
+     * Should not evict a list while an action runs on it.
+     */
+    @Test
+    void should_not_evict_list_in_use() throws IOException {
+        try (GroceryListRegistry registry = new GroceryListRegistry(directory(), 1)) {
+            registry.withList("a", outer -> {
+                registry.withList("b", GroceryListManager::size);
+                assertThat(registry.isResident("a")).isTrue();
+                return null;
+            });
+            assertThat(registry.size()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Should evict lists that stay unused longer than the idle timeout.
+     */
+    @Test
+    void should_evict_idle_lists() throws Exception {
+        try (GroceryListRegistry registry = new GroceryListRegistry(directory(), 10, 0, 20)) {
+            CountDownLatch evicted = new CountDownLatch(1);
+            registry.addEvictionListener(id -> evicted.countDown());
+            registry.withList("a", manager -> {
+                manager.addItem("Bread", 1, null);
+                return null;
+            });
+
+            assertThat(evicted.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(registry.isResident("a")).isFalse();
+            assertThat(stored("a")).extracting(GroceryItem::getName).containsExactly("Bread");
+        }
+    }
+
+    /**
+     * Should flush every resident list on close.
+     */
+    @Test
+    void should_flush_lists_on_close() throws IOException {
+        GroceryListRegistry registry = new GroceryListRegistry(directory(), 10);
+        registry.withList("a", manager -> {
+            manager.addItem("Rice", 2, null);
+            return null;
+        });
+
+        registry.close();
+
+        assertThat(stored("a")).extracting(GroceryItem::getQuantity).containsExactly(2);
+        assertThatThrownBy(() -> registry.withList("a", GroceryListManager::size))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Should reject list ids that could escape the directory, without keeping them resident.
+     */
+    @Test
+    void should_reject_invalid_list_ids() {
+        try (GroceryListRegistry registry = new GroceryListRegistry(directory(), 10)) {
+            assertThatThrownBy(() -> registry.withList("../etc", GroceryListManager::size))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid list id");
+            assertThat(registry.size()).isZero();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.fges.core;
+
+import org.junit.jupiter.api.Test;
+
+import com.fges.dao.GroceryListDAO;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GroceryWritePipeline}.
+ * Covers group commit under concurrent producers, failure propagation and draining on close.
+ */
+class GroceryWritePipelineTest {
+
+    /**
+     * DAO taking a little time per save, like a real file write, and counting saves.
+     */
+    private static class SlowDAO implements GroceryListDAO {
+        volatile List<GroceryItem> items = new ArrayList<>();
+        volatile int saves;
+        volatile boolean failing;
+
+        @Override
+        public List<GroceryItem> load() {
+            return new ArrayList<>(items);
+        }
+
+        @Override
+        public void save(List<GroceryItem> items) throws IOException {
+            if (failing) {
+                throw new IOException("disk full");
+            }
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.items = new ArrayList<>(items);
+            saves++;
+        }
+    }
+
+    /**
+     * Should apply every submission of concurrent producers, persisting them in fewer batches.
+     */
+    @Test
+    void should_group_commit_concurrent_submissions() throws Exception {
+        SlowDAO dao = new SlowDAO();
+        GroceryListManager manager = new GroceryListManager(dao);
+        int writers = 16;
+        int perWriter = 50;
+
+        try (GroceryWritePipeline pipeline = new GroceryWritePipeline(manager, 64);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Long>> results = new ArrayList<>();
+            List<CompletableFuture<Void>> producers = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                String name = "Item" + w;
+                producers.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < perWriter; i++) {
+                        CompletableFuture<Long> result = pipeline.submit(GroceryMutation.add(name, 1, "bulk"));
+                        synchronized (results) {
+                            results.add(result);
+                        }
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(producers.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+            assertThat(pipeline.getMutationCount()).isEqualTo(writers * perWriter);
+            assertThat(pipeline.getBatchCount()).isLessThan(writers * perWriter);
+            assertThat(dao.saves).isEqualTo((int) pipeline.getBatchCount());
+        }
+
+        assertThat(manager.listItems("bulk")).hasSize(writers)
+            .allSatisfy(item -> assertThat(item.getQuantity()).isEqualTo(perWriter));
+        assertThat(dao.items).hasSize(writers);
+    }
+
+    /**
+     * Should complete the futures of a failed batch exceptionally.
+     */
+    @Test
+    void should_fail_futures_of_failed_batch() throws Exception {
+        SlowDAO dao = new SlowDAO();
+        GroceryListManager manager = new GroceryListManager(dao);
+        dao.failing = true;
+
+        try (GroceryWritePipeline pipeline = new GroceryWritePipeline(manager)) {
+            CompletableFuture<Long> result = pipeline.submit(GroceryMutation.add("Milk", 1, null));
+
+            assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IOException.class);
+        }
+    }
+
+    /**
+     * Should persist pending submissions on close and reject later ones.
+     */
+    @Test
+    void should_drain_on_close_and_reject_later_submissions() throws Exception {
+        SlowDAO dao = new SlowDAO();
+        GroceryListManager manager = new GroceryListManager(dao);
+        GroceryWritePipeline pipeline = new GroceryWritePipeline(manager, 8);
+
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(pipeline.submit(List.of(GroceryMutation.add("Tea", 1, null), GroceryMutation.add("Jam", 1, null))));
+        }
+        pipeline.close();
+
+        assertThat(results).allSatisfy(result -> assertThat(result).isCompleted());
+        assertThat(results.get(19).join()).isEqualTo(manager.getVersion());
+        assertThat(dao.items).extracting(GroceryItem::getQuantity).containsExactly(20, 20);
+        assertThatThrownBy(() -> pipeline.submit(GroceryMutation.remove("Tea")))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,78 @@
+package com.fges.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MpscRingBuffer}.
+ */
+class MpscRingBufferTest {
+
+    /**
+     * Should hand out elements in order and refuse offers once full.
+     */
+    @Test
+    void should_be_fifo_and_bounded() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(3);
+        assertThat(ring.capacity()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.offer(i)).isTrue();
+        }
+        assertThat(ring.offer(4)).isFalse();
+
+        assertThat(ring.poll()).isEqualTo(0);
+        assertThat(ring.offer(4)).isTrue();
+        List<Integer> rest = new ArrayList<>();
+        Integer value;
+        while ((value = ring.poll()) != null) {
+            rest.add(value);
+        }
+        assertThat(rest).containsExactly(1, 2, 3, 4);
+        assertThat(ring.isEmpty()).isTrue();
+    }
+
+    /**
+     * Should not lose nor duplicate elements offered by concurrent producers.
+     */
+    @Test
+    void should_deliver_every_element_of_concurrent_producers() throws Exception {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(256);
+        int producers = 4;
+        int perProducer = 5_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) {
+                        LockSupport.parkNanos(10_000);
+                    }
+                }
+            }));
+        }
+
+        Set<Integer> received = new HashSet<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (received.size() < producers * perProducer && System.currentTimeMillis() < deadline) {
+            Integer value = ring.poll();
+            if (value != null) {
+                assertThat(received.add(value)).isTrue();
+            } else {
+                Thread.yield();
+            }
+        }
+        assertThat(received).hasSize(producers * perProducer);
+        for (Thread thread : threads) {
+            assertThat(thread.join(Duration.ofSeconds(5))).isTrue();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.fges.daemon;
+
+import com.fges.cli.CommandLineArgs;
+import com.fges.core.GroceryItem;
+import com.fges.dao.JsonGroceryListDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for {@link GroceryDaemon} and {@link DaemonClient}, talking over a real Unix domain socket.
+ */
+class GroceryDaemonTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path socket;
+    private Path file;
+    private GroceryDaemon daemon;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    /**
+     * Starts a daemon on a socket in the temporary directory.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        socket = tempDir.resolve("daemon.sock");
+        file = tempDir.resolve("groceries.json");
+        daemon = new GroceryDaemon(socket);
+        daemon.start();
+    }
+
+    /**
+     * Stops the daemon.
+     */
+    @AfterEach
+    void tearDown() {
+        daemon.close();
+    }
+
+    private OptionalInt send(String category, String... arguments) throws IOException {
+        CommandLineArgs args = new CommandLineArgs(file.toString(), "json", category, List.of(arguments));
+        return new DaemonClient(socket).tryExecute(args, new PrintStream(output, true, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Should run forwarded commands against a warm manager and return their output.
+     */
+    @Test
+    void should_execute_forwarded_commands() throws IOException {
+        assertThat(send("dairy", "add", "Milk", "2")).hasValue(0);
+        assertThat(send("dairy", "add", "Milk", "1")).hasValue(0);
+        assertThat(send("default", "list")).hasValue(0);
+
+        assertThat(output.toString(StandardCharsets.UTF_8)).contains("# dairy:").contains("Milk: 3");
+        assertThat(new JsonGroceryListDAO(file.toString()).load())
+                .extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Milk", 3));
+    }
+
+    /**
+     * Should apply the filter options of a forwarded list to the warm manager.
+     */
+    @Test
+    void should_filter_forwarded_list() throws IOException {
+        assertThat(send("dairy", "add", "Milk", "2", "Butter", "1")).hasValue(0);
+        assertThat(send("drinks", "add", "Mint tea", "3")).hasValue(0);
+
+        CommandLineArgs args = new CommandLineArgs(file.toString(), "json", "dairy", List.of("list"),
+                Map.of("category", "dairy", "name-prefix", "m"));
+        assertThat(new DaemonClient(socket).tryExecute(args, new PrintStream(output, true, StandardCharsets.UTF_8))).hasValue(0);
+
+        assertThat(output.toString(StandardCharsets.UTF_8))
+                .contains("Milk: 2")
+                .doesNotContain("Butter")
+                .doesNotContain("Mint tea");
+    }
+
+    /**
+     * Should report command failures with a non-zero exit code.
+     */
+    @Test
+    void should_return_failure_for_invalid_commands() throws IOException {
+        assertThat(send("dairy", "add", "Milk", "lots")).hasValue(1);
+        assertThat(send("dairy", "info")).hasValue(1);
+    }
+
+    /**
+     * Should flush write-behind managers when the daemon is closed.
+     */
+    @Test
+    void should_flush_managers_on_close() throws IOException {
+        CommandLineArgs args = new CommandLineArgs(file.toString(), "json", "bakery",
+                List.of("add", "Bread", "1"), Map.of("write-behind", "60000"));
+        assertThat(new DaemonClient(socket).tryExecute(args, new PrintStream(output))).hasValue(0);
+        assertThat(file).doesNotExist();
+
+        daemon.close();
+
+        assertThat(new JsonGroceryListDAO(file.toString()).load()).extracting(GroceryItem::getName).containsExactly("Bread");
+        assertThat(socket).doesNotExist();
+    }
+
+    /**
+     * Should let the caller fall back to in-process execution when no daemon is listening.
+     */
+    @Test
+    void should_not_forward_without_daemon() throws IOException {
+        daemon.close();
+        assertThat(send("dairy", "add", "Milk", "2")).isEmpty();
+
+        Files.createFile(socket);
+        assertThat(send("dairy", "add", "Milk", "2")).isEmpty();
+        assertThat(file).doesNotExist();
+    }
+
+    /**
+     * Should replace a stale socket file but refuse to start twice on a live one.
+     */
+    @Test
+    void should_replace_stale_socket_only() throws IOException {
+        assertThatThrownBy(() -> new GroceryDaemon(socket).start())
+                .isInstanceOf(IllegalStateException.class);
+
+        daemon.close();
+        Files.createFile(socket);
+        daemon = new GroceryDaemon(socket);
+        daemon.start();
+        assertThat(send("dairy", "add", "Milk", "2")).hasValue(0);
+    }
+
+    /**
+     * Should create a missing socket directory private to the user and make the socket private too.
+     */
+    @Test
+    void should_bind_socket_in_private_directory() throws IOException {
+        daemon.close();
+        socket = tempDir.resolve("run").resolve("daemon.sock");
+        daemon = new GroceryDaemon(socket);
+        daemon.start();
+
+        assertThat(Files.getPosixFilePermissions(socket.getParent())).isEqualTo(PosixFilePermissions.fromString("rwx------"));
+        assertThat(Files.getPosixFilePermissions(socket)).isEqualTo(PosixFilePermissions.fromString("rw-------"));
+        assertThat(send("dairy", "add", "Milk", "2")).hasValue(0);
+    }
+
+    /**
+     * Should neither bind nor connect to a socket in a directory other users can write to.
+     */
+    @Test
+    void should_refuse_socket_in_shared_directory() throws IOException {
+        assertThat(send("dairy", "add", "Milk", "1")).hasValue(0);
+
+        Files.setPosixFilePermissions(tempDir, PosixFilePermissions.fromString("rwxrwxrwx"));
+        try {
+            assertThat(send("dairy", "add", "Milk", "2")).isEmpty();
+
+            daemon.close();
+            assertThatThrownBy(() -> new GroceryDaemon(socket).start())
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("writable by other users");
+        } finally {
+            Files.setPosixFilePermissions(tempDir, PosixFilePermissions.fromString("rwx------"));
+        }
+    }
+
+    /**
+     * Should default to a socket in the runtime directory of the user, or in a private directory.
+     */
+    @Test
+    void should_default_to_per_user_socket_directory() {
+        Path socketPath = GroceryDaemon.socketPath(new CommandLineArgs("a.json", "json", "x", List.of("add")));
+
+        assertThat(socketPath.getFileName()).hasToString(DaemonSocket.SOCKET_NAME);
+        assertThat(socketPath.getParent()).isNotEqualTo(Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Should only forward file commands.
+     */
+    @Test
+    void should_only_forward_file_commands() {
+        assertThat(DaemonClient.isForwardable(new CommandLineArgs("a.json", "json", "x", List.of("add", "A", "1")))).isTrue();
+        assertThat(DaemonClient.isForwardable(new CommandLineArgs("a.json", "json", "x", List.of("batch")))).isFalse();
+        assertThat(DaemonClient.isForwardable(new CommandLineArgs(null, "json", "x", List.of("info")))).isFalse();
+        assertThat(DaemonClient.isForwardable(new CommandLineArgs("a.json", "json", "x", List.of("list"),
+                Map.of("stream", "true")))).isFalse();
+    }
+}
@@ -0,0 +1,232 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BTreeGroceryListDAO}, which stores items in an on-disk B+tree keyed by name.
+ */
+class BTreeGroceryListDAOTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private BTreeGroceryListDAO dao;
+
+    /**
+     * Initializes the test file and DAO before each test.
+     */
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("groceries.btree");
+        dao = new BTreeGroceryListDAO(file.toString());
+    }
+
+    private List<GroceryItem> reload() throws IOException {
+        return new BTreeGroceryListDAO(file.toString()).load();
+    }
+
+    private static List<GroceryItem> items(int count) {
+        List<GroceryItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new GroceryItem(String.format("Item %05d", i), i + 1, "category " + (i % 7)));
+        }
+        return items;
+    }
+
+    /**
+     * Should save and then reload all items, sorted by name then category.
+     */
+    @Test
+    void should_save_and_load_items() throws IOException {
+        dao.save(List.of(
+                new GroceryItem("Water", 6, "drinks"),
+                new GroceryItem("Bread", 1, "bakery"),
+                new GroceryItem("Crème brûlée", 2, "desserts")));
+
+        List<GroceryItem> loaded = reload();
+
+        assertThat(loaded).extracting(GroceryItem::getName).containsExactly("Bread", "Crème brûlée", "Water");
+        assertThat(loaded).extracting(GroceryItem::getQuantity).containsExactly(1, 2, 6);
+        assertThat(loaded).extracting(GroceryItem::getCategory).containsExactly("bakery", "desserts", "drinks");
+    }
+
+    /**
+     * Should return an empty list when the file does not exist.
+     */
+    @Test
+    void should_return_empty_list_when_file_does_not_exist() throws IOException {
+        assertThat(dao.load()).isEmpty();
+        assertThat(dao.find("Milk")).isEmpty();
+        assertThat(Files.exists(file)).isFalse();
+    }
+
+    /**
+     * Should find the items of a name in every category, case-insensitively, and nothing else.
+     */
+    @Test
+    void should_find_items_by_name() throws IOException {
+        dao.save(List.of(
+                new GroceryItem("Milk", 2, "dairy"),
+                new GroceryItem("milk", 1, "baking"),
+                new GroceryItem("Milkshake", 1, "drinks"),
+                new GroceryItem("Mil", 1, "typos")));
+
+        assertThat(new BTreeGroceryListDAO(file.toString()).find("MILK"))
+                .extracting(GroceryItem::getName, GroceryItem::getCategory)
+                .containsExactly(tuple("milk", "baking"), tuple("Milk", "dairy"));
+    }
+
+    /**
+     * Should add, merge and remove items through changes.
+     */
+    @Test
+    void should_apply_changes() throws IOException {
+        dao.apply(List.of(
+                GroceryChange.added(new GroceryItem("Milk", 2, "dairy")),
+                GroceryChange.added(new GroceryItem("Milk", 1, "baking")),
+                GroceryChange.added(new GroceryItem("Tea", 1, "drinks"))));
+        dao.apply(List.of(
+                GroceryChange.merged(new GroceryItem("Tea", 4, "drinks"), 3),
+                GroceryChange.removed("MILK")));
+
+        assertThat(reload()).extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Tea", 4));
+    }
+
+    /**
+     * Should keep a tree of several levels sorted while items are inserted and removed one change at a time.
+     */
+    @Test
+    void should_split_and_shrink_tree() throws IOException {
+        List<GroceryItem> items = items(3_000);
+        List<GroceryItem> shuffled = new ArrayList<>(items);
+        Collections.shuffle(shuffled, new Random(42));
+        for (int i = 0; i < shuffled.size(); i += 100) {
+            dao.apply(shuffled.subList(i, i + 100).stream().map(GroceryChange::added).toList());
+        }
+        assertThat(reload()).extracting(GroceryItem::getName)
+                .containsExactlyElementsOf(items.stream().map(GroceryItem::getName).toList());
+
+        List<GroceryChange> removals = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (i % 3 != 0) {
+                removals.add(GroceryChange.removed(items.get(i).getName()));
+            }
+        }
+        dao.apply(removals);
+
+        assertThat(reload()).hasSize(1_000).extracting(GroceryItem::getQuantity)
+                .allSatisfy(quantity -> assertThat(quantity % 3).isEqualTo(1));
+        dao.apply(items.stream().map(item -> GroceryChange.removed(item.getName())).toList());
+        assertThat(reload()).isEmpty();
+    }
+
+    /**
+     * Should read and write only the pages on the path to a name, not the whole file.
+     */
+    @Test
+    void should_touch_logarithmic_number_of_pages() throws IOException {
+        dao.save(items(20_000));
+        assertThat(Files.size(file)).isGreaterThan(100L * BTreeGroceryListDAO.PAGE_SIZE);
+
+        BTreeGroceryListDAO cold = new BTreeGroceryListDAO(file.toString());
+        assertThat(cold.find("item 12345")).extracting(GroceryItem::getQuantity).containsExactly(12_346);
+        assertThat(cold.getPageReads()).isLessThanOrEqualTo(4);
+
+        cold.apply(List.of(GroceryChange.removed("Item 12345"),
+                GroceryChange.merged(new GroceryItem("Item 00007", 10, "category 0"), 2)));
+        assertThat(cold.getPageReads()).isLessThanOrEqualTo(8);
+        assertThat(cold.getPageWrites()).isLessThanOrEqualTo(8);
+        assertThat(reload()).hasSize(19_999);
+    }
+
+    /**
+     * Should fall back to the previous tree when the header of the last commit is torn.
+     */
+    @Test
+    void should_recover_previous_commit_when_header_is_torn() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 2, "dairy")));
+        dao.apply(List.of(GroceryChange.added(new GroceryItem("Tea", 1, "drinks"))));
+        assertThat(reload()).hasSize(2);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[12] ^= 0x7f;
+        Files.write(file, bytes);
+
+        assertThat(reload()).extracting(GroceryItem::getName).containsExactly("Milk");
+    }
+
+    /**
+     * Should reject a page whose content no longer matches its checksum.
+     */
+    @Test
+    void should_reject_corrupted_page() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 2, "dairy")));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[BTreeGroceryListDAO.PAGE_SIZE + 5] ^= 0x20;
+        Files.write(file, bytes);
+
+        assertThatThrownBy(this::reload).isInstanceOf(IOException.class).hasMessageContaining("checksum");
+    }
+
+    /**
+     * Should rewrite the file once the pages left behind by successive sessions outweigh the tree.
+     */
+    @Test
+    void should_reclaim_garbage_pages() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 1, "dairy")));
+        for (int i = 2; i <= 300; i++) {
+            new BTreeGroceryListDAO(file.toString())
+                    .apply(List.of(GroceryChange.merged(new GroceryItem("Milk", i, "dairy"), 1)));
+        }
+
+        assertThat(Files.size(file)).isLessThan(100L * BTreeGroceryListDAO.PAGE_SIZE);
+        assertThat(reload()).extracting(GroceryItem::getQuantity).containsExactly(300);
+    }
+
+    /**
+     * Should reject an item too long to fit a page with others.
+     */
+    @Test
+    void should_reject_oversized_item() {
+        GroceryItem item = new GroceryItem("x".repeat(BTreeGroceryListDAO.MAX_KEY_BYTES), 1, "dairy");
+
+        assertThatThrownBy(() -> dao.save(List.of(item))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Should scan the names starting with a prefix from the leaves holding them only.
+     */
+    @Test
+    void should_scan_name_prefix_from_its_leaves() throws IOException {
+        dao.save(items(20_000));
+        BTreeGroceryListDAO cold = new BTreeGroceryListDAO(file.toString());
+        List<GroceryItem> scanned = new ArrayList<>();
+
+        long count = cold.scan(new GroceryItemFilter("CATEGORY 3", "item 123", 0, Long.MAX_VALUE), scanned::add);
+
+        assertThat(count).isEqualTo(scanned.size()).isPositive();
+        assertThat(scanned).allSatisfy(item -> {
+            assertThat(item.getName()).startsWith("Item 123");
+            assertThat(item.getCategory()).isEqualTo("category 3");
+        });
+        assertThat(cold.getPageReads()).isLessThanOrEqualTo(6);
+        assertThat(cold.scan(new GroceryItemFilter(null, null, 0, 5), item -> {})).isEqualTo(5);
+    }
+}
@@ -0,0 +1,171 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BinaryGroceryListDAO}, which stores grocery items
+ * in a compact checksummed binary file.
+ */
+class BinaryGroceryListDAOTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private BinaryGroceryListDAO dao;
+
+    /**
+     * Initializes the test file and DAO before each test.
+     */
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("groceries.bin");
+        dao = new BinaryGroceryListDAO(file.toString());
+    }
+
+    /**
+     * Should save and then reload all items in order.
+     */
+    @Test
+    void should_save_and_load_items() throws IOException {
+        dao.save(List.of(
+                new GroceryItem("Bread", 1, "bakery"),
+                new GroceryItem("Crème brûlée 🍮", 300, "desserts"),
+                new GroceryItem("Baguette", 2, "bakery")));
+
+        List<GroceryItem> loaded = dao.load();
+
+        assertThat(loaded).extracting(GroceryItem::getName).containsExactly("Bread", "Crème brûlée 🍮", "Baguette");
+        assertThat(loaded).extracting(GroceryItem::getQuantity).containsExactly(1, 300, 2);
+        assertThat(loaded).extracting(GroceryItem::getCategory).containsExactly("bakery", "desserts", "bakery");
+        assertThat(loaded.get(0).getCategory()).isSameAs(loaded.get(2).getCategory());
+    }
+
+    /**
+     * Should return an empty list when the file does not exist.
+     */
+    @Test
+    void should_return_empty_list_when_file_does_not_exist() throws IOException {
+        assertThat(dao.load()).isEmpty();
+    }
+
+    /**
+     * Should round-trip lists larger than the I/O buffer, including long names.
+     */
+    @Test
+    void should_round_trip_large_lists() throws IOException {
+        List<GroceryItem> items = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            items.add(new GroceryItem("Item " + i, i + 1, "category " + (i % 37)));
+        }
+        items.add(new GroceryItem("x".repeat(200_000), Integer.MAX_VALUE, "long"));
+
+        dao.save(items);
+        List<GroceryItem> loaded = dao.load();
+
+        assertThat(loaded).hasSize(items.size());
+        assertThat(loaded.get(12_345).getName()).isEqualTo("Item 12345");
+        assertThat(loaded.get(20_000).getName()).hasSize(200_000);
+        assertThat(loaded.get(20_000).getQuantity()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Should be much smaller than the equivalent JSON file.
+     */
+    @Test
+    void should_be_smaller_than_json() throws IOException {
+        List<GroceryItem> items = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            items.add(new GroceryItem("Item " + i, i + 1, i % 2 == 0 ? "fruits" : "vegetables"));
+        }
+        Path json = tempDir.resolve("groceries.json");
+        new JsonGroceryListDAO(json.toString()).save(items);
+        dao.save(items);
+
+        assertThat(Files.size(file)).isLessThan(Files.size(json) / 3);
+    }
+
+    /**
+     * Should reject a file whose content does not match its checksum.
+     */
+    @Test
+    void should_throw_when_checksum_does_not_match() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 2, "dairy")));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 6] ^= 0x01;
+        Files.write(file, bytes);
+
+        assertThatThrownBy(() -> dao.load())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    /**
+     * Should reject truncated files and files with another magic number.
+     */
+    @Test
+    void should_throw_when_file_is_truncated_or_not_binary() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 2, "dairy"), new GroceryItem("Eggs", 12, "dairy")));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 7));
+        assertThatThrownBy(() -> dao.load()).isInstanceOf(IOException.class);
+
+        Files.writeString(file, "[{\"name\":\"Milk\"}]");
+        assertThatThrownBy(() -> dao.load())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a binary grocery list");
+    }
+
+    /**
+     * Should keep the previous file when saving an invalid item fails.
+     */
+    @Test
+    void should_keep_existing_file_when_save_fails() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 2, "dairy")));
+
+        assertThatThrownBy(() -> dao.save(List.of(new GroceryItem("Eggs", 0, "dairy"))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(dao.load()).extracting(GroceryItem::getName).containsExactly("Milk");
+        assertThat(AtomicFiles.tempSibling(file)).doesNotExist();
+    }
+
+    /**
+     * Should stream only the items matching the filter, and verify the checksum of a full scan.
+     */
+    @Test
+    void should_scan_matching_items() throws IOException {
+        dao.save(List.of(
+                new GroceryItem("Milk", 2, "dairy"),
+                new GroceryItem("Mint tea", 1, "drinks"),
+                new GroceryItem("Mozzarella", 3, "dairy"),
+                new GroceryItem("Cheese", 4, "dairy")));
+        List<GroceryItem> scanned = new ArrayList<>();
+
+        long count = dao.scan(new GroceryItemFilter("dairy", "m", 0, Long.MAX_VALUE), scanned::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(scanned).extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Milk", 2), tuple("Mozzarella", 3));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(file, bytes);
+        assertThat(dao.scan(new GroceryItemFilter(null, null, 0, 1), item -> {})).isEqualTo(1);
+        assertThatThrownBy(() -> dao.scan(GroceryItemFilter.ALL, item -> {}))
+                .isInstanceOf(IOException.class).hasMessageContaining("checksum");
+    }
+}
@@ -0,0 +1,113 @@
+package com.fges.dao;
+
+import com.fges.core.CategorySummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CategoryIndex}, the sidecar index of JSON and CSV lists.
+ */
+class CategoryIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private final AtomicInteger rebuilds = new AtomicInteger();
+
+    /**
+     * Writes a list file and its index.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("groceries.csv");
+        Files.writeString(file, "x".repeat(20_000));
+        builder().writeFor(file, CategoryIndex.hash(file));
+    }
+
+    private static CategoryIndex.Builder builder() {
+        CategoryIndex.Builder builder = new CategoryIndex.Builder();
+        builder.add("Dairy", 2, 0, 10);
+        builder.add("drinks", 1, 10, 20);
+        builder.add(" dairy ", 3, 20, 30);
+        builder.add(null, 4, 30, 40);
+        builder.add("dairy", 5, 100_000, 100_010);
+        return builder;
+    }
+
+    private CategoryIndex index() throws IOException {
+        return CategoryIndex.of(file, builder -> {
+            rebuilds.incrementAndGet();
+            builder.add("rebuilt", 1, 0, 1);
+        });
+    }
+
+    /**
+     * Should count items and quantities per normalized category, merging ranges separated by small gaps.
+     */
+    @Test
+    void should_summarize_and_locate_categories() throws IOException {
+        CategoryIndex index = index();
+
+        assertThat(rebuilds).hasValue(0);
+        assertThat(index.summaries()).containsExactly(
+                new CategorySummary("dairy", 3, 10),
+                new CategorySummary("default", 1, 4),
+                new CategorySummary("drinks", 1, 1));
+        assertThat(index.get("DAIRY").ranges()).containsExactly(0, 30, 100_000, 100_010);
+        assertThat(index.get("bakery")).isNull();
+    }
+
+    /**
+     * Should keep an index whose file was only touched, and rebuild it once the content changed.
+     */
+    @Test
+    void should_rebuild_stale_index() throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5_000));
+        assertThat(index().get("dairy")).isNotNull();
+        assertThat(rebuilds).hasValue(0);
+
+        Files.writeString(file, "y".repeat(20_000));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10_000));
+        assertThat(index().summaries()).extracting(CategorySummary::category).containsExactly("rebuilt");
+        assertThat(rebuilds).hasValue(1);
+
+        assertThat(index().get("rebuilt")).isNotNull();
+        assertThat(rebuilds).hasValue(1);
+    }
+
+    /**
+     * Should ignore a corrupted index and rebuild it.
+     */
+    @Test
+    void should_rebuild_corrupted_index() throws IOException {
+        Path sidecar = CategoryIndex.sidecar(file);
+        byte[] bytes = Files.readAllBytes(sidecar);
+        bytes[30] ^= 0x01;
+        Files.write(sidecar, bytes);
+
+        assertThat(CategoryIndex.read(sidecar)).isNull();
+        assertThat(index().get("rebuilt")).isNotNull();
+        assertThat(rebuilds).hasValue(1);
+    }
+
+    /**
+     * Should have no index for a missing file.
+     */
+    @Test
+    void should_return_null_for_missing_file() throws IOException {
+        Files.delete(file);
+
+        assertThat(index()).isNull();
+        assertThat(rebuilds).hasValue(0);
+    }
+}
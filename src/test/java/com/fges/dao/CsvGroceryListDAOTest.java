@@ -1,6 +1,8 @@
 package com.fges.dao;
 
+import com.fges.core.CategorySummary;
 import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -9,6 +11,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -106,4 +109,179 @@ class CsvGroceryListDAOTest {
         assertThat(items.get(0).getName()).isEqualTo("Banana");
         assertThat(items.get(0).getCategory()).isEqualTo("fruit,fresh");
     }
-}
\ No newline at end of file
+
+    /**
+     * Should quote fields containing separators, quotes or line breaks and read them back.
+     */
+    @Test
+    void should_quote_special_characters_on_save_and_round_trip() throws IOException {
+        List<GroceryItem> original = List.of(
+            new GroceryItem("Chips, salted", 2, "snacks"),
+            new GroceryItem("12\" pizza", 1, "frozen"),
+            new GroceryItem("Multi\nline", 3, "misc")
+        );
+
+        dao.save(original);
+
+        assertThat(Files.readString(csvFile.toPath())).isEqualTo("""
+            Item,Quantity,Category
+            "Chips, salted",2,snacks
+            "12"" pizza",1,frozen
+            "Multi
+            line",3,misc
+            """);
+        assertThat(dao.load())
+            .extracting(GroceryItem::getName, GroceryItem::getQuantity, GroceryItem::getCategory)
+            .containsExactly(
+                tuple("Chips, salted", 2, "snacks"),
+                tuple("12\" pizza", 1, "frozen"),
+                tuple("Multi\nline", 3, "misc"));
+    }
+
+    /**
+     * Should accept CRLF line endings, blank lines and padded fields.
+     */
+    @Test
+    void should_parse_crlf_and_skip_malformed_rows() throws IOException {
+        Files.writeString(csvFile.toPath(), "Item,Quantity,Category\r\n Tea , 4 ,drinks\r\n\r\nbroken,row\r\nMilk,1,dairy");
+
+        assertThat(dao.load())
+            .extracting(GroceryItem::getName, GroceryItem::getQuantity, GroceryItem::getCategory)
+            .containsExactly(tuple("Tea", 4, "drinks"), tuple("Milk", 1, "dairy"));
+    }
+
+    /**
+     * Should report the row of an invalid quantity.
+     */
+    @Test
+    void should_throw_when_quantity_is_not_a_number() throws IOException {
+        Files.writeString(csvFile.toPath(), "Item,Quantity,Category\nMilk,1,dairy\nBread,two,bakery\n");
+
+        assertThatThrownBy(() -> dao.load())
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("row 3");
+    }
+
+    /**
+     * Should keep the previous file when saving fails midway.
+     */
+    @Test
+    void should_keep_existing_file_when_save_fails() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 1, "dairy")));
+        List<GroceryItem> failing = new ArrayList<>(List.of(new GroceryItem("Bread", 1, "bakery")));
+        failing.add(null);
+
+        assertThatThrownBy(() -> dao.save(failing)).isInstanceOf(NullPointerException.class);
+
+        assertThat(dao.load()).extracting(GroceryItem::getName).containsExactly("Milk");
+        assertThat(tempDir.resolve("test.csv.tmp")).doesNotExist();
+    }
+
+    /**
+     * Should load the same items in the same order in parallel as sequentially,
+     * including quoted fields spanning line breaks that fall on chunk boundaries.
+     */
+    @Test
+    void should_load_in_parallel_like_sequentially() throws IOException {
+        List<GroceryItem> original = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            String name = i % 7 == 0 ? "Item \"" + i + "\"\nline, two" : "Item " + i;
+            original.add(new GroceryItem(name, i, i % 3 == 0 ? "fruits" : "dairy"));
+        }
+        dao.save(original);
+
+        List<GroceryItem> sequential = dao.load();
+        List<GroceryItem> parallel = new CsvGroceryListDAO(csvFile.getAbsolutePath(), 3, 0).load();
+
+        assertThat(parallel).hasSize(original.size());
+        assertThat(parallel).extracting(GroceryItem::getName)
+                .containsExactlyElementsOf(sequential.stream().map(GroceryItem::getName).toList());
+        assertThat(parallel).extracting(GroceryItem::getQuantity)
+                .containsExactlyElementsOf(sequential.stream().map(GroceryItem::getQuantity).toList());
+        assertThat(parallel).extracting(GroceryItem::getCategory)
+                .containsExactlyElementsOf(sequential.stream().map(GroceryItem::getCategory).toList());
+    }
+
+    /**
+     * Should load tiny files and header-only files in parallel mode.
+     */
+    @Test
+    void should_load_small_files_in_parallel() throws IOException {
+        CsvGroceryListDAO parallel = new CsvGroceryListDAO(csvFile.getAbsolutePath(), 8, 0);
+
+        Files.writeString(csvFile.toPath(), "Item,Quantity,Category\n");
+        assertThat(parallel.load()).isEmpty();
+
+        Files.writeString(csvFile.toPath(), "Item,Quantity,Category\nMilk,2,dairy");
+        assertThat(parallel.load()).extracting(GroceryItem::getName).containsExactly("Milk");
+    }
+
+    /**
+     * Should report invalid quantities found while loading in parallel.
+     */
+    @Test
+    void should_throw_when_quantity_is_invalid_in_parallel() throws IOException {
+        StringBuilder csv = new StringBuilder("Item,Quantity,Category\n");
+        for (int i = 0; i < 1_000; i++) {
+            csv.append("Item ").append(i).append(',').append(i == 700 ? "many" : "1").append(",misc\n");
+        }
+        Files.writeString(csvFile.toPath(), csv);
+
+        assertThatThrownBy(() -> new CsvGroceryListDAO(csvFile.getAbsolutePath(), 4, 0).load())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid quantity");
+    }
+
+    /**
+     * Should reject a parallelism below one.
+     */
+    @Test
+    void should_reject_invalid_parallelism() {
+        assertThatThrownBy(() -> new CsvGroceryListDAO(csvFile.getAbsolutePath(), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Should stream only the rows matching the filter, in file order, and stop at the limit.
+     */
+    @Test
+    void should_scan_matching_items() throws IOException {
+        Files.writeString(csvFile.toPath(), """
+            name,quantity,category
+            Milk,2,dairy
+            Mint tea,1,drinks
+            Mozzarella,3,DAIRY
+            Cheese,4,dairy
+            Mango,5,
+            """);
+        List<GroceryItem> scanned = new ArrayList<>();
+
+        long count = dao.scan(new GroceryItemFilter("dairy", "m", 2, Long.MAX_VALUE), scanned::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(scanned).extracting(GroceryItem::getName).containsExactly("Milk", "Mozzarella");
+        assertThat(dao.scan(new GroceryItemFilter("default", null, 0, 10), item -> {})).isEqualTo(1);
+        assertThat(dao.scan(new GroceryItemFilter(null, null, 0, 3), item -> {})).isEqualTo(3);
+    }
+
+    /**
+     * Should write an index on save and read a category through its byte ranges only, and rebuild it after an edit.
+     */
+    @Test
+    void should_scan_category_through_index() throws IOException {
+        List<GroceryItem> items = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            items.add(new GroceryItem("Crème " + i, i % 5 + 1, i < 1_000 ? "bulk" : i % 2 == 0 ? "dairy" : "drinks"));
+        }
+        dao.save(items);
+        List<GroceryItem> scanned = new ArrayList<>();
+
+        assertThat(dao.scan(new GroceryItemFilter("dairy", null, 0, Long.MAX_VALUE), scanned::add)).isEqualTo(500);
+        assertThat(scanned).extracting(GroceryItem::getName).startsWith("Crème 1000", "Crème 1002");
+
+        Files.writeString(csvFile.toPath(), "name,quantity,category\nTea,3,drinks\nMilk,2,\n");
+        assertThat(dao.summarize()).containsExactly(
+            new CategorySummary("default", 1, 2), new CategorySummary("drinks", 1, 3));
+        assertThat(dao.scan(new GroceryItemFilter("default", null, 0, 10), item -> {})).isEqualTo(1);
+    }
+}
@@ -0,0 +1,93 @@
+package com.fges.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CsvScanner}, the byte-level CSV parser behind {@link CsvGroceryListDAO}.
+ */
+class CsvScannerTest {
+
+    /**
+     * Creates a scanner over the given text with a deliberately tiny read buffer.
+     */
+    private CsvScanner scanner(String csv) {
+        return new CsvScanner(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 3);
+    }
+
+    /**
+     * Should parse fields that span several buffer refills, including multi-byte characters.
+     */
+    @Test
+    void should_parse_fields_across_buffer_boundaries() throws IOException {
+        CsvScanner scanner = scanner("Crème brûlée,12,desserts\n\"a,\"\"b\"\"\",-3,x\n");
+
+        assertThat(scanner.nextRow()).isTrue();
+        assertThat(scanner.getFieldCount()).isEqualTo(3);
+        assertThat(scanner.getString(0)).isEqualTo("Crème brûlée");
+        assertThat(scanner.getInt(1)).isEqualTo(12);
+        assertThat(scanner.getString(2)).isEqualTo("desserts");
+
+        assertThat(scanner.nextRow()).isTrue();
+        assertThat(scanner.getString(0)).isEqualTo("a,\"b\"");
+        assertThat(scanner.getInt(1)).isEqualTo(-3);
+        assertThat(scanner.getRowNumber()).isEqualTo(2);
+
+        assertThat(scanner.nextRow()).isFalse();
+    }
+
+    /**
+     * Should reject numbers that are malformed or do not fit in an int.
+     */
+    @Test
+    void should_reject_invalid_numbers() throws IOException {
+        CsvScanner scanner = scanner("1x,2147483648,,-2147483648\n");
+        assertThat(scanner.nextRow()).isTrue();
+
+        assertThatThrownBy(() -> scanner.getInt(0)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> scanner.getInt(1)).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> scanner.getInt(2)).isInstanceOf(NumberFormatException.class);
+        assertThat(scanner.getInt(3)).isEqualTo(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Should hand out one shared instance per repeated value.
+     */
+    @Test
+    void should_reuse_shared_strings_for_repeated_values() throws IOException {
+        CsvScanner scanner = scanner("a,dairy\nb,dairy\nc,bakery\n");
+
+        scanner.nextRow();
+        String first = scanner.getSharedString(1);
+        scanner.nextRow();
+        String second = scanner.getSharedString(1);
+        scanner.nextRow();
+
+        assertThat(second).isSameAs(first).isEqualTo("dairy");
+        assertThat(scanner.getSharedString(1)).isEqualTo("bakery");
+    }
+
+    /**
+     * Should report the byte offsets of each row, multi-byte characters and CRLF endings included.
+     */
+    @Test
+    void should_track_row_offsets() throws IOException {
+        CsvScanner scanner = scanner("é,1,a\r\nb,2,c\nlast,3,d");
+
+        assertThat(scanner.nextRow()).isTrue();
+        assertThat(scanner.getRowOffset()).isZero();
+        assertThat(scanner.getOffset()).isEqualTo(8);
+        assertThat(scanner.nextRow()).isTrue();
+        assertThat(scanner.getRowOffset()).isEqualTo(8);
+        assertThat(scanner.getOffset()).isEqualTo(14);
+        assertThat(scanner.nextRow()).isTrue();
+        assertThat(scanner.getRowOffset()).isEqualTo(14);
+        assertThat(scanner.getOffset()).isEqualTo(22);
+        assertThat(scanner.nextRow()).isFalse();
+    }
+}
@@ -0,0 +1,186 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DurableGroceryListDAO}.
+ * Covers forced saves, group commit of concurrent saves, async saves and failures.
+ */
+class DurableGroceryListDAOTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * JSON DAO recording forced saves, optionally blocking the first one until released.
+     */
+    private static class RecordingDAO extends JsonGroceryListDAO {
+        final List<Integer> forcedSizes = new ArrayList<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release;
+        final AtomicInteger saves = new AtomicInteger();
+        volatile boolean failing;
+
+        RecordingDAO(Path file, CountDownLatch release) {
+            super(file.toString());
+            this.release = release;
+        }
+
+        @Override
+        public void save(List<GroceryItem> items, boolean force) throws IOException {
+            if (saves.getAndIncrement() == 0) {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failing) {
+                throw new IOException("disk full");
+            }
+            synchronized (forcedSizes) {
+                forcedSizes.add(force ? items.size() : -1);
+            }
+            super.save(items, force);
+        }
+    }
+
+    private static List<GroceryItem> items(int count) {
+        List<GroceryItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new GroceryItem("Item" + i, 1, "default"));
+        }
+        return items;
+    }
+
+    /**
+     * Should force every synchronous save to disk and leave no temporary file behind.
+     */
+    @Test
+    void should_force_sync_saves() throws IOException {
+        Path file = tempDir.resolve("groceries.json");
+        RecordingDAO delegate = new RecordingDAO(file, new CountDownLatch(0));
+        try (DurableGroceryListDAO dao = new DurableGroceryListDAO(delegate, Durability.SYNC)) {
+            dao.save(items(2));
+
+            assertThat(delegate.forcedSizes).containsExactly(2);
+            assertThat(dao.load()).hasSize(2);
+            assertThat(dao.getSyncCount()).isEqualTo(1);
+        }
+        assertThat(Files.list(tempDir)).containsExactlyInAnyOrder(file, CategoryIndex.sidecar(file));
+    }
+
+    /**
+     * Should cover the saves submitted during a write with a single further fsync of the latest snapshot.
+     */
+    @Test
+    void should_group_concurrent_saves_into_one_fsync() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingDAO delegate = new RecordingDAO(tempDir.resolve("groceries.json"), release);
+        try (DurableGroceryListDAO dao = new DurableGroceryListDAO(delegate, Durability.SYNC)) {
+            Thread first = Thread.ofVirtual().start(() -> save(dao, items(1)));
+            assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Thread> waiters = new ArrayList<>();
+            for (int i = 2; i <= 5; i++) {
+                long ticket = dao.submit(items(i));
+                waiters.add(Thread.ofVirtual().start(() -> await(dao, ticket)));
+            }
+            release.countDown();
+            first.join();
+            for (Thread waiter : waiters) {
+                waiter.join();
+            }
+
+            assertThat(delegate.forcedSizes).containsExactly(1, 5);
+            assertThat(dao.getSyncCount()).isEqualTo(2);
+            assertThat(dao.getAcknowledgedCount()).isEqualTo(5);
+            assertThat(dao.load()).hasSize(5);
+        }
+    }
+
+    /**
+     * Should return from async saves at once and have everything on disk after a flush.
+     */
+    @Test
+    void should_write_async_saves_in_background() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingDAO delegate = new RecordingDAO(tempDir.resolve("groceries.json"), release);
+        try (DurableGroceryListDAO dao = new DurableGroceryListDAO(delegate, Durability.ASYNC)) {
+            dao.save(items(1));
+            assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            dao.save(items(2));
+            dao.save(items(3));
+
+            release.countDown();
+            dao.flush();
+
+            assertThat(delegate.forcedSizes).containsExactly(1, 3);
+            assertThat(dao.load()).hasSize(3);
+        }
+    }
+
+    /**
+     * Should fail the saves covered by a failed write, report an async failure on the next save,
+     * and keep its cause for later flushes.
+     */
+    @Test
+    void should_report_failed_writes() throws Exception {
+        RecordingDAO delegate = new RecordingDAO(tempDir.resolve("groceries.json"), new CountDownLatch(0));
+        delegate.failing = true;
+        try (DurableGroceryListDAO dao = new DurableGroceryListDAO(delegate, Durability.SYNC)) {
+            assertThatThrownBy(() -> dao.save(items(1)))
+                    .isInstanceOf(IOException.class)
+                    .hasRootCauseMessage("disk full");
+            delegate.failing = false;
+            dao.save(items(2));
+            assertThat(dao.load()).hasSize(2);
+        }
+
+        RecordingDAO background = new RecordingDAO(tempDir.resolve("async.json"), new CountDownLatch(0));
+        background.failing = true;
+        DurableGroceryListDAO dao = new DurableGroceryListDAO(background, Durability.ASYNC);
+        dao.save(items(1));
+        assertThatThrownBy(dao::flush).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> dao.save(items(2)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Background save");
+        assertThatThrownBy(dao::flush)
+                .isInstanceOf(IOException.class)
+                .hasRootCauseMessage("disk full");
+        background.failing = false;
+        dao.save(items(3));
+        dao.close();
+        assertThat(dao.load()).hasSize(3);
+    }
+
+    private static void save(DurableGroceryListDAO dao, List<GroceryItem> items) {
+        try {
+            dao.save(items);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void await(DurableGroceryListDAO dao, long ticket) {
+        try {
+            dao.awaitDurable(ticket);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
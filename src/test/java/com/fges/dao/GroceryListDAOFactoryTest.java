@@ -28,6 +28,33 @@ class GroceryListDAOFactoryTest {
         assertThat(dao).isInstanceOf(CsvGroceryListDAO.class);
     }
 
+    /**
+     * Should return WalGroceryListDAO for "wal" format.
+     */
+    @Test
+    void should_return_wal_dao_when_format_is_wal() {
+        GroceryListDAO dao = GroceryListDAOFactory.create("wal", "file.json");
+        assertThat(dao).isInstanceOf(WalGroceryListDAO.class);
+    }
+
+    /**
+     * Should return BinaryGroceryListDAO for "bin" format.
+     */
+    @Test
+    void should_return_binary_dao_when_format_is_bin() {
+        GroceryListDAO dao = GroceryListDAOFactory.create("bin", "file.bin");
+        assertThat(dao).isInstanceOf(BinaryGroceryListDAO.class);
+    }
+
+    /**
+     * Should return LsmGroceryListDAO for "lsm" format.
+     */
+    @Test
+    void should_return_lsm_dao_when_format_is_lsm() {
+        GroceryListDAO dao = GroceryListDAOFactory.create("lsm", "groceries.lsm");
+        assertThat(dao).isInstanceOf(LsmGroceryListDAO.class);
+    }
+
     /**
      * Should trim and lowercase input before matching.
      */
@@ -56,4 +83,18 @@ class GroceryListDAOFactoryTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Unsupported format");
     }
-}
\ No newline at end of file
+
+    /**
+     * Should wrap whole-file formats in a durable DAO above the none durability.
+     */
+    @Test
+    void should_wrap_dao_for_durability() {
+        assertThat(GroceryListDAOFactory.create("json", "file.json", 1, Durability.NONE))
+                .isInstanceOf(JsonGroceryListDAO.class);
+        assertThat(GroceryListDAOFactory.create("csv", "file.csv", 1, Durability.SYNC))
+                .isInstanceOf(DurableGroceryListDAO.class);
+        assertThatThrownBy(() -> GroceryListDAOFactory.create("wal", "file.json", 1, Durability.SYNC))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not supported");
+    }
+}
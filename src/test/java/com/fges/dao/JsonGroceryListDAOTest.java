@@ -1,6 +1,9 @@
 package com.fges.dao;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fges.core.CategorySummary;
 import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -9,6 +12,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -93,4 +97,150 @@ class JsonGroceryListDAOTest {
         assertThat(jsonFile).exists().isFile();
         assertThat(dao.load()).hasSize(1);
     }
-}
\ No newline at end of file
+
+    /**
+     * Should keep the previous file untouched when an item fails validation during save.
+     */
+    @Test
+    void should_keep_existing_file_when_validation_fails() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 2, "dairy")));
+        String before = Files.readString(jsonFile.toPath());
+
+        assertThatThrownBy(() -> dao.save(List.of(new GroceryItem("Bread", 1, "bakery"), new GroceryItem("Air", 0, "misc"))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("quantity");
+
+        assertThat(Files.readString(jsonFile.toPath())).isEqualTo(before);
+        assertThat(tempDir.resolve("test.json.tmp")).doesNotExist();
+    }
+
+    /**
+     * Should write the same field layout as before and ignore unknown fields on load.
+     */
+    @Test
+    void should_write_compact_layout_and_skip_unknown_fields() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 2, "dairy")));
+        assertThat(Files.readString(jsonFile.toPath())).isEqualTo("[{\"name\":\"Milk\",\"quantity\":2,\"category\":\"dairy\"}]");
+
+        Files.writeString(jsonFile.toPath(), "[{\"name\":\"Tea\",\"extra\":{\"a\":[1,2]},\"quantity\":1,\"category\":null}]");
+        List<GroceryItem> loaded = dao.load();
+        assertThat(loaded).extracting(GroceryItem::getName, GroceryItem::getQuantity, GroceryItem::getCategory)
+            .containsExactly(tuple("Tea", 1, null));
+    }
+
+    /**
+     * Should reject array elements that are not item objects.
+     */
+    @Test
+    void should_throw_when_array_contains_non_objects() throws IOException {
+        Files.writeString(jsonFile.toPath(), "[{\"name\":\"Tea\",\"quantity\":1,\"category\":\"drinks\"}, 42]");
+
+        assertThatThrownBy(() -> dao.load())
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Cannot deserialize");
+    }
+
+    /**
+     * Should reject items without a name.
+     */
+    @Test
+    void should_throw_when_item_has_no_name() throws IOException {
+        Files.writeString(jsonFile.toPath(), "[{\"quantity\":1,\"category\":\"drinks\"}]");
+
+        assertThatThrownBy(() -> dao.load())
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("name");
+    }
+
+    /**
+     * Should reject quantities that are not integers instead of coercing them.
+     */
+    @Test
+    void should_throw_when_quantity_is_not_an_integer() throws IOException {
+        for (String quantity : List.of("\"3\"", "2.5", "true", "[1]", "{\"n\":1}")) {
+            Files.writeString(jsonFile.toPath(), "[{\"name\":\"Tea\",\"quantity\":" + quantity + "}]");
+
+            assertThatThrownBy(() -> dao.load())
+                .isInstanceOf(JsonParseException.class)
+                .hasMessageContaining("quantity must be an integer");
+        }
+    }
+
+    /**
+     * Should reject structured names and categories rather than reading their inner fields as item fields.
+     */
+    @Test
+    void should_throw_when_name_or_category_is_structured() throws IOException {
+        Files.writeString(jsonFile.toPath(), "[{\"name\":{\"name\":\"Tea\",\"quantity\":1},\"quantity\":2}]");
+        assertThatThrownBy(() -> dao.load())
+            .isInstanceOf(JsonParseException.class)
+            .hasMessageContaining("name must be a string");
+
+        Files.writeString(jsonFile.toPath(), "[{\"name\":\"Tea\",\"category\":[\"drinks\"],\"quantity\":2}]");
+        assertThatThrownBy(() -> dao.load())
+            .isInstanceOf(JsonParseException.class)
+            .hasMessageContaining("category must be a string");
+    }
+
+    /**
+     * Should stream only the items matching the filter, in file order, and stop at the limit.
+     */
+    @Test
+    void should_scan_matching_items() throws IOException {
+        dao.save(List.of(
+            new GroceryItem("Milk", 2, "dairy"),
+            new GroceryItem("Mint tea", 1, "drinks"),
+            new GroceryItem("Mozzarella", 3, "dairy"),
+            new GroceryItem("Cheese", 4, "dairy")
+        ));
+        List<GroceryItem> scanned = new ArrayList<>();
+
+        long count = dao.scan(new GroceryItemFilter("dairy", "m", 0, Long.MAX_VALUE), scanned::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(scanned).extracting(GroceryItem::getName).containsExactly("Milk", "Mozzarella");
+        assertThat(dao.scan(new GroceryItemFilter(null, null, 2, 1), item -> {})).isEqualTo(1);
+    }
+
+    /**
+     * Should write an index on save and read a category through its byte ranges only.
+     */
+    @Test
+    void should_scan_category_through_index() throws IOException {
+        List<GroceryItem> items = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            items.add(new GroceryItem("Item " + i, i % 5 + 1, i < 1_000 ? "bulk" : i % 2 == 0 ? "dairy" : "drinks"));
+        }
+        dao.save(items);
+        long[] ranges = CategoryIndex.read(CategoryIndex.sidecar(jsonFile.toPath())).get("dairy").ranges();
+        assertThat(ranges).hasSize(2);
+        assertThat(ranges[0]).isGreaterThan(1_000 * 40L);
+        List<GroceryItem> scanned = new ArrayList<>();
+
+        assertThat(dao.scan(new GroceryItemFilter("dairy", null, 0, Long.MAX_VALUE), scanned::add)).isEqualTo(500);
+
+        assertThat(scanned).extracting(GroceryItem::getName).startsWith("Item 1000", "Item 1002");
+        assertThat(dao.summarize()).extracting(CategorySummary::category, CategorySummary::items)
+                .containsExactly(tuple("bulk", 1_000L), tuple("dairy", 500L), tuple("drinks", 500L));
+    }
+
+    /**
+     * Should rebuild the index of a file written by something else.
+     */
+    @Test
+    void should_rebuild_index_of_edited_file() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 2, "dairy")));
+        Files.writeString(jsonFile.toPath(), """
+            [ {"name": "Tea", "quantity": 3, "category": "drinks"},
+              {"name": "Milk", "quantity": 2, "category": "Dairy"},
+              {"name": "Water", "quantity": 6, "category": "drinks"} ]
+            """);
+        List<GroceryItem> scanned = new ArrayList<>();
+
+        dao.scan(new GroceryItemFilter("drinks", null, 0, Long.MAX_VALUE), scanned::add);
+
+        assertThat(scanned).extracting(GroceryItem::getName).containsExactly("Tea", "Water");
+        assertThat(dao.summarize()).containsExactly(
+            new CategorySummary("dairy", 1, 2), new CategorySummary("drinks", 2, 9));
+    }
+}
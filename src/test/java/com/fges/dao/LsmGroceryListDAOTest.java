@@ -0,0 +1,186 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link LsmGroceryListDAO}, which stores changes in a memtable flushed to sorted segments.
+ */
+class LsmGroceryListDAOTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path directory;
+    private LsmGroceryListDAO dao;
+
+    /**
+     * Initializes the test directory and a DAO flushing every 2 keys and compacting at 3 segments.
+     */
+    @BeforeEach
+    void setUp() {
+        directory = tempDir.resolve("groceries.lsm");
+        dao = new LsmGroceryListDAO(directory.toString(), 2, 3);
+    }
+
+    private List<GroceryItem> reload() throws IOException {
+        return new LsmGroceryListDAO(directory.toString()).load();
+    }
+
+    private List<String> segmentNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).filter(name -> name.endsWith(".lsm")).sorted().toList();
+        }
+    }
+
+    private static GroceryChange added(String name, int quantity, String category) {
+        return GroceryChange.added(new GroceryItem(name, quantity, category));
+    }
+
+    private static GroceryChange merged(String name, int quantity, String category, int delta) {
+        return GroceryChange.merged(new GroceryItem(name, quantity, category), delta);
+    }
+
+    /**
+     * Should save and then reload all items, sorted by name and category.
+     */
+    @Test
+    void should_save_and_load_items() throws IOException {
+        dao.save(List.of(
+                new GroceryItem("Water", 6, "drinks"),
+                new GroceryItem("Bread", 1, "bakery"),
+                new GroceryItem("Crème brûlée", 2, "desserts")));
+
+        List<GroceryItem> loaded = reload();
+
+        assertThat(loaded).extracting(GroceryItem::getName).containsExactly("Bread", "Crème brûlée", "Water");
+        assertThat(loaded).extracting(GroceryItem::getQuantity).containsExactly(1, 2, 6);
+        assertThat(segmentNames()).hasSize(1);
+    }
+
+    /**
+     * Should recover changes still in the memtable from the log, ignoring a torn trailing record.
+     */
+    @Test
+    void should_replay_log_after_crash() throws IOException {
+        LsmGroceryListDAO large = new LsmGroceryListDAO(directory.toString());
+        large.apply(List.of(added("Milk", 2, "dairy"), merged("Milk", 5, "dairy", 3)));
+        Files.write(directory.resolve("memtable.log"), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        assertThat(segmentNames()).isEmpty();
+        List<GroceryItem> loaded = reload();
+
+        assertThat(loaded).extracting(GroceryItem::getName, GroceryItem::getQuantity).containsExactly(tuple("Milk", 5));
+    }
+
+    /**
+     * Should store merges as deltas and sum them with the flushed quantity on load.
+     */
+    @Test
+    void should_merge_deltas_across_segments() throws IOException {
+        dao.apply(List.of(added("Milk", 2, "dairy"), added("Tea", 1, "drinks")));
+        dao.apply(List.of(merged("Milk", 5, "dairy", 3), added("Eggs", 12, "dairy")));
+        dao.apply(List.of(merged("milk", 6, "dairy", 1)));
+
+        assertThat(dao.getStats().flushes()).isEqualTo(2);
+        assertThat(dao.load()).extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Eggs", 12), tuple("Milk", 6), tuple("Tea", 1));
+        assertThat(reload()).extracting(GroceryItem::getQuantity).containsExactly(12, 6, 1);
+    }
+
+    /**
+     * Should remove a name in every category, case-insensitively, and keep it removed across flushes.
+     */
+    @Test
+    void should_remove_name_in_every_category() throws IOException {
+        dao.apply(List.of(added("Milk", 2, "dairy"), added("Milk", 1, "baking")));
+        dao.apply(List.of(added("Tea", 1, "drinks")));
+        dao.apply(List.of(GroceryChange.removed("MILK")));
+        dao.apply(List.of(added("Milk", 4, "dairy"), added("Jam", 1, "sweets")));
+
+        assertThat(reload()).extracting(GroceryItem::getName, GroceryItem::getQuantity, GroceryItem::getCategory)
+                .containsExactly(tuple("Jam", 1, "sweets"), tuple("Milk", 4, "dairy"), tuple("Tea", 1, "drinks"));
+    }
+
+    /**
+     * Should fold the segments into one in the background, dropping tombstones, once they pile up.
+     */
+    @Test
+    void should_compact_segments() throws IOException {
+        for (int i = 0; i < 8; i++) {
+            dao.apply(List.of(added("Item " + i, i + 1, "misc"), merged("Item 0", 1 + i + 1, "misc", 1)));
+        }
+        dao.apply(List.of(GroceryChange.removed("Item 3")));
+        dao.close();
+
+        LsmGroceryListDAO.Stats stats = dao.getStats();
+        assertThat(stats.compactions()).isPositive();
+        assertThat(stats.memtableKeys()).isZero();
+        assertThat(stats.segments()).isEqualTo(segmentNames().size()).isLessThan(3);
+        assertThat(stats.writeAmplification()).isGreaterThan(1);
+        assertThat(reload()).extracting(GroceryItem::getName)
+                .containsExactly("Item 0", "Item 1", "Item 2", "Item 4", "Item 5", "Item 6", "Item 7");
+        assertThat(reload().get(0).getQuantity()).isEqualTo(9);
+    }
+
+    /**
+     * Should delete the inputs of a compaction interrupted before removing them, and temporary files.
+     */
+    @Test
+    void should_clean_up_after_interrupted_compaction() throws IOException {
+        dao.apply(List.of(added("Milk", 2, "dairy"), added("Tea", 1, "drinks")));
+        Path input = directory.resolve(segmentNames().get(0));
+        byte[] stale = Files.readAllBytes(input);
+        dao.save(List.of(new GroceryItem("Bread", 1, "bakery")));
+        Files.write(input, stale);
+        Files.write(directory.resolve("segment-0000000009-0000000009.lsm.tmp"), new byte[]{1, 2, 3});
+
+        assertThat(reload()).extracting(GroceryItem::getName).containsExactly("Bread");
+        assertThat(segmentNames()).containsExactly("segment-0000000001-0000000002.lsm");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).noneMatch(path -> path.toString().endsWith(".tmp"));
+        }
+    }
+
+    /**
+     * Should reject a segment whose content no longer matches its checksum.
+     */
+    @Test
+    void should_reject_corrupted_segment() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 2, "dairy")));
+        Path segment = directory.resolve(segmentNames().get(0));
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 6] ^= 0x20;
+        Files.write(segment, bytes);
+
+        assertThatThrownBy(this::reload).isInstanceOf(IOException.class).hasMessageContaining("checksum");
+    }
+
+    /**
+     * Should persist the mutations of a manager and flush its memtable when the manager is closed.
+     */
+    @Test
+    void should_persist_manager_mutations() throws IOException {
+        GroceryListManager manager = new GroceryListManager(GroceryListDAOFactory.create("lsm", directory.toString()));
+        manager.addItem("Milk", 2, "dairy");
+        manager.addItem("Milk", 3, "dairy");
+        manager.removeItem("Tea");
+        manager.close();
+
+        assertThat(Files.exists(directory.resolve("memtable.log"))).isFalse();
+        assertThat(reload()).extracting(GroceryItem::getName, GroceryItem::getQuantity).containsExactly(tuple("Milk", 5));
+    }
+}
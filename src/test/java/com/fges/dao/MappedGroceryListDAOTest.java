@@ -0,0 +1,179 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MappedGroceryListDAO}, which stores each item in a slot of a memory-mapped file.
+ */
+class MappedGroceryListDAOTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private MappedGroceryListDAO dao;
+
+    /**
+     * Initializes the test file and DAO before each test.
+     */
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("groceries.mmap");
+        dao = new MappedGroceryListDAO(file.toString());
+    }
+
+    private List<GroceryItem> reload() throws IOException {
+        return new MappedGroceryListDAO(file.toString()).load();
+    }
+
+    /**
+     * Should save and then reload all items, long names and categories included.
+     */
+    @Test
+    void should_save_and_load_items() throws IOException {
+        String longName = "Crème brûlée 🍮 ".repeat(10);
+        dao.save(List.of(
+                new GroceryItem("Bread", 1, "bakery"),
+                new GroceryItem(longName, 300, "desserts and other sweet things"),
+                new GroceryItem("Water", 6, "drinks")));
+
+        List<GroceryItem> loaded = reload();
+
+        assertThat(loaded).extracting(GroceryItem::getName).containsExactly("Bread", longName, "Water");
+        assertThat(loaded).extracting(GroceryItem::getQuantity).containsExactly(1, 300, 6);
+        assertThat(loaded).extracting(GroceryItem::getCategory)
+                .containsExactly("bakery", "desserts and other sweet things", "drinks");
+    }
+
+    /**
+     * Should return an empty list when the file does not exist, and create it on the first change.
+     */
+    @Test
+    void should_create_file_on_first_change() throws IOException {
+        assertThat(dao.load()).isEmpty();
+
+        dao.apply(List.of(GroceryChange.added(new GroceryItem("Milk", 2, "dairy"))));
+
+        assertThat(reload()).extracting(GroceryItem::getName).containsExactly("Milk");
+        assertThat(Files.size(file)).isLessThan(64 * 1024);
+    }
+
+    /**
+     * Should update a merged quantity in place, without rewriting the file.
+     */
+    @Test
+    void should_update_quantity_in_place() throws IOException {
+        dao.save(List.of(new GroceryItem("Milk", 1, "dairy"), new GroceryItem("Tea", 1, "drinks")));
+        dao.load();
+        Object before = Files.getAttribute(file, "fileKey");
+
+        dao.apply(List.of(GroceryChange.merged(new GroceryItem("Milk", 5, "dairy"), 4)));
+
+        assertThat(Files.getAttribute(file, "fileKey")).isEqualTo(before);
+        assertThat(reload()).extracting(GroceryItem::getQuantity).containsExactly(5, 1);
+    }
+
+    /**
+     * Should tombstone removed items in every category and reuse their slots.
+     */
+    @Test
+    void should_tombstone_removed_items_and_reuse_slots() throws IOException {
+        dao.save(List.of(
+                new GroceryItem("Milk", 1, "dairy"),
+                new GroceryItem("milk", 2, "drinks"),
+                new GroceryItem("Tea", 1, "drinks")));
+        dao.load();
+
+        dao.apply(List.of(GroceryChange.removed("MILK")));
+        assertThat(reload()).extracting(GroceryItem::getName).containsExactly("Tea");
+
+        dao.apply(List.of(GroceryChange.added(new GroceryItem("Jam", 1, "breakfast"))));
+        assertThat(reload()).extracting(GroceryItem::getName).hasSize(2).contains("Jam", "Tea").first().isEqualTo("Jam");
+    }
+
+    /**
+     * Should double the slot table once every slot is in use.
+     */
+    @Test
+    void should_grow_slot_table_when_full() throws IOException {
+        dao.load();
+        List<GroceryChange> changes = new ArrayList<>();
+        for (int i = 0; i < MappedGroceryListDAO.MIN_CAPACITY + 1; i++) {
+            changes.add(GroceryChange.added(new GroceryItem("Item" + i, i + 1, "default")));
+        }
+
+        dao.apply(changes);
+
+        assertThat(dao.getCapacity()).isEqualTo(MappedGroceryListDAO.MIN_CAPACITY * 2);
+        List<GroceryItem> loaded = reload();
+        assertThat(loaded).hasSize(MappedGroceryListDAO.MIN_CAPACITY + 1);
+        assertThat(loaded.get(MappedGroceryListDAO.MIN_CAPACITY).getQuantity()).isEqualTo(MappedGroceryListDAO.MIN_CAPACITY + 1);
+    }
+
+    /**
+     * Should ask for a compaction once removed long names dominate the overflow area.
+     */
+    @Test
+    void should_need_compaction_after_removing_long_names() throws IOException {
+        dao.load();
+        String padding = "x".repeat(1_000);
+        List<GroceryChange> changes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            changes.add(GroceryChange.added(new GroceryItem(padding + i, 1, "default")));
+        }
+        dao.apply(changes);
+        assertThat(dao.needsCompaction()).isFalse();
+
+        List<GroceryChange> removals = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            removals.add(GroceryChange.removed(padding + i));
+        }
+        dao.apply(removals);
+        assertThat(dao.needsCompaction()).isTrue();
+
+        dao.save(reload());
+        assertThat(dao.needsCompaction()).isFalse();
+        assertThat(reload()).hasSize(20);
+    }
+
+    /**
+     * Should keep the list of a manager across sessions.
+     */
+    @Test
+    void should_persist_manager_changes() throws IOException {
+        try (GroceryListManager manager = new GroceryListManager(dao)) {
+            manager.addItem("Milk", 1, "dairy");
+            manager.addItem("Milk", 2, "dairy");
+            manager.addItem("Tea", 1, "drinks");
+            manager.removeItem("Tea");
+        }
+
+        assertThat(reload()).extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Milk", 3));
+    }
+
+    /**
+     * Should reject a file that is not a slot file.
+     */
+    @Test
+    void should_reject_invalid_file() throws IOException {
+        Files.write(file, new byte[128]);
+
+        assertThatThrownBy(() -> dao.load())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a mapped grocery list");
+    }
+}
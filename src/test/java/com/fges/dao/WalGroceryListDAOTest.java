@@ -0,0 +1,163 @@
+package com.fges.dao;
+
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link WalGroceryListDAO}, which persists mutations
+ * as an append-only log on top of a JSON snapshot.
+ */
+class WalGroceryListDAOTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path snapshotFile;
+    private Path logFile;
+
+    /**
+     * Initializes the snapshot and log paths before each test.
+     */
+    @BeforeEach
+    void setUp() {
+        snapshotFile = tempDir.resolve("groceries.json");
+        logFile = tempDir.resolve("groceries.json.wal");
+    }
+
+    /**
+     * Should return an empty list when neither snapshot nor log exist.
+     */
+    @Test
+    void should_return_empty_list_when_nothing_is_stored() throws IOException {
+        assertThat(new WalGroceryListDAO(snapshotFile.toString()).load()).isEmpty();
+    }
+
+    /**
+     * Should append one record per change without writing a snapshot.
+     */
+    @Test
+    void should_append_changes_to_log_only() throws IOException {
+        WalGroceryListDAO dao = new WalGroceryListDAO(snapshotFile.toString());
+        GroceryItem milk = new GroceryItem("Milk", 2, "dairy");
+
+        dao.apply(List.of(GroceryChange.added(milk)));
+        dao.apply(List.of(GroceryChange.removed("milk")));
+
+        assertThat(snapshotFile).doesNotExist();
+        assertThat(Files.readAllLines(logFile)).containsExactly("U\t2\tdairy\tMilk", "R\tmilk");
+    }
+
+    /**
+     * Should replay adds, merges and removes on top of the snapshot.
+     */
+    @Test
+    void should_replay_log_on_top_of_snapshot() throws IOException {
+        WalGroceryListDAO dao = new WalGroceryListDAO(snapshotFile.toString());
+        dao.save(List.of(new GroceryItem("Bread", 1, "bakery"), new GroceryItem("Eggs", 6, "dairy")));
+
+        GroceryItem bread = new GroceryItem("Bread", 3, "bakery");
+        dao.apply(List.of(
+                GroceryChange.merged(bread, 2),
+                GroceryChange.removed("EGGS"),
+                GroceryChange.added(new GroceryItem("Juice", 1, "drinks"))
+        ));
+
+        List<GroceryItem> loaded = new WalGroceryListDAO(snapshotFile.toString()).load();
+        assertThat(loaded)
+                .extracting(GroceryItem::getName, GroceryItem::getQuantity, GroceryItem::getCategory)
+                .containsExactly(tuple("Bread", 3, "bakery"), tuple("Juice", 1, "drinks"));
+    }
+
+    /**
+     * Should escape separators so names with tabs or line breaks round-trip.
+     */
+    @Test
+    void should_round_trip_names_with_special_characters() throws IOException {
+        WalGroceryListDAO dao = new WalGroceryListDAO(snapshotFile.toString());
+        dao.apply(List.of(GroceryChange.added(new GroceryItem("Odd\tname\nwith \\ slash", 1, "misc"))));
+
+        assertThat(dao.load()).extracting(GroceryItem::getName).containsExactly("Odd\tname\nwith \\ slash");
+    }
+
+    /**
+     * Should ignore a truncated trailing record.
+     */
+    @Test
+    void should_ignore_truncated_trailing_record() throws IOException {
+        Files.writeString(logFile, "U\t2\tdairy\tMilk\nU\t3\tda");
+
+        assertThat(new WalGroceryListDAO(snapshotFile.toString()).load())
+                .extracting(GroceryItem::getName)
+                .containsExactly("Milk");
+    }
+
+    /**
+     * Should not replay a torn remove record as a remove of a shorter name.
+     */
+    @Test
+    void should_not_replay_torn_remove_record() throws IOException {
+        Files.writeString(logFile, "U\t2\tdairy\tMil\nU\t1\tdairy\tMilk\nR\tmil");
+
+        assertThat(new WalGroceryListDAO(snapshotFile.toString()).load())
+                .extracting(GroceryItem::getName)
+                .containsExactly("Mil", "Milk");
+    }
+
+    /**
+     * Should cut off a torn trailing record before appending so new records stay intact.
+     */
+    @Test
+    void should_discard_torn_tail_before_appending() throws IOException {
+        Files.writeString(logFile, "U\t2\tdairy\tMilk\nR\tmil");
+
+        WalGroceryListDAO dao = new WalGroceryListDAO(snapshotFile.toString());
+        dao.apply(List.of(GroceryChange.added(new GroceryItem("Eggs", 6, "dairy"))));
+
+        assertThat(Files.readAllLines(logFile)).containsExactly("U\t2\tdairy\tMilk", "U\t6\tdairy\tEggs");
+        assertThat(new WalGroceryListDAO(snapshotFile.toString()).load())
+                .extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Milk", 2), tuple("Eggs", 6));
+    }
+
+    /**
+     * Should request compaction past the threshold and truncate the log on save.
+     */
+    @Test
+    void should_compact_log_into_snapshot_when_threshold_reached() throws IOException {
+        WalGroceryListDAO dao = new WalGroceryListDAO(snapshotFile.toString(), 3);
+        GroceryListManager manager = new GroceryListManager(dao);
+
+        manager.addItem("Apple", 1, "fruits");
+        manager.addItem("Apple", 1, "fruits");
+        assertThat(logFile).exists();
+        assertThat(snapshotFile).doesNotExist();
+
+        manager.addItem("Pear", 1, "fruits");
+        assertThat(dao.needsCompaction()).isFalse();
+        assertThat(logFile).doesNotExist();
+        assertThat(new WalGroceryListDAO(snapshotFile.toString()).load())
+                .extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Apple", 2), tuple("Pear", 1));
+    }
+
+    /**
+     * Should reject a non-positive compaction threshold.
+     */
+    @Test
+    void should_throw_when_threshold_is_not_positive() {
+        assertThatThrownBy(() -> new WalGroceryListDAO(snapshotFile.toString(), 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("threshold");
+    }
+}
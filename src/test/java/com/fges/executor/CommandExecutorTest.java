@@ -3,9 +3,12 @@ package com.fges.executor;
 import com.fges.cli.CommandLineArgs;
 import com.fges.core.GroceryItem;
 import com.fges.dao.GroceryListDAO;
+import com.fges.dao.JsonGroceryListDAO;
 import com.fges.core.GroceryListManager;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -140,4 +143,22 @@ class CommandExecutorTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("must not be null");
     }
-}
\ No newline at end of file
+
+    /**
+     * Should flush write-behind mutations once the command has run.
+     */
+    @Test
+    void should_flush_write_behind_manager_after_execution(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("groceries.json");
+        CommandLineArgs args = new CommandLineArgs(
+                file.toString(), "json", "fruits", List.of("add", "Apple", "3"), Map.of("write-behind", "60000")
+        );
+
+        int result = new CommandExecutor(args).execute();
+
+        assertThat(result).isEqualTo(0);
+        assertThat(new JsonGroceryListDAO(file.toString()).load())
+                .extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Apple", 3));
+    }
+}
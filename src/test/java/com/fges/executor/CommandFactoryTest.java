@@ -1,5 +1,6 @@
 package com.fges.executor;
 
+import com.fges.cli.CommandLineArgs;
 import com.fges.core.GroceryItem;
 import com.fges.core.GroceryListManager;
 import com.fges.dao.GroceryListDAO;
@@ -7,9 +8,12 @@ import com.fges.executor.commands.*;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -128,4 +132,46 @@ class CommandFactoryTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("must not be null or empty");
     }
-}
\ No newline at end of file
+
+    /**
+     * Should list straight from the file when filtered and its format can be streamed, through a manager otherwise.
+     */
+    @Test
+    void should_stream_list_when_format_supports_it(@TempDir Path tempDir) throws Exception {
+        CommandLineArgs json = new CommandLineArgs(tempDir.resolve("groceries.json").toString(), "json",
+                "default", List.of("list"), Map.of("min-quantity", "2"));
+        assertThat(CommandFactory.create(json)).isInstanceOf(StreamingListCommand.class);
+
+        CommandLineArgs streamed = new CommandLineArgs(tempDir.resolve("groceries.json").toString(), "json",
+                "default", List.of("list"), Map.of("stream", "true"));
+        assertThat(CommandFactory.create(streamed)).isInstanceOf(StreamingListCommand.class);
+
+        CommandLineArgs unfiltered = new CommandLineArgs(tempDir.resolve("groceries.json").toString(), "json",
+                "default", List.of("list"));
+        Command sorted = CommandFactory.create(unfiltered);
+        assertThat(sorted).isInstanceOf(ManagedCommand.class);
+        ((ManagedCommand) sorted).close();
+
+        CommandLineArgs wal = new CommandLineArgs(tempDir.resolve("groceries.wal").toString(), "wal",
+                "default", List.of("list"));
+        Command command = CommandFactory.create(wal);
+        assertThat(command).isInstanceOf(ManagedCommand.class);
+        ((ManagedCommand) command).close();
+    }
+
+    /**
+     * Should summarize from the index of formats keeping one, through a manager otherwise.
+     */
+    @Test
+    void should_create_summary_command(@TempDir Path tempDir) throws Exception {
+        CommandLineArgs csv = new CommandLineArgs(tempDir.resolve("groceries.csv").toString(), "csv",
+                "default", List.of("summary"));
+        assertThat(CommandFactory.create(csv)).isInstanceOf(SummaryCommand.class);
+
+        CommandLineArgs bin = new CommandLineArgs(tempDir.resolve("groceries.bin").toString(), "bin",
+                "default", List.of("summary"));
+        Command command = CommandFactory.create(bin);
+        assertThat(command).isInstanceOf(ManagedCommand.class);
+        ((ManagedCommand) command).close();
+    }
+}
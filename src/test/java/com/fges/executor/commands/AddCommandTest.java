@@ -80,11 +80,24 @@ class AddCommandTest {
     void should_throw_when_quantity_is_not_numeric() {
         AddCommand command = new AddCommand(manager, "drinks");
 
-        assertThatThrownBy(() -> command.execute(List.of("add", "Juice", "two")))
+        assertThatThrownBy(() -> command.execute(List.of("Juice", "two")))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Quantity must be a number");
     }
 
+    /**
+     * Should reject a zero quantity, which no storage format can save, without adding anything.
+     */
+    @Test
+    void should_throw_when_quantity_is_zero() {
+        AddCommand command = new AddCommand(manager, "drinks");
+
+        assertThatThrownBy(() -> command.execute(List.of("Juice", "2", "Water", "0")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Quantity must be positive");
+        assertThat(manager.getItems()).isEmpty();
+    }
+
     /**
      * Should throw if manager is null.
      */
@@ -108,4 +121,34 @@ class AddCommandTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Category");
     }
-}
\ No newline at end of file
+
+    /**
+     * Should add several name and quantity pairs in one invocation.
+     */
+    @Test
+    void should_add_several_items_at_once() throws IOException {
+        AddCommand command = new AddCommand(manager, "dairy");
+        int result = command.execute(List.of("Milk", "2", "Eggs", "12", "milk", "1"));
+
+        assertThat(result).isEqualTo(0);
+        assertThat(manager.listItems("dairy"))
+                .extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Milk", 3), tuple("Eggs", 12));
+    }
+
+    /**
+     * Should reject an incomplete pair without adding anything.
+     */
+    @Test
+    void should_throw_when_last_pair_is_incomplete() {
+        AddCommand command = new AddCommand(manager, "dairy");
+
+        assertThatThrownBy(() -> command.execute(List.of("Milk", "2", "Eggs")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Usage");
+        assertThatThrownBy(() -> command.execute(List.of("Milk", "two", "Eggs")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Usage");
+        assertThat(manager.getItems()).isEmpty();
+    }
+}
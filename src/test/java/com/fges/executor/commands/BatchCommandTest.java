@@ -0,0 +1,112 @@
+package com.fges.executor.commands;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import com.fges.core.WriteBehindPolicy;
+import com.fges.dao.JsonGroceryListDAO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BatchCommand}.
+ * Verifies dispatching of script lines, failure accounting and persistence points.
+ */
+class BatchCommandTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private BatchCommand batch(GroceryListManager manager, long flushEvery, String script) {
+        return new BatchCommand(manager, "default", flushEvery,
+                new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Should run every line from standard input and persist once at the end.
+     */
+    @Test
+    void should_run_script_and_persist_once() throws IOException {
+        Path file = tempDir.resolve("groceries.json");
+        GroceryListManager manager = new GroceryListManager(new JsonGroceryListDAO(file.toString()), WriteBehindPolicy.manual());
+
+        int result = batch(manager, 0, """
+                # nightly sync
+                add Milk 2 -c dairy
+                add "Greek yogurt" 3 -c dairy
+                add Apple 5
+
+                add Milk 1 -c dairy
+                remove Apple
+                """).execute(List.of());
+
+        assertThat(result).isZero();
+        assertThat(manager.getWriteCount()).isEqualTo(1);
+        assertThat(new JsonGroceryListDAO(file.toString()).load())
+                .extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Milk", 3), tuple("Greek yogurt", 3));
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("5 command(s), 0 failed").contains("1 write(s)");
+    }
+
+    /**
+     * Should report failing lines, keep going and return a failure code.
+     */
+    @Test
+    void should_count_failures_and_continue() throws IOException {
+        GroceryListManager manager = new GroceryListManager(
+                new JsonGroceryListDAO(tempDir.resolve("groceries.json").toString()), WriteBehindPolicy.manual());
+
+        int result = batch(manager, 0, """
+                add Milk two
+                web 8080
+                add Bread 1 -c bakery
+                """).execute(List.of("-"));
+
+        assertThat(result).isEqualTo(1);
+        assertThat(manager.getItems()).extracting(GroceryItem::getName).containsExactly("Bread");
+        assertThat(err.toString(StandardCharsets.UTF_8))
+                .contains("Line 1: Quantity must be a number")
+                .contains("Line 2: Unsupported command in batch: web");
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("3 command(s), 2 failed");
+    }
+
+    /**
+     * Should persist every N commands when asked to, reading the script from a file.
+     */
+    @Test
+    void should_flush_every_n_commands() throws IOException {
+        Path script = tempDir.resolve("script.txt");
+        Files.writeString(script, "add A 1\nadd B 1\nadd C 1\nadd D 1\nadd E 1\n");
+        GroceryListManager manager = new GroceryListManager(
+                new JsonGroceryListDAO(tempDir.resolve("groceries.json").toString()), WriteBehindPolicy.manual());
+
+        batch(manager, 2, "").execute(List.of(script.toString()));
+
+        assertThat(manager.getWriteCount()).isEqualTo(3);
+    }
+
+    /**
+     * Should keep quoted sections together when splitting a line.
+     */
+    @Test
+    void should_tokenize_quoted_arguments() {
+        assertThat(BatchCommand.tokenize("add 'Peanut butter' 2  -c \"spreads & jams\""))
+                .containsExactly("add", "Peanut butter", "2", "-c", "spreads & jams");
+        assertThatThrownBy(() -> BatchCommand.tokenize("add \"Milk 2"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,6 +1,7 @@
 package com.fges.executor.commands;
 
 import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
 import com.fges.core.GroceryListManager;
 import com.fges.dao.GroceryListDAO;
 
@@ -73,6 +74,22 @@ class ListCommandTest {
         assertThat(out).contains("# dairy:", "Milk: 1");
     }
 
+    /**
+     * Should print only the items matching the filter, up to its limit.
+     */
+    @Test
+    void should_list_items_matching_filter() throws Exception {
+        manager.addItem("Milk", 2, "dairy");
+        manager.addItem("Mozzarella", 1, "dairy");
+        manager.addItem("Mango", 4, "fruits");
+        manager.addItem("Cheese", 3, "dairy");
+
+        new ListCommand(manager, System.out, new GroceryItemFilter("Dairy", "m", 0, 1)).execute(List.of());
+
+        String n = System.lineSeparator();
+        assertThat(output.toString()).isEqualTo("# dairy:" + n + "Milk: 2" + n + n);
+    }
+
     /**
      * Should return 0 and still run when extra arguments are passed.
      */
@@ -0,0 +1,31 @@
+package com.fges.executor.commands;
+
+import com.fges.cli.CommandLineArgs;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ServeCommand}.
+ */
+class ServeCommandTest {
+
+    /**
+     * Should reject null arguments.
+     */
+    @Test
+    void should_throw_when_args_are_null() {
+        assertThatThrownBy(() -> new ServeCommand(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Should fail without starting when the port is not a number.
+     */
+    @Test
+    void should_return_1_on_invalid_port() {
+        CommandLineArgs args = new CommandLineArgs("grocery.json", "json", "default", List.of("serve", "http"));
+        assertThat(new ServeCommand(args).execute(List.of())).isEqualTo(1);
+    }
+}
@@ -0,0 +1,104 @@
+package com.fges.executor.commands;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryItemFilter;
+import com.fges.dao.JsonGroceryListDAO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link StreamingListCommand}, which prints the list straight from the file.
+ */
+class StreamingListCommandTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JsonGroceryListDAO dao;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    /**
+     * Writes a list spanning two categories.
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        dao = new JsonGroceryListDAO(tempDir.resolve("groceries.json").toString());
+        dao.save(List.of(
+                new GroceryItem("Milk", 2, "dairy"),
+                new GroceryItem("Mint tea", 1, "drinks"),
+                new GroceryItem("Cheese", 1, "dairy"),
+                new GroceryItem("Water", 6, "drinks")));
+    }
+
+    private String list(GroceryItemFilter filter) throws Exception {
+        int result = new StreamingListCommand(dao, filter, new PrintStream(output, true)).execute(List.of());
+        assertThat(result).isEqualTo(0);
+        return output.toString();
+    }
+
+    /**
+     * Should print every item in file order, with a header for each run of a category.
+     */
+    @Test
+    void should_print_items_in_file_order() throws Exception {
+        String n = System.lineSeparator();
+
+        assertThat(list(GroceryItemFilter.ALL)).isEqualTo(
+                "# dairy:" + n + "Milk: 2" + n + n
+                        + "# drinks:" + n + "Mint tea: 1" + n + n
+                        + "# dairy:" + n + "Cheese: 1" + n + n
+                        + "# drinks:" + n + "Water: 6" + n + n);
+    }
+
+    /**
+     * Should print a single category in the format of the 'list' command.
+     */
+    @Test
+    void should_print_one_category_like_list_command() throws Exception {
+        String n = System.lineSeparator();
+
+        assertThat(list(new GroceryItemFilter("DAIRY", null, 0, Long.MAX_VALUE)))
+                .isEqualTo("# dairy:" + n + "Milk: 2" + n + "Cheese: 1" + n + n);
+    }
+
+    /**
+     * Should apply the name prefix, minimum quantity and limit.
+     */
+    @Test
+    void should_apply_filter_and_limit() throws Exception {
+        assertThat(list(new GroceryItemFilter(null, "m", 0, 1)))
+                .contains("Milk: 2").doesNotContain("Mint tea", "drinks");
+        output.reset();
+        assertThat(list(new GroceryItemFilter(null, null, 2, 10)))
+                .contains("Milk: 2", "Water: 6").doesNotContain("Cheese", "Mint tea");
+    }
+
+    /**
+     * Should print nothing when the file does not exist.
+     */
+    @Test
+    void should_print_nothing_for_missing_file() throws Exception {
+        dao = new JsonGroceryListDAO(tempDir.resolve("missing.json").toString());
+
+        assertThat(list(GroceryItemFilter.ALL)).isEmpty();
+    }
+
+    /**
+     * Should throw when the DAO is null.
+     */
+    @Test
+    void should_throw_if_dao_is_null() {
+        assertThatThrownBy(() -> new StreamingListCommand(null, GroceryItemFilter.ALL, System.out))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot be null");
+    }
+}
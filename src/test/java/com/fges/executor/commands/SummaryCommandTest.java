@@ -0,0 +1,87 @@
+package com.fges.executor.commands;
+
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import com.fges.dao.CsvGroceryListDAO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SummaryCommand}.
+ */
+class SummaryCommandTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CsvGroceryListDAO dao;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(output, true);
+
+    /**
+     * Writes a list spanning two categories.
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        dao = new CsvGroceryListDAO(tempDir.resolve("groceries.csv").toString());
+        dao.save(List.of(
+                new GroceryItem("Milk", 2, "dairy"),
+                new GroceryItem("Water", 6, "drinks"),
+                new GroceryItem("Cheese", 1, "dairy")));
+    }
+
+    /**
+     * Should print the count and total quantity of every category from the index.
+     */
+    @Test
+    void should_summarize_every_category() throws Exception {
+        int result = new SummaryCommand(dao, null, out).execute(List.of());
+
+        String n = System.lineSeparator();
+        assertThat(result).isEqualTo(0);
+        assertThat(output.toString()).isEqualTo("dairy: 2 items, quantity 3" + n + "drinks: 1 items, quantity 6" + n);
+    }
+
+    /**
+     * Should print a single category, even an unknown one.
+     */
+    @Test
+    void should_summarize_one_category() throws Exception {
+        new SummaryCommand(dao, "DRINKS", out).execute(List.of());
+        new SummaryCommand(dao, "bakery", out).execute(List.of());
+
+        assertThat(output.toString()).contains("drinks: 1 items, quantity 6", "bakery: 0 items, quantity 0")
+                .doesNotContain("dairy");
+    }
+
+    /**
+     * Should print the same summary from a manager.
+     */
+    @Test
+    void should_summarize_manager_items() throws Exception {
+        try (GroceryListManager manager = new GroceryListManager(dao)) {
+            new SummaryCommand(manager, null, out).execute(List.of());
+        }
+
+        assertThat(output.toString()).contains("dairy: 2 items, quantity 3", "drinks: 1 items, quantity 6");
+    }
+
+    /**
+     * Should throw when the DAO is null.
+     */
+    @Test
+    void should_throw_if_dao_is_null() {
+        assertThatThrownBy(() -> new SummaryCommand((CsvGroceryListDAO) null, null, out))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot be null");
+    }
+}
@@ -0,0 +1,347 @@
+package com.fges.web;
+
+import com.fges.core.GroceryChange;
+import com.fges.core.GroceryEvent;
+import com.fges.core.GroceryItem;
+import com.fges.core.GroceryListManager;
+import com.fges.core.GroceryListRegistry;
+import com.fges.dao.GroceryListDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for {@link GroceryHttpServer}, exercised over loopback with the JDK HTTP client.
+ */
+class GroceryHttpServerTest {
+
+    private GroceryListManager manager;
+    private GroceryHttpServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * Starts a server on an ephemeral port backed by an in-memory manager.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        GroceryListDAO dao = new GroceryListDAO() {
+            private List<GroceryItem> items = new ArrayList<>();
+
+            @Override
+            public List<GroceryItem> load() {
+                return new ArrayList<>(items);
+            }
+
+            @Override
+            public void save(List<GroceryItem> items) {
+                this.items = new ArrayList<>(items);
+            }
+        };
+        manager = new GroceryListManager(dao);
+        server = new GroceryHttpServer(new GroceryShopAdapter(manager), 0, GroceryHttpServer.DEFAULT_BACKLOG);
+        server.start();
+    }
+
+    /**
+     * Stops the server.
+     */
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+    }
+
+    /**
+     * Should add, list and remove items through the JSON endpoints.
+     */
+    @Test
+    void should_add_list_and_remove_items() throws Exception {
+        HttpResponse<String> added = send(request("/api/groceries")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Crème fraîche\",\"quantity\":2,\"category\":\"dairy\"}")));
+        assertThat(added.statusCode()).isEqualTo(201);
+
+        HttpResponse<String> listed = send(request("/api/groceries").GET());
+        assertThat(listed.statusCode()).isEqualTo(200);
+        assertThat(listed.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type).contains("json"));
+        assertThat(listed.body()).isEqualTo("[{\"name\":\"Crème fraîche\",\"quantity\":2,\"category\":\"dairy\"}]");
+
+        HttpResponse<String> removed = send(request("/api/groceries/Cr%C3%A8me%20fra%C3%AEche").DELETE());
+        assertThat(removed.statusCode()).isEqualTo(204);
+        assertThat(manager.getItems()).isEmpty();
+    }
+
+    /**
+     * Should answer invalid bodies with 400 and a JSON error.
+     */
+    @Test
+    void should_reject_invalid_items() throws Exception {
+        HttpResponse<String> notJson = send(request("/api/groceries").POST(HttpRequest.BodyPublishers.ofString("[1]")));
+        assertThat(notJson.statusCode()).isEqualTo(400);
+        assertThat(notJson.body()).contains("\"error\"");
+
+        HttpResponse<String> badQuantity = send(request("/api/groceries")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Milk\",\"quantity\":\"two\"}")));
+        assertThat(badQuantity.statusCode()).isEqualTo(400);
+
+        HttpResponse<String> noName = send(request("/api/groceries")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"quantity\":2}")));
+        assertThat(noName.statusCode()).isEqualTo(400);
+        assertThat(manager.getItems()).isEmpty();
+    }
+
+    /**
+     * Should answer unknown paths with 404 and unsupported methods with 405.
+     */
+    @Test
+    void should_reject_unknown_routes() throws Exception {
+        assertThat(send(request("/api/groceriesx").GET()).statusCode()).isEqualTo(404);
+
+        HttpResponse<String> put = send(request("/api/groceries").PUT(HttpRequest.BodyPublishers.noBody()));
+        assertThat(put.statusCode()).isEqualTo(405);
+        assertThat(put.headers().firstValue("Allow")).hasValue("GET, POST");
+    }
+
+    /**
+     * Should answer a GET with the current ETag with 304 until the list changes.
+     */
+    @Test
+    void should_answer_not_modified_for_current_etag() throws Exception {
+        manager.addItem("Milk", 1, "dairy");
+
+        HttpResponse<String> first = send(request("/api/groceries").GET());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> unchanged = send(request("/api/groceries").header("If-None-Match", etag).GET());
+        assertThat(unchanged.statusCode()).isEqualTo(304);
+        assertThat(unchanged.body()).isEmpty();
+
+        manager.addItem("Eggs", 6, "dairy");
+
+        HttpResponse<String> changed = send(request("/api/groceries").header("If-None-Match", etag).GET());
+        assertThat(changed.statusCode()).isEqualTo(200);
+        assertThat(changed.body()).contains("Eggs");
+        assertThat(changed.headers().firstValue("ETag")).isPresent().get().isNotEqualTo(etag);
+    }
+
+    /**
+     * Should match tags in If-None-Match lists, weak tags and the wildcard.
+     */
+    @Test
+    void should_match_if_none_match_values() {
+        assertThat(GroceryHttpServer.matches("\"a-1\"", "\"a-1\"")).isTrue();
+        assertThat(GroceryHttpServer.matches("\"a-0\", W/\"a-1\"", "\"a-1\"")).isTrue();
+        assertThat(GroceryHttpServer.matches("*", "\"a-1\"")).isTrue();
+        assertThat(GroceryHttpServer.matches("\"a-2\"", "\"a-1\"")).isFalse();
+    }
+
+    /**
+     * Should apply a batch of additions and removals in one request.
+     */
+    @Test
+    void should_apply_batch_of_mutations() throws Exception {
+        manager.addItem("Tea", 1, "drinks");
+
+        HttpResponse<String> response = send(request("/api/groceries/batch").POST(HttpRequest.BodyPublishers.ofString(
+                "[{\"name\":\"Milk\",\"quantity\":1,\"category\":\"dairy\"},"
+                        + "{\"op\":\"add\",\"name\":\"Milk\",\"quantity\":2,\"category\":\"dairy\"},"
+                        + "{\"op\":\"remove\",\"name\":\"Tea\"}]")));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("{\"changes\":2}");
+        assertThat(manager.getItems())
+                .extracting(GroceryItem::getName, GroceryItem::getQuantity)
+                .containsExactly(tuple("Milk", 3));
+    }
+
+    /**
+     * Should reject a batch with an invalid entry without applying any of it.
+     */
+    @Test
+    void should_reject_invalid_batch_as_a_whole() throws Exception {
+        HttpResponse<String> response = send(request("/api/groceries/batch").POST(HttpRequest.BodyPublishers.ofString(
+                "[{\"name\":\"Milk\",\"quantity\":1},{\"op\":\"rename\",\"name\":\"Milk\"}]")));
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).contains("Unknown operation");
+        assertThat(manager.getItems()).isEmpty();
+    }
+
+    /**
+     * Should reject additions without a positive quantity before they reach the list,
+     * so that later valid additions can still be saved.
+     */
+    @Test
+    void should_reject_missing_or_zero_quantity(@TempDir Path directory) throws Exception {
+        try (GroceryListRegistry registry = new GroceryListRegistry(GroceryListRegistry.directory(directory, "json", null), 10);
+             GroceryHttpServer lists = new GroceryHttpServer(registry, 0, GroceryHttpServer.DEFAULT_BACKLOG)) {
+            lists.start();
+            URI groceries = URI.create("http://localhost:" + lists.getPort() + "/lists/smith/groceries");
+
+            HttpResponse<String> missing = send(HttpRequest.newBuilder(groceries)
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Ghost\"}")));
+            assertThat(missing.statusCode()).isEqualTo(400);
+            HttpResponse<String> zero = send(HttpRequest.newBuilder(URI.create(groceries + "/batch"))
+                    .POST(HttpRequest.BodyPublishers.ofString("[{\"name\":\"Ghost\",\"quantity\":0,\"category\":\"misc\"}]")));
+            assertThat(zero.statusCode()).isEqualTo(400);
+
+            HttpResponse<String> added = send(HttpRequest.newBuilder(groceries)
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Milk\",\"quantity\":2,\"category\":\"dairy\"}")));
+            assertThat(added.statusCode()).isEqualTo(201);
+            HttpResponse<String> listed = send(HttpRequest.newBuilder(groceries).GET());
+            assertThat(listed.body()).isEqualTo("[{\"name\":\"Milk\",\"quantity\":2,\"category\":\"dairy\"}]");
+        }
+    }
+
+    /**
+     * Should serve each list of a registry under its own routes.
+     */
+    @Test
+    void should_serve_lists_of_a_registry(@TempDir Path directory) throws Exception {
+        try (GroceryListRegistry registry = new GroceryListRegistry(GroceryListRegistry.directory(directory, "json", null), 10);
+             GroceryHttpServer lists = new GroceryHttpServer(registry, 0, GroceryHttpServer.DEFAULT_BACKLOG)) {
+            lists.start();
+            String base = "http://localhost:" + lists.getPort();
+
+            HttpResponse<String> added = send(HttpRequest.newBuilder(URI.create(base + "/lists/smith/groceries"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Milk\",\"quantity\":2}")));
+            assertThat(added.statusCode()).isEqualTo(201);
+
+            HttpResponse<String> smith = send(HttpRequest.newBuilder(URI.create(base + "/lists/smith/groceries")).GET());
+            HttpResponse<String> jones = send(HttpRequest.newBuilder(URI.create(base + "/lists/jones/groceries")).GET());
+            assertThat(smith.body()).contains("Milk");
+            assertThat(jones.body()).isEqualTo("[]");
+            assertThat(smith.headers().firstValue("ETag")).isNotEqualTo(jones.headers().firstValue("ETag"));
+            assertThat(directory.resolve("smith.json")).exists();
+
+            HttpResponse<String> removed = send(HttpRequest.newBuilder(URI.create(base + "/lists/smith/groceries/Milk")).DELETE());
+            assertThat(removed.statusCode()).isEqualTo(204);
+
+            assertThat(send(HttpRequest.newBuilder(URI.create(base + "/lists/smith")).GET()).statusCode()).isEqualTo(404);
+            assertThat(send(HttpRequest.newBuilder(URI.create(base + "/lists/..%2Fsmith/groceries")).GET()).statusCode()).isEqualTo(400);
+        }
+    }
+
+    /**
+     * Should answer storage failures with a generic 500 that does not leak the file path.
+     */
+    @Test
+    void should_hide_storage_failures_behind_generic_error() throws Exception {
+        GroceryListRegistry.Loader failing = id -> {
+            throw new IOException("Cannot read /srv/groceries/" + id + ".json");
+        };
+        try (GroceryListRegistry registry = new GroceryListRegistry(failing, 10);
+             GroceryHttpServer lists = new GroceryHttpServer(registry, 0, GroceryHttpServer.DEFAULT_BACKLOG)) {
+            lists.start();
+
+            HttpResponse<String> response = send(HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + lists.getPort() + "/lists/smith/groceries")).GET());
+
+            assertThat(response.statusCode()).isEqualTo(500);
+            assertThat(response.body()).doesNotContain("/srv/groceries");
+        }
+    }
+
+    /**
+     * Should push one event per change to the clients of the event stream, until the server closes.
+     */
+    @Test
+    void should_stream_changes_as_server_sent_events() throws Exception {
+        HttpResponse<Stream<String>> response = client.send(request("/api/groceries/events").GET().build(),
+                HttpResponse.BodyHandlers.ofLines());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type).startsWith("text/event-stream"));
+        Iterator<String> lines = response.body().iterator();
+        assertThat(lines.next()).isEqualTo(": connected");
+        assertThat(lines.next()).isEmpty();
+
+        manager.addItem("Milk", 2, "dairy");
+        manager.removeItem("Milk");
+
+        assertThat(List.of(lines.next(), lines.next(), lines.next(), lines.next())).containsExactly(
+                "id: 1", "event: add", "data: {\"name\":\"Milk\",\"quantity\":2,\"category\":\"dairy\",\"delta\":2,\"version\":1}", "");
+        assertThat(List.of(lines.next(), lines.next(), lines.next())).containsExactly(
+                "id: 2", "event: remove", "data: {\"name\":\"Milk\",\"version\":2}");
+
+        server.close();
+        // The stream ends, cleanly or with the connection closed by the server
+        Throwable end = catchThrowable(() -> lines.forEachRemaining(line -> assertThat(line).isEmpty()));
+        assertThat(end).satisfiesAnyOf(
+                thrown -> assertThat(thrown).isNull(),
+                thrown -> assertThat(thrown).isInstanceOf(UncheckedIOException.class));
+    }
+
+    /**
+     * Should not keep a watched list loaded, and tell its clients to resync when it is evicted.
+     */
+    @Test
+    void should_release_watched_list_and_resync_on_eviction(@TempDir Path directory) throws Exception {
+        try (GroceryListRegistry registry = new GroceryListRegistry(GroceryListRegistry.directory(directory, "json", null), 1);
+             GroceryHttpServer lists = new GroceryHttpServer(registry, 0, GroceryHttpServer.DEFAULT_BACKLOG)) {
+            lists.start();
+            String base = "http://localhost:" + lists.getPort();
+
+            HttpResponse<Stream<String>> response = client.send(HttpRequest.newBuilder(
+                    URI.create(base + "/lists/smith/groceries/events")).GET().build(), HttpResponse.BodyHandlers.ofLines());
+            Iterator<String> lines = response.body().iterator();
+            assertThat(lines.next()).isEqualTo(": connected");
+            assertThat(lines.next()).isEmpty();
+
+            assertThat(send(HttpRequest.newBuilder(URI.create(base + "/lists/jones/groceries")).GET()).statusCode()).isEqualTo(200);
+
+            assertThat(List.of(lines.next(), lines.next())).containsExactly("event: resync", "data: {}");
+            assertThat(registry.size()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Should ask a client reconnecting after missed events to resync.
+     */
+    @Test
+    void should_send_resync_to_client_that_missed_events() throws Exception {
+        manager.addItem("Milk", 1, "dairy");
+        manager.addItem("Eggs", 6, "dairy");
+
+        HttpResponse<Stream<String>> response = client.send(request("/api/groceries/events")
+                .header("Last-Event-ID", "1").GET().build(), HttpResponse.BodyHandlers.ofLines());
+        Iterator<String> lines = response.body().iterator();
+        lines.next();
+        lines.next();
+
+        assertThat(List.of(lines.next(), lines.next())).containsExactly("event: resync", "data: {}");
+        server.close();
+    }
+
+    /**
+     * Should serialize an event as an SSE frame with its sequence as id and its type as event name.
+     */
+    @Test
+    void should_frame_event_with_sequence_and_type() {
+        GroceryEvent event = new GroceryEvent(7, 3, GroceryChange.merged(new GroceryItem("Tea", 5, "drinks"), 2));
+
+        assertThat(new String(GroceryEventStream.frame(event), StandardCharsets.UTF_8)).isEqualTo(
+                "id: 7\nevent: merge\ndata: {\"name\":\"Tea\",\"quantity\":5,\"category\":\"drinks\",\"delta\":2,\"version\":3}\n\n");
+    }
+}
@@ -109,4 +109,23 @@ class GroceryShopAdapterTest {
                 .isInstanceOf(NullPointerException.class)
                 .hasMessageContaining("GroceryListManager cannot be null");
     }
-}
\ No newline at end of file
+
+    /**
+     * Should reuse the projected list until the manager changes.
+     */
+    @Test
+    void should_cache_projection_until_list_changes() throws IOException {
+        manager.addItem("Milk", 1, "dairy");
+
+        GroceryShopAdapter.Groceries first = adapter.getVersionedGroceries();
+        assertThat(adapter.getVersionedGroceries()).isSameAs(first);
+        assertThat(adapter.getGroceries()).isSameAs(first.items());
+
+        adapter.addGroceryItem("Milk", 2, "dairy");
+
+        GroceryShopAdapter.Groceries second = adapter.getVersionedGroceries();
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.version()).isGreaterThan(first.version());
+        assertThat(second.items()).extracting(WebGroceryItem::quantity).containsExactly(3);
+    }
+}